@@ -0,0 +1,109 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The allocations of the search paths of the trees, meant to be run with the gc profiler:
+ * java -cp ... org.openjdk.jmh.Main AllocationBenchmark -prof gc
+ * and read from gc.alloc.rate.norm (bytes per operation).
+ *
+ * The set holds the even keys 0, 2, ..., 2*(size-1). The keys are boxed up front, so that boxing does not show up as an allocation.
+ * contains, addPresent and removeAbsent do not change the set and should not allocate at all.
+ * addAndRemove inserts and removes an odd key: it allocates the node of the key and nothing else.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AllocationBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree, Structures.scapegoatTree})
+	public String structure;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		set = Structures.newSet(structure);
+		int[] keys = new int[size];
+		for (int i=0; i<size; i++) {
+			keys[i] = 2*i;
+		}
+		Structures.addAll(set, keys);
+
+		int[] probes = KeyDistribution.UNIFORM.keys(numberOfProbes, size, seed);
+		presentKeys = new Integer[numberOfProbes];
+		absentKeys = new Integer[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			presentKeys[i] = 2*probes[i];
+			absentKeys[i] = 2*probes[i]+1;
+		}
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean contains()
+	{
+		return set.contains(presentKeys[advance()]);
+	}
+
+	@Benchmark
+	public boolean addPresent()
+	{
+		return set.add(presentKeys[advance()]);
+	}
+
+	@Benchmark
+	public boolean removeAbsent()
+	{
+		return set.remove(absentKeys[advance()]);
+	}
+
+	@Benchmark
+	public boolean addAndRemove()
+	{
+		Integer key = absentKeys[advance()];
+		set.add(key);
+		return set.remove(key);
+	}
+
+	private int advance()
+	{
+		int current = next;
+		next = (current+1) & (numberOfProbes-1);
+		return current;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfProbes = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private Set<Integer> set;
+	private Integer[] presentKeys;
+	private Integer[] absentKeys;
+	private int next;
+}
@@ -0,0 +1,85 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to merge a batch of keys into a populated set with one addAll.
+ * RandomizedBST and Treap merge large batches with a parallel union, so their timings depend on the number of cores.
+ * The batch is unsorted and partially overlaps with the set.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class BatchInsertBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.treap, Structures.treeSet, Structures.skipList})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"65536", "1048576"})
+	public int batchSize;
+
+	@Param({"UNIFORM", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		int range = 2*(size+batchSize);
+		int[] sorted = distribution.distinctSortedKeys(size, range, seed);
+		sortedKeys = new ArrayList<Integer>(sorted.length);
+		for (int i=0; i<sorted.length; i++) {
+			sortedKeys.add(sorted[i]);
+		}
+
+		int[] keys = distribution.keys(batchSize, range, seed+1);
+		batch = new ArrayList<Integer>(batchSize);
+		for (int i=0; i<batchSize; i++) {
+			batch.add(keys[i]);
+		}
+	}
+
+	//every merge needs a fresh copy of the populated set
+	@Setup(Level.Invocation)
+	public void setUpSet()
+	{
+		set = Structures.newSet(structure);
+		set.addAll(sortedKeys);
+	}
+
+	@Benchmark
+	public Set<Integer> addAll()
+	{
+		set.addAll(batch);
+		return set;
+	}
+
+	private static final long seed = 2;
+	private List<Integer> sortedKeys;
+	private List<Integer> batch;
+	private Set<Integer> set;
+}
@@ -0,0 +1,39 @@
+package ch.ethz.glukas.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks and writes the results as JSON, so that runs of different releases can be diffed.
+ *
+ * Usage: BenchmarkRunner [include regex] [result file]
+ * e.g. BenchmarkRunner SetBenchmark results-1.2.json
+ *
+ * The benchmarks need jmh-core on the classpath and jmh-generator-annprocess as annotation processor when compiling the benchmark folder.
+ * For anything beyond the defaults (profilers, parameter overrides such as -p size=1024) use org.openjdk.jmh.Main directly,
+ * e.g. java -cp ... org.openjdk.jmh.Main SetBenchmark -p structure=SplayTree -prof gc -rf json -rff out.json
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException
+	{
+		String include = args.length > 0 ? args[0] : ".*";
+		String resultFile = args.length > 1 ? args[1] : defaultResultFile;
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.resultFormat(ResultFormatType.JSON)
+				.result(resultFile)
+				.build();
+
+		new Runner(options).run();
+	}
+
+	private static final String defaultResultFile = "benchmark-results.json";
+}
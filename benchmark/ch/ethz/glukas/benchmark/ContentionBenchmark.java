@@ -0,0 +1,161 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.ConcurrentRandomizedBST;
+import ch.ethz.glukas.orderedset.RandomizedBST;
+
+/**
+ * Measures a set shared by concurrent threads: in each group, three readers run lookups (contains, floor or a rank query) while one writer adds and removes keys.
+ * The reported score of a group is the throughput of each method.
+ *
+ * ConcurrentRandomizedBST reads optimistically, SynchronizedRandomizedBST serializes all operations of a RandomizedBST behind one lock.
+ * ConcurrentSkipListSet is the baseline for contains and floor. It has no rank queries, it counts the keys of a head set instead, which takes linear time.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContentionBenchmark {
+
+	public static final String synchronizedRandomizedBST = "SynchronizedRandomizedBST";
+
+	@Param({Structures.concurrentRandomizedBST, synchronizedRandomizedBST, Structures.skipList})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int[] keys = KeyDistribution.UNIFORM.distinctSortedKeys(size, 2*size, 0);
+		List<Integer> sortedKeys = new ArrayList<Integer>(keys.length);
+		for (int i=0; i<keys.length; i++) {
+			sortedKeys.add(keys[i]);
+		}
+
+		if (structure.equals(synchronizedRandomizedBST)) {
+			lockedTree = new RandomizedBST<Integer>();
+			lockedTree.addAll(sortedKeys);
+		} else {
+			set = Structures.newNavigableSet(structure);
+			set.addAll(sortedKeys);
+		}
+	}
+
+	//the random generator of each thread
+	@State(Scope.Thread)
+	public static class ThreadKeys {
+
+		public Integer nextKey(int range)
+		{
+			return random.nextInt(range);
+		}
+
+		private final Random random = new Random(Thread.currentThread().getId());
+	}
+
+	@Benchmark
+	@Group("contains")
+	@GroupThreads(3)
+	public boolean containsRead(ThreadKeys keys)
+	{
+		Integer key = keys.nextKey(2*size);
+		if (lockedTree == null) return set.contains(key);
+		synchronized (lockedTree) {
+			return lockedTree.contains(key);
+		}
+	}
+
+	@Benchmark
+	@Group("contains")
+	@GroupThreads(1)
+	public boolean containsWrite(ThreadKeys keys)
+	{
+		return write(keys);
+	}
+
+	@Benchmark
+	@Group("floor")
+	@GroupThreads(3)
+	public Integer floorRead(ThreadKeys keys)
+	{
+		Integer key = keys.nextKey(2*size);
+		if (lockedTree == null) return set.floor(key);
+		synchronized (lockedTree) {
+			return lockedTree.floor(key);
+		}
+	}
+
+	@Benchmark
+	@Group("floor")
+	@GroupThreads(1)
+	public boolean floorWrite(ThreadKeys keys)
+	{
+		return write(keys);
+	}
+
+	@Benchmark
+	@Group("rank")
+	@GroupThreads(3)
+	public int rankRead(ThreadKeys keys)
+	{
+		Integer key = keys.nextKey(2*size);
+		if (lockedTree != null) {
+			synchronized (lockedTree) {
+				Integer lower = lockedTree.lower(key);
+				return lower == null ? 0 : lockedTree.indexOf(lower)+1;
+			}
+		}
+		if (set instanceof ConcurrentRandomizedBST) return ((ConcurrentRandomizedBST<Integer>)set).sizeOfRange(null, key, false, false);
+		return set.headSet(key).size();
+	}
+
+	@Benchmark
+	@Group("rank")
+	@GroupThreads(1)
+	public boolean rankWrite(ThreadKeys keys)
+	{
+		return write(keys);
+	}
+
+	//adds an even key or removes one, so the size of the set stays about the same
+	private boolean write(ThreadKeys keys)
+	{
+		Integer key = keys.nextKey(2*size);
+		Integer previous = key-1;
+		boolean add = key % 2 == 0;
+		if (lockedTree == null) return add ? set.add(key) : set.remove(previous);
+		synchronized (lockedTree) {
+			return add ? lockedTree.add(key) : lockedTree.remove(previous);
+		}
+	}
+
+	private NavigableSet<Integer> set;
+	private RandomizedBST<Integer> lockedTree;
+}
@@ -0,0 +1,89 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.RankedTree;
+
+/**
+ * Searches for a stream of probe keys from the root (ceiling) and from a finger at the previous probe (moveTo).
+ * The set is filled like in NavigationBenchmark (half with a sequence, half with random keys).
+ * SEQUENTIAL and CLUSTERED probes land near the previous probe, so the finger only climbs a few levels, UNIFORM probes are the worst case for the finger.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FingerBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "CLUSTERED", "UNIFORM"})
+	public KeyDistribution probes;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		set = (RankedTree<Integer>) Structures.newNavigableSet(structure);
+		Structures.addAll(set, KeyDistribution.SEQUENTIAL.keys(size/2, size/2, 0));
+		Structures.addAll(set, KeyDistribution.UNIFORM.keys(size/2, size, seed));
+
+		int[] keys = probes.keys(numberOfProbes, size, seed+1);
+		probeKeys = new Integer[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			probeKeys[i] = keys[i];
+		}
+		finger = set.locate(probeKeys[0]);
+		next = 0;
+	}
+
+	@Benchmark
+	public Integer ceiling()
+	{
+		return set.ceiling(nextProbe());
+	}
+
+	@Benchmark
+	public Integer fingerMoveTo()
+	{
+		finger.moveTo(nextProbe());
+		return finger.value();
+	}
+
+	private Integer nextProbe()
+	{
+		Integer key = probeKeys[next];
+		next = (next+1) & (numberOfProbes-1);
+		return key;
+	}
+
+	private static final int numberOfProbes = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private RankedTree<Integer> set;
+	private RankedTree<Integer>.Finger finger;
+	private Integer[] probeKeys;
+	private int next;
+}
@@ -0,0 +1,177 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public enum KeyDistribution {
+	//Key sequences used by the benchmarks
+	//all generators are deterministic for a given seed so that runs of different releases see the same input
+	//keys are always in the range [1, range], so they can also be fed to the structures that reserve 0 as the empty marker (COBTree, CharMap)
+
+	/**
+	 * 1, 2, 3, ... (wrapping around at the range). Worst case for unbalanced trees and for packed memory arrays.
+	 */
+	SEQUENTIAL {
+		@Override
+		public int[] keys(int count, int range, long seed)
+		{
+			int[] result = new int[count];
+			for (int i=0; i<count; i++) {
+				result[i] = i%range+1;
+			}
+			return result;
+		}
+	},
+
+	/**
+	 * Keys drawn uniformly at random from the range.
+	 */
+	UNIFORM {
+		@Override
+		public int[] keys(int count, int range, long seed)
+		{
+			Random random = new Random(seed);
+			int[] result = new int[count];
+			for (int i=0; i<count; i++) {
+				result[i] = random.nextInt(range)+1;
+			}
+			return result;
+		}
+	},
+
+	/**
+	 * Keys drawn from a Zipfian distribution (exponent 0.99, as in YCSB).
+	 * The key with rank k is accessed with probability proportional to 1/k^0.99. The ranks are scattered over the range,
+	 * so the popular keys are not also adjacent keys (use CLUSTERED for spatial locality).
+	 */
+	ZIPFIAN {
+		@Override
+		public int[] keys(int count, int range, long seed)
+		{
+			Random random = new Random(seed);
+			double[] cumulative = zipfianCumulativeDistribution(range, zipfianExponent);
+			int[] result = new int[count];
+			for (int i=0; i<count; i++) {
+				int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+				if (rank < 0) {
+					rank = -(rank+1);
+				}
+				rank = Math.min(rank, range-1);
+				result[i] = scatter(rank, range)+1;
+			}
+			return result;
+		}
+	},
+
+	/**
+	 * Keys are drawn in runs around a small number of random cluster centers (gaussian spread).
+	 * Models time windows, adjacent IDs and cursor style access.
+	 */
+	CLUSTERED {
+		@Override
+		public int[] keys(int count, int range, long seed)
+		{
+			Random random = new Random(seed);
+			int numberOfClusters = Math.max(1, (int)Math.sqrt(range)/16);
+			int[] centers = new int[numberOfClusters];
+			for (int i=0; i<numberOfClusters; i++) {
+				centers[i] = random.nextInt(range);
+			}
+			double spread = Math.max(1.0, range/(8.0*numberOfClusters));
+
+			int[] result = new int[count];
+			for (int i=0; i<count; i++) {
+				int center = centers[random.nextInt(numberOfClusters)];
+				long key = center+Math.round(random.nextGaussian()*spread);
+				key = Math.floorMod(key, (long)range);
+				result[i] = (int)key+1;
+			}
+			return result;
+		}
+	};
+
+
+	/**
+	 * Returns 'count' keys in [1, range]
+	 */
+	public abstract int[] keys(int count, int range, long seed);
+
+	/**
+	 * Returns 'count' distinct keys in [1, range] in ascending order, drawn from this distribution.
+	 * If the distribution is too skewed to yield enough distinct keys, the remaining keys are filled in uniformly.
+	 * precondition: count <= range
+	 */
+	public int[] distinctSortedKeys(int count, int range, long seed)
+	{
+		assert count <= range;
+		boolean[] present = new boolean[range+1];
+		int found = 0;
+
+		int[] candidates = keys(2*count, range, seed);
+		for (int i=0; i<candidates.length && found < count; i++) {
+			if (!present[candidates[i]]) {
+				present[candidates[i]] = true;
+				found++;
+			}
+		}
+		Random random = new Random(seed+1);
+		while (found < count) {
+			int key = random.nextInt(range)+1;
+			if (!present[key]) {
+				present[key] = true;
+				found++;
+			}
+		}
+
+		int[] result = new int[count];
+		int index = 0;
+		for (int key=1; key<=range; key++) {
+			if (present[key]) {
+				result[index] = key;
+				index++;
+			}
+		}
+		return result;
+	}
+
+
+	////
+	//HELPERS
+	////
+
+	private static final double zipfianExponent = 0.99;
+
+	private static double[] zipfianCumulativeDistribution(int range, double exponent)
+	{
+		double[] cumulative = new double[range];
+		double sum = 0;
+		for (int i=0; i<range; i++) {
+			sum += 1.0/Math.pow(i+1, exponent);
+			cumulative[i] = sum;
+		}
+		for (int i=0; i<range; i++) {
+			cumulative[i] /= sum;
+		}
+		return cumulative;
+	}
+
+	//bijection on [0, range) that spreads consecutive ranks over the whole range
+	private static int scatter(int rank, int range)
+	{
+		long multiplier = 2654435761L;//Knuth's multiplicative hash constant
+		while (gcd(multiplier, range) != 1) {
+			multiplier++;
+		}
+		return (int)((rank*multiplier)%range);
+	}
+
+	private static long gcd(long a, long b)
+	{
+		while (b != 0) {
+			long t = a%b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
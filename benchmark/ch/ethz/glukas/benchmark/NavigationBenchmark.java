@@ -0,0 +1,81 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replaces Main.performanceTestNavigableSet
+ *
+ * The set is half filled with a sequence and half with random keys, then floor, ceiling, higher and lower are queried
+ * for a stream of probe keys (near-sequential probes for the SEQUENTIAL distribution).
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NavigationBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree, Structures.cacheObliviousSortedSet, Structures.treeSet, Structures.skipList})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution probes;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		set = Structures.newNavigableSet(structure);
+		Structures.addAll(set, KeyDistribution.SEQUENTIAL.keys(size/2, size/2, 0));
+		Structures.addAll(set, KeyDistribution.UNIFORM.keys(size/2, size, seed));
+
+		int[] keys = probes.keys(numberOfProbes, size+size/4, seed+1);
+		probeKeys = new Integer[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			probeKeys[i] = keys[i]-size/8;
+		}
+		next = 0;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(4)
+	public void navigate(Blackhole blackhole)
+	{
+		Integer key = probeKeys[next];
+		next = (next+1) & (numberOfProbes-1);
+
+		blackhole.consume(set.floor(key));
+		blackhole.consume(set.ceiling(key));
+		blackhole.consume(set.higher(key));
+		blackhole.consume(set.lower(key));
+	}
+
+	private static final int numberOfProbes = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private NavigableSet<Integer> set;
+	private Integer[] probeKeys;
+	private int next;
+}
@@ -0,0 +1,46 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Random;
+
+public enum OperationMix {
+	//Ratios of lookups and insertions (in percent), the remaining operations are removals
+
+	READ_ONLY(100, 0),
+	READ_MOSTLY(90, 5),
+	BALANCED(50, 25),
+	WRITE_HEAVY(10, 45);
+
+	OperationMix(int lookups, int insertions)
+	{
+		assert lookups+insertions <= 100;
+		this.lookups = lookups;
+		this.insertions = insertions;
+	}
+
+	public static final byte lookup = 0;
+	public static final byte insertion = 1;
+	public static final byte removal = 2;
+
+	/**
+	 * Returns a sequence of 'count' operation codes (lookup, insertion or removal) following the ratios of this mix
+	 */
+	public byte[] operations(int count, long seed)
+	{
+		Random random = new Random(seed);
+		byte[] result = new byte[count];
+		for (int i=0; i<count; i++) {
+			int next = random.nextInt(100);
+			if (next < lookups) {
+				result[i] = lookup;
+			} else if (next < lookups+insertions) {
+				result[i] = insertion;
+			} else {
+				result[i] = removal;
+			}
+		}
+		return result;
+	}
+
+	private final int lookups;
+	private final int insertions;
+}
@@ -0,0 +1,150 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedmap.CharMap;
+import ch.ethz.glukas.orderedmap.Trie;
+
+/**
+ * Lookups in CharMap and Trie, compared to TreeMap and ConcurrentSkipListMap (the map counterparts of the set baselines).
+ * CharMap keys are chars in [1, 65535], Trie keys are the base 36 representations of the generated keys.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OrderedMapBenchmark {
+
+	@Param({"4096", "32768"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int charRange = Character.MAX_VALUE;
+		int[] charKeys = distribution.distinctSortedKeys(Math.min(size, charRange), charRange, seed);
+		charMap = new CharMap<Integer>();
+		charTreeMap = new TreeMap<Character, Integer>();
+		charSkipListMap = new ConcurrentSkipListMap<Character, Integer>();
+		for (int i=0; i<charKeys.length; i++) {
+			char key = (char)charKeys[i];
+			charMap.put(key, i);
+			charTreeMap.put(key, i);
+			charSkipListMap.put(key, i);
+		}
+
+		int[] stringKeys = distribution.distinctSortedKeys(size, 16*size, seed);
+		trie = new Trie<Integer>();
+		stringTreeMap = new TreeMap<String, Integer>();
+		stringSkipListMap = new ConcurrentSkipListMap<String, Integer>();
+		for (int i=0; i<stringKeys.length; i++) {
+			String key = Integer.toString(stringKeys[i], 36);
+			trie.put(key, i);
+			stringTreeMap.put(key, i);
+			stringSkipListMap.put(key, i);
+		}
+
+		int[] probes = distribution.keys(numberOfProbes, charRange, seed+1);
+		charProbes = new char[numberOfProbes];
+		boxedCharProbes = new Character[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			charProbes[i] = (char)probes[i];
+			boxedCharProbes[i] = charProbes[i];
+		}
+		probes = distribution.keys(numberOfProbes, 16*size, seed+2);
+		stringProbes = new String[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			stringProbes[i] = Integer.toString(probes[i], 36);
+		}
+		next = 0;
+	}
+
+	////
+	//CHAR KEYS
+	////
+
+	@Benchmark
+	public Integer charMap()
+	{
+		return charMap.get(charProbes[advance()]);
+	}
+
+	@Benchmark
+	public Integer charTreeMap()
+	{
+		return charTreeMap.get(boxedCharProbes[advance()]);
+	}
+
+	@Benchmark
+	public Integer charConcurrentSkipListMap()
+	{
+		return charSkipListMap.get(boxedCharProbes[advance()]);
+	}
+
+	////
+	//STRING KEYS
+	////
+
+	@Benchmark
+	public Integer trie()
+	{
+		return trie.get(stringProbes[advance()]);
+	}
+
+	@Benchmark
+	public Integer stringTreeMap()
+	{
+		return stringTreeMap.get(stringProbes[advance()]);
+	}
+
+	@Benchmark
+	public Integer stringConcurrentSkipListMap()
+	{
+		return stringSkipListMap.get(stringProbes[advance()]);
+	}
+
+	private int advance()
+	{
+		int current = next;
+		next = (current+1) & (numberOfProbes-1);
+		return current;
+	}
+
+	private static final int numberOfProbes = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private CharMap<Integer> charMap;
+	private Map<Character, Integer> charTreeMap;
+	private Map<Character, Integer> charSkipListMap;
+	private Trie<Integer> trie;
+	private Map<String, Integer> stringTreeMap;
+	private Map<String, Integer> stringSkipListMap;
+	private char[] charProbes;
+	private Character[] boxedCharProbes;
+	private String[] stringProbes;
+	private int next;
+}
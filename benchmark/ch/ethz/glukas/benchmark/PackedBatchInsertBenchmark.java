@@ -0,0 +1,81 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.COBTree;
+
+/**
+ * Measures the time to merge a batch of keys into a populated COBTree, with one insertAll and with one insert per key.
+ * insertAll redistributes each window of the packed memory array once per batch, the single insertions redistribute it whenever it gets too dense.
+ * The batch is unsorted and partially overlaps with the tree, like in BatchInsertBenchmark.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class PackedBatchInsertBenchmark {
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"4096", "65536", "1048576"})
+	public int batchSize;
+
+	@Param({"UNIFORM", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		int range = 2*(size+batchSize);
+		sortedKeys = distribution.distinctSortedKeys(size, range, seed);
+		batch = distribution.keys(batchSize, range, seed+1);
+	}
+
+	//every merge needs a fresh copy of the populated tree
+	@Setup(Level.Invocation)
+	public void setUpTree()
+	{
+		tree = new COBTree();
+		tree.insertAll(sortedKeys);
+	}
+
+	@Benchmark
+	public COBTree insertAll()
+	{
+		tree.insertAll(batch);
+		return tree;
+	}
+
+	@Benchmark
+	public COBTree insert()
+	{
+		for (int i=0; i<batch.length; i++) {
+			tree.insert(batch[i]);
+		}
+		return tree;
+	}
+
+	private static final long seed = 2;
+	private int[] sortedKeys;
+	private int[] batch;
+	private COBTree tree;
+}
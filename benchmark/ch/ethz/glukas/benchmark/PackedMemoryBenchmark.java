@@ -0,0 +1,130 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.COBTree;
+
+/**
+ * Replaces Main.performanceTestCOBTree
+ *
+ * Building a COBTree from 2^magnitude keys (sequential keys are the worst case for the packed memory array,
+ * random keys the best case) and searching it, compared to the java.util baselines.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class PackedMemoryBenchmark {
+
+	@Param({"16", "20"})
+	public int magnitude;
+
+	@Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int size = 1 << magnitude;
+		keys = distribution.keys(size, size, seed);
+		boxedKeys = new Integer[size];
+		for (int i=0; i<size; i++) {
+			boxedKeys[i] = keys[i];
+		}
+		probes = KeyDistribution.UNIFORM.keys(size, size, seed+1);
+		boxedProbes = new Integer[size];
+		for (int i=0; i<size; i++) {
+			boxedProbes[i] = probes[i];
+		}
+		builtTree = cobTreeBuild();
+		builtTreeSet = treeSetBuild();
+	}
+
+	////
+	//BUILD
+	////
+
+	@Benchmark
+	public COBTree cobTreeBuild()
+	{
+		COBTree tree = new COBTree();
+		for (int i=0; i<keys.length; i++) {
+			tree.insert(keys[i]);
+		}
+		return tree;
+	}
+
+	@Benchmark
+	public NavigableSet<Integer> treeSetBuild()
+	{
+		return build(new TreeSet<Integer>());
+	}
+
+	@Benchmark
+	public NavigableSet<Integer> concurrentSkipListSetBuild()
+	{
+		return build(new ConcurrentSkipListSet<Integer>());
+	}
+
+	private NavigableSet<Integer> build(NavigableSet<Integer> set)
+	{
+		for (int i=0; i<boxedKeys.length; i++) {
+			set.add(boxedKeys[i]);
+		}
+		return set;
+	}
+
+	////
+	//SEARCH
+	////
+
+	@Benchmark
+	public int cobTreeSearch()
+	{
+		int found = 0;
+		for (int i=0; i<probes.length; i++) {
+			if (builtTree.contains(probes[i])) found++;
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int treeSetSearch()
+	{
+		int found = 0;
+		for (int i=0; i<boxedProbes.length; i++) {
+			if (builtTreeSet.contains(boxedProbes[i])) found++;
+		}
+		return found;
+	}
+
+	private static final long seed = 2;
+
+	private int[] keys;
+	private Integer[] boxedKeys;
+	private int[] probes;
+	private Integer[] boxedProbes;
+	private COBTree builtTree;
+	private NavigableSet<Integer> builtTreeSet;
+}
@@ -0,0 +1,122 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.IntRandomizedBST;
+
+/**
+ * IntRandomizedBST compared to the boxed RandomizedBST and TreeSet on the same operation stream.
+ * Unlike SetBenchmark, the keys are boxed inside the measured method for the boxed sets, as a caller holding ints would have to.
+ * Run with -prof gc to compare the allocation rates.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PrimitiveSetBenchmark {
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"UNIFORM", "ZIPFIAN"})
+	public KeyDistribution distribution;
+
+	@Param({"READ_MOSTLY", "BALANCED"})
+	public OperationMix mix;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int range = 2*size;
+		int[] initial = distribution.distinctSortedKeys(size, range, seed);
+		primitiveSet = new IntRandomizedBST(size);
+		for (int i=0; i<initial.length; i++) {
+			primitiveSet.add(initial[i]);
+		}
+		randomizedBST = Structures.newSet(Structures.randomizedBST);
+		Structures.addAll(randomizedBST, initial);
+		treeSet = Structures.newSet(Structures.treeSet);
+		Structures.addAll(treeSet, initial);
+
+		keys = distribution.keys(numberOfOperations, range, seed+1);
+		operations = mix.operations(numberOfOperations, seed+2);
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean intRandomizedBST()
+	{
+		int current = advance();
+		int key = keys[current];
+		switch (operations[current]) {
+		case OperationMix.insertion:
+			return primitiveSet.add(key);
+		case OperationMix.removal:
+			return primitiveSet.remove(key);
+		default:
+			return primitiveSet.contains(key);
+		}
+	}
+
+	@Benchmark
+	public boolean randomizedBST()
+	{
+		return boxedOperation(randomizedBST);
+	}
+
+	@Benchmark
+	public boolean treeSet()
+	{
+		return boxedOperation(treeSet);
+	}
+
+	private boolean boxedOperation(Set<Integer> set)
+	{
+		int current = advance();
+		int key = keys[current];
+		switch (operations[current]) {
+		case OperationMix.insertion:
+			return set.add(key);
+		case OperationMix.removal:
+			return set.remove(key);
+		default:
+			return set.contains(key);
+		}
+	}
+
+	private int advance()
+	{
+		int current = next;
+		next = (current+1) & (numberOfOperations-1);
+		return current;
+	}
+
+	private static final int numberOfOperations = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private IntRandomizedBST primitiveSet;
+	private Set<Integer> randomizedBST;
+	private Set<Integer> treeSet;
+	private int[] keys;
+	private byte[] operations;
+	private int next;
+}
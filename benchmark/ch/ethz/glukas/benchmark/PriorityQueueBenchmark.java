@@ -0,0 +1,110 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import priorityQueue.COPriorityQueue;
+
+/**
+ * Fills a priority queue with 'size' keys and then drains it completely.
+ * The ordered sets serve as baselines (pollFirst).
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class PriorityQueueBenchmark {
+
+	@Param({"65536", "1048576"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		keys = distribution.distinctSortedKeys(size, 2*size, seed);
+		shuffle(keys);
+		boxedKeys = new Integer[size];
+		for (int i=0; i<size; i++) {
+			boxedKeys[i] = keys[i];
+		}
+	}
+
+	@Benchmark
+	public long coPriorityQueue()
+	{
+		COPriorityQueue queue = new COPriorityQueue();
+		for (int i=0; i<keys.length; i++) {
+			queue.add(keys[i]);
+		}
+		long sum = 0;
+		while (!queue.isEmpty()) {
+			sum += queue.poll();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long treeSet()
+	{
+		return fillAndDrain(new TreeSet<Integer>());
+	}
+
+	@Benchmark
+	public long concurrentSkipListSet()
+	{
+		return fillAndDrain(new ConcurrentSkipListSet<Integer>());
+	}
+
+	private long fillAndDrain(NavigableSet<Integer> set)
+	{
+		for (int i=0; i<boxedKeys.length; i++) {
+			set.add(boxedKeys[i]);
+		}
+		long sum = 0;
+		while (!set.isEmpty()) {
+			sum += set.pollFirst();
+		}
+		return sum;
+	}
+
+	//the distinct keys come out sorted: shuffle them so that the insertion order follows the key distribution only through the key set
+	private void shuffle(int[] array)
+	{
+		Random random = new Random(seed);
+		for (int i=array.length-1; i>0; i--) {
+			int j = random.nextInt(i+1);
+			int temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
+	private static final long seed = 2;
+
+	private int[] keys;
+	private Integer[] boxedKeys;
+}
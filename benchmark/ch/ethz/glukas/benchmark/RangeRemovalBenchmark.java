@@ -0,0 +1,77 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to purge a window of keys from a set, by clearing a subSet view.
+ * The set holds 'size' uniform keys in [1, 2*size], added in random order, the window covers 2*rangeLength consecutive integers (about rangeLength keys).
+ * The ranked trees remove the window with removeRange (split and join), TreeSet removes the keys one by one.
+ * sizeOfWindow measures the size of the subSet view, which is a rank query on the ranked trees and a scan on TreeSet.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class RangeRemovalBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree, Structures.treeSet})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"1024", "262144"})
+	public int rangeLength;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		keys = KeyDistribution.UNIFORM.keys(size, 2*size, seed);
+	}
+
+	//every purge needs a fresh copy of the populated set
+	@Setup(Level.Invocation)
+	public void setUpSet()
+	{
+		set = Structures.newNavigableSet(structure);
+		Structures.addAll(set, keys);
+		from = size/3;
+	}
+
+	@Benchmark
+	public NavigableSet<Integer> purgeWindow()
+	{
+		set.subSet(from, true, from+2*rangeLength, false).clear();
+		return set;
+	}
+
+	@Benchmark
+	public int sizeOfWindow()
+	{
+		return set.subSet(from, true, from+2*rangeLength, false).size();
+	}
+
+	private static final long seed = 2;
+	private int[] keys;
+	private NavigableSet<Integer> set;
+	private int from;
+}
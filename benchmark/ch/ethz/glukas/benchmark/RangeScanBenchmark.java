@@ -0,0 +1,140 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.COBTree;
+
+/**
+ * Range reads of rangeLength keys starting at a random key, in a structure holding the even keys 2, 4, ..., 2*size.
+ * The COBTree is read with scan and with a reused cursor, the TreeSet by iterating a subSet.
+ * arraySum sums a plain int[] of the same length: it is the memory bandwidth bound the COBTree scans are measured against.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RangeScanBenchmark {
+
+	@Param({"4194304"})
+	public int size;
+
+	@Param({"64", "4096", "1048576"})
+	public int rangeLength;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		tree = new COBTree();
+		treeSet = new TreeSet<Integer>();
+		array = new int[size];
+		for (int i=1; i<=size; i++) {
+			tree.insert(2*i);
+			treeSet.add(2*i);
+			array[i-1] = 2*i;
+		}
+		cursor = tree.cursor();
+		starts = KeyDistribution.UNIFORM.keys(numberOfScans, size-rangeLength+1, seed);
+		next = 0;
+	}
+
+	@Benchmark
+	public long cobTreeScan()
+	{
+		int start = nextStart();
+		sum.value = 0;
+		tree.scan(2*start, 2*(start+rangeLength-1), sum);
+		return sum.value;
+	}
+
+	@Benchmark
+	public long cobTreeCursor()
+	{
+		int start = nextStart();
+		cursor.reset(2*start, 2*(start+rangeLength-1));
+		long result = 0;
+		while (cursor.hasNext()) {
+			result += cursor.nextKey();
+		}
+		return result;
+	}
+
+	@Benchmark
+	public long cobTreeStream()
+	{
+		int start = nextStart();
+		return tree.keys(2*start, 2*(start+rangeLength-1)).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long treeSetSubSet()
+	{
+		int start = nextStart();
+		long result = 0;
+		for (Integer key : treeSet.subSet(2*start, true, 2*(start+rangeLength-1), true)) {
+			result += key;
+		}
+		return result;
+	}
+
+	@Benchmark
+	public long arraySum()
+	{
+		int start = nextStart()-1;
+		long result = 0;
+		for (int i=start; i<start+rangeLength; i++) {
+			result += array[i];
+		}
+		return result;
+	}
+
+	private int nextStart()
+	{
+		int current = next;
+		next = (current+1) & (numberOfScans-1);
+		return starts[current];
+	}
+
+	private static class Sum implements IntConsumer {
+		public void accept(int key)
+		{
+			value += key;
+		}
+
+		long value;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfScans = 1 << 12;//power of two
+	private static final long seed = 2;
+
+	private COBTree tree;
+	private COBTree.Cursor cursor;
+	private TreeSet<Integer> treeSet;
+	private int[] array;
+	private int[] starts;
+	private int next;
+	private final Sum sum = new Sum();
+}
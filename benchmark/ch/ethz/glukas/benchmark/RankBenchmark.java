@@ -0,0 +1,100 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.RangeSet;
+
+/**
+ * The queries by rank of the RangeSets: get, indexOf and sizeOfRange, on a set of size uniform keys.
+ * SlimScapegoatTree stores the subtree sizes only in the nodes of height at least 2 and counts the small subtrees below them,
+ * which trades some time of the queries for the memory of about three quarters of the size fields.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RankBenchmark {
+
+	@Param({Structures.scapegoatTree, Structures.slimScapegoatTree, Structures.wavlTree, Structures.randomizedBST, Structures.splayTree})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		set = (RangeSet<Integer>) Structures.newNavigableSet(structure);
+		Structures.addAll(set, KeyDistribution.UNIFORM.keys(size, Integer.MAX_VALUE-1, seed));
+		
+		int[] indexes = KeyDistribution.UNIFORM.keys(numberOfProbes, set.size(), seed+1);
+		probeIndexes = new int[numberOfProbes];
+		probeKeys = new Integer[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			probeIndexes[i] = indexes[i]-1;
+			probeKeys[i] = set.get(probeIndexes[i]);
+		}
+		next = 0;
+	}
+
+	@Benchmark
+	public Integer get()
+	{
+		return set.get(probeIndexes[advance()]);
+	}
+
+	@Benchmark
+	public int indexOf()
+	{
+		return set.indexOf(probeKeys[advance()]);
+	}
+
+	@Benchmark
+	public int sizeOfRange()
+	{
+		Integer from = probeKeys[advance()];
+		Integer to = probeKeys[advance()];
+		if (from > to) {
+			return set.sizeOfRange(to, from, true, false);
+		}
+		return set.sizeOfRange(from, to, true, false);
+	}
+
+	private int advance()
+	{
+		int current = next;
+		next = (current+1) & (numberOfProbes-1);
+		return current;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfProbes = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private RangeSet<Integer> set;
+	private int[] probeIndexes;
+	private Integer[] probeKeys;
+	private int next;
+}
@@ -0,0 +1,96 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.COBTree;
+
+/**
+ * The latency distribution of COBTree insertions with and without incremental rebuilds.
+ * The tree starts empty in every iteration. Without incremental rebuilds, the tail consists of the insertions that redistribute the whole array or double it.
+ * With incremental rebuilds, these are spread over the following modifications, the remaining stalls are the allocation of the new arrays and the rebuild of their index.
+ * The lookups and the navigation interleaved with the insertions show the cost of consulting the recorded modifications during a rebuild.
+ * Neither of them advances the rebuild.
+ * A threshold of 2147483647 turns the incremental rebuilds off. All redistributions are sequential.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RebuildLatencyBenchmark {
+
+	@Param({"2147483647", "65536"})
+	public int incrementalRebuildThreshold;
+
+	@Param({"UNIFORM", "SEQUENTIAL"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		keys = distribution.keys(numberOfKeys, Integer.MAX_VALUE-1, seed);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpTree()
+	{
+		tree = new COBTree();
+		tree.setParallelRedistributionThreshold(Integer.MAX_VALUE);
+		tree.setIncrementalRebuildThreshold(incrementalRebuildThreshold);
+		next = 0;
+	}
+
+	@Benchmark
+	public int insert()
+	{
+		tree.insert(keys[next]);
+		next = (next+1) & (numberOfKeys-1);
+		return tree.size();
+	}
+
+	@Benchmark
+	public boolean insertAndContains()
+	{
+		int key = keys[next];
+		tree.insert(key);
+		next = (next+1) & (numberOfKeys-1);
+		return tree.contains(keys[next >>> 1]);
+	}
+
+	@Benchmark
+	public int insertAndCeiling()
+	{
+		int key = keys[next];
+		tree.insert(key);
+		next = (next+1) & (numberOfKeys-1);
+		return tree.ceiling(keys[next >>> 1]);
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfKeys = 1 << 24;//power of two
+	private static final long seed = 2;
+
+	private int[] keys;
+	private COBTree tree;
+	private int next;
+}
@@ -0,0 +1,100 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedmap.CharMap;
+import ch.ethz.glukas.orderedset.COBTree;
+
+/**
+ * The latency distribution of single insertions into the packed memory structures, with sequential and with parallel redistribution.
+ * Most insertions are fast, the tail (p99 and above) consists of the insertions that redistribute large blocks or rebuild the whole array.
+ * JMH reports the percentiles of the sampled insertions.
+ *
+ * The COBTree starts empty in every iteration and grows with uniform keys.
+ * The CharMap holds at most 2^16-1 keys: it is replaced by an empty map after every 2^16 puts of uniform chars.
+ * A threshold of 2147483647 keeps all redistributions sequential.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RedistributionLatencyBenchmark {
+
+	@Param({"2147483647", "65536", "262144"})
+	public int parallelRedistributionThreshold;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		treeKeys = KeyDistribution.UNIFORM.keys(numberOfTreeKeys, Integer.MAX_VALUE-1, seed);
+		mapKeys = KeyDistribution.UNIFORM.keys(numberOfMapKeys, Character.MAX_VALUE, seed+1);
+		value = new Object();
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpStructures()
+	{
+		tree = new COBTree();
+		tree.setParallelRedistributionThreshold(parallelRedistributionThreshold);
+		nextTreeKey = 0;
+		newMap();
+	}
+
+	@Benchmark
+	public int cobTreeInsert()
+	{
+		tree.insert(treeKeys[nextTreeKey]);
+		nextTreeKey = (nextTreeKey+1) & (numberOfTreeKeys-1);
+		return tree.size();
+	}
+
+	@Benchmark
+	public Object charMapPut()
+	{
+		if (nextMapKey == mapKeys.length) {
+			newMap();
+		}
+		return map.put((char)mapKeys[nextMapKey++], value);
+	}
+
+	private void newMap()
+	{
+		map = new CharMap<Object>();
+		map.setParallelRedistributionThreshold(parallelRedistributionThreshold);
+		nextMapKey = 0;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfTreeKeys = 1 << 24;//power of two
+	private static final int numberOfMapKeys = 1 << 16;
+	private static final long seed = 2;
+
+	private int[] treeKeys;
+	private int[] mapKeys;
+	private Object value;
+	private COBTree tree;
+	private int nextTreeKey;
+	private CharMap<Object> map;
+	private int nextMapKey;
+}
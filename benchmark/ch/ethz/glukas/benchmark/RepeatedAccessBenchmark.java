@@ -0,0 +1,70 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replaces Main.performanceTestRepeatedAccess
+ *
+ * Temporal locality: every key of a sequentially filled set is looked up 30 times, followed by 10 lookups of its predecessor.
+ * This is the access pattern self-adjusting structures (SplayTree) are designed for.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RepeatedAccessBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree, Structures.scapegoatTree, Structures.treap, Structures.cacheObliviousSortedSet, Structures.treeSet, Structures.skipList})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		set = Structures.newSet(structure);
+		Structures.addAll(set, KeyDistribution.SEQUENTIAL.keys(size, size, 0));
+		next = 1;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(accessesPerKey)
+	public void repeatedAccess(Blackhole blackhole)
+	{
+		Integer key = next;
+		Integer previous = next-1;
+		for (int j=0; j<30; j++) {
+			blackhole.consume(set.contains(key));
+		}
+		for (int j=0; j<10; j++) {
+			blackhole.consume(set.contains(previous));
+		}
+		next = next%size+1;
+	}
+
+	private static final int accessesPerKey = 40;
+	private Set<Integer> set;
+	private int next;
+}
@@ -0,0 +1,84 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.ScapegoatTree;
+
+/**
+ * The pause of a ScapegoatTree that rebuilds itself as a whole. Every iteration fills a tree with size uniform keys in random order,
+ * then removes keys until the next removal shrinks the tree to the fraction alpha = 0.6 of its largest size. That removal is measured:
+ * it rebuilds the remaining 0.6*size nodes.
+ * A threshold of 2147483647 keeps the rebuild sequential, else the subtrees of at least that many nodes are split and rebuilt in parallel.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScapegoatRebuildBenchmark {
+
+	@Param({"1000000", "10000000"})
+	public int size;
+
+	@Param({"2147483647", "65536"})
+	public int parallelRebuildThreshold;
+
+	@Param({"0", "2"})
+	public int sizedHeight;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		keys = KeyDistribution.UNIFORM.keys(size, Integer.MAX_VALUE-1, seed);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpTree()
+	{
+		tree = null;//the tree of the previous iteration can be collected
+		tree = new ScapegoatTree<Integer>(null, sizedHeight);
+		tree.setParallelRebuildThreshold(parallelRebuildThreshold);
+		Structures.addAll(tree, keys);
+		
+		int largestSize = tree.size();
+		next = 0;
+		while (tree.size()-1 > alpha*largestSize) {
+			tree.remove(Integer.valueOf(keys[next++]));//not the removal by rank
+		}
+	}
+
+	@Benchmark
+	public int rebuild()
+	{
+		tree.remove(Integer.valueOf(keys[next]));
+		return tree.size();
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final double alpha = 0.6;//the balance parameter of the ScapegoatTree
+	private static final long seed = 2;
+
+	private int[] keys;
+	private ScapegoatTree<Integer> tree;
+	private int next;
+}
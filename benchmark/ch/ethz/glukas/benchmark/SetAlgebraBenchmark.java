@@ -0,0 +1,102 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.RandomizedBST;
+import ch.ethz.glukas.orderedset.Treap;
+
+/**
+ * Measures intersecting a populated set with a sorted set of 'otherSize' keys, and removing such a set from it.
+ * RandomizedBST and Treap use intersectWith and differenceWith, which take O(m log(n/m+1)) work and run in parallel for large operands.
+ * TreeSet uses retainAll and removeAll.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class SetAlgebraBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.treap, Structures.treeSet})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"1024", "65536", "1048576"})
+	public int otherSize;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		int range = 2*size;
+		int[] sorted = KeyDistribution.UNIFORM.distinctSortedKeys(size, range, seed);
+		sortedKeys = new ArrayList<Integer>(sorted.length);
+		for (int i=0; i<sorted.length; i++) {
+			sortedKeys.add(sorted[i]);
+		}
+
+		other = new TreeSet<Integer>();
+		Structures.addAll(other, KeyDistribution.UNIFORM.distinctSortedKeys(otherSize, range, seed+1));
+	}
+
+	//every operation needs a fresh copy of the populated set
+	@Setup(Level.Invocation)
+	public void setUpSet()
+	{
+		set = Structures.newSet(structure);
+		set.addAll(sortedKeys);
+	}
+
+	@Benchmark
+	public Set<Integer> intersect()
+	{
+		if (set instanceof RandomizedBST) {
+			((RandomizedBST<Integer>)set).intersectWith(other);
+		} else if (set instanceof Treap) {
+			((Treap<Integer>)set).intersectWith(other);
+		} else {
+			set.retainAll(other);
+		}
+		return set;
+	}
+
+	@Benchmark
+	public Set<Integer> difference()
+	{
+		if (set instanceof RandomizedBST) {
+			((RandomizedBST<Integer>)set).differenceWith(other);
+		} else if (set instanceof Treap) {
+			((Treap<Integer>)set).differenceWith(other);
+		} else {
+			set.removeAll(other);
+		}
+		return set;
+	}
+
+	private static final long seed = 3;
+	private List<Integer> sortedKeys;
+	private TreeSet<Integer> other;
+	private Set<Integer> set;
+}
@@ -0,0 +1,94 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replaces Main.performanceTestSet
+ *
+ * Measures the average time of a single operation on a populated set.
+ * The set is filled with 'size' distinct keys of the given distribution, then a fixed stream of operations drawn from
+ * the same distribution is replayed (lookups, insertions and removals according to the operation mix).
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SetBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree, Structures.scapegoatTree, Structures.treap, Structures.cacheObliviousSortedSet, Structures.treeSet, Structures.skipList})
+	public String structure;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Param({"READ_ONLY", "READ_MOSTLY", "BALANCED", "WRITE_HEAVY"})
+	public OperationMix mix;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int range = 2*size;
+		set = Structures.newSet(structure);
+		Structures.addAll(set, distribution.distinctSortedKeys(size, range, seed));
+
+		//the keys are boxed up front: the benchmark measures the structure, not Integer.valueOf
+		int[] keys = distribution.keys(numberOfOperations, range, seed+1);
+		operationKeys = new Integer[numberOfOperations];
+		for (int i=0; i<numberOfOperations; i++) {
+			operationKeys[i] = keys[i];
+		}
+		operations = mix.operations(numberOfOperations, seed+2);
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean operation()
+	{
+		int current = next;
+		next = (current+1) & (numberOfOperations-1);
+
+		Integer key = operationKeys[current];
+		switch (operations[current]) {
+		case OperationMix.insertion:
+			return set.add(key);
+		case OperationMix.removal:
+			return set.remove(key);
+		default:
+			return set.contains(key);
+		}
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfOperations = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private Set<Integer> set;
+	private Integer[] operationKeys;
+	private byte[] operations;
+	private int next;
+}
@@ -0,0 +1,85 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replaces the insertion part of Main.performanceTestSet
+ *
+ * Measures the time to populate an empty set with 'size' keys of the given distribution.
+ * Every invocation builds a fresh set, so this is a single shot measurement.
+ * buildFromSorted populates the set with one addAll of the distinct keys in ascending order, which the trees of this repository bulk load in linear time.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class SetBuildBenchmark {
+
+	@Param({Structures.randomizedBST, Structures.splayTree, Structures.scapegoatTree, Structures.treap, Structures.cacheObliviousSortedSet, Structures.treeSet, Structures.skipList})
+	public String structure;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int[] keys = distribution.keys(size, size, seed);
+		boxedKeys = new Integer[size];
+		for (int i=0; i<size; i++) {
+			boxedKeys[i] = keys[i];
+		}
+
+		int[] sorted = distribution.distinctSortedKeys(size, 2*size, seed);
+		sortedKeys = new ArrayList<Integer>(sorted.length);
+		for (int i=0; i<sorted.length; i++) {
+			sortedKeys.add(sorted[i]);
+		}
+	}
+
+	@Benchmark
+	public Set<Integer> build()
+	{
+		Set<Integer> set = Structures.newSet(structure);
+		for (int i=0; i<boxedKeys.length; i++) {
+			set.add(boxedKeys[i]);
+		}
+		return set;
+	}
+
+	@Benchmark
+	public Set<Integer> buildFromSorted()
+	{
+		Set<Integer> set = Structures.newSet(structure);
+		set.addAll(sortedKeys);
+		return set;
+	}
+
+	private static final long seed = 2;
+	private Integer[] boxedKeys;
+	private List<Integer> sortedKeys;
+}
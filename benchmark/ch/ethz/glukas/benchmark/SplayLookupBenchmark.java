@@ -0,0 +1,108 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.ethz.glukas.orderedset.SplayTree;
+
+/**
+ * The lookup modes of the SplayTree on read-mostly workloads.
+ * repeatedAccess is the temporal locality pattern of RepeatedAccessBenchmark: every key of a sequentially filled tree is looked up 30 times, followed by 10 lookups of its predecessor.
+ * readMostly replays Zipfian keys with 90% lookups and 5% insertions and removals each.
+ * The stores of the lookups show up in the hardware counters of the perfnorm profiler (-prof perfnorm, Linux only).
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SplayLookupBenchmark {
+
+	@Param({"SPLAY", "SEMI_SPLAY", "PERIODIC", "DEEP", "READ_ONLY"})
+	public SplayTree.Lookup lookup;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		tree = new SplayTree<Integer>();
+		tree.setLookup(lookup);
+		Structures.addAll(tree, KeyDistribution.SEQUENTIAL.keys(size, size, 0));
+		nextRepeated = 1;
+
+		//the keys are boxed up front: the benchmark measures the structure, not Integer.valueOf
+		int[] keys = KeyDistribution.ZIPFIAN.keys(numberOfOperations, 2*size, seed);
+		operationKeys = new Integer[numberOfOperations];
+		for (int i=0; i<numberOfOperations; i++) {
+			operationKeys[i] = keys[i];
+		}
+		operations = OperationMix.READ_MOSTLY.operations(numberOfOperations, seed+1);
+		next = 0;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(accessesPerKey)
+	public void repeatedAccess(Blackhole blackhole)
+	{
+		Integer key = nextRepeated;
+		Integer previous = nextRepeated-1;
+		for (int j=0; j<30; j++) {
+			blackhole.consume(tree.contains(key));
+		}
+		for (int j=0; j<10; j++) {
+			blackhole.consume(tree.contains(previous));
+		}
+		nextRepeated = nextRepeated%size+1;
+	}
+
+	@Benchmark
+	public boolean readMostly()
+	{
+		int current = next;
+		next = (current+1) & (numberOfOperations-1);
+
+		Integer key = operationKeys[current];
+		switch (operations[current]) {
+		case OperationMix.insertion:
+			return tree.add(key);
+		case OperationMix.removal:
+			return tree.remove(key);
+		default:
+			return tree.contains(key);
+		}
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int accessesPerKey = 40;
+	private static final int numberOfOperations = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private SplayTree<Integer> tree;
+	private int nextRepeated;
+	private Integer[] operationKeys;
+	private byte[] operations;
+	private int next;
+}
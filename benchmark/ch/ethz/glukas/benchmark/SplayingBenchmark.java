@@ -0,0 +1,104 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.SplayTree;
+
+/**
+ * Lookups in a SplayTree with bottom up and with top down splaying.
+ * The tree holds the keys 1..size. The access patterns:
+ * SEQUENTIAL: 1, 2, 3, ... (each splay moves the successor of the root up)
+ * ZIPFIAN: a few keys are accessed most of the time
+ * WORKING_SET: the accesses are uniform over a small set of random keys, which is replaced every phaseLength accesses
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SplayingBenchmark {
+
+	@Param({"BOTTOM_UP", "TOP_DOWN"})
+	public SplayTree.Splaying splaying;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Param({"SEQUENTIAL", "ZIPFIAN", "WORKING_SET"})
+	public String pattern;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		tree = new SplayTree<Integer>(splaying);
+		Structures.addAll(tree, KeyDistribution.SEQUENTIAL.keys(size, size, seed));
+
+		int[] keys;
+		if (pattern.equals("WORKING_SET")) {
+			keys = workingSetKeys(numberOfAccesses, size, seed+1);
+		} else {
+			keys = KeyDistribution.valueOf(pattern).keys(numberOfAccesses, size, seed+1);
+		}
+		accessKeys = new Integer[numberOfAccesses];
+		for (int i=0; i<numberOfAccesses; i++) {
+			accessKeys[i] = keys[i];
+		}
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean contains()
+	{
+		int current = next;
+		next = (current+1) & (numberOfAccesses-1);
+		return tree.contains(accessKeys[current]);
+	}
+
+	//keys in [1, range]
+	private static int[] workingSetKeys(int count, int range, long seed)
+	{
+		Random random = new Random(seed);
+		int[] workingSet = new int[workingSetSize];
+		int[] result = new int[count];
+		for (int i=0; i<count; i++) {
+			if (i%phaseLength == 0) {
+				for (int j=0; j<workingSetSize; j++) {
+					workingSet[j] = random.nextInt(range)+1;
+				}
+			}
+			result[i] = workingSet[random.nextInt(workingSetSize)];
+		}
+		return result;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfAccesses = 1 << 16;//power of two
+	private static final int workingSetSize = 64;
+	private static final int phaseLength = 1 << 12;
+	private static final long seed = 2;
+
+	private SplayTree<Integer> tree;
+	private Integer[] accessKeys;
+	private int next;
+}
@@ -0,0 +1,156 @@
+package ch.ethz.glukas.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.ethz.glukas.orderedset.CocoTree;
+import ch.ethz.glukas.orderedset.ImmutableOrderedSet;
+import ch.ethz.glukas.orderedset.MappedCocoTree;
+import ch.ethz.glukas.orderedset.MappedImmutableOrderedSet;
+
+/**
+ * Replaces Main.performanceTestImmutableSet and Main.performanceTestFixedSizeCoSearchTree
+ *
+ * Lookups in the static cache-oblivious search trees compared to binary search on the sorted array and the java.util baselines.
+ * The number of keys is 2^magnitude, as the static trees require a power of two.
+ * The mapped variants search the same trees after they were saved to a file and mapped back.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StaticSearchTreeBenchmark {
+
+	@Param({"10", "20", "24"})
+	public int magnitude;
+
+	@Param({"UNIFORM", "ZIPFIAN", "CLUSTERED"})
+	public KeyDistribution distribution;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException
+	{
+		int size = 1 << magnitude;
+		int range = 2*size;
+		sortedKeys = distribution.distinctSortedKeys(size, range, seed);
+
+		cocoTree = new CocoTree(Arrays.copyOf(sortedKeys, size)).rebuild();
+		immutableSet = new ImmutableOrderedSet(Arrays.copyOf(sortedKeys, size));
+		cocoTreeFile = Files.createTempFile("cocoTree", ".tree");
+		cocoTree.save(cocoTreeFile);
+		mappedCocoTree = MappedCocoTree.open(cocoTreeFile);
+		immutableSetFile = Files.createTempFile("immutableOrderedSet", ".tree");
+		immutableSet.save(immutableSetFile);
+		mappedImmutableSet = MappedImmutableOrderedSet.open(immutableSetFile);
+		treeSet = new TreeSet<Integer>();
+		skipList = new ConcurrentSkipListSet<Integer>();
+		for (int i=0; i<size; i++) {
+			treeSet.add(sortedKeys[i]);
+			skipList.add(sortedKeys[i]);
+		}
+
+		probes = distribution.keys(numberOfProbes, range, seed+1);
+		boxedProbes = new Integer[numberOfProbes];
+		for (int i=0; i<numberOfProbes; i++) {
+			boxedProbes[i] = probes[i];
+		}
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean cocoTree()
+	{
+		return cocoTree.contains(probes[advance()]);
+	}
+
+	@Benchmark
+	public boolean immutableOrderedSet()
+	{
+		return immutableSet.contains(probes[advance()]);
+	}
+
+	@Benchmark
+	public boolean mappedCocoTree()
+	{
+		return mappedCocoTree.contains(probes[advance()]);
+	}
+
+	@Benchmark
+	public boolean mappedImmutableOrderedSet()
+	{
+		return mappedImmutableSet.contains(probes[advance()]);
+	}
+
+	@Benchmark
+	public boolean binarySearch()
+	{
+		return Arrays.binarySearch(sortedKeys, probes[advance()]) >= 0;
+	}
+
+	@Benchmark
+	public boolean treeSet()
+	{
+		return treeSet.contains(boxedProbes[advance()]);
+	}
+
+	@Benchmark
+	public boolean concurrentSkipListSet()
+	{
+		return skipList.contains(boxedProbes[advance()]);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		Files.delete(cocoTreeFile);
+		Files.delete(immutableSetFile);
+	}
+
+	private int advance()
+	{
+		int current = next;
+		next = (current+1) & (numberOfProbes-1);
+		return current;
+	}
+
+	private static final int numberOfProbes = 1 << 16;//power of two
+	private static final long seed = 2;
+
+	private int[] sortedKeys;
+	private CocoTree cocoTree;
+	private ImmutableOrderedSet immutableSet;
+	private MappedCocoTree mappedCocoTree;
+	private MappedImmutableOrderedSet mappedImmutableSet;
+	private Path cocoTreeFile;
+	private Path immutableSetFile;
+	private NavigableSet<Integer> treeSet;
+	private NavigableSet<Integer> skipList;
+	private int[] probes;
+	private Integer[] boxedProbes;
+	private int next;
+}
@@ -0,0 +1,57 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import ch.ethz.glukas.orderedset.CacheObliviousSortedSet;
+import ch.ethz.glukas.orderedset.ConcurrentRandomizedBST;
+import ch.ethz.glukas.orderedset.RandomizedBST;
+import ch.ethz.glukas.orderedset.ScapegoatTree;
+import ch.ethz.glukas.orderedset.SplayTree;
+import ch.ethz.glukas.orderedset.Treap;
+import ch.ethz.glukas.orderedset.WAVLTree;
+
+public class Structures {
+	//Creates the structures under test by name, so that they can be selected with a JMH @Param
+	//TreeSet and ConcurrentSkipListSet are the baselines
+
+	public static final String randomizedBST = "RandomizedBST";
+	public static final String splayTree = "SplayTree";
+	public static final String scapegoatTree = "ScapegoatTree";
+	public static final String slimScapegoatTree = "SlimScapegoatTree";//only the nodes of height at least 2 store their size
+	public static final String treap = "Treap";
+	public static final String wavlTree = "WAVLTree";
+	public static final String cacheObliviousSortedSet = "CacheObliviousSortedSet";
+	public static final String treeSet = "TreeSet";
+	public static final String skipList = "ConcurrentSkipListSet";
+	public static final String concurrentRandomizedBST = "ConcurrentRandomizedBST";
+
+	public static Set<Integer> newSet(String name)
+	{
+		if (name.equals(treap)) return new Treap<Integer>();
+		return newNavigableSet(name);
+	}
+
+	public static NavigableSet<Integer> newNavigableSet(String name)
+	{
+		if (name.equals(randomizedBST)) return new RandomizedBST<Integer>();
+		if (name.equals(scapegoatTree)) return new ScapegoatTree<Integer>();
+		if (name.equals(slimScapegoatTree)) return new ScapegoatTree<Integer>(null, 2);
+		if (name.equals(splayTree)) return new SplayTree<Integer>();
+		if (name.equals(wavlTree)) return new WAVLTree<Integer>();
+		if (name.equals(cacheObliviousSortedSet)) return new CacheObliviousSortedSet<Integer>();
+		if (name.equals(treeSet)) return new TreeSet<Integer>();
+		if (name.equals(skipList)) return new ConcurrentSkipListSet<Integer>();
+		if (name.equals(concurrentRandomizedBST)) return new ConcurrentRandomizedBST<Integer>();
+		throw new IllegalArgumentException("unknown structure: " + name);
+	}
+
+	public static void addAll(Set<Integer> set, int[] keys)
+	{
+		for (int i=0; i<keys.length; i++) {
+			set.add(keys[i]);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package ch.ethz.glukas.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The latency distribution of single updates of the search trees. JMH reports the percentiles of the sampled operations:
+ * the worst case latency is in the tail (p99.9 and above), the average is reported for comparison.
+ * 
+ * insert grows the set from empty in every iteration, so it includes the rebuilds of the ScapegoatTree.
+ * replace keeps size keys in the set: it removes the oldest key of a sliding window and adds the next one.
+ * With SEQUENTIAL keys, the splay tree and the scapegoat tree meet their amortized worst cases, the WAVLTree and the TreeSet have logarithmic worst case bounds.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UpdateLatencyBenchmark {
+
+	@Param({Structures.wavlTree, Structures.randomizedBST, Structures.splayTree, Structures.scapegoatTree, Structures.treeSet})
+	public String structure;
+
+	@Param({"UNIFORM", "SEQUENTIAL"})
+	public KeyDistribution distribution;
+
+	@Param({"1048576"})
+	public int size;
+
+	@Setup(Level.Trial)
+	public void setUpKeys()
+	{
+		keys = distribution.keys(numberOfKeys, Integer.MAX_VALUE-1, seed);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpSets()
+	{
+		growing = Structures.newSet(structure);
+		nextInsertion = 0;
+		
+		window = Structures.newSet(structure);
+		for (int i=0; i<size; i++) {
+			window.add(keys[i]);
+		}
+		nextReplacement = 0;
+	}
+
+	@Benchmark
+	public boolean insert()
+	{
+		boolean result = growing.add(keys[nextInsertion]);
+		nextInsertion = (nextInsertion+1) & (numberOfKeys-1);
+		return result;
+	}
+
+	@Benchmark
+	public boolean replace()
+	{
+		boolean result = window.remove(keys[nextReplacement]);
+		result ^= window.add(keys[(nextReplacement+size) & (numberOfKeys-1)]);
+		nextReplacement = (nextReplacement+1) & (numberOfKeys-1);
+		return result;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int numberOfKeys = 1 << 23;//power of two
+	private static final long seed = 2;
+
+	private int[] keys;
+	private Set<Integer> growing;
+	private int nextInsertion;
+	private Set<Integer> window;
+	private int nextReplacement;
+}
@@ -0,0 +1,44 @@
+package ch.ethz.glukas.orderedset;
+
+/**
+ * Derives the queries of a StaticSearchTree from floorIndex and get.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+public abstract class AbstractStaticSearchTree implements StaticSearchTree {
+
+	public boolean contains(int key)
+	{
+		int index = floorIndex(key);
+		return index >= 0 && get(index) == key;
+	}
+	
+	public int indexOf(int key)
+	{
+		int index = rank(key);
+		if (index < size() && get(index) == key) {
+			return index;
+		}
+		return -1;
+	}
+	
+	public int rank(int key)
+	{
+		if (key == Integer.MIN_VALUE) return 0;
+		return floorIndex(key-1)+1;
+	}
+	
+	public int ceilingIndex(int key)
+	{
+		return rank(key);
+	}
+	
+	public int sizeOfRange(int lowerbound, int upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		int from = fromInclusive ? rank(lowerbound) : floorIndex(lowerbound)+1;
+		int to = toInclusive ? floorIndex(upperbound)+1 : rank(upperbound);
+		return Math.max(0, to-from);
+	}
+	
+}
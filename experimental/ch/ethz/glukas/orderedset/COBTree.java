@@ -3,23 +3,33 @@ package ch.ethz.glukas.orderedset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 public class COBTree {
 	//The packed memory structure maintains an ordered set of keys
 	//the keys are arranged to allow fast O(K/B) traversal, where K is the number of keys to scan and B is the cache line size
 	//searches are O(log(N)) worst case time
-	//insertions are the cost of searching plus O(log^2(N)/B) amortized time, where N is the number of keys in the structure
+	//insertions and removals are the cost of searching plus O(log^2(N)/B) amortized time, where N is the number of keys in the structure
+	//each key can carry a long value, stored in a parallel array that is only allocated once a value is put
+	//the keys must not be 0: 0 marks the empty slots, and the lookups return 0 if there is no such key
 	
 	
 	//Implementation details:
 	//the size of the array ("capacity") is a power of two.
 	//the section size is the next highest power of two of log2(capacity). therefore also the number of sections is a number of two.
 	//in each section, the keys are stored left-aligned.
-	//there is always at least one free slot in each section
+	//there is always at least one free slot in each section, and every section holds at least one key (except if the structure is empty)
+	//removals use the lower density thresholds (see PackedMemoryDensity): sections that get too sparse are redistributed, the capacity shrinks when the whole array is too sparse
 	
 	
 	
@@ -33,51 +43,706 @@ public class COBTree {
 	{
 		//capacity should be a power of 2
 		keys = new int[capacity];
+		if (values != null) {
+			values = new long[capacity];
+		}
 		//auxiliary = new int[capacity];
-		sectionSize = sectionSizeForCapacity(capacity);
+		sectionSize = PackedMemoryDensity.sectionSizeForCapacity(capacity);
 		firstKeyOfSection = new int[capacity/sectionSize];
 		indexTree = new CocoTree(firstKeyOfSection);
 		depth = BinaryMath.log(numberOfSections());
 		usedSlotsPerSection = new int[numberOfSectionsForLevel(0)];
 	}
 	
+	//the target of an incremental rebuild, holds the keys (and values, if there are any) of the structure
+	private COBTree(int capacity, boolean withValues)
+	{
+		init(capacity);
+		if (withValues) {
+			values = new long[capacity];
+		}
+	}
+	
+	//the redistributions of blocks of at least this many slots run in parallel, Integer.MAX_VALUE keeps them all sequential
+	public void setParallelRedistributionThreshold(int slots)
+	{
+		parallelRedistributionThreshold = slots;
+	}
+	
+	//the redistributions of blocks of at least this many slots are replaced by incremental rebuilds (see Rebuild), Integer.MAX_VALUE turns them off
+	//a rebuild only starts if the keys fill all sections of the new arrays, smaller redistributions are performed at once
+	public void setIncrementalRebuildThreshold(int slots)
+	{
+		incrementalRebuildThreshold = slots;
+	}
+	
 	public int size()
 	{
+		if (rebuild != null) return count+rebuild.difference;
 		return count;
 	}
 	
 	public boolean contains(int key)
 	{
+		if (rebuild != null) {
+			int entry = rebuild.pendingEntry(key);
+			if (entry >= 0) return rebuild.isPresent(entry);
+		}
 		int section = sectionForKey(key);
-		boolean result = contains(key, section);
+		boolean result = indexOf(key, section) >= 0;
 		
 		assert checkInvariants();
 		return result;
 	}
 	
+	//the value of a new key is 0
 	public void insert(int key)
+	{
+		if (rebuild != null) {
+			rebuild.insert(key);
+		} else {
+			insertKey(key);
+		}
+	}
+	
+	//associates the value with the key, inserting the key if needed
+	//returns the previous value of the key, or 0 if the key was not present
+	public long put(int key, long value)
+	{
+		if (rebuild != null) return rebuild.put(key, value);
+		return putKey(key, value);
+	}
+	
+	//returns the value of the key, or 0 if the key is not present
+	public long get(int key)
+	{
+		if (rebuild != null) {
+			int entry = rebuild.pendingEntry(key);
+			if (entry >= 0) return rebuild.value(entry);
+		}
+		if (values == null) return 0;
+		int index = indexOf(key, sectionForKey(key));
+		return index >= 0 ? values[index] : 0;
+	}
+	
+	//returns true if the key was present
+	public boolean remove(int key)
+	{
+		if (rebuild != null) return rebuild.remove(key);
+		return removeKey(key);
+	}
+	
+	//the modifications of the arrays
+	
+	private void insertKey(int key)
 	{
 		int section = sectionForKey(key);
-		if (contains(key, section)) return;
+		if (indexOf(key, section) >= 0) return;
+		if (startsRebuildOnInsertion(section)) {
+			rebuild.insert(key);
+			return;
+		}
 		count++;
-		insert(key, section);
+		insert(key, 0, section);
 		assert checkInvariants();
 		assert contains(key);
 	}
 	
-	private boolean contains(int key, int section)
+	private long putKey(int key, long value)
+	{
+		int section = sectionForKey(key);
+		int index = indexOf(key, section);
+		if (index >= 0 && values != null) {
+			long oldValue = values[index];
+			values[index] = value;
+			return oldValue;
+		}
+		if (index < 0 && startsRebuildOnInsertion(section)) return rebuild.put(key, value);
+		if (values == null) {
+			values = new long[capacity()];
+			if (index >= 0) {
+				values[index] = value;
+				return 0;
+			}
+		}
+		count++;
+		insert(key, value, section);
+		assert checkInvariants();
+		assert get(key) == value;
+		return 0;
+	}
+	
+	private boolean removeKey(int key)
+	{
+		int section = sectionForKey(key);
+		int index = indexOf(key, section);
+		if (index < 0) return false;
+		if (startsRebuildOnRemoval(section)) return rebuild.remove(key);
+		count--;
+		remove(index, section);
+		assert checkInvariants();
+		assert !contains(key);
+		return true;
+	}
+	
+	/////
+	//NAVIGATION
+	//the key is searched in its section, if the result is not in the section, it is the first key of the next or the last key of the previous section
+	//all of these return 0 if there is no such key
+	//during a rebuild, the keys of the arrays that have a pending modification are skipped, and the nearest key of the arrays is compared with the nearest pending insertion
+	/////
+	
+	//the smallest key greater than or equal to the key
+	public int ceiling(int key)
+	{
+		return ceiling(key, true);
+	}
+	
+	//the smallest key greater than the key
+	public int higher(int key)
+	{
+		return ceiling(key, false);
+	}
+	
+	//the largest key smaller than or equal to the key
+	public int floor(int key)
+	{
+		return floor(key, true);
+	}
+	
+	//the largest key smaller than the key
+	public int lower(int key)
+	{
+		return floor(key, false);
+	}
+	
+	//the smallest key, or 0 if the structure is empty
+	public int first()
+	{
+		if (rebuild != null) return ceiling(Integer.MIN_VALUE, true);
+		return keys[0];
+	}
+	
+	//the largest key, or 0 if the structure is empty
+	public int last()
+	{
+		if (rebuild != null) return floor(Integer.MAX_VALUE, true);
+		int lastSection = numberOfSections()-1;
+		return keyOrZero(arrayIndexForSection(lastSection)+usedSlotsPerSection[lastSection]-1);
+	}
+	
+	private int ceiling(int key, boolean inclusive)
+	{
+		int index = ceilingIndex(key, inclusive);
+		if (rebuild == null) return keyOrZero(index);
+		while (index >= 0 && rebuild.pendingEntry(keys[index]) >= 0) {
+			index = ceilingIndex(keys[index], false);
+		}
+		int result = keyOrZero(index);
+		int pending = rebuild.pendingCeiling(key, inclusive);
+		if (result == 0 || (pending != 0 && pending < result)) return pending;
+		return result;
+	}
+	
+	private int floor(int key, boolean inclusive)
+	{
+		int index = floorIndex(key, inclusive);
+		if (rebuild == null) return keyOrZero(index);
+		while (index >= 0 && rebuild.pendingEntry(keys[index]) >= 0) {
+			index = floorIndex(keys[index], false);
+		}
+		int result = keyOrZero(index);
+		int pending = rebuild.pendingFloor(key, inclusive);
+		if (result == 0 || (pending != 0 && pending > result)) return pending;
+		return result;
+	}
+	
+	private int keyOrZero(int index)
+	{
+		if (index < 0) return 0;
+		return keys[index];
+	}
+	
+	/////
+	//SCANS
+	//a range [from, to] (both inclusive) is traversed section by section: within a section the keys are contiguous,
+	//the free slots at the end of a section are skipped using usedSlotsPerSection. no keys are copied or boxed.
+	//the scans and cursors are invalidated by modifications of the structure
+	//during a rebuild, they merge the keys of the arrays that have no pending modification with the pending insertions
+	/////
+	
+	//passes the keys in [from, to] to the consumer in ascending order, returns the number of keys passed
+	public int scan(int from, int to, IntConsumer consumer)
+	{
+		if (rebuild != null) {
+			Cursor cursor = cursor(from, to);
+			int scanned = 0;
+			while (cursor.hasNext()) {
+				consumer.accept(cursor.nextKey());
+				scanned++;
+			}
+			return scanned;
+		}
+		if (from > to) return 0;
+		int index = ceilingIndex(from, true);
+		if (index < 0) return 0;
+	
+		int scanned = 0;
+		int numberOfSections = numberOfSections();
+		for (int section = index/sectionSize; section < numberOfSections; section++) {
+			int end = arrayIndexForSection(section)+usedSlotsPerSection[section];
+			for (; index < end; index++) {
+				int key = keys[index];
+				if (key > to) return scanned;
+				consumer.accept(key);
+				scanned++;
+			}
+			index = arrayIndexForSection(section+1);
+		}
+		return scanned;
+	}
+	
+	//the number of keys in [from, to]
+	//only the sections at the ends of the range are searched, the sections in between are counted using usedSlotsPerSection
+	//during a rebuild, the count of the arrays is corrected by the pending modifications in the range
+	public int sizeOfRange(int from, int to)
+	{
+		if (from > to) return 0;
+		int result = sizeOfRangeInArrays(from, to);
+		if (rebuild != null) {
+			result += rebuild.pendingDifference(from, to);
+		}
+		return result;
+	}
+	
+	private int sizeOfRangeInArrays(int from, int to)
+	{
+		int first = ceilingIndex(from, true);
+		int last = floorIndex(to, true);
+		if (first < 0 || last < 0 || first > last) return 0;
+	
+		int firstSection = first/sectionSize;
+		int lastSection = last/sectionSize;
+		if (firstSection == lastSection) return last-first+1;
+	
+		int result = arrayIndexForSection(firstSection)+usedSlotsPerSection[firstSection]-first;
+		for (int section = firstSection+1; section < lastSection; section++) {
+			result += usedSlotsPerSection[section];
+		}
+		result += last-arrayIndexForSection(lastSection)+1;
+		return result;
+	}
+	
+	//an empty cursor, to be positioned with reset
+	public Cursor cursor()
+	{
+		return new Cursor();
+	}
+	
+	//a cursor over the keys in [from, to]
+	public Cursor cursor(int from, int to)
+	{
+		Cursor cursor = new Cursor();
+		cursor.reset(from, to);
+		return cursor;
+	}
+	
+	//a sequential stream of the keys in [from, to] in ascending order, backed by a cursor
+	public IntStream keys(int from, int to)
+	{
+		return StreamSupport.intStream(new KeySpliterator(from, to), false);
+	}
+	
+	//a sized, sorted spliterator over a range of keys. splitting copies a prefix of the keys into an array
+	private final class KeySpliterator extends Spliterators.AbstractIntSpliterator {
+	
+		private KeySpliterator(int from, int to)
+		{
+			super(sizeOfRange(from, to), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL | Spliterator.SIZED);
+			cursor = cursor(from, to);
+		}
+	
+		@Override
+		public boolean tryAdvance(IntConsumer action)
+		{
+			if (!cursor.hasNext()) return false;
+			action.accept(cursor.nextKey());
+			return true;
+		}
+	
+		@Override
+		public void forEachRemaining(IntConsumer action)
+		{
+			while (cursor.hasNext()) {
+				action.accept(cursor.nextKey());
+			}
+		}
+	
+		//the keys are in their natural order
+		@Override
+		public Comparator<? super Integer> getComparator()
+		{
+			return null;
+		}
+	
+		private final Cursor cursor;
+	}
+	
+	//a primitive, reusable iterator over a range of keys
+	//resetting the cursor to a new range does not allocate
+	public final class Cursor {
+	
+		private Cursor()
+		{
+		}
+	
+		//positions the cursor before the first key in [from, to]
+		public void reset(int from, int to)
+		{
+			this.to = to;
+			index = 0;
+			end = 0;
+			pending = rebuild;
+			nextPending = 0;
+			if (from > to) return;
+			if (pending != null) {
+				nextPending = pendingUpToBound(pending.pendingCeiling(from, true));
+			}
+			int start = ceilingIndex(from, true);
+			if (start < 0) return;
+	
+			section = start/sectionSize;
+			index = start;
+			end = arrayIndexForSection(section)+usedSlotsPerSection[section];
+			skipToNextKey();
+		}
+	
+		public boolean hasNext()
+		{
+			return index < end || nextPending != 0;
+		}
+	
+		//returns the next key in the range
+		public int nextKey()
+		{
+			if (nextPending != 0 && (index >= end || nextPending < keys[index])) {
+				currentKey = nextPending;
+				current = -1;
+				nextPending = pendingUpToBound(pending.pendingCeiling(nextPending, false));
+				return currentKey;
+			}
+			if (index >= end) throw new NoSuchElementException();
+			current = index;
+			index++;
+			skipToNextKey();
+			return keys[current];
+		}
+	
+		//the value of the key last returned by nextKey, 0 if no values were put
+		public long value()
+		{
+			if (current < 0) return pending.value(pending.pendingEntry(currentKey));
+			if (values == null) return 0;
+			return values[current];
+		}
+	
+		//moves to the next section if the current one is exhausted, skips the keys with a pending modification, and ends the cursor after the upper bound
+		private void skipToNextKey()
+		{
+			int numberOfSections = numberOfSections();
+			while (true) {
+				while (index == end && section+1 < numberOfSections) {
+					section++;
+					index = arrayIndexForSection(section);
+					end = index+usedSlotsPerSection[section];
+				}
+				if (index < end && keys[index] > to) {
+					end = index;
+				}
+				if (index == end || pending == null || pending.pendingEntry(keys[index]) < 0) return;
+				index++;//the key has a pending modification
+			}
+		}
+	
+		private int pendingUpToBound(int key)
+		{
+			return key != 0 && key <= to ? key : 0;
+		}
+	
+		private int index;//the array index of the next key
+		private int end;//the first free index of the current section
+		private int section;
+		private int current;//-1 if the last key is a pending insertion
+		private int currentKey;
+		private int to;
+		private Rebuild pending;//the rebuild in progress when the cursor was reset
+		private int nextPending;//the next pending insertion in the range, 0 if there is none
+	}
+	
+	/////
+	//BATCHES
+	//the batch is sorted and inserted in groups: a group consists of the keys that fall into the smallest window around the section of its first key
+	//that can hold them all. each group is merged with the keys of its window in one pass and distributed evenly among the sections of the window.
+	//a group that fits into its own section is merged in place. a batch that is large compared to the structure ends up in a single group, which is merged with the whole array.
+	//the keys of the batch that are already present count towards the size of their group, so the windows can be slightly larger than needed
+	/////
+	
+	//inserts the keys, the values of the new keys are 0 (the batch is not modified)
+	//during a rebuild, the keys are inserted one by one, each of them performs a step. the rest of the batch is merged once the rebuild completes
+	public void insertAll(int[] batch)
+	{
+		int inserted = 0;
+		while (rebuild != null && inserted < batch.length) {
+			insert(batch[inserted++]);
+		}
+		if (inserted > 0) {
+			batch = Arrays.copyOfRange(batch, inserted, batch.length);
+		}
+		batch = sortedDistinct(batch);
+		int index = 0;
+		while (index < batch.length) {
+			index = insertGroup(batch, index);
+		}
+		assert checkInvariants();
+	}
+	
+	//merges the group that starts at batch[from] into the structure, returns the index of the first key after the group
+	private int insertGroup(int[] batch, int from)
+	{
+		int window = sectionForKey(batch[from]);
+		int level = depth();
+		int to = endOfGroup(batch, from, window, level);
+		while (level >= 0 && !isWithinUpperbound(arrayIndexForNode(level, window), level, to-from)) {
+			window = window/2;
+			level--;
+			to = endOfGroup(batch, from, window, level);
+		}
+		if (level == depth()) {
+			mergeIntoSection(batch, from, to, window);
+		} else {
+			merge(batch, from, to, level, window);
+		}
+		return to;
+	}
+	
+	//merges the keys batch[from..to) into the section from right to left, without a buffer
+	//the section has room for all of them, the gaps left by the keys that are already present are closed at the end
+	private void mergeIntoSection(int[] batch, int from, int to, int section)
+	{
+		int arrayIndexOfSection = arrayIndexForSection(section);
+		int end = arrayIndexOfSection+usedSlotsPerSection[section]+to-from;
+		int index = arrayIndexOfSection+usedSlotsPerSection[section]-1;
+		int targetIndex = end-1;
+		for (int batchIndex = to-1; batchIndex >= from; targetIndex--) {
+			if (index >= arrayIndexOfSection && keys[index] >= batch[batchIndex]) {
+				if (keys[index] == batch[batchIndex]) {
+					batchIndex--;
+				}
+				keys[targetIndex] = keys[index];
+				if (values != null) {
+					values[targetIndex] = values[index];
+				}
+				index--;
+			} else {
+				keys[targetIndex] = batch[batchIndex--];
+				if (values != null) {
+					values[targetIndex] = 0;
+				}
+			}
+		}
+		
+		int gap = targetIndex-index;
+		if (gap > 0) {
+			System.arraycopy(keys, targetIndex+1, keys, index+1, end-targetIndex-1);
+			Arrays.fill(keys, end-gap, end, 0);
+			if (values != null) {
+				System.arraycopy(values, targetIndex+1, values, index+1, end-targetIndex-1);
+				Arrays.fill(values, end-gap, end, 0);
+			}
+		}
+		count += to-from-gap;
+		usedSlotsPerSection[section] += to-from-gap;
+		
+		if (firstKeyOfSection[section] != keys[arrayIndexOfSection]) {
+			int oldValue = firstKeyOfSection[section];
+			firstKeyOfSection[section] = keys[arrayIndexOfSection];
+			indexTree.update(oldValue, oldValue);
+		}
+		assert sectionIsSorted(section);
+		assert keys[arrayIndexOfSection+sectionSize-1] == 0;
+		assert usedSlotsConsistent();
+	}
+	
+	//the index of the first key of the batch that belongs to a section after the window
+	private int endOfGroup(int[] batch, int from, int window, int level)
+	{
+		if (level < 0) return batch.length;
+		int nextSection = (window+1)*numberOfSectionsForLevel(level);
+		if (nextSection >= numberOfSections()) return batch.length;
+		
+		int index = Arrays.binarySearch(batch, from, batch.length, firstKeyOfSection[nextSection]);
+		if (index < 0) {
+			index = -(index+1);
+		}
+		return index;
+	}
+	
+	//merges the keys batch[from..to) with the keys of the window and distributes them evenly among the sections of the window
+	//if the level is negative, the whole array is rebuilt with a capacity that fits all the keys
+	private void merge(int[] batch, int from, int to, int level, int window)
+	{
+		int startIndex = arrayIndexForNode(level, window);
+		int numberOfSections = numberOfSectionsForLevel(level);
+		int numberOfKeys = crunch(startIndex, numberOfSections);
+		
+		//merge the crunched block with the batch, the keys that are already present keep their values
+		int[] mergedKeys = new int[numberOfKeys+to-from];
+		long[] mergedValues = values == null ? null : new long[mergedKeys.length];
+		int blockIndex = startIndex;
+		int blockEnd = startIndex+numberOfKeys;
+		int batchIndex = from;
+		int length = 0;
+		while (blockIndex < blockEnd || batchIndex < to) {
+			if (batchIndex == to || (blockIndex < blockEnd && keys[blockIndex] <= batch[batchIndex])) {
+				if (batchIndex < to && keys[blockIndex] == batch[batchIndex]) {
+					batchIndex++;
+				}
+				if (mergedValues != null) {
+					mergedValues[length] = values[blockIndex];
+				}
+				mergedKeys[length++] = keys[blockIndex++];
+			} else {
+				mergedKeys[length++] = batch[batchIndex++];
+			}
+		}
+		
+		int lowestIndexValue;
+		int highestIndexValue;
+		if (level < 0) {
+			init(PackedMemoryDensity.capacityForCount(length));
+			numberOfSections = numberOfSections();
+			lowestIndexValue = Integer.MIN_VALUE;
+			highestIndexValue = Integer.MAX_VALUE;
+		} else {
+			int section = startIndex/sectionSize;
+			lowestIndexValue = firstKeyOfSection[section];
+			highestIndexValue = firstKeyOfSection[section+numberOfSections-1];
+			//the crunched block is replaced by the merged keys
+			Arrays.fill(keys, startIndex, blockEnd, 0);
+			if (values != null) {
+				Arrays.fill(values, startIndex, blockEnd, 0);
+			}
+		}
+		count += length-numberOfKeys;
+		
+		//the index only needs an update if the first key of a section changed (always the case after a total rebuild)
+		if (distributeBuffer(mergedKeys, mergedValues, length, startIndex, numberOfSections) || level < 0) {
+			indexTree.update(lowestIndexValue, highestIndexValue);
+		}
+		
+		assert isWithinCapacity();
+		assert usedSlotsConsistent();
+	}
+	
+	//distributes the keys of the buffer evenly among the (empty) sections that start at the array index, like distributeBlock
+	//returns true if the first key of one of the sections changed
+	private boolean distributeBuffer(int[] fromKeys, long[] fromValues, int numberOfKeys, int toStartIndex, int targetNumberOfSections)
+	{
+		assert numberOfKeys >= targetNumberOfSections;
+		assert targetNumberOfSections*(sectionSize-1) >= numberOfKeys;
+		
+		int keysPerSection = numberOfKeys/targetNumberOfSections;
+		int leftover = numberOfKeys-(targetNumberOfSections*keysPerSection);//the first few sections get one key more
+		int fromIndex = 0;
+		int section = toStartIndex/sectionSize;
+		boolean changed = false;
+		for (int i=0; i<targetNumberOfSections; i++) {
+			int length = i < leftover ? keysPerSection+1 : keysPerSection;
+			int toIndex = arrayIndexForSection(section);
+			System.arraycopy(fromKeys, fromIndex, keys, toIndex, length);
+			if (fromValues != null) {
+				System.arraycopy(fromValues, fromIndex, values, toIndex, length);
+			}
+			usedSlotsPerSection[section] = length;
+			changed = changed || firstKeyOfSection[section] != keys[toIndex];
+			firstKeyOfSection[section] = keys[toIndex];
+			fromIndex += length;
+			section++;
+		}
+		
+		assert countConsistent();
+		assert firstKeyOfSectionsConsistent();
+		return changed;
+	}
+	
+	//the keys in ascending order without duplicates, the array is copied if it has to be changed
+	private static int[] sortedDistinct(int[] batch)
+	{
+		int i = 1;
+		while (i < batch.length && batch[i-1] < batch[i]) {
+			i++;
+		}
+		if (i >= batch.length) return batch;
+		
+		int[] result = batch.clone();
+		Arrays.sort(result);
+		int length = result.length == 0 ? 0 : 1;
+		for (int j=1; j<result.length; j++) {
+			if (result[j] != result[length-1]) {
+				result[length++] = result[j];
+			}
+		}
+		return Arrays.copyOf(result, length);
+	}
+	
+	//returns the array index of the ceiling (or the higher key, if not inclusive), or -1 if there is none
+	private int ceilingIndex(int key, boolean inclusive)
+	{
+		int section = sectionForKey(key);
+		int index = arrayIndexForSection(section);
+		int end = index+usedSlotsPerSection[section];
+		while (index < end && (keys[index] < key || (!inclusive && keys[index] == key))) {
+			index++;
+		}
+		if (index < end) return index;
+		//the first key of the next section
+		if (section+1 < numberOfSections()) return arrayIndexForSection(section+1);
+		return -1;
+	}
+	
+	//returns the array index of the floor (or the lower key, if not inclusive), or -1 if there is none
+	private int floorIndex(int key, boolean inclusive)
+	{
+		int section = sectionForKey(key);
+		int start = arrayIndexForSection(section);
+		int index = start+usedSlotsPerSection[section]-1;
+		while (index >= start && (keys[index] > key || (!inclusive && keys[index] == key))) {
+			index--;
+		}
+		if (index >= start) return index;
+		//the last key of the previous section
+		if (section > 0) return firstFreeIndexForSectionAtIndex(arrayIndexForSection(section-1))-1;
+		return -1;
+	}
+	
+	/////
+	//IMPLEMENTATION
+	/////
+	
+	//returns the array index of the key, or -1 if it is not present
+	private int indexOf(int key, int section)
 	{
 		//linear scan through the section
 		int index = arrayIndexForSection(section);
 		while (keys[index] != 0) {
-			if (keys[index] == key) return true;
+			if (keys[index] == key) return index;
 			index++;
 		}
-		return false;
+		return -1;
 	}
 	
 	
-	private void insert(int key, int section)
+	private void insert(int key, long value, int section)
 	{
 		int arrayIndexOfSection = arrayIndexForSection(section);
 		//there is at least one free slot in the section
@@ -90,6 +755,10 @@ public class COBTree {
 		}
 		//push the part of the section that is larger than the key to the right
 		System.arraycopy(keys, index, keys, index+1, sectionSize-index+arrayIndexOfSection-1);
+		if (values != null) {
+			System.arraycopy(values, index, values, index+1, sectionSize-index+arrayIndexOfSection-1);
+			values[index] = value;
+		}
 		
 		//insert the key in the now free spot
 		keys[index] = key;
@@ -107,10 +776,34 @@ public class COBTree {
 	}
 	
 	
+	//removes the key at the index by pushing the part of the section above it to the left
+	private void remove(int index, int section)
+	{
+		int arrayIndexOfSection = arrayIndexForSection(section);
+		int end = firstFreeIndexForSectionAtIndex(arrayIndexOfSection);
+		System.arraycopy(keys, index+1, keys, index, end-index-1);
+		keys[end-1] = 0;
+		if (values != null) {
+			System.arraycopy(values, index+1, values, index, end-index-1);
+			values[end-1] = 0;
+		}
+		usedSlotsPerSection[section]--;
+		
+		//a section that became empty keeps its old first key in the index until it is redistributed by ensureLowerDensity
+		if (index == arrayIndexOfSection && keys[index] != 0) {
+			int oldValue = firstKeyOfSection[section];
+			firstKeyOfSection[section] = keys[arrayIndexOfSection];
+			indexTree.update(oldValue, oldValue);
+		}
+		assert sectionIsSorted(section);
+		
+		ensureLowerDensity(section);
+	}
+	
 	private int sectionForKey(int key)
 	{
 		//co height-partitioned static search tree
-		return indexTree.indexOf(key);
+		return indexTree.leafIndexOf(key);
 		
 		//binary search
 		/*if (key <= firstKeyOfSection[0]) return 0;
@@ -128,37 +821,414 @@ public class COBTree {
 		int sectionIndex = arrayIndexForSection(section);
 		if (keys[sectionIndex+sectionSize-1] != 0) {//section is all full - a redistribution is required
 			
-			int level = depth();
 			//A) find the first level that is within capacity
-			while (level >= 0 && !isWithinUpperbound(arrayIndexForNode(level, section), level)) {
-				section = section/2;
-				level--;
-			}
+			int level = levelWithinUpperbound(section, 0);
 
 			//B) redistribute the keys among the sections
-			redistribute(arrayIndexForNode(level, section), level);
+			redistribute(arrayIndexForNode(level, windowIndex(section, level)), level, 2*capacity());
 		}
 		assert isWithinCapacity();
 	}
 	
+	//the counterpart of ensureDensity for removals
+	private void ensureLowerDensity(int section)
+	{
+		if (count == 0) {
+			init(1);
+			return;
+		}
+		if (!PackedMemoryDensity.isSectionTooSparse(usedSlotsPerSection[section], sectionSize)) return;
+		
+		//A) find the first level that is dense enough
+		int level = levelWithinLowerbound(section, 0);
+		
+		//B) redistribute the keys among the sections, or shrink the array if it is too sparse as a whole
+		redistribute(arrayIndexForNode(level, windowIndex(section, level)), level, PackedMemoryDensity.capacityForCount(count));
+		assert isWithinCapacity();
+	}
+	
+	
+	//////
+	//Incremental rebuilds
+	//a redistribution of at least incrementalRebuildThreshold slots is replaced by a rebuild of the whole array that proceeds in bounded steps:
+	//1. copy: the arrays are frozen and copied, section by section, to evenly filled arrays of the new capacity.
+	//   the modifications are recorded in a hash table and not applied to the arrays. the lookups consult the table first, then the frozen arrays.
+	//2. replay: the new arrays replace the old ones, the recorded modifications are applied to them a few at a time.
+	//   a modification of a key replays its recorded modification first. the lookups consult the table for the keys that are still pending.
+	//each modification performs one step, which copies rebuildSlotsPerStep slots or replays replaySlotsPerStep slots of the table.
+	//the lookups, the navigation, the scans and the cursors do not perform steps. they combine the arrays with the recorded modifications that are pending:
+	//the keys of the pending modifications are kept in order in pendingKeys, so the nearest pending insertion is found in O(log N) expected time.
+	//a navigation skips the keys of the arrays that have a pending modification, so it takes an additional step for each of them that it passes.
+	//the decision is taken before the modification is applied, so the frozen arrays satisfy all invariants
+	//a redistribution that becomes necessary during the replay is performed at once
+	/////
+	
+	//starts a rebuild if inserting a key into the section would redistribute a large window
+	private boolean startsRebuildOnInsertion(int section)
+	{
+		if (rebuild != null || usedSlotsPerSection[section] < sectionSize-1) return false;//the section does not fill up
+		int level = levelWithinUpperbound(section, 1);
+		if (numberOfSectionsForLevel(level)*sectionSize < incrementalRebuildThreshold) return false;
+		int newCapacity = level < 0 ? 2*capacity() : capacity();
+		if (!fillsAllSections(newCapacity)) return false;
+		
+		rebuild = new Rebuild(newCapacity);
+		return true;
+	}
+	
+	//starts a rebuild if removing a key from the section would redistribute a large window
+	private boolean startsRebuildOnRemoval(int section)
+	{
+		if (rebuild != null || count == 1) return false;
+		int remaining = usedSlotsPerSection[section]-1;
+		if (!PackedMemoryDensity.isSectionTooSparse(remaining, sectionSize)) return false;//the section stays dense enough
+		int level = levelWithinLowerbound(section, -1);
+		if (numberOfSectionsForLevel(level)*sectionSize < incrementalRebuildThreshold) return false;
+		int newCapacity = level < 0 ? PackedMemoryDensity.capacityForCount(count-1) : capacity();
+		if (!fillsAllSections(newCapacity)) return false;
+		
+		rebuild = new Rebuild(newCapacity);
+		return true;
+	}
+	
+	//a rebuild spreads the keys evenly over all sections of the new arrays, so each of them needs at least one key
+	//small arrays (reached with small thresholds) are redistributed at once instead
+	private boolean fillsAllSections(int newCapacity)
+	{
+		return count >= newCapacity/PackedMemoryDensity.sectionSizeForCapacity(newCapacity);
+	}
+	
+	//true while a rebuild is in progress
+	boolean isRebuilding()
+	{
+		return rebuild != null;
+	}
+	
+	//takes over the arrays of the other structure
+	private void adopt(COBTree other)
+	{
+		usedSlotsPerSection = other.usedSlotsPerSection;
+		keys = other.keys;
+		values = other.values;
+		firstKeyOfSection = other.firstKeyOfSection;
+		indexTree = other.indexTree;
+		sectionSize = other.sectionSize;
+		count = other.count;
+		depth = other.depth;
+	}
+	
+	private class Rebuild {
+		
+		Rebuild(int newCapacity)
+		{
+			target = new COBTree(newCapacity, values != null);
+			int numberOfTargetSections = target.numberOfSections();
+			assert count >= numberOfTargetSections;
+			keysPerTargetSection = count/numberOfTargetSections;
+			leftover = count-numberOfTargetSections*keysPerTargetSection;
+			
+			//each step records at most one modification
+			sectionsPerStep = Math.max(1, rebuildSlotsPerStep/sectionSize);
+			int numberOfSteps = (numberOfSections()+sectionsPerStep-1)/sectionsPerStep;
+			int tableSize = BinaryMath.nextHighestPowerOfTwo(4*numberOfSteps+4);
+			recordedKeys = new int[tableSize];
+			recordedValues = new long[tableSize];
+			recordedStates = new byte[tableSize];
+			hashShift = 32-BinaryMath.log(tableSize);
+		}
+		
+		////
+		//MODIFICATIONS
+		////
+		
+		void insert(int key)
+		{
+			if (target == null) {
+				replay(key);
+				insertKey(key);
+			} else if (!contains(key)) {
+				record(key, present, 0);
+				difference++;
+			} else {
+				return;
+			}
+			step();
+		}
+		
+		long put(int key, long value)
+		{
+			long result;
+			if (target == null) {
+				replay(key);
+				result = putKey(key, value);
+			} else {
+				if (!contains(key)) {
+					difference++;
+				}
+				result = get(key);
+				record(key, present, value);
+			}
+			step();
+			return result;
+		}
+		
+		boolean remove(int key)
+		{
+			boolean result;
+			if (target == null) {
+				replay(key);
+				result = removeKey(key);
+			} else {
+				result = contains(key);
+				if (!result) return false;
+				record(key, absent, 0);
+				difference--;
+			}
+			step();
+			return result;
+		}
+		
+		//copies or replays the next part
+		void step()
+		{
+			if (target != null) {
+				copyStep();
+			} else {
+				replayStep();
+			}
+		}
+		
+		////
+		//COPY
+		////
+		
+		private void copyStep()
+		{
+			int numberOfSections = numberOfSections();
+			int end = Math.min(nextSection+sectionsPerStep, numberOfSections);
+			for (; nextSection < end; nextSection++) {
+				copySection(nextSection);
+			}
+			if (nextSection < numberOfSections) return;
+			
+			//the copy is complete
+			assert targetSection == target.numberOfSections();
+			target.count = count;
+			target.indexTree.update(Integer.MIN_VALUE, Integer.MAX_VALUE);
+			assert target.checkInvariants();
+			adopt(target);
+			target = null;
+		}
+		
+		//appends the keys of the section to the target sections, which are filled up one after the other
+		private void copySection(int section)
+		{
+			int from = arrayIndexForSection(section);
+			int remaining = usedSlotsPerSection[section];
+			while (remaining > 0) {
+				int keysOfTargetSection = targetSection < leftover ? keysPerTargetSection+1 : keysPerTargetSection;
+				int length = Math.min(remaining, keysOfTargetSection-targetFill);
+				int to = target.arrayIndexForSection(targetSection)+targetFill;
+				System.arraycopy(keys, from, target.keys, to, length);
+				if (values != null) {
+					System.arraycopy(values, from, target.values, to, length);
+				}
+				from += length;
+				remaining -= length;
+				targetFill += length;
+				
+				if (targetFill == keysOfTargetSection) {
+					target.usedSlotsPerSection[targetSection] = targetFill;
+					target.firstKeyOfSection[targetSection] = target.keys[target.arrayIndexForSection(targetSection)];
+					targetSection++;
+					targetFill = 0;
+				}
+			}
+		}
+		
+		////
+		//REPLAY
+		////
+		
+		private void replayStep()
+		{
+			int end = Math.min(replayIndex+replaySlotsPerStep, recordedKeys.length);
+			for (; replayIndex < end; replayIndex++) {
+				if (recordedStates[replayIndex] == present || recordedStates[replayIndex] == absent) {
+					replayEntry(replayIndex);
+				}
+			}
+			if (replayIndex < recordedKeys.length) return;
+			
+			//the replay is complete
+			assert difference == 0;
+			rebuild = null;
+		}
+		
+		//replays the modification of the key, if it is pending
+		private void replay(int key)
+		{
+			int entry = pendingEntry(key);
+			if (entry >= 0) {
+				replayEntry(entry);
+			}
+		}
+		
+		private void replayEntry(int entry)
+		{
+			int key = recordedKeys[entry];
+			long value = recordedValues[entry];
+			boolean isPresent = recordedStates[entry] == present;
+			recordedStates[entry] = replayed;//from now on, the lookups of the key use the arrays
+			pendingKeys.remove(key);
+			
+			int countBefore = count;
+			if (!isPresent) {
+				removeKey(key);
+			} else if (values == null && value == 0) {
+				insertKey(key);
+			} else {
+				putKey(key, value);
+			}
+			difference -= count-countBefore;
+		}
+		
+		////
+		//RECORDED MODIFICATIONS
+		//open addressing with linear probing, the key 0 marks the empty slots
+		////
+		
+		//the slot of the key, if its modification is pending, -1 otherwise
+		int pendingEntry(int key)
+		{
+			int slot = slotOf(key);
+			if (recordedKeys[slot] == 0 || recordedStates[slot] == replayed) return -1;
+			return slot;
+		}
+		
+		boolean isPresent(int entry)
+		{
+			return recordedStates[entry] == present;
+		}
+		
+		long value(int entry)
+		{
+			return recordedStates[entry] == present ? recordedValues[entry] : 0;
+		}
+		
+		private void record(int key, byte state, long value)
+		{
+			int slot = slotOf(key);
+			recordedKeys[slot] = key;
+			recordedValues[slot] = value;
+			recordedStates[slot] = state;
+			pendingKeys.add(key);
+		}
+		
+		////
+		//PENDING KEYS
+		//the keys of the pending modifications in order, the navigation combines them with the arrays
+		////
+		
+		//the smallest pending insertion greater than (or equal to) the key, 0 if there is none
+		int pendingCeiling(int key, boolean inclusive)
+		{
+			int rank = inclusive ? pendingKeys.ceilingIndex(key) : pendingKeys.higherIndex(key);
+			if (rank < 0) return 0;
+			int size = pendingKeys.size();
+			for (; rank < size; rank++) {
+				int pendingKey = pendingKeys.get(rank);
+				if (isPresent(pendingEntry(pendingKey))) return pendingKey;
+			}
+			return 0;
+		}
+		
+		//the largest pending insertion smaller than (or equal to) the key, 0 if there is none
+		int pendingFloor(int key, boolean inclusive)
+		{
+			int rank = inclusive ? pendingKeys.floorIndex(key) : pendingKeys.lowerIndex(key);
+			for (; rank >= 0; rank--) {
+				int pendingKey = pendingKeys.get(rank);
+				if (isPresent(pendingEntry(pendingKey))) return pendingKey;
+			}
+			return 0;
+		}
+		
+		//the number of keys in [from, to] minus the number of keys of the arrays in [from, to]
+		int pendingDifference(int from, int to)
+		{
+			int result = 0;
+			int rank = pendingKeys.ceilingIndex(from);
+			if (rank < 0) return 0;
+			int end = pendingKeys.floorIndex(to);
+			for (; rank <= end; rank++) {
+				int pendingKey = pendingKeys.get(rank);
+				if (isPresent(pendingEntry(pendingKey))) result++;
+				if (indexOf(pendingKey, sectionForKey(pendingKey)) >= 0) result--;
+			}
+			return result;
+		}
+		
+		//the slot that holds the key, or the empty slot where it would be inserted
+		private int slotOf(int key)
+		{
+			int mask = recordedKeys.length-1;
+			int slot = (key*0x9E3779B9) >>> hashShift;
+			while (recordedKeys[slot] != 0 && recordedKeys[slot] != key) {
+				slot = (slot+1) & mask;
+			}
+			return slot;
+		}
+		
+		////
+		//INSTANCE VARIABLES
+		////
+		
+		private COBTree target;//null once the copy is complete
+		private final int keysPerTargetSection;
+		private final int leftover;//the first few target sections hold one key more
+		private final int sectionsPerStep;
+		private int nextSection;//the next section to copy
+		private int targetSection;//the target section that is being filled
+		private int targetFill;
+		
+		private final int[] recordedKeys;
+		private final long[] recordedValues;
+		private final byte[] recordedStates;
+		private final int hashShift;
+		private final IntRandomizedBST pendingKeys = new IntRandomizedBST();
+		private int replayIndex;//the next slot of the table to replay
+		private int difference;//the size of the structure minus the number of keys in the arrays
+	}
+	
+	private static final byte present = 1;
+	private static final byte absent = 2;
+	private static final byte replayed = 3;
+	
 	
 	//////
 	//Sequential restructuring algorithms
 	/////
 	
-	private void redistribute(int startIndex, int level)
+	//if the level is negative, the whole array is rebuilt with the new capacity
+	private void redistribute(int startIndex, int level, int newCapacity)
 	{
+		if (numberOfSectionsForLevel(level)*sectionSize >= parallelRedistributionThreshold) {
+			parallelRedistribute(startIndex, level, newCapacity);
+			return;
+		}
 		assert usedSlotsConsistent();
 		assert startIndex >= 0;
 		
 		int numberOfSections = numberOfSectionsForLevel(level);
 		int numberOfKeys = crunch(startIndex, numberOfSections);//shift all elements to the left of the block and count them
 		int [] sourceArray = keys;
+		long [] sourceValues = values;
 		int lowestIndexValue;
 		int highestIndexValue;
 		if (level < 0) {//total rebuild necessary
 			assert numberOfKeys == exhaustiveCountNonZeroEntries(keys);
-			init(2*capacity());
+			init(newCapacity);
 			numberOfSections = numberOfSections();
 			lowestIndexValue = Integer.MIN_VALUE;
 			highestIndexValue = Integer.MAX_VALUE;
@@ -168,7 +1238,7 @@ public class COBTree {
 			highestIndexValue = firstKeyOfSection[section+numberOfSections-1];
 		}
 		
-		distributeBlock(startIndex, sourceArray, numberOfSections, numberOfKeys);
+		distributeBlock(startIndex, sourceArray, sourceValues, numberOfSections, numberOfKeys);
 		
 		indexTree.update(lowestIndexValue, highestIndexValue);
 		
@@ -178,7 +1248,7 @@ public class COBTree {
 	}
 	
 	
-	private void distributeBlock(int fromStartIndex, int[]fromArray, int targetNumberOfSections, int numberOfKeys)
+	private void distributeBlock(int fromStartIndex, int[]fromArray, long[]fromValues, int targetNumberOfSections, int numberOfKeys)
 	{
 		assert numberOfKeys >= targetNumberOfSections; //there must be enough keys
 		assert targetNumberOfSections*(sectionSize-1) >= numberOfKeys; //there should not be too many keys
@@ -197,7 +1267,7 @@ public class COBTree {
 				keysPerSection++;
 			}
 			
-			moveKeys(currentBlockIndex, fromArray, currentSectionIndex+keysPerSection-1, keys, keysPerSection);
+			moveKeys(currentBlockIndex, fromArray, fromValues, currentSectionIndex+keysPerSection-1, keys, values, keysPerSection);
 			
 			usedSlotsPerSection[currentSection] = keysPerSection;
 			firstKeyOfSection[currentSection] = keys[currentSectionIndex];
@@ -215,7 +1285,8 @@ public class COBTree {
 	//from index refers to the last element to be moved, toIndex to where the last element should go
 	//keys are copied scanning right to left
 	//the copied segment of the fromArray is zeroed out
-	private void moveKeys(int fromIndex, int[] fromArray, int toIndex, int[]toArray, int length)
+	//the values move with their keys, if there are values
+	private void moveKeys(int fromIndex, int[] fromArray, long[] fromValues, int toIndex, int[]toArray, long[] toValues, int length)
 	{
 		
 		//TODO: consider using system.arraycopy and arrays.fill
@@ -232,6 +1303,10 @@ public class COBTree {
 		for (int minToIndex = toIndex-length; toIndex>minToIndex; toIndex--) {
 			toArray[toIndex] = fromArray[fromIndex];
 			fromArray[fromIndex] = 0;
+			if (toValues != null) {
+				toValues[toIndex] = fromValues[fromIndex];
+				fromValues[fromIndex] = 0;
+			}
 			fromIndex--;
 		}
 	}
@@ -262,6 +1337,10 @@ public class COBTree {
 		for(; i < sectionSize && keys[sectionIndex+i] != 0; i++) {
 			keys[destinationIndex+i] = keys[sectionIndex+i];
 			keys[sectionIndex+i] = 0;
+			if (values != null) {
+				values[destinationIndex+i] = values[sectionIndex+i];
+				values[sectionIndex+i] = 0;
+			}
 		}
 		return destinationIndex+i;
 	}
@@ -270,17 +1349,57 @@ public class COBTree {
 	///////
 	///////
 	
-	private boolean isWithinUpperbound(int arrayIndexOfNode, int level)
+	//the level of the smallest window around the section that is within the upper density bound, if 'extra' keys were added to the section
+	//-1 if the whole array is too dense
+	private int levelWithinUpperbound(int section, int extra)
+	{
+		int level = depth();
+		while (level >= 0 && !isWithinUpperbound(arrayIndexForNode(level, section), level, extra)) {
+			section = section/2;
+			level--;
+		}
+		return level;
+	}
+	
+	//the counterpart of levelWithinUpperbound for removals ('extra' is negative)
+	private int levelWithinLowerbound(int section, int extra)
 	{
-		double count = numberOfUsedSlotsForNode(arrayIndexOfNode, level);
+		int level = depth();
+		while (level >= 0 && !isWithinLowerbound(arrayIndexForNode(level, section), level, extra)) {
+			section = section/2;
+			level--;
+		}
+		return level;
+	}
+	
+	//the index of the window at the level that contains the section
+	private int windowIndex(int section, int level)
+	{
+		if (level < 0) return 0;
+		return section >> (depth()-level);
+	}
+	
+	private boolean isWithinUpperbound(int arrayIndexOfNode, int level, int extra)
+	{
+		double count = numberOfUsedSlotsForNode(arrayIndexOfNode, level)+extra;
 		if (count > numberOfSectionsForLevel(level)*(sectionSize-1)) return false;//there needs to be at least one empty slot in each section
 		
 		double capacity = capacityOfNodeAtLevel(level);
-		double maxDensity = maxDensityForLevel(level);
+		double maxDensity = PackedMemoryDensity.upperboundForLevel(level, depth());
 		double density = count/capacity;
 		return density < maxDensity;
 	}
 	
+	private boolean isWithinLowerbound(int arrayIndexOfNode, int level, int extra)
+	{
+		double count = numberOfUsedSlotsForNode(arrayIndexOfNode, level)+extra;
+		if (count < numberOfSectionsForLevel(level)) return false;//there needs to be at least one key in each section
+		
+		double capacity = capacityOfNodeAtLevel(level);
+		double density = count/capacity;
+		return density >= PackedMemoryDensity.lowerboundForLevel(level, depth());
+	}
+	
 	private int numberOfUsedSlotsForNode(int arrayIndex, int level)
 	{
 		assert usedSlotsConsistent();
@@ -294,11 +1413,6 @@ public class COBTree {
 
 	}
 	
-	private double maxDensityForLevel(int level)
-	{
-		return rootDensityUpperbound + (level)*(leafDensityUpperbound-rootDensityUpperbound)/(depth()+1);
-	}
-	
 	private int arrayIndexForNode(int level, int windowIndex)
 	{
 		if (level < 0) return 0;
@@ -364,50 +1478,41 @@ public class COBTree {
 		return depth;
 	}
 	
-	private int capacity()
+	int capacity()
 	{
 		return keys.length;
 	}
 	
-	//section sizes are always powers of twos
-	private int sectionSizeForCapacity(int capacity)
-	{
-		assert BinaryMath.isPowerOfTwo(capacity);
-		
-		if (capacity <= 1) return 1;
-		if (capacity == 2) return 2;
-		return  BinaryMath.nextHighestPowerOfTwo(BinaryMath.log(capacity));
-	}
-	
 	////
 	//INSTANCE VARIABLES
 	////
 	
 	private int[] usedSlotsPerSection;
 	private int[] keys;
+	private long[] values;//null until the first put
 	private int[] firstKeyOfSection;
 	private CocoTree indexTree;
 	//private int[] auxiliary;
 	private int sectionSize;
 	private int count = 0;
 	private int depth;
+	private int parallelRedistributionThreshold = defaultParallelRedistributionThreshold;
+	private int incrementalRebuildThreshold = Integer.MAX_VALUE;
+	private Rebuild rebuild;//null if no rebuild is in progress
 	
 	
 	////
 	//CONSTANTS
 	////
 	
-	private final static double rootDensityUpperbound = 0.8;
-	private final static double rootDensityLowerbound = 0.35;
-	private final static double leafDensityLowerbound = 0.1;
-	private final static double leafDensityUpperbound = 1.0;
-
 	//private final static int dummy = Integer.MIN_VALUE;
 	
-	//private static final int numberOfSectionsPerChunk = BinaryMath.powerOfTwo(11);//used as a base case for the parallelized algorithms
-	//private static final int minimumParallelism = 4;
+	//the redistributions of blocks of at least this many slots run in parallel (see ParallelRedistribution)
+	private static final int defaultParallelRedistributionThreshold = 1 << 18;
 	
-	//private static final ForkJoinPool threadPool = new ForkJoinPool();
+	//the work of a modification during an incremental rebuild
+	private static final int rebuildSlotsPerStep = 1 << 10;
+	private static final int replaySlotsPerStep = 8;
 	/////
 	//INVARIANTS & ASSERTIONS
 	////
@@ -548,94 +1653,84 @@ public class COBTree {
 
 	/////
 	//Parallel restructuring algorithms
+	//used for the blocks of at least parallelRedistributionThreshold slots, the layout of the keys is the same as with the sequential algorithms
 	////
 	
-	
-	/*
-	private void parallelRedistribute(int startIndex, int level)
+	private void parallelRedistribute(int startIndex, int level, int newCapacity)
 	{
+		assert usedSlotsConsistent();
+		
+		int firstSection = startIndex/sectionSize;
 		int numberOfSections = numberOfSectionsForLevel(level);
-		int numberOfKeys = parallelCrunch(startIndex, numberOfSections);
-		int [] sourceArray = auxiliary;
-		if (level < 0) {
-			init(2*capacity());
+		Redistribution redistribution = new Redistribution();
+		int numberOfKeys = redistribution.gather(firstSection, numberOfSections);
+		int lowestIndexValue;
+		int highestIndexValue;
+		if (level < 0) {//total rebuild, the keys are scattered to the new arrays
+			assert numberOfKeys == count;
+			init(newCapacity);
 			numberOfSections = numberOfSections();
-			assert startIndex == 0;
+			lowestIndexValue = Integer.MIN_VALUE;
+			highestIndexValue = Integer.MAX_VALUE;
+		} else {
+			lowestIndexValue = firstKeyOfSection[firstSection];
+			highestIndexValue = firstKeyOfSection[firstSection+numberOfSections-1];
 		}
-		int [] targetArray = keys;
-		parallelDistributeBlock(sourceArray, numberOfKeys, targetArray, startIndex, numberOfSections);
 		
-	}
-	
-	private int parallelCrunch(int indexOfFirstSection, int numberOfSections)
-	{
-		assert countConsistent();
+		redistribution.scatter(firstSection, numberOfSections);
 		
+		indexTree.update(lowestIndexValue, highestIndexValue);
 		
-		int chunkSize = numberOfSections*sectionSize/numberOfTasks;
-		int numberOfSectionsPerTask = numberOfSections/numberOfTasks;
-		assert chunkSize*numberOfTasks == numberOfSections*sectionSize;
-		
-		int currentSourceSectionIndex = indexOfFirstSection;
-		
-		//partially crunch each chunk in parallel
+		assert countConsistent();
+		assert firstKeyOfSectionsConsistent();
+		assert isWithinCapacity();
+		assert usedSlotsConsistent();
+	}
+	
+	//the buffer holds the keys (and values) of one redistribution
+	private class Redistribution extends ParallelRedistribution {
 		
-		for (int i=0; i<numberOfTasks; i++) {
-			ParallelPartialCrunch task = new ParallelPartialCrunch(keys, currentSourceSectionIndex, sectionSize, numberOfSectionsPerTask);
-			threadPool.execute(task);
-			ppcTasks[i] = task;
-			currentSourceSectionIndex += chunkSize;
+		@Override
+		protected int numberOfKeysInSection(int section)
+		{
+			return usedSlotsPerSection[section];
 		}
 		
-		
-		
-		//copy the keys from the chunks to the destination array (in parallel)
-		int currentTargetIndex = 0;
-		currentSourceSectionIndex = indexOfFirstSection;
-		for (int i=0; i<numberOfTasks; i++) {
-			int nonzeroEntries = ppcTasks[i].join();
-			ParallelArrayCopy task = new ParallelArrayCopy(auxiliary, currentTargetIndex, keys, currentSourceSectionIndex, nonzeroEntries);
-			threadPool.execute(task);
-			kmtasks[i] = task;
-			currentTargetIndex += nonzeroEntries;
-			currentSourceSectionIndex += chunkSize;
+		@Override
+		protected void allocateBuffer(int numberOfKeys)
+		{
+			bufferedKeys = new int[numberOfKeys];
+			if (values != null) {
+				bufferedValues = new long[numberOfKeys];
+			}
 		}
 		
-		//wait for completion
-		for (ForkJoinTask<Void> task : kmtasks) {
-			task.join();
+		@Override
+		protected void gatherSection(int section, int bufferIndex, int numberOfKeys)
+		{
+			int index = arrayIndexForSection(section);
+			System.arraycopy(keys, index, bufferedKeys, bufferIndex, numberOfKeys);
+			if (bufferedValues != null) {
+				System.arraycopy(values, index, bufferedValues, bufferIndex, numberOfKeys);
+			}
 		}
-		return currentTargetIndex;
-	}
-	
-	private static final int numberOfTasks = 256;
-	private ParallelPartialCrunch[] ppcTasks = new ParallelPartialCrunch[numberOfTasks];
-	private ParallelArrayCopy[] kmtasks = new ParallelArrayCopy[numberOfTasks];
-	
-	
-	private void parallelDistributeBlock(int[]fromArray, int numberOfKeys, int[]toArray, int toStartIndex, int targetNumberOfSections)
-	{
-		//TODO: parallelize
-		int keysPerSection = numberOfKeys/targetNumberOfSections;
-		int leftover = numberOfKeys-(targetNumberOfSections*keysPerSection);//the remaining keys are distributed evenly among the first few sections
 		
-		int currentBlockIndex = 0;
-		int currentSectionIndex = toStartIndex;
-		
-		for (int i=targetNumberOfSections; i>0; i--) {
-			
-			if (i == leftover) {//the last few sections might have some more elements
-				keysPerSection++;
+		@Override
+		protected void scatterSection(int bufferIndex, int section, int numberOfKeys)
+		{
+			int index = arrayIndexForSection(section);
+			System.arraycopy(bufferedKeys, bufferIndex, keys, index, numberOfKeys);
+			Arrays.fill(keys, index+numberOfKeys, index+sectionSize, 0);
+			if (bufferedValues != null) {
+				System.arraycopy(bufferedValues, bufferIndex, values, index, numberOfKeys);
+				Arrays.fill(values, index+numberOfKeys, index+sectionSize, 0);
 			}
-			assert currentBlockIndex <= numberOfKeys;
-			
-			System.arraycopy(fromArray, currentBlockIndex, toArray, currentSectionIndex, keysPerSection);
-			Arrays.fill(toArray, currentSectionIndex+keysPerSection, currentSectionIndex+sectionSize, 0);
-			
-			currentBlockIndex += keysPerSection;
-			currentSectionIndex += sectionSize;
-			
+			usedSlotsPerSection[section] = numberOfKeys;
+			firstKeyOfSection[section] = keys[index];
 		}
-	}*/
+		
+		private int[] bufferedKeys;
+		private long[] bufferedValues;
+	}
 
 }
@@ -1,8 +1,10 @@
 package ch.ethz.glukas.orderedset;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 
-public class CocoTree implements StaticSearchTree {
+public class CocoTree extends AbstractStaticSearchTree {
 
 	//does not rebuild the keys of the tree. Call rebuild() or update(Integer.MinValue, Integer,MaxValue) before using (except if content.length == 1, then it doesn't matter)
 	public CocoTree(int[] content)
@@ -46,7 +48,7 @@ public class CocoTree implements StaticSearchTree {
 	
 	public boolean contains(int key)
 	{
-		int index = indexOf(key);
+		int index = leafIndexOf(key);
 		return internalKeys[index] == key;
 		
 		//explicit navigation
@@ -59,7 +61,24 @@ public class CocoTree implements StaticSearchTree {
 		return tree[currentIndex+baseCaseFind(key, currentIndex)] == key;*/
 	}
 	
-	public int indexOf(int key)
+	public int size()
+	{
+		return internalKeys.length;
+	}
+	
+	public int get(int index)
+	{
+		return internalKeys[index];
+	}
+	
+	public int floorIndex(int key)
+	{
+		int index = leafIndexOf(key);
+		return internalKeys[index] <= key ? index : -1;
+	}
+	
+	//the index of the last key smaller than or equal to the key, or 0 if there is none
+	int leafIndexOf(int key)
 	{
 		int index = baseCaseFind(key, 0);
 		if (treeHeight > 1) {
@@ -76,6 +95,13 @@ public class CocoTree implements StaticSearchTree {
 		assert checkInvariants();
 	}
 
+	//writes the keys and the index structure to the file, MappedCocoTree.open(path) maps it back without rebuilding
+	//call rebuild() or update(...) before saving, the keys of the tree are saved as they are
+	public void save(Path path) throws IOException
+	{
+		SearchTreeFile.write(path, SearchTreeFile.cocoTreeFormat, new int[]{treeHeight, numberOfKeysInTheRootNode}, internalKeys, tree, children);
+	}
+
 	//only invoke on full subtrees
 	//T(K^2) = T(K) + O(1) = O(log(K)) (note that if we divide a tree of size K^2 in half by height, the resulting subtrees have size K)
 	//returns the index of the leaf the search should continue with (with respect to the parent tree)
@@ -237,12 +263,12 @@ public class CocoTree implements StaticSearchTree {
 	}
 	
 	
-	private static int numberOfLeavesForHeight(int height)
+	static int numberOfLeavesForHeight(int height)
 	{
 		return BinaryMath.powerOfTwo(nodeMagnitude*height);
 	}
 	
-	private static int numberOfNodesForHeight(int height)
+	static int numberOfNodesForHeight(int height)
 	{
 		//q+q^2+...+q^k = (q-q^(k+1))/(1-q)
 		//TODO: investigate more elegant solution
@@ -276,8 +302,8 @@ public class CocoTree implements StaticSearchTree {
 	//CONSTANTS
 	////
 
-	private static final int nodeMagnitude = 5;
-	private static final int nodeSize = BinaryMath.powerOfTwo(nodeMagnitude);
+	static final int nodeMagnitude = 5;
+	static final int nodeSize = BinaryMath.powerOfTwo(nodeMagnitude);
 	
 	////
 	//INVARIANTS & ASSERTIONS
@@ -0,0 +1,194 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.Arrays;
+
+/**
+ * The static cache-oblivious search tree of ImmutableOrderedSet for 64-bit keys.
+ * The keys are stored in the leaves, the index structure in van Emde Boas order above them.
+ * Any number of keys is allowed: the leaves are padded to a power of two by repeating the largest key.
+ * 
+ * The queries address keys by their index in ascending order, as in StaticSearchTree.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+public class ImmutableOrderedLongSet {
+
+	//the content must be sorted in ascending order, it is copied
+	public ImmutableOrderedLongSet(long[] content)
+	{
+		assert isSorted(content);
+		
+		size = content.length;
+		int numberOfLeaves = BinaryMath.nextHighestPowerOfTwo(size);
+		internalKeys = Arrays.copyOf(content, numberOfLeaves);
+		if (size > 0) {
+			Arrays.fill(internalKeys, size, numberOfLeaves, content[size-1]);
+		}
+		
+		treeHeight = BinaryMath.log(numberOfLeaves);
+		tree = new long[Math.max(1, ImmutableOrderedSet.numberOfNodesForHeight(treeHeight))];
+		if (treeHeight > 0) {
+			buildTree(0, treeHeight, internalKeys, 0);
+		}
+	}
+	
+	public boolean contains(long key)
+	{
+		int index = floorIndex(key);
+		return index >= 0 && internalKeys[index] == key;
+	}
+	
+	//the number of keys
+	public int size()
+	{
+		return size;
+	}
+	
+	//the key at the index, in ascending order
+	public long get(int index)
+	{
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+		return internalKeys[index];
+	}
+	
+	//the index of the key, or -1 if the set does not contain the key
+	public int indexOf(long key)
+	{
+		int index = rank(key);
+		if (index < size && internalKeys[index] == key) {
+			return index;
+		}
+		return -1;
+	}
+	
+	//the number of keys strictly smaller than the key
+	public int rank(long key)
+	{
+		if (key == Long.MIN_VALUE) return 0;
+		return floorIndex(key-1)+1;
+	}
+	
+	//the index of the largest key smaller than or equal to the key, or -1 if there is no such key
+	public int floorIndex(long key)
+	{
+		if (size == 0) return -1;
+		int index = Math.min(size-1, leafIndexOf(key));//the padding repeats the last key
+		return internalKeys[index] <= key ? index : -1;
+	}
+	
+	//the index of the smallest key greater than or equal to the key, or size() if there is no such key
+	public int ceilingIndex(long key)
+	{
+		return rank(key);
+	}
+	
+	//the number of keys between the bounds
+	public int sizeOfRange(long lowerbound, long upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		int from = fromInclusive ? rank(lowerbound) : floorIndex(lowerbound)+1;
+		int to = toInclusive ? floorIndex(upperbound)+1 : rank(upperbound);
+		return Math.max(0, to-from);
+	}
+	
+	
+	////
+	//SEARCH
+	////
+	
+	//the index of the last leaf smaller than or equal to the key, or 0 if there is none
+	private int leafIndexOf(long key)
+	{
+		return treeHeight == 0 ? 0 : find(key, 0, treeHeight);
+	}
+	
+	//see ImmutableOrderedSet.find
+	private int find(long key, int rootIndex, int height)
+	{
+		if (height <= ImmutableOrderedSet.baseCaseSize) {
+			return baseCaseFind(key, rootIndex, height);
+		}
+		
+		int topTreeHeight = height/2;
+		int bottomTreeHeight =  height-topTreeHeight;
+		
+		int topTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(topTreeHeight);
+		int bottomTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(bottomTreeHeight);
+		
+		int topindex = find(key, rootIndex, topTreeHeight);
+		int bottomFoundIndex = find(key, rootIndex+topTreeSize+topindex*bottomTreeSize, bottomTreeHeight);
+		return bottomFoundIndex+(topindex*BinaryMath.powerOfTwo(bottomTreeHeight));
+	}
+	
+	private int baseCaseFind(long key, int rootIndex, int height)
+	{
+		int startIdx = rootIndex;
+		int maxRootIndex = rootIndex+ImmutableOrderedSet.numberOfNodesForHeight(height);
+		//the inner nodes are on the odd positions
+		rootIndex++;
+		while (rootIndex < maxRootIndex && key >= tree[rootIndex]) {
+			rootIndex+=2;
+		}
+		
+		int nextNode = rootIndex-startIdx;
+		if (key<tree[rootIndex-1]) {
+			nextNode--;
+		}
+		return nextNode;
+	}
+	
+	
+	////
+	//CONSTRUCTION
+	////
+	
+	//see ParallelTreeBuilder, returns the minimum key in the subtree
+	private long buildTree(int rootIndex, int height, long[] subtreeMinima, int offset)
+	{
+		if (height <= ImmutableOrderedSet.baseCaseSize) {
+			System.arraycopy(subtreeMinima, offset+1, tree, rootIndex, ImmutableOrderedSet.numberOfNodesForHeight(height));
+			return subtreeMinima[offset];
+		}
+		
+		int topTreeHeight = height/2;
+		int bottomTreeHeight =  height-topTreeHeight;
+		
+		int topTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(topTreeHeight);
+		int bottomTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(bottomTreeHeight);
+		
+		int numberOfChildrenOfTheTopTree = BinaryMath.powerOfTwo(topTreeHeight);
+		int numberOfChildrenOfEachBottomTree = BinaryMath.powerOfTwo(bottomTreeHeight);
+		
+		long[] bottomTreeMinima = new long[numberOfChildrenOfTheTopTree];
+		int currentIndex = rootIndex+topTreeSize;
+		for (int i=0; i<numberOfChildrenOfTheTopTree; i++) {
+			bottomTreeMinima[i] = buildTree(currentIndex, bottomTreeHeight, subtreeMinima, offset);
+			currentIndex += bottomTreeSize;
+			offset += numberOfChildrenOfEachBottomTree;
+		}
+		
+		return buildTree(rootIndex, topTreeHeight, bottomTreeMinima, 0);
+	}
+	
+	
+	////
+	//INSTANCE VARIABLES
+	////
+	
+	private final long[] internalKeys;
+	private final long[] tree;
+	private final int treeHeight;
+	private final int size;
+	
+	////
+	//INVARIANTS & ASSERTIONS
+	////
+	
+	protected boolean isSorted(long[] array)
+	{
+		for (int i=1; i<array.length; i++) {
+			if (array[i] < array[i-1]) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,217 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The static cache-oblivious search tree of ImmutableOrderedSet for keys compared by a Comparator (or by their natural ordering).
+ * The keys are stored in the leaves, the index structure in van Emde Boas order above them.
+ * Any number of keys is allowed: the leaves are padded to a power of two by repeating the largest key.
+ * 
+ * The queries address keys by their index in ascending order, as in StaticSearchTree.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+public class ImmutableOrderedObjectSet<T> {
+
+	//the content must be sorted in ascending order, it is copied
+	public ImmutableOrderedObjectSet(T[] content)
+	{
+		this(content, null);
+	}
+	
+	//the content must be sorted in ascending order with respect to the comparator, it is copied
+	//a null comparator means natural ordering
+	public ImmutableOrderedObjectSet(T[] content, Comparator<? super T> comparator)
+	{
+		this.comparator = comparator;
+		assert isSorted(content);
+		
+		size = content.length;
+		int numberOfLeaves = BinaryMath.nextHighestPowerOfTwo(size);
+		internalKeys = Arrays.copyOf(content, numberOfLeaves, Object[].class);
+		if (size > 0) {
+			Arrays.fill(internalKeys, size, numberOfLeaves, content[size-1]);
+		}
+		
+		treeHeight = BinaryMath.log(numberOfLeaves);
+		tree = new Object[Math.max(1, ImmutableOrderedSet.numberOfNodesForHeight(treeHeight))];
+		if (treeHeight > 0) {
+			buildTree(0, treeHeight, internalKeys, 0);
+		}
+	}
+	
+	public boolean contains(T key)
+	{
+		int index = floorIndex(key);
+		return index >= 0 && compare(key, internalKeys[index]) == 0;
+	}
+	
+	//the number of keys
+	public int size()
+	{
+		return size;
+	}
+	
+	//the key at the index, in ascending order
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+		return (T)internalKeys[index];
+	}
+	
+	//the index of the key, or -1 if the set does not contain the key
+	public int indexOf(T key)
+	{
+		int index = rank(key);
+		if (index < size && compare(key, internalKeys[index]) == 0) {
+			return index;
+		}
+		return -1;
+	}
+	
+	//the number of keys strictly smaller than the key
+	public int rank(T key)
+	{
+		return lastIndexBelow(key, false)+1;
+	}
+	
+	//the index of the largest key smaller than or equal to the key, or -1 if there is no such key
+	public int floorIndex(T key)
+	{
+		return lastIndexBelow(key, true);
+	}
+	
+	//the index of the smallest key greater than or equal to the key, or size() if there is no such key
+	public int ceilingIndex(T key)
+	{
+		return rank(key);
+	}
+	
+	//the number of keys between the bounds
+	public int sizeOfRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		int from = fromInclusive ? rank(lowerbound) : floorIndex(lowerbound)+1;
+		int to = toInclusive ? floorIndex(upperbound)+1 : rank(upperbound);
+		return Math.max(0, to-from);
+	}
+	
+	
+	////
+	//SEARCH
+	////
+	
+	//the index of the last key smaller than (or equal to, if inclusive) the key, or -1 if there is none
+	private int lastIndexBelow(T key, boolean inclusive)
+	{
+		if (size == 0) return -1;
+		int index = treeHeight == 0 ? 0 : find(key, inclusive, 0, treeHeight);
+		index = Math.min(size-1, index);//the padding repeats the last key
+		int comparison = compare(internalKeys[index], key);
+		return comparison < 0 || (inclusive && comparison == 0) ? index : -1;
+	}
+	
+	//see ImmutableOrderedSet.find
+	private int find(T key, boolean inclusive, int rootIndex, int height)
+	{
+		if (height <= ImmutableOrderedSet.baseCaseSize) {
+			return baseCaseFind(key, inclusive, rootIndex, height);
+		}
+		
+		int topTreeHeight = height/2;
+		int bottomTreeHeight =  height-topTreeHeight;
+		
+		int topTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(topTreeHeight);
+		int bottomTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(bottomTreeHeight);
+		
+		int topindex = find(key, inclusive, rootIndex, topTreeHeight);
+		int bottomFoundIndex = find(key, inclusive, rootIndex+topTreeSize+topindex*bottomTreeSize, bottomTreeHeight);
+		return bottomFoundIndex+(topindex*BinaryMath.powerOfTwo(bottomTreeHeight));
+	}
+	
+	//descends right of a subtree minimum that is smaller than (or equal to, if inclusive) the key
+	private int baseCaseFind(T key, boolean inclusive, int rootIndex, int height)
+	{
+		int threshold = inclusive ? 0 : 1;
+		int startIdx = rootIndex;
+		int maxRootIndex = rootIndex+ImmutableOrderedSet.numberOfNodesForHeight(height);
+		//the inner nodes are on the odd positions
+		rootIndex++;
+		while (rootIndex < maxRootIndex && compare(key, tree[rootIndex]) >= threshold) {
+			rootIndex+=2;
+		}
+		
+		int nextNode = rootIndex-startIdx;
+		if (compare(key, tree[rootIndex-1]) < threshold) {
+			nextNode--;
+		}
+		return nextNode;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private int compare(Object first, Object second)
+	{
+		if (comparator == null) {
+			return ((Comparable<? super T>)first).compareTo((T)second);
+		}
+		return comparator.compare((T)first, (T)second);
+	}
+	
+	
+	////
+	//CONSTRUCTION
+	////
+	
+	//see ParallelTreeBuilder, returns the minimum key in the subtree
+	private Object buildTree(int rootIndex, int height, Object[] subtreeMinima, int offset)
+	{
+		if (height <= ImmutableOrderedSet.baseCaseSize) {
+			System.arraycopy(subtreeMinima, offset+1, tree, rootIndex, ImmutableOrderedSet.numberOfNodesForHeight(height));
+			return subtreeMinima[offset];
+		}
+		
+		int topTreeHeight = height/2;
+		int bottomTreeHeight =  height-topTreeHeight;
+		
+		int topTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(topTreeHeight);
+		int bottomTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(bottomTreeHeight);
+		
+		int numberOfChildrenOfTheTopTree = BinaryMath.powerOfTwo(topTreeHeight);
+		int numberOfChildrenOfEachBottomTree = BinaryMath.powerOfTwo(bottomTreeHeight);
+		
+		Object[] bottomTreeMinima = new Object[numberOfChildrenOfTheTopTree];
+		int currentIndex = rootIndex+topTreeSize;
+		for (int i=0; i<numberOfChildrenOfTheTopTree; i++) {
+			bottomTreeMinima[i] = buildTree(currentIndex, bottomTreeHeight, subtreeMinima, offset);
+			currentIndex += bottomTreeSize;
+			offset += numberOfChildrenOfEachBottomTree;
+		}
+		
+		return buildTree(rootIndex, topTreeHeight, bottomTreeMinima, 0);
+	}
+	
+	
+	////
+	//INSTANCE VARIABLES
+	////
+	
+	private final Object[] internalKeys;
+	private final Object[] tree;
+	private final int treeHeight;
+	private final int size;
+	private final Comparator<? super T> comparator;
+	
+	////
+	//INVARIANTS & ASSERTIONS
+	////
+	
+	protected boolean isSorted(T[] array)
+	{
+		for (int i=1; i<array.length; i++) {
+			if (compare(array[i], array[i-1]) < 0) return false;
+		}
+		return true;
+	}
+}
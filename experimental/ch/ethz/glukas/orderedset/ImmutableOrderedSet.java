@@ -1,9 +1,11 @@
 package ch.ethz.glukas.orderedset;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 
-public class ImmutableOrderedSet implements StaticSearchTree {
+public class ImmutableOrderedSet extends AbstractStaticSearchTree {
 	//Cache-oblivious Corona tree
 	//The structure is a cache oblivious static search tree (sometimes called "Van Embde Boas" layout.
 	
@@ -38,7 +40,7 @@ public class ImmutableOrderedSet implements StaticSearchTree {
 	{	
 		//return simpleContains(key);
 		//find the index where the key should reside
-		int idx = find(key, 0, treeHeight);
+		int idx = leafIndexOf(key);
 		boolean result = internalKeys[idx] == key;
 		
 		assert internalKeys[idx] == key || ((idx == 0 || internalKeys[idx-1] < key) && (idx == internalKeys.length-1 || internalKeys[idx+1] > key));
@@ -48,6 +50,36 @@ public class ImmutableOrderedSet implements StaticSearchTree {
 	}
 	
 	
+	public int size()
+	{
+		return internalKeys.length;
+	}
+	
+	public int get(int index)
+	{
+		return internalKeys[index];
+	}
+	
+	public int floorIndex(int key)
+	{
+		int idx = leafIndexOf(key);
+		return internalKeys[idx] <= key ? idx : -1;
+	}
+	
+	//the index of the last key smaller than or equal to the key, or 0 if there is none
+	private int leafIndexOf(int key)
+	{
+		//a single key has no index structure to search
+		return treeHeight == 0 ? 0 : find(key, 0, treeHeight);
+	}
+	
+	//writes the keys and the index structure to the file, MappedImmutableOrderedSet.open(path) maps it back without rebuilding
+	public void save(Path path) throws IOException
+	{
+		SearchTreeFile.write(path, SearchTreeFile.immutableOrderedSetFormat, new int[]{treeHeight}, internalKeys, tree);
+	}
+	
+	
 	//Asymptotics:
 	
 	//T(K^2) = T(K) + O(1) = O(log(K)) (note that if we divide a tree of size K^2 in half by height, the resulting subtrees have size K)
@@ -112,12 +144,12 @@ public class ImmutableOrderedSet implements StaticSearchTree {
 		return subtreeMinima[offset];
 	}
 	
-	private static int numberOfLeavesForHeight(int height)
+	static int numberOfLeavesForHeight(int height)
 	{
 		return BinaryMath.powerOfTwo(height-1);
 	}
 	
-	private static int numberOfNodesForHeight(int height)
+	static int numberOfNodesForHeight(int height)
 	{
 		return BinaryMath.powerOfTwo(height)-1;
 	}
@@ -147,7 +179,7 @@ public class ImmutableOrderedSet implements StaticSearchTree {
 	private final int[] internalKeys;
 	private final int[] tree;
 	private final int treeHeight;
-	private static final int baseCaseSize = 7;
+	static final int baseCaseSize = 7;
 	
 	////
 	//INVARIANTS & ASSERTIONS
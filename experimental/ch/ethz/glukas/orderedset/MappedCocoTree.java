@@ -0,0 +1,125 @@
+package ch.ethz.glukas.orderedset;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+/**
+ * A CocoTree that was saved to a file, searched directly in a read-only memory mapping of the file.
+ * Opening takes constant time, independent of the number of keys, and processes that map the same file share one copy of it in the page cache.
+ * The mapping is released when the tree is garbage collected.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+public class MappedCocoTree extends AbstractStaticSearchTree {
+
+	//maps a file written by CocoTree.save
+	public static MappedCocoTree open(Path path) throws IOException
+	{
+		SearchTreeFile file = SearchTreeFile.open(path, SearchTreeFile.cocoTreeFormat);
+		if (file.numberOfProperties() != 2 || file.numberOfArrays() != 3) {
+			throw new IOException(path+" has a corrupt header");
+		}
+		int treeHeight = file.property(0);
+		int numberOfKeysInTheRootNode = file.property(1);
+		IntBuffer internalKeys = file.array(0);
+		IntBuffer tree = file.array(1);
+		IntBuffer children = file.array(2);
+		if (!consistentSizes(treeHeight, numberOfKeysInTheRootNode, internalKeys.capacity(), tree.capacity(), children.capacity())) {
+			throw new IOException(path+" has a corrupt header");
+		}
+		return new MappedCocoTree(internalKeys, tree, children, treeHeight, numberOfKeysInTheRootNode);
+	}
+
+	private MappedCocoTree(IntBuffer internalKeys, IntBuffer tree, IntBuffer children, int treeHeight, int numberOfKeysInTheRootNode)
+	{
+		this.internalKeys = internalKeys;
+		this.tree = tree;
+		this.children = children;
+		this.treeHeight = treeHeight;
+		this.numberOfKeysInTheRootNode = numberOfKeysInTheRootNode;
+	}
+
+	public boolean contains(int key)
+	{
+		return internalKeys.get(leafIndexOf(key)) == key;
+	}
+
+	public int get(int index)
+	{
+		return internalKeys.get(index);
+	}
+
+	public int floorIndex(int key)
+	{
+		int index = leafIndexOf(key);
+		return internalKeys.get(index) <= key ? index : -1;
+	}
+
+	private int leafIndexOf(int key)
+	{
+		int index = baseCaseFind(key, 0);
+		if (treeHeight > 1) {
+			index = index*CocoTree.numberOfLeavesForHeight(treeHeight-1)+find(key, children.get(index), treeHeight-1);
+		}
+		return index;
+	}
+
+	public int size()
+	{
+		return internalKeys.capacity();
+	}
+
+
+	//the same search as CocoTree.find, reading the mapped arrays
+	private int find(int key, int rootIndex, int height)
+	{
+		if (height == 1) {
+			return baseCaseFind(key, rootIndex);
+		}
+
+		int topTreeHeight = height/2;
+		int bottomTreeHeight =  height-topTreeHeight;
+
+		int topTreeSize = CocoTree.numberOfNodesForHeight(topTreeHeight);
+		int bottomTreeSize = CocoTree.numberOfNodesForHeight(bottomTreeHeight);
+
+		int topindex = find(key, rootIndex, topTreeHeight);
+		int bottomFoundIndex = find(key, rootIndex+topTreeSize+topindex*bottomTreeSize, bottomTreeHeight);
+		return bottomFoundIndex+(topindex*CocoTree.numberOfLeavesForHeight(bottomTreeHeight));
+	}
+
+	private int baseCaseFind(int key, int rootIndex)
+	{
+		int maxIndex = rootIndex+((rootIndex > 0) ? CocoTree.nodeSize : numberOfKeysInTheRootNode);
+		int currentIndex = rootIndex+1;
+		while (currentIndex < maxIndex && tree.get(currentIndex) <= key) {
+			currentIndex++;
+		}
+		return currentIndex-rootIndex-1;
+	}
+
+	//the array sizes CocoTree allocates for a tree of the given shape
+	private static boolean consistentSizes(int treeHeight, int numberOfKeysInTheRootNode, int keys, int nodes, int children)
+	{
+		if (numberOfKeysInTheRootNode < 1 || numberOfKeysInTheRootNode > CocoTree.nodeSize) return false;
+		if (treeHeight == 1) {
+			return keys == numberOfKeysInTheRootNode && nodes == keys && children == 1;
+		}
+		if (treeHeight < 2 || (long)CocoTree.nodeMagnitude*treeHeight > 31) return false;
+		long expectedNodes = numberOfKeysInTheRootNode+(long)numberOfKeysInTheRootNode*CocoTree.numberOfNodesForHeight(treeHeight-1);
+		long expectedKeys = (long)numberOfKeysInTheRootNode*CocoTree.numberOfLeavesForHeight(treeHeight-1);
+		return keys == expectedKeys && nodes == expectedNodes && children == expectedNodes;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final IntBuffer internalKeys;
+	private final IntBuffer tree;
+	private final IntBuffer children;
+	private final int treeHeight;
+	private final int numberOfKeysInTheRootNode;
+}
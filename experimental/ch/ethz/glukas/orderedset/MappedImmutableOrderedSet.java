@@ -0,0 +1,109 @@
+package ch.ethz.glukas.orderedset;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+/**
+ * An ImmutableOrderedSet that was saved to a file, searched directly in a read-only memory mapping of the file.
+ * Opening takes constant time, independent of the number of keys, and processes that map the same file share one copy of it in the page cache.
+ * The mapping is released when the set is garbage collected.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+public class MappedImmutableOrderedSet extends AbstractStaticSearchTree {
+
+	//maps a file written by ImmutableOrderedSet.save
+	public static MappedImmutableOrderedSet open(Path path) throws IOException
+	{
+		SearchTreeFile file = SearchTreeFile.open(path, SearchTreeFile.immutableOrderedSetFormat);
+		if (file.numberOfProperties() != 1 || file.numberOfArrays() != 2) {
+			throw new IOException(path+" has a corrupt header");
+		}
+		int treeHeight = file.property(0);
+		IntBuffer internalKeys = file.array(0);
+		IntBuffer tree = file.array(1);
+		if (treeHeight < 0 || treeHeight > 30 || internalKeys.capacity() != BinaryMath.powerOfTwo(treeHeight) || tree.capacity() != Math.max(1, ImmutableOrderedSet.numberOfNodesForHeight(treeHeight))) {
+			throw new IOException(path+" has a corrupt header");
+		}
+		return new MappedImmutableOrderedSet(internalKeys, tree, treeHeight);
+	}
+
+	private MappedImmutableOrderedSet(IntBuffer internalKeys, IntBuffer tree, int treeHeight)
+	{
+		this.internalKeys = internalKeys;
+		this.tree = tree;
+		this.treeHeight = treeHeight;
+	}
+
+	public boolean contains(int key)
+	{
+		return internalKeys.get(leafIndexOf(key)) == key;
+	}
+
+	public int size()
+	{
+		return internalKeys.capacity();
+	}
+
+	public int get(int index)
+	{
+		return internalKeys.get(index);
+	}
+
+	public int floorIndex(int key)
+	{
+		int index = leafIndexOf(key);
+		return internalKeys.get(index) <= key ? index : -1;
+	}
+
+	private int leafIndexOf(int key)
+	{
+		return treeHeight == 0 ? 0 : find(key, 0, treeHeight);
+	}
+
+
+	//the same search as ImmutableOrderedSet.find, reading the mapped arrays
+	private int find(int key, int rootIndex, int height)
+	{
+		if (height <= ImmutableOrderedSet.baseCaseSize) {
+			return baseCaseFind(key, rootIndex, height);
+		}
+
+		int topTreeHeight = height/2;
+		int bottomTreeHeight =  height-topTreeHeight;
+
+		int topTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(topTreeHeight);
+		int bottomTreeSize = ImmutableOrderedSet.numberOfNodesForHeight(bottomTreeHeight);
+
+		int topindex = find(key, rootIndex, topTreeHeight);
+		int bottomFoundIndex = find(key, rootIndex+topTreeSize+topindex*bottomTreeSize, bottomTreeHeight);
+		return bottomFoundIndex+(topindex*BinaryMath.powerOfTwo(bottomTreeHeight));
+	}
+
+	private int baseCaseFind(int key, int rootIndex, int height)
+	{
+		int startIdx = rootIndex;
+		int maxRootIndex = rootIndex+ImmutableOrderedSet.numberOfNodesForHeight(height);
+		//the inner nodes are on the odd positions
+		rootIndex++;
+		while (rootIndex < maxRootIndex && key >= tree.get(rootIndex)) {
+			rootIndex+=2;
+		}
+
+		int nextNode = rootIndex-startIdx;
+		if (key<tree.get(rootIndex-1)) {
+			nextNode--;
+		}
+		return nextNode;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final IntBuffer internalKeys;
+	private final IntBuffer tree;
+	private final int treeHeight;
+}
@@ -0,0 +1,152 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Redistributes the keys of a block of sections of a packed memory structure (COBTree, CharMap) on the fork join pool.
+ * The result is the same as with the sequential crunch and distributeBlock of the structures:
+ * gather copies the keys of the source sections into a contiguous buffer, scatter spreads the buffer evenly over the target sections
+ * (the first few target sections get one key more).
+ * Both passes work on chunks of sections in parallel. The offsets of the chunks in the buffer are the prefix sums of their key counts, which are also counted in parallel.
+ *
+ * The subclasses own the buffer and copy the sections, together with their values.
+ * The target sections can be in the same arrays as the source sections: gather completes before scatter starts.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+public abstract class ParallelRedistribution {
+
+	//the number of keys in the section, before the redistribution
+	protected abstract int numberOfKeysInSection(int section);
+
+	//called by gather once the number of keys is known, before the sections are copied
+	protected abstract void allocateBuffer(int numberOfKeys);
+
+	//copies the keys of the section to the buffer, starting at the buffer index
+	protected abstract void gatherSection(int section, int bufferIndex, int numberOfKeys);
+
+	//copies the keys from the buffer to the left end of the section, clears the rest of the section
+	protected abstract void scatterSection(int bufferIndex, int section, int numberOfKeys);
+
+
+	//copies the keys of the sections to the buffer and returns their number
+	public int gather(int firstSection, int numberOfSections)
+	{
+		this.firstSection = firstSection;
+		this.numberOfSections = numberOfSections;
+		int numberOfChunks = numberOfChunks(numberOfSections);
+
+		chunkOffsets = new int[numberOfChunks+1];
+		ImmutableOrderedSet.mainPool.invoke(new ChunkTask(Phase.COUNT, 0, numberOfChunks));
+		for (int i=0; i<numberOfChunks; i++) {
+			chunkOffsets[i+1] += chunkOffsets[i];
+		}
+		numberOfKeys = chunkOffsets[numberOfChunks];
+
+		allocateBuffer(numberOfKeys);
+		ImmutableOrderedSet.mainPool.invoke(new ChunkTask(Phase.GATHER, 0, numberOfChunks));
+		return numberOfKeys;
+	}
+
+	//distributes the gathered keys evenly among the sections
+	public void scatter(int firstSection, int numberOfSections)
+	{
+		assert numberOfKeys >= numberOfSections;
+		this.firstSection = firstSection;
+		this.numberOfSections = numberOfSections;
+		keysPerSection = numberOfKeys/numberOfSections;
+		leftover = numberOfKeys-numberOfSections*keysPerSection;
+		ImmutableOrderedSet.mainPool.invoke(new ChunkTask(Phase.SCATTER, 0, numberOfChunks(numberOfSections)));
+	}
+
+	private static int numberOfChunks(int numberOfSections)
+	{
+		return (numberOfSections+sectionsPerChunk-1)/sectionsPerChunk;
+	}
+
+
+	private enum Phase { COUNT, GATHER, SCATTER }
+
+	//processes the chunks [fromChunk, toChunk), splitting the range in halves until a single chunk is left
+	private class ChunkTask extends RecursiveAction {
+
+		ChunkTask(Phase phase, int fromChunk, int toChunk)
+		{
+			this.phase = phase;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (toChunk-fromChunk > 1) {
+				int middle = fromChunk+(toChunk-fromChunk)/2;
+				invokeAll(new ChunkTask(phase, fromChunk, middle), new ChunkTask(phase, middle, toChunk));
+				return;
+			}
+
+			int from = fromChunk*sectionsPerChunk;
+			int to = Math.min(from+sectionsPerChunk, numberOfSections);
+			switch (phase) {
+			case COUNT:
+				count(from, to);
+				break;
+			case GATHER:
+				gather(from, to);
+				break;
+			case SCATTER:
+				scatter(from, to);
+				break;
+			}
+		}
+
+		private void count(int from, int to)
+		{
+			int result = 0;
+			for (int i=from; i<to; i++) {
+				result += numberOfKeysInSection(firstSection+i);
+			}
+			chunkOffsets[fromChunk+1] = result;
+		}
+
+		private void gather(int from, int to)
+		{
+			int bufferIndex = chunkOffsets[fromChunk];
+			for (int i=from; i<to; i++) {
+				int keys = numberOfKeysInSection(firstSection+i);
+				gatherSection(firstSection+i, bufferIndex, keys);
+				bufferIndex += keys;
+			}
+			assert bufferIndex == chunkOffsets[fromChunk+1];
+		}
+
+		//the i-th target section starts at i*keysPerSection plus the number of longer sections before it
+		private void scatter(int from, int to)
+		{
+			for (int i=from; i<to; i++) {
+				int bufferIndex = i*keysPerSection+Math.min(i, leftover);
+				scatterSection(bufferIndex, firstSection+i, i < leftover ? keysPerSection+1 : keysPerSection);
+			}
+		}
+
+		private final Phase phase;
+		private final int fromChunk;
+		private final int toChunk;
+	}
+
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private static final int sectionsPerChunk = BinaryMath.powerOfTwo(6);
+
+	private int firstSection;
+	private int numberOfSections;
+	private int[] chunkOffsets;
+	private int numberOfKeys;
+	private int keysPerSection;
+	private int leftover;
+}
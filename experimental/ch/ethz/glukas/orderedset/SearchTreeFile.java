@@ -0,0 +1,163 @@
+package ch.ethz.glukas.orderedset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The file format of the persisted static search trees.
+ * A file consists of a header followed by the int arrays of the tree, all stored little endian:
+ * magic, format, version, the number of properties, the properties, the number of arrays, the lengths of the arrays, the arrays.
+ * The arrays are 4-byte aligned and are mapped read-only, so that searches run directly against the page cache.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+final class SearchTreeFile {
+
+	//writes the properties and the arrays to the file, replacing its contents
+	static void write(Path path, int format, int[] properties, int[]... arrays) throws IOException
+	{
+		IntBuffer header = IntBuffer.allocate(5+properties.length+arrays.length);
+		header.put(magic).put(format).put(version).put(properties.length).put(properties).put(arrays.length);
+		for (int[] array : arrays) {
+			header.put(array.length);
+		}
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(4*writeBufferSize).order(byteOrder);
+			write(channel, buffer, header.array());
+			for (int[] array : arrays) {
+				write(channel, buffer, array);
+			}
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+	}
+
+	//maps the file read-only and checks its header
+	//throws an IOException if the file is not a search tree of the given format
+	static SearchTreeFile open(Path path, int format) throws IOException
+	{
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long fileSize = channel.size();
+			ByteBuffer fixedHeader = read(channel, 0, 16);
+			if (fixedHeader.getInt(0) != magic || fixedHeader.getInt(4) != format) {
+				throw new IOException(path+" is not a search tree file of the expected format");
+			}
+			if (fixedHeader.getInt(8) != version) {
+				throw new IOException(path+" has unsupported version "+fixedHeader.getInt(8));
+			}
+			int numberOfProperties = fixedHeader.getInt(12);
+			if (numberOfProperties < 0 || 16+4L*numberOfProperties+4 > fileSize) {
+				throw new IOException(path+" has a corrupt header");
+			}
+
+			ByteBuffer propertyBuffer = read(channel, 16, 4*numberOfProperties+4);
+			int[] properties = new int[numberOfProperties];
+			propertyBuffer.asIntBuffer().get(properties);
+			int numberOfArrays = propertyBuffer.getInt(4*numberOfProperties);
+			long position = 16+4L*numberOfProperties+4;
+			if (numberOfArrays < 0 || position+4L*numberOfArrays > fileSize) {
+				throw new IOException(path+" has a corrupt header");
+			}
+
+			ByteBuffer lengths = read(channel, position, 4*numberOfArrays);
+			position += 4L*numberOfArrays;
+			IntBuffer[] arrays = new IntBuffer[numberOfArrays];
+			for (int i=0; i<numberOfArrays; i++) {
+				int length = lengths.getInt(4*i);
+				if (length < 0 || position+4L*length > fileSize) {
+					throw new IOException(path+" is truncated");
+				}
+				arrays[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L*length).order(byteOrder).asIntBuffer();
+				position += 4L*length;
+			}
+			//the mappings stay valid after the channel is closed
+			return new SearchTreeFile(properties, arrays);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private SearchTreeFile(int[] properties, IntBuffer[] arrays)
+	{
+		this.properties = properties;
+		this.arrays = arrays;
+	}
+
+	int property(int index)
+	{
+		return properties[index];
+	}
+
+	int numberOfProperties()
+	{
+		return properties.length;
+	}
+
+	IntBuffer array(int index)
+	{
+		return arrays[index];
+	}
+
+	int numberOfArrays()
+	{
+		return arrays.length;
+	}
+
+	////
+	//HELPERS
+	////
+
+	private static void write(FileChannel channel, ByteBuffer buffer, int[] array) throws IOException
+	{
+		for (int offset=0; offset<array.length; offset+=writeBufferSize) {
+			int length = Math.min(writeBufferSize, array.length-offset);
+			buffer.clear();
+			buffer.asIntBuffer().put(array, offset, length);
+			buffer.limit(4*length);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(byteOrder);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position+buffer.position()) < 0) {
+				throw new IOException("unexpected end of file");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final int[] properties;
+	private final IntBuffer[] arrays;
+
+	////
+	//CONSTANTS
+	////
+
+	static final int immutableOrderedSetFormat = 1;
+	static final int cocoTreeFormat = 2;
+
+	private static final int magic = 0x53545246;//"STRF"
+	private static final int version = 1;
+	private static final int writeBufferSize = 1 << 16;
+	private static final ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+}
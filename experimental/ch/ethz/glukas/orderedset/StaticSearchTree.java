@@ -1,9 +1,37 @@
 package ch.ethz.glukas.orderedset;
 
+/**
+ * A read-only index over a sorted sequence of int keys.
+ * The keys are addressed by their index in ascending order, so that the queries do not allocate.
+ * Duplicate keys are allowed, rank and indexOf refer to the first of equal keys, floorIndex to the last.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
 public interface StaticSearchTree {
 
 	
 	public boolean contains(int key);
 	
+	//the number of keys
+	public int size();
+	
+	//the key at the index, in ascending order
+	public int get(int index);
+	
+	//the index of the key, or -1 if the tree does not contain the key
+	public int indexOf(int key);
+	
+	//the number of keys strictly smaller than the key
+	public int rank(int key);
+	
+	//the index of the largest key smaller than or equal to the key, or -1 if there is no such key
+	public int floorIndex(int key);
+	
+	//the index of the smallest key greater than or equal to the key, or size() if there is no such key
+	public int ceilingIndex(int key);
+	
+	//the number of keys between the bounds
+	public int sizeOfRange(int lowerbound, int upperbound, boolean fromInclusive, boolean toInclusive);
 	
 }
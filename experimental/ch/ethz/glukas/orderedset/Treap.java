@@ -40,6 +40,43 @@ public class Treap<T> extends BinarySearchTree<T> implements SortedSet<T>{
 		super();
 	}
 	
+	//BULK LOADING
+	//the bulk loading constructor and factories build the treap in linear time
+	//the input must be in strictly ascending order, else an IllegalArgumentException is thrown
+	
+	/**
+	 * Creates a treap with the values and the ordering of the sorted set, in O(n)
+	 */
+	public Treap(SortedSet<T> sorted)
+	{
+		super(sorted.comparator());
+		loadSorted(sorted.iterator(), sorted.size());
+	}
+	
+	/**
+	 * Creates a treap with the values of the array, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> Treap<T> fromSorted(T[] sorted, Comparator<? super T> comparator)
+	{
+		Treap<T> treap = new Treap<T>(comparator);
+		treap.loadSorted(sorted);
+		return treap;
+	}
+	
+	/**
+	 * Creates a treap with the values returned by the iterator, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> Treap<T> fromSorted(Iterator<? extends T> sorted, Comparator<? super T> comparator)
+	{
+		Treap<T> treap = new Treap<T>(comparator);
+		treap.loadSorted(sorted);
+		return treap;
+	}
+	
 	
 	/////
 	///SORTED SET INTERFACE
@@ -56,8 +93,8 @@ public class Treap<T> extends BinarySearchTree<T> implements SortedSet<T>{
 
 	@Override
 	public void clear() {
-		super.clear();
 		count = 0;
+		super.clear();
 		random = new Random(1);
 		a0 = random.nextInt();
 		a1 = random.nextInt();
@@ -83,23 +120,22 @@ public class Treap<T> extends BinarySearchTree<T> implements SortedSet<T>{
 		@SuppressWarnings("unchecked")
 		T value = (T)arg0;
 
-		Buffer<TreeNode<T>> trace = find(value, 2);
+		int traceLength = find(value);
 		
 		boolean modified = false;
-		TreeNode<T> toRemove = trace.get(trace.size()-1);
+		TreeNode<T> toRemove = trace[traceLength-1];
 		
 		if (compareValues(toRemove.getValue(), value) == 0) {
-			assert trace.size() >= 2;
+			assert traceLength >= 2;
 			
 			modified = true;
-			TreeNode<T> parent = trace.get(trace.size()-2);
+			TreeNode<T> parent = trace[traceLength-2];
 			
 			internalRemove(toRemove, parent);
+			decrementCount();
 			
 			rebalanceDownwards(toRemove, parent);
 			
-			decrementCount();
-			
 			assert isInOrder();
 		}
 		
@@ -199,18 +235,19 @@ public class Treap<T> extends BinarySearchTree<T> implements SortedSet<T>{
 	//analogous to insertion into an unbalanced BST, but restore heap property afterwards
 	private boolean addBottomUp(T arg0)
 	{
-		ArrayList<TreeNode<T>> trace = find(arg0);
+		int traceLength = find(arg0);
 		
 		boolean modified = false;
 		
-		if (trace.size() == 1 || compareValues( trace.get(trace.size()-1).getValue(), arg0) != 0) {
+		if (traceLength == 1 || compareValues(trace[traceLength-1].getValue(), arg0) != 0) {
 			modified = true;
 			
-			TreeNode<T> newNode = makeChildWithValue(trace.get(trace.size()-1), arg0);
-			trace.add(newNode);
-			rebalanceUpwards(trace);
-			
+			TreeNode<T> newNode = makeChildWithValue(trace[traceLength-1], arg0);
+			appendToTrace(traceLength++, newNode);
+			//the count is updated before the rotations, which check the size of the tree
 			incrementCount();
+			rebalanceUpwards(traceLength);
+			
 			assert isInOrder();
 		}
 		
@@ -253,11 +290,8 @@ public class Treap<T> extends BinarySearchTree<T> implements SortedSet<T>{
 			toRemove.setRightChild(null);
 			
 		} else {
-			Buffer<TreeNode<T>> trace = findSuccessor(toRemove);
-			assert trace.size() >= 2;
-			
-			TreeNode<T> successor = trace.get(trace.size()-1);
-			TreeNode<T> successorsParent = trace.get(trace.size()-2);
+			TreeNode<T> successor = findSuccessor(toRemove);
+			TreeNode<T> successorsParent = successorParent;
 			assert successor != successorsParent;
 			swapNodeValues(successor, toRemove);
 			
@@ -267,25 +301,98 @@ public class Treap<T> extends BinarySearchTree<T> implements SortedSet<T>{
 	}
 
 	
+	//////
+	////IMPLEMENTATION :: BULK LOADING
+	//////
+	
+	@Override
+	//builds the treap of the sorted values in O(size): each value is appended to the right spine of the tree, which is kept on a stack
+	//the nodes of the spine with a larger priority than the new node become its left subtree
+	protected TreeNode<T> buildFromSorted(Iterator<? extends T> sorted, int size)
+	{
+		ArrayList<TreeNode<T>> rightSpine = new ArrayList<TreeNode<T>>();
+		for (int i=0; i<size; i++) {
+			TreeNode<T> node = new TreeNode<T>(nextSortedValue(sorted));
+			int priority = getPriorityForNode(node);
+			
+			TreeNode<T> lastRemoved = null;
+			while (!rightSpine.isEmpty() && getPriorityForNode(rightSpine.get(rightSpine.size()-1)) > priority) {
+				lastRemoved = rightSpine.remove(rightSpine.size()-1);
+			}
+			node.setLeftChild(lastRemoved);
+			if (!rightSpine.isEmpty()) {
+				rightSpine.get(rightSpine.size()-1).setRightChild(node);
+			}
+			rightSpine.add(node);
+		}
+		
+		if (rightSpine.isEmpty()) return null;
+		return rightSpine.get(0);
+	}
+	
+	@Override
+	protected void didRebuild(int size)
+	{
+		count = size;
+		assert isHeapOrdered();
+	}
+	
+	
+	@Override
+	protected TreeJoin<T> treeJoin()
+	{
+		return treeJoin;
+	}
+	
+	private final TreeJoin<T> treeJoin = new PriorityJoin();
+	
+	private class PriorityJoin extends TreeJoin<T> {
+		
+		@Override
+		//the root with the smaller priority becomes the root of the join, which keeps the result heap ordered
+		TreeNode<T> join(TreeNode<T> left, TreeNode<T> right, Random random)
+		{
+			if (left == null) return right;
+			if (right == null) return left;
+			
+			if (getPriorityForNode(left) <= getPriorityForNode(right)) {
+				left.setRightChild(join(left.getRightChild(), right, random));
+				return left;
+			} else {
+				right.setLeftChild(join(left, right.getLeftChild(), random));
+				return right;
+			}
+		}
+		
+		@Override
+		//the root with the smaller priority becomes the root of the union, which keeps the union heap ordered
+		boolean unionKeepsRootOf(TreeNode<T> a, TreeNode<T> b, Random random)
+		{
+			return getPriorityForNode(a) <= getPriorityForNode(b);
+		}
+	}
+	
+	
 	//////
 	////IMPLEMENTATION :: BALANCE
 	//////
 
 	
-	private void rebalanceUpwards(ArrayList<TreeNode<T>> trace)
+	//rotates the last node of the trace up until the heap property holds
+	private void rebalanceUpwards(int traceLength)
 	{
-		assert trace.size() > 0;
+		assert traceLength > 0;
 		
-		int currentIndex = trace.size()-1;
+		int currentIndex = traceLength-1;
 		
-		while (currentIndex > 1 && getPriorityForNode(trace.get(currentIndex)) < getPriorityForNode(trace.get(currentIndex-1))) {
+		while (currentIndex > 1 && getPriorityForNode(trace[currentIndex]) < getPriorityForNode(trace[currentIndex-1])) {
 			
-			treeRotateUp(trace.get(currentIndex), trace.get(currentIndex-1), trace.get(currentIndex-2));
+			treeRotateUp(trace[currentIndex], trace[currentIndex-1], trace[currentIndex-2]);
 			swap(trace, currentIndex, currentIndex-1);//the tree rotation needs to be reflected in the trace
 			currentIndex = currentIndex - 1;
 		}
 		
-		assert isHeapOrdered(trace.get(0));
+		assert isHeapOrdered(trace[0]);
 	}
 	
 	
@@ -1,8 +1,11 @@
 package ch.ethz.glukas.orderedmap;
 
+import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 
 import ch.ethz.glukas.orderedset.BinaryMath;
+import ch.ethz.glukas.orderedset.PackedMemoryDensity;
+import ch.ethz.glukas.orderedset.ParallelRedistribution;
 
 public class CharMap<T> {
 
@@ -19,10 +22,16 @@ public class CharMap<T> {
 		//capacity should be a power of 2
 		keys = new char[capacity];
 		values = (T[]) new Object[capacity];
-		sectionSize = sectionSizeForCapacity(capacity);
+		sectionSize = PackedMemoryDensity.sectionSizeForCapacity(capacity);
 		depth = BinaryMath.log(numberOfSections());
 	}
 	
+	//the redistributions of blocks of at least this many slots run in parallel, Integer.MAX_VALUE keeps them all sequential
+	public void setParallelRedistributionThreshold(int slots)
+	{
+		parallelRedistributionThreshold = slots;
+	}
+	
 	public int size()
 	{
 		return count;
@@ -111,6 +120,139 @@ public class CharMap<T> {
 	}
 	
 	
+	/////
+	//BATCHES
+	//the batch is sorted and put in groups: a group consists of the keys that fall into the smallest window around the section of its first key
+	//that can hold them all. each group is merged with the keys of its window in one pass and distributed evenly among the sections of the window.
+	//the keys of the batch that are already present count towards the size of their group, so the windows can be slightly larger than needed
+	/////
+	
+	//puts the key value pairs, values[i] is the value of keys[i]. if a key occurs more than once, the last value wins (the arrays are not modified)
+	public void putAll(char[] keys, T[] values)
+	{
+		if (keys.length != values.length) throw new IllegalArgumentException();
+		
+		//sort the indices of the batch by key, the indices break the ties
+		long[] order = new long[keys.length];
+		for (int i=0; i<keys.length; i++) {
+			if (keys[i] == 0) throw new IllegalArgumentException();
+			order[i] = ((long)keys[i] << 32) | i;
+		}
+		Arrays.sort(order);
+		
+		//keep the last occurrence of each key
+		int length = 0;
+		for (int i=0; i<order.length; i++) {
+			if (i+1 < order.length && order[i+1] >>> 32 == order[i] >>> 32) continue;
+			order[length++] = order[i];
+		}
+		char[] batchKeys = new char[length];
+		Object[] batchValues = new Object[length];
+		for (int i=0; i<length; i++) {
+			batchKeys[i] = (char)(order[i] >>> 32);
+			batchValues[i] = values[(int)order[i]];
+		}
+		
+		int index = 0;
+		while (index < length) {
+			index = putGroup(batchKeys, batchValues, index);
+		}
+		assert checkInvariants();
+	}
+	
+	//merges the group that starts at batchKeys[from] into the map, returns the index of the first key after the group
+	private int putGroup(char[] batchKeys, Object[] batchValues, int from)
+	{
+		int window = sectionForKey(batchKeys[from]);
+		int level = depth();
+		int to = endOfGroup(batchKeys, from, window, level);
+		while (level >= 0 && !isWithinUpperbound(arrayIndexForNode(level, window), level, to-from)) {
+			window = window/2;
+			level--;
+			to = endOfGroup(batchKeys, from, window, level);
+		}
+		merge(batchKeys, batchValues, from, to, level, window);
+		return to;
+	}
+	
+	//the index of the first key of the batch that belongs to a section after the window
+	private int endOfGroup(char[] batchKeys, int from, int window, int level)
+	{
+		if (level < 0) return batchKeys.length;
+		int nextSection = (window+1)*numberOfSectionsForLevel(level);
+		if (nextSection >= numberOfSections()) return batchKeys.length;
+		
+		int index = Arrays.binarySearch(batchKeys, from, batchKeys.length, keys[arrayIndexForSection(nextSection)]);
+		if (index < 0) {
+			index = -(index+1);
+		}
+		return index;
+	}
+	
+	//merges the pairs batch[from..to) with the pairs of the window and distributes them evenly among the sections of the window
+	//if the level is negative, the whole array is rebuilt with a capacity that fits all the keys
+	@SuppressWarnings("unchecked")
+	private void merge(char[] batchKeys, Object[] batchValues, int from, int to, int level, int window)
+	{
+		int startIndex = arrayIndexForNode(level, window);
+		int numberOfSections = numberOfSectionsForLevel(level);
+		int numberOfKeys = crunch(startIndex, numberOfSections);
+		
+		//merge the crunched block with the batch, the values of the batch replace the values of the keys that are already present
+		char[] mergedKeys = new char[numberOfKeys+to-from];
+		T[] mergedValues = (T[]) new Object[mergedKeys.length];
+		int blockIndex = startIndex;
+		int blockEnd = startIndex+numberOfKeys;
+		int batchIndex = from;
+		int length = 0;
+		while (blockIndex < blockEnd || batchIndex < to) {
+			if (batchIndex == to || (blockIndex < blockEnd && keys[blockIndex] < batchKeys[batchIndex])) {
+				mergedKeys[length] = keys[blockIndex];
+				mergedValues[length++] = values[blockIndex++];
+			} else {
+				if (blockIndex < blockEnd && keys[blockIndex] == batchKeys[batchIndex]) {
+					blockIndex++;
+				}
+				mergedKeys[length] = batchKeys[batchIndex];
+				mergedValues[length++] = (T) batchValues[batchIndex++];
+			}
+		}
+		
+		if (level < 0) {
+			//the capacity follows from the count alone: a batch of keys that are already present does not grow the array
+			init(PackedMemoryDensity.capacityForCount(length));
+			numberOfSections = numberOfSections();
+		} else {
+			//the crunched block is replaced by the merged pairs
+			Arrays.fill(keys, startIndex, blockEnd, (char)0);
+			Arrays.fill(values, startIndex, blockEnd, null);
+		}
+		count += length-numberOfKeys;
+		
+		distributeBlock(0, mergedKeys, mergedValues, startIndex, numberOfSections, length);
+		assert isWithinCapacity();
+	}
+	
+	//like distributeBlock, but the keys are taken from the left end of separate arrays and the target sections start at the target index
+	private void distributeBlock(int fromStartIndex, char[]sourceKeys, T[]sourceValues, int toStartIndex, int targetNumberOfSections, int numberOfKeys)
+	{
+		assert numberOfKeys >= targetNumberOfSections; //there must be enough keys
+		assert targetNumberOfSections*(sectionSize-1) >= numberOfKeys; //there should not be too many keys
+		
+		int keysPerSection = numberOfKeys/targetNumberOfSections;
+		int leftover = numberOfKeys-(targetNumberOfSections*keysPerSection);//the first few sections get one key more
+		int currentSectionIndex = toStartIndex;
+		for (int i=0; i<targetNumberOfSections; i++) {
+			int length = i < leftover ? keysPerSection+1 : keysPerSection;
+			System.arraycopy(sourceKeys, fromStartIndex, keys, currentSectionIndex, length);
+			System.arraycopy(sourceValues, fromStartIndex, values, currentSectionIndex, length);
+			fromStartIndex += length;
+			currentSectionIndex += sectionSize;
+		}
+		
+		assert countConsistent();
+	}
+	
 	private int sectionForKey(char key)
 	{
 		//binary search on the first element of the sections (first element is always non-null, except when capacity == 1)
@@ -143,7 +285,7 @@ public class CharMap<T> {
 			
 			int level = depth();
 			//A) find the first level that is within capacity
-			while (level >= 0 && !isWithinUpperbound(arrayIndexForNode(level, section), level)) {
+			while (level >= 0 && !isWithinUpperbound(arrayIndexForNode(level, section), level, 0)) {
 				section = section/2;
 				level--;
 			}
@@ -158,6 +300,10 @@ public class CharMap<T> {
 	private void redistribute(int startIndex, int level)
 	{
 		assert startIndex >= 0;
+		if (numberOfSectionsForLevel(level)*sectionSize >= parallelRedistributionThreshold) {
+			parallelRedistribute(startIndex, level);
+			return;
+		}
 		
 		int numberOfSections = numberOfSectionsForLevel(level);
 		int numberOfKeys = crunch(startIndex, numberOfSections);
@@ -251,16 +397,74 @@ public class CharMap<T> {
 		return destinationIndex+i;
 	}
 	
+	//used for the blocks of at least parallelRedistributionThreshold slots, the layout of the keys is the same as with the sequential algorithms
+	private void parallelRedistribute(int startIndex, int level)
+	{
+		int firstSection = startIndex/sectionSize;
+		int numberOfSections = numberOfSectionsForLevel(level);
+		Redistribution redistribution = new Redistribution();
+		int numberOfKeys = redistribution.gather(firstSection, numberOfSections);
+		if (level < 0) {//total rebuild, the keys are scattered to the new arrays
+			assert numberOfKeys == count;
+			init(2*capacity());
+			numberOfSections = numberOfSections();
+		}
+		redistribution.scatter(firstSection, numberOfSections);
+		
+		assert countConsistent();
+		assert isWithinCapacity();
+	}
+	
+	//the buffer holds the key value pairs of one redistribution
+	private class Redistribution extends ParallelRedistribution {
+		
+		@Override
+		protected int numberOfKeysInSection(int section)
+		{
+			return countNumberOfUsedSlotsInSectionAtIndex(arrayIndexForSection(section));
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		protected void allocateBuffer(int numberOfKeys)
+		{
+			bufferedKeys = new char[numberOfKeys];
+			bufferedValues = (T[]) new Object[numberOfKeys];
+		}
+		
+		@Override
+		protected void gatherSection(int section, int bufferIndex, int numberOfKeys)
+		{
+			int index = arrayIndexForSection(section);
+			System.arraycopy(keys, index, bufferedKeys, bufferIndex, numberOfKeys);
+			System.arraycopy(values, index, bufferedValues, bufferIndex, numberOfKeys);
+		}
+		
+		@Override
+		protected void scatterSection(int bufferIndex, int section, int numberOfKeys)
+		{
+			int index = arrayIndexForSection(section);
+			System.arraycopy(bufferedKeys, bufferIndex, keys, index, numberOfKeys);
+			System.arraycopy(bufferedValues, bufferIndex, values, index, numberOfKeys);
+			Arrays.fill(keys, index+numberOfKeys, index+sectionSize, (char)0);
+			Arrays.fill(values, index+numberOfKeys, index+sectionSize, null);
+		}
+		
+		private char[] bufferedKeys;
+		private T[] bufferedValues;
+	}
+	
 	///////
 	///////
 	
-	private boolean isWithinUpperbound(int arrayIndexOfNode, int level)
+	//'extra' keys are counted in addition to the keys of the node
+	private boolean isWithinUpperbound(int arrayIndexOfNode, int level, int extra)
 	{
-		double count = numberOfUsedSlotsForNode(arrayIndexOfNode, level);
+		double count = numberOfUsedSlotsForNode(arrayIndexOfNode, level)+extra;
 		if (count > numberOfSectionsForLevel(level)*(sectionSize-1)) return false;//there needs to be at least one empty slot in each section
 		
 		double capacity = capacityOfNodeAtLevel(level);
-		double maxDensity = maxDensityForLevel(level);
+		double maxDensity = PackedMemoryDensity.upperboundForLevel(level, depth());
 		double density = count/capacity;
 		return density < maxDensity;
 	}
@@ -277,11 +481,6 @@ public class CharMap<T> {
 
 	}
 	
-	private double maxDensityForLevel(int level)
-	{
-		return rootDensityUpperbound + (level)*(leafDensityUpperbound-rootDensityUpperbound)/(depth()+1);
-	}
-	
 	private int arrayIndexForNode(int level, int windowIndex)
 	{
 		if (level < 0) return 0;
@@ -346,16 +545,6 @@ public class CharMap<T> {
 		return keys.length;
 	}
 	
-	//section sizes are always powers of twos
-	private int sectionSizeForCapacity(int capacity)
-	{
-		assert BinaryMath.isPowerOfTwo(capacity);
-		
-		if (capacity <= 1) return 1;
-		if (capacity == 2) return 2;
-		return  BinaryMath.nextHighestPowerOfTwo(BinaryMath.log(capacity));
-	}
-	
 	////
 	//INSTANCE VARIABLES
 	////
@@ -365,15 +554,15 @@ public class CharMap<T> {
 	private int sectionSize;
 	private int count = 0;
 	private int depth;
+	private int parallelRedistributionThreshold = defaultParallelRedistributionThreshold;
 	
 	////
 	//CONSTANTS
 	////
 	
-	private final static double rootDensityUpperbound = 0.8;
-	private final static double rootDensityLowerbound = 0.35;
-	private final static double leafDensityLowerbound = 0.1;
-	private final static double leafDensityUpperbound = 1.0;
+	//the redistributions of blocks of at least this many slots run in parallel (see ParallelRedistribution)
+	//the keys are chars, so only the top levels of the largest maps (2^17 slots) reach the default
+	private static final int defaultParallelRedistributionThreshold = 1 << 16;
 
 	/////
 	//INVARIANTS & ASSERTIONS
@@ -2,12 +2,14 @@ package ch.ethz.glukas.orderedset;
 
 import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.RecursiveTask;
 
 
 /**
@@ -28,23 +30,33 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 	//clear() is guaranteed to be called by the constructors
 	///
 	
+	//if comparator is null, the natural ordering is used
 	protected BinarySearchTree(Comparator<? super T> comparator)
 	{
 		clear();
-		internalComparator = comparator;
+		if (comparator == null) {
+			internalComparator = naturalOrdering();
+		} else {
+			internalComparator = comparator;
+		}
 	}
 	
 	protected BinarySearchTree()
 	{
 		clear();
-		internalComparator = new Comparator<T>() {
+		internalComparator = naturalOrdering();
+		assert checkInvariants();
+	}
+	
+	private static <T> Comparator<T> naturalOrdering()
+	{
+		return new Comparator<T>() {
 			@SuppressWarnings("unchecked")
 			@Override
 			public int compare(T arg0, T arg1) {
 				return ((Comparable<T>)arg0).compareTo(arg1);
 			}
 		};
-		assert checkInvariants();
 	}
 	
 	protected TreeNode<T> newNode(T val)
@@ -95,6 +107,9 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 		@SuppressWarnings("unchecked")
 		T value = (T)val;
 		boolean modified = internalRemove(value);
+		if (modified) {
+			detachments++;
+		}
 		
 		assert checkInvariants();
 		assert !contains(val);
@@ -115,6 +130,7 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 	@Override
 	public void clear() {
 		metaRoot = newNode(null);
+		detachments++;
 		assert checkInvariants();
 	}
 	
@@ -140,6 +156,60 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 	}
 
 	
+	@Override
+	//large batches are combined with the tree by unionWith if the tree has a join
+	//otherwise, if 'c' is sorted by the comparator of this tree (e.g. a SortedSet with the same ordering) and not too small compared to the tree,
+	//the values are merged with the values of the tree and the tree is rebuilt in O(size()+c.size())
+	public boolean addAll(Collection<? extends T> c)
+	{
+		if (treeJoin() != null && c.size() >= parallelBatchThreshold) return unionWith(c);
+		if (c.size() < 2 || (long)c.size()*BinaryMath.log(size()+c.size()) < size()) return super.addAll(c);
+		
+		@SuppressWarnings("unchecked")
+		T[] values = (T[]) c.toArray();
+		if (!isSorted(values)) return super.addAll(c);
+		
+		int oldSize = size();
+		ArrayList<T> merged = merge(iterator(), distinct(values), SetOperation.UNION);
+		loadSorted(merged.iterator(), merged.size());
+		return size() != oldSize;
+	}
+	
+	
+	/////
+	//SET ALGEBRA
+	//The operations modify this set and return true if it changed, 'other' is not modified. Its values are compared with the comparator of this set.
+	//Trees with a join (RandomizedBST, Treap) combine themselves with a tree of the m values of 'other' by splits and joins,
+	//which takes O(m log(n/m+1)) work for m <= n. Above a size threshold, the recursion runs in parallel.
+	//Building the tree of 'other' takes O(m) if it is sorted by the comparator of this set, O(m log m) otherwise.
+	//The other trees merge the two ordered sequences and rebuild themselves in O(n+m).
+	/////
+	
+	//adds the values of 'other' that are not in this set
+	public boolean unionWith(Collection<? extends T> other)
+	{
+		return combineWith(other, SetOperation.UNION);
+	}
+	
+	//removes the values that are not in 'other'
+	public boolean intersectWith(Collection<? extends T> other)
+	{
+		return combineWith(other, SetOperation.INTERSECTION);
+	}
+	
+	//removes the values that are in 'other'
+	public boolean differenceWith(Collection<? extends T> other)
+	{
+		return combineWith(other, SetOperation.DIFFERENCE);
+	}
+	
+	//removes the values that are in 'other' and adds the values of 'other' that are not in this set
+	public boolean symmetricDifference(Collection<? extends T> other)
+	{
+		return combineWith(other, SetOperation.SYMMETRIC_DIFFERENCE);
+	}
+	
+	
 	/////
 	//IMPLEMENTATION :: MODIFY
 	////
@@ -249,19 +319,15 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 		return findLast(node.getLeftChild());
 	}
 
-	//the first element of the list is always the metaRoot
-	//else if the value is present in the collection, the last element of the returned list is the node containing the value
-	//else the last element of the list is the next highest node
-	protected ArrayList<TreeNode<T>> find(T value)
+	//writes the search path of the value to 'trace' and returns its length
+	//the first node of the path is always the metaRoot
+	//else if the value is present in the collection, the last node of the path is the node containing the value
+	//else the last node of the path is the next highest or next lowest node
+	protected int find(T value)
 	{
 		return traceNodeWithValueStartingFrom(metaRoot, value);
 	}
 	
-	protected Buffer<TreeNode<T>> find(T value, int capacity)
-	{
-		return traceNodeWithValueStartingFrom(metaRoot, value, capacity);
-	}
-	
 	protected TreeNode<T> findNodeWithValueStartingFrom(TreeNode<T> currentNode, T valueToFind)
 	{
 		int comparison;
@@ -277,34 +343,31 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 	}
 	
 	
-	//result contains 2 elements: the successors parent at 0 and the successor at 1
-	protected Buffer<TreeNode<T>> findSuccessor(TreeNode<T> node)
+	//returns the successor of the node and sets successorParent to its parent
+	protected TreeNode<T> findSuccessor(TreeNode<T> node)
 	{
 		assert node.getRightChild() != null;
 		
-		Buffer<TreeNode<T>> trace = traceNodeWithValueStartingFrom(node.getRightChild(), node.getValue(), 2);
-		if (trace.numberOfUsedSlots() == 1) {//if the successor is the immediate right child, the node will need to be added to the trace
-			TreeNode<T> successor = trace.get(0);
-			trace.add(node);
-			trace.add(successor);
+		successorParent = node;
+		TreeNode<T> successor = node.getRightChild();
+		while (successor.getLeftChild() != null) {
+			successorParent = successor;
+			successor = successor.getLeftChild();
 		}
-		return trace;
+		return successor;
 	}
 	
 	
+	//writes the path from the starting node to the node with the value (or the last node before null) to 'trace' and returns its length
 	//Every call to this method invalidates all previous traces
-	//TODO: this is potentially dangerous
-	protected ArrayList<TreeNode<T>> traceNodeWithValueStartingFrom(TreeNode<T> startingNode, T valueToFind)
+	protected int traceNodeWithValueStartingFrom(TreeNode<T> startingNode, T valueToFind)
 	{
-		//ArrayList<TreeNode<T>> trace = new ArrayList<TreeNode<T>>();
-		ArrayList<TreeNode<T>> trace = reusableTrace;
-		trace.clear();
 		TreeNode<T> currentNode = startingNode;
-		
+		int length = 0;
 		int comparison;
 		
 		while (currentNode != null) {
-			trace.add(currentNode);
+			appendToTrace(length++, currentNode);
 			
 			comparison = compareValues(valueToFind, currentNode);
 			if (comparison == 0) {
@@ -314,26 +377,17 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 			}
 		}
 		
-		return trace;
+		return length;
 	}
 	
-	protected Buffer<TreeNode<T>> traceNodeWithValueStartingFrom(TreeNode<T> startingNode, T valueToFind, int maximumParentBufferSize)
+	
+	//sets trace[length] to the node, growing the trace if needed
+	protected void appendToTrace(int length, TreeNode<T> node)
 	{
-
-		Buffer<TreeNode<T>> trace = new Buffer<TreeNode<T>>(maximumParentBufferSize);
-
-		TreeNode<T> currentNode = startingNode;
-		int comparison = -1;
-		while (currentNode != null) {
-			trace.add(currentNode);
-			comparison = compareValues(valueToFind, currentNode);
-			if (comparison == 0) {
-				break;
-			} else {
-				currentNode = currentNode.getChild(comparison);
-			}
+		if (length == trace.length) {
+			trace = Arrays.copyOf(trace, 2*length);
 		}
-		return trace;
+		trace[length] = node;
 	}
 	
 	
@@ -341,6 +395,44 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 	//IMPLEMENTATION : SPLIT
 	///
 	
+	//partitions the tree rooted at r around the value and returns the node with the value, or null
+	//the trees of the smaller and greater values are left in splitLess and splitGreater
+	protected TreeNode<T> split(T value, TreeNode<T> r)
+	{
+		assert isInOrder(r);
+
+		if (r == null) {//base case 1
+			splitLess = null;
+			splitGreater = null;
+			return null;
+		}
+
+		int comparison = compareValues(value, r);
+		
+		TreeNode<T> equal = null;
+		if (comparison < 0) {
+			equal = split(value, r.getLeftChild());
+			r.setLeftChild(splitGreater);
+			splitGreater = r;
+			
+		} else if (comparison > 0) {
+			equal = split(value, r.getRightChild());
+			r.setRightChild(splitLess);
+			splitLess = r;
+			
+		} else {//base case 2
+			equal = r;
+			splitLess = r.getLeftChild();
+			splitGreater = r.getRightChild();
+		}
+		
+		assert descendantsAreSmaller(splitLess, value);
+		assert descendantsAreGreater(splitGreater, value);
+		return equal;
+	}
+	
+	//the same as split(value, r), with the results in the holders instead of the fields of this tree
+	//the parallel set operations split disjoint subtrees concurrently, so they cannot share the fields
 	protected TreeNode<T> split(T value, TreeNode<T> r, Out<TreeNode<T>> less, Out<TreeNode<T>> greater)
 	{
 		assert isInOrder(r);
@@ -378,6 +470,318 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 		return equal;
 	}
 	
+	/////
+	//IMPLEMENTATION : BULK LOADING
+	/////
+	
+	//replaces the contents of the tree by the first 'size' values of 'sorted' in O(size)
+	//throws an IllegalArgumentException if the values are not in strictly ascending order or contain null. In that case the tree is left empty.
+	protected void loadSorted(Iterator<? extends T> sorted, int size)
+	{
+		clear();
+		previousSortedValue = null;
+		TreeNode<T> root = buildFromSorted(sorted, size);
+		previousSortedValue = null;
+		metaRoot.setLeftChild(root);
+		didRebuild(size);
+		
+		assert checkInvariants();
+	}
+	
+	//replaces the contents of the tree by the values of 'sorted', in linear time
+	protected void loadSorted(Iterator<? extends T> sorted)
+	{
+		ArrayList<T> values = new ArrayList<T>();
+		while (sorted.hasNext()) {
+			values.add(sorted.next());
+		}
+		loadSorted(values.iterator(), values.size());
+	}
+	
+	protected void loadSorted(T[] sorted)
+	{
+		loadSorted(Arrays.asList(sorted).iterator(), sorted.length);
+	}
+	
+	//called after the tree was replaced by a tree of 'size' values (by bulk loading or a set operation), so subclasses can set their counters
+	protected void didRebuild(int size)
+	{
+	}
+	
+	//builds a tree of the next 'size' values of 'sorted' in in-order: left subtree, root, right subtree
+	//the shape is determined by leftSizeForBulkLoad
+	protected TreeNode<T> buildFromSorted(Iterator<? extends T> sorted, int size)
+	{
+		if (size == 0) return null;
+		
+		int leftSize = leftSizeForBulkLoad(size);
+		TreeNode<T> left = buildFromSorted(sorted, leftSize);
+		TreeNode<T> root = newNode(nextSortedValue(sorted));
+		root.setLeftChild(left);//the children are set after they are complete, so the subtree sizes of ranked nodes are correct
+		root.setRightChild(buildFromSorted(sorted, size-leftSize-1));
+		return root;
+	}
+	
+	//the size of the left subtree of a bulk loaded tree with 'size' nodes. The default builds perfectly balanced trees.
+	protected int leftSizeForBulkLoad(int size)
+	{
+		return (size-1)/2;
+	}
+	
+	//returns the next value of the sorted input, checking that the values are strictly ascending
+	protected T nextSortedValue(Iterator<? extends T> sorted)
+	{
+		T value = sorted.next();
+		if (value == null) throw new IllegalArgumentException();
+		if (previousSortedValue != null && compareValues(previousSortedValue, value) >= 0) throw new IllegalArgumentException("input is not sorted");
+		previousSortedValue = value;
+		return value;
+	}
+	
+	//builds a tree of the sorted values, see buildFromSorted
+	protected TreeNode<T> buildFromSorted(T[] sorted)
+	{
+		previousSortedValue = null;
+		TreeNode<T> root = buildFromSorted(Arrays.asList(sorted).iterator(), sorted.length);
+		previousSortedValue = null;
+		return root;
+	}
+	
+	//returns the distinct values of the collection in ascending order, the values are sorted in parallel
+	//throws an IllegalArgumentException if the collection contains null
+	protected T[] sortedDistinctValues(Collection<? extends T> c)
+	{
+		@SuppressWarnings("unchecked")
+		T[] values = (T[]) c.toArray();
+		for (int i=0; i<values.length; i++) {
+			if (values[i] == null) throw new IllegalArgumentException();
+		}
+		if (!isSorted(values)) {
+			Arrays.parallelSort(values, comparator());
+		}
+		return distinct(values);
+	}
+	
+	//returns true if the values are in ascending order (duplicates allowed) and none of them is null
+	private boolean isSorted(T[] values)
+	{
+		for (int i=0; i<values.length; i++) {
+			if (values[i] == null) return false;
+			if (i > 0 && compareValues(values[i-1], values[i]) > 0) return false;
+		}
+		return true;
+	}
+	
+	//removes the duplicates of the sorted values, returns the shortened array
+	private T[] distinct(T[] sorted)
+	{
+		int distinct = 0;
+		for (int i=0; i<sorted.length; i++) {
+			if (distinct == 0 || compareValues(sorted[distinct-1], sorted[i]) != 0) {
+				sorted[distinct] = sorted[i];
+				distinct++;
+			}
+		}
+		return Arrays.copyOf(sorted, distinct);
+	}
+	
+	//merges the values of the tree (in order) with the sorted distinct values, keeping the values selected by the operation
+	private ArrayList<T> merge(Iterator<T> ordered, T[] values, SetOperation operation)
+	{
+		ArrayList<T> merged = new ArrayList<T>(size()+values.length);
+		T next = ordered.hasNext() ? ordered.next() : null;
+		int i = 0;
+		while (next != null || i < values.length) {
+			int comparison = i < values.length ? compareValues(next, values[i]) : -1;//null is +infinity
+			if (comparison < 0) {
+				if (operation.keepsOnlyInThis) merged.add(next);
+				next = ordered.hasNext() ? ordered.next() : null;
+			} else if (comparison > 0) {
+				if (operation.keepsOnlyInOther) merged.add(values[i]);
+				i++;
+			} else {
+				if (operation.keepsInBoth) merged.add(next);
+				next = ordered.hasNext() ? ordered.next() : null;
+				i++;
+			}
+		}
+		return merged;
+	}
+	
+	
+	/////
+	//IMPLEMENTATION : SET OPERATIONS
+	/////
+	
+	protected enum SetOperation {
+		UNION(true, true, true), INTERSECTION(false, true, false), DIFFERENCE(true, false, false), SYMMETRIC_DIFFERENCE(true, false, true);
+		
+		SetOperation(boolean keepsOnlyInThis, boolean keepsInBoth, boolean keepsOnlyInOther)
+		{
+			this.keepsOnlyInThis = keepsOnlyInThis;
+			this.keepsInBoth = keepsInBoth;
+			this.keepsOnlyInOther = keepsOnlyInOther;
+		}
+		
+		//the size of the result, given the sizes of the operands and the number of values they have in common
+		int resultSize(int size, int otherSize, int matches)
+		{
+			int result = 0;
+			if (keepsOnlyInThis) result += size-matches;
+			if (keepsInBoth) result += matches;
+			if (keepsOnlyInOther) result += otherSize-matches;
+			return result;
+		}
+		
+		final boolean keepsOnlyInThis;
+		final boolean keepsInBoth;
+		final boolean keepsOnlyInOther;
+	}
+	
+	private boolean combineWith(Collection<? extends T> other, SetOperation operation)
+	{
+		T[] values = sortedDistinctValues(other);
+		int oldSize = size();
+		
+		TreeJoin<T> join = treeJoin();
+		if (join != null) {
+			Out<Integer> matches = new Out<Integer>();
+			TreeNode<T> root = combine(getRoot(), buildFromSorted(values), join, operation, oldSize+values.length >= parallelSetOperationThreshold, matches);
+			metaRoot.setLeftChild(root);
+			detachments++;
+			didRebuild(operation.resultSize(oldSize, values.length, matches.get()));
+			assert checkInvariants();
+		} else {
+			ArrayList<T> combined = merge(iterator(), values, operation);
+			loadSorted(combined.iterator(), combined.size());
+		}
+		
+		//every value of 'other' is either removed from or added to the set by the symmetric difference
+		if (operation == SetOperation.SYMMETRIC_DIFFERENCE) return values.length > 0;
+		return size() != oldSize;
+	}
+	
+	//combines the trees rooted at 'a' and 'b' and returns the root of the result. Both trees are consumed.
+	//Algorithm: the root of one tree (see TreeJoin.unionKeepsRootOf) splits the other tree. The halves are combined with the subtrees of the root recursively,
+	//in parallel if 'parallel' is true. The results are joined, with the root in the middle if the operation keeps it.
+	//if matches is not null, it is set to the number of values that are in both trees
+	protected TreeNode<T> combine(TreeNode<T> a, TreeNode<T> b, TreeJoin<T> join, SetOperation operation, boolean parallel, Out<Integer> matches)
+	{
+		TreeNode<T> result;
+		ParallelSetOperation task;
+		if (parallel) {
+			task = new ParallelSetOperation(a, b, join, operation, taskSeeds.nextLong(), 0);
+			result = ImmutableOrderedSet.mainPool.invoke(task);
+		} else {
+			task = new ParallelSetOperation(a, b, join, operation, taskSeeds.nextLong(), parallelSetOperationDepth);
+			result = task.compute();
+		}
+		if (matches != null) matches.set(task.matches);
+		return result;
+	}
+	
+	//returns the join of the tree, or null if it has none. With a join, the set operations combine trees by split and join.
+	protected TreeJoin<T> treeJoin()
+	{
+		return null;
+	}
+	
+	//the recursion forks tasks up to this depth, below it continues sequentially: this gives a few tasks per core
+	private static final int parallelSetOperationDepth = BinaryMath.log(Runtime.getRuntime().availableProcessors())+3;
+	private static final int parallelSetOperationThreshold = 1 << 14;//smaller operations run sequentially
+	private static final int parallelBatchThreshold = 1 << 12;//smaller batches are added one by one (or merged, if sorted)
+	
+	private class ParallelSetOperation extends RecursiveTask<TreeNode<T>> {
+		
+		ParallelSetOperation(TreeNode<T> a, TreeNode<T> b, TreeJoin<T> join, SetOperation operation, long seed, int depth)
+		{
+			this.a = a;
+			this.b = b;
+			this.join = join;
+			this.operation = operation;
+			this.seed = seed;
+			this.depth = depth;
+		}
+		
+		@Override
+		protected TreeNode<T> compute()
+		{
+			Random random = new Random(seed);
+			if (depth >= parallelSetOperationDepth) return combine(a, b, random);
+			if (a == null || b == null) return combineWithEmpty(a, b);
+			
+			TreeNode<T> root = chooseRoot(a, b, random);
+			Out<TreeNode<T>> less = new Out<TreeNode<T>>();
+			Out<TreeNode<T>> greater = new Out<TreeNode<T>>();
+			TreeNode<T> equal = split(root.getValue(), root == a ? b : a, less, greater);
+			
+			ParallelSetOperation left = new ParallelSetOperation(root.getLeftChild(), less.get(), join, operation, random.nextLong(), depth+1);
+			ParallelSetOperation right = new ParallelSetOperation(root.getRightChild(), greater.get(), join, operation, random.nextLong(), depth+1);
+			left.fork();
+			TreeNode<T> rightResult = right.compute();
+			TreeNode<T> leftResult = left.join();
+			matches += left.matches+right.matches;
+			
+			return combineWithRoot(leftResult, root, equal, rightResult, random);
+		}
+		
+		//sequential version of compute
+		private TreeNode<T> combine(TreeNode<T> a, TreeNode<T> b, Random random)
+		{
+			if (a == null || b == null) return combineWithEmpty(a, b);
+			
+			TreeNode<T> root = chooseRoot(a, b, random);
+			Out<TreeNode<T>> less = new Out<TreeNode<T>>();
+			Out<TreeNode<T>> greater = new Out<TreeNode<T>>();
+			TreeNode<T> equal = split(root.getValue(), root == a ? b : a, less, greater);
+			
+			TreeNode<T> leftResult = combine(root.getLeftChild(), less.get(), random);
+			TreeNode<T> rightResult = combine(root.getRightChild(), greater.get(), random);
+			return combineWithRoot(leftResult, root, equal, rightResult, random);
+		}
+		
+		//the union is symmetric, so it may split either tree. The other operations split 'b' by the root of 'a'.
+		private TreeNode<T> chooseRoot(TreeNode<T> a, TreeNode<T> b, Random random)
+		{
+			if (operation == SetOperation.UNION && !join.unionKeepsRootOf(a, b, random)) return b;
+			return a;
+		}
+		
+		private TreeNode<T> combineWithEmpty(TreeNode<T> a, TreeNode<T> b)
+		{
+			if (a == null) return operation.keepsOnlyInOther ? b : null;
+			return operation.keepsOnlyInThis ? a : null;
+		}
+		
+		//'equal' is the node of the other tree with the value of the root, or null
+		private TreeNode<T> combineWithRoot(TreeNode<T> left, TreeNode<T> root, TreeNode<T> equal, TreeNode<T> right, Random random)
+		{
+			if (equal != null) matches++;
+			
+			boolean keepsRoot = operation == SetOperation.UNION || (equal != null ? operation.keepsInBoth : operation.keepsOnlyInThis);
+			if (!keepsRoot) return join.join(left, right, random);
+			
+			//the root of a union was chosen to be the root of the result (see TreeJoin.unionKeepsRootOf)
+			//without the values of the other tree, the results only contain descendants of the root, so it can stay their parent
+			if (operation == SetOperation.UNION || !operation.keepsOnlyInOther) {
+				//the subtrees are complete, so the sizes of ranked nodes are correct
+				root.setLeftChild(left);
+				root.setRightChild(right);
+				return root;
+			}
+			return join.join(left, root, right, random);
+		}
+		
+		private final TreeNode<T> a;
+		private final TreeNode<T> b;
+		private final TreeJoin<T> join;
+		private final SetOperation operation;
+		private final long seed;
+		private final int depth;
+		private int matches = 0;
+	}
+	
+	
 	/////
 	//IMPLEMENTATION : HELPER METHODS
 	/////
@@ -425,12 +829,12 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 		return compareValues(n1.getValue(), n2.getValue());
 	}
 	
-	//swaps the elements at index1 and index2 of a list
-	protected <S> void swap(List<S> list, int index1, int index2)
+	//swaps the elements at index1 and index2 of an array
+	protected <S> void swap(S[] array, int index1, int index2)
 	{
-		S temp = list.get(index1);
-		list.set(index1, list.get(index2));
-		list.set(index2, temp);
+		S temp = array[index1];
+		array[index1] = array[index2];
+		array[index2] = temp;
 	}
 	
 	
@@ -507,7 +911,18 @@ abstract class BinarySearchTree<T> extends AbstractCollection<T> implements Set<
 	
 
 	
-	private ArrayList<TreeNode<T>> reusableTrace = new ArrayList<TreeNode<T>>();
+	//scratch state of the searches and splits, reused so that they do not allocate
+	//the set operations that run in parallel do not use them
+	@SuppressWarnings("unchecked")
+	protected TreeNode<T>[] trace = (TreeNode<T>[]) new TreeNode<?>[initialTraceLength];//the path written by find and traceNodeWithValueStartingFrom
+	protected TreeNode<T> successorParent;//written by findSuccessor
+	protected TreeNode<T> splitLess;//written by split
+	protected TreeNode<T> splitGreater;
+	private static final int initialTraceLength = 64;
+	
+	private Random taskSeeds = new Random(17);//seeds the random generators of the set operation tasks
+	private T previousSortedValue;//used to check the order of the input while bulk loading
 	private Comparator<? super T> internalComparator;
 	protected TreeNode<T> metaRoot;
+	protected int detachments;//counts the operations that may have detached nodes from the tree (removals, clear, rebuilds), see RankedTree.Finger
 }
@@ -1,6 +1,7 @@
 package ch.ethz.glukas.orderedset;
 
 import java.util.ArrayDeque;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.Stack;
@@ -19,6 +20,24 @@ public class BinarySearchTreeIterator<T> implements Iterator<T> {
 		init(node, false);
 	}
 	
+	//iterates over the values of the tree between the bounds, null bounds are unbounded
+	//the first value is found by one descent and the last value by another, so iterating over k values takes O(log n + k) time and no comparisons after the start
+	public BinarySearchTreeIterator(TreeNode<T> node, Comparator<? super T> comparator, T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending) {
+		this.comparator = comparator;
+		if (descending) {
+			parity = 1;
+			setBounds(upperbound, toInclusive, lowerbound, fromInclusive);
+		} else {
+			parity = -1;
+			setBounds(lowerbound, fromInclusive, upperbound, toInclusive);
+		}
+		pushFromStart(node);
+		last = lastNode(node);
+		if (last == null || (!deque.isEmpty() && isAfterEnd(deque.peek().getValue()))) {
+			deque.clear();//empty range
+		}
+	}
+	
 	private void init(TreeNode<T> node, boolean descending)
 	{
 		if (descending) {
@@ -38,7 +57,11 @@ public class BinarySearchTreeIterator<T> implements Iterator<T> {
 	public T next() {
 		
 		TreeNode<T> current = deque.pop();
-		push(current.getChild(-parity));
+		if (current == last) {
+			deque.clear();
+		} else {
+			push(current.getChild(-parity));
+		}
 		return current.getValue();
 	}
 	
@@ -55,6 +78,67 @@ public class BinarySearchTreeIterator<T> implements Iterator<T> {
 		}
 	}
 
+	////
+	//BOUNDS
+	//the start bound is the bound the iteration begins at (the upper bound for a descending iterator)
+	////
+	
+	private void setBounds(T start, boolean startInclusive, T end, boolean endInclusive)
+	{
+		startBound = start;
+		this.startInclusive = startInclusive;
+		endBound = end;
+		this.endInclusive = endInclusive;
+	}
+	
+	//pushes the path to the first value that is not before the start bound
+	private void pushFromStart(TreeNode<T> node)
+	{
+		while (node != null) {
+			if (isBeforeStart(node.getValue())) {
+				node = node.getChild(-parity);
+			} else {
+				deque.push(node);
+				node = node.getChild(parity);
+			}
+		}
+	}
+	
+	//returns the last node that is not after the end bound, or null if there is none
+	private TreeNode<T> lastNode(TreeNode<T> node)
+	{
+		TreeNode<T> result = null;
+		while (node != null) {
+			if (isAfterEnd(node.getValue())) {
+				node = node.getChild(parity);
+			} else {
+				result = node;
+				node = node.getChild(-parity);
+			}
+		}
+		return result;
+	}
+	
+	private boolean isBeforeStart(T value)
+	{
+		if (startBound == null) return false;
+		int comparison = parity*comparator.compare(value, startBound);
+		return comparison > 0 || (comparison == 0 && !startInclusive);
+	}
+	
+	private boolean isAfterEnd(T value)
+	{
+		if (endBound == null) return false;
+		int comparison = parity*comparator.compare(value, endBound);
+		return comparison < 0 || (comparison == 0 && !endInclusive);
+	}
+	
 	Deque<TreeNode<T>> deque = new ArrayDeque<TreeNode<T>>();
+	TreeNode<T> last;//the iteration ends after this node is returned, null if the iteration is unbounded
+	Comparator<? super T> comparator;
+	T startBound;
+	T endBound;
+	boolean startInclusive;
+	boolean endInclusive;
 	int parity;//if parity is negative the left subtree is traversed first. otherwise the right subtree is traversed first ('descending order')
 }
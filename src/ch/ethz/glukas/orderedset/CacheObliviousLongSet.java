@@ -0,0 +1,347 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A CacheObliviousSortedSet specialized for long keys.
+ *
+ * The keys are stored unboxed in a long[] packed memory array. Unlike COBTree, there is no reserved key: every long value can be stored.
+ *
+ * Provides the operations of RangeSet for long keys, with the same conventions as IntRandomizedBST:
+ * since remove(long) removes a key, removal by rank is done with poll(int index).
+ * The navigation methods floor, lower, ceiling and higher throw a NoSuchElementException if there is no such key,
+ * the corresponding ...Index methods return -1 instead.
+ *
+ * add and remove move O(log^2 N) keys amortized, searches are O(log N) and ordered scans read the array sequentially.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+public class CacheObliviousLongSet {
+
+	/////
+	//SET
+	/////
+
+	public int size()
+	{
+		return layout.size();
+	}
+
+	public boolean isEmpty()
+	{
+		return layout.isEmpty();
+	}
+
+	public void clear()
+	{
+		layout.clear();
+	}
+
+	public boolean contains(long key)
+	{
+		return find(key) >= 0;
+	}
+
+	public boolean add(long key)
+	{
+		int section = sectionForKey(key);
+		int found = searchSection(section, key);
+		if (found >= 0) return false;
+
+		int index = -found-1;
+		layout.openSlot(section, index);
+		keys()[index] = key;
+		layout.didInsert(section);
+
+		assert layout.checkInvariants();
+		assert contains(key);
+		return true;
+	}
+
+	public boolean remove(long key)
+	{
+		int found = find(key);
+		if (found < 0) return false;
+		layout.removeSlot(layout.sectionForSlot(found), found);
+
+		assert layout.checkInvariants();
+		assert !contains(key);
+		return true;
+	}
+
+	/**
+	 * Returns the keys in ascending order
+	 */
+	public long[] toArray()
+	{
+		long[] result = new long[size()];
+		long[] keys = keys();
+		int destination = 0;
+		for (int section=0; section<layout.numberOfSections(); section++) {
+			int used = layout.usedSlots(section);
+			System.arraycopy(keys, layout.arrayIndexForSection(section), result, destination, used);
+			destination += used;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an iterator over the keys in ascending order. The set must not be modified during the iteration.
+	 */
+	public PrimitiveIterator.OfLong iterator()
+	{
+		return new PrimitiveIterator.OfLong() {
+
+			@Override
+			public boolean hasNext()
+			{
+				return next >= 0;
+			}
+
+			@Override
+			public long nextLong()
+			{
+				if (next < 0) throw new NoSuchElementException();
+				long key = keys()[next];
+				next = layout.nextUsedSlot(next);
+				return key;
+			}
+
+			private int next = layout.firstUsedSlot();
+		};
+	}
+
+	////
+	//ORDERING
+	////
+
+	public long first()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		return keys()[layout.firstUsedSlot()];
+	}
+
+	public long last()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		return keys()[layout.lastUsedSlot()];
+	}
+
+	public long pollFirst()
+	{
+		return poll(0);
+	}
+
+	public long pollLast()
+	{
+		return poll(size()-1);
+	}
+
+	////
+	//NAVIGATION
+	////
+
+	public long floor(long key)
+	{
+		return keyAtIndex(floorIndex(key));
+	}
+
+	public long lower(long key)
+	{
+		return keyAtIndex(lowerIndex(key));
+	}
+
+	public long ceiling(long key)
+	{
+		return keyAtIndex(ceilingIndex(key));
+	}
+
+	public long higher(long key)
+	{
+		return keyAtIndex(higherIndex(key));
+	}
+
+	/**
+	 * Returns the rank of the greatest key smaller than or equal to 'key', or -1 if there is no such key
+	 */
+	public int floorIndex(long key)
+	{
+		return countSmallerOrEqual(key)-1;
+	}
+
+	/**
+	 * Returns the rank of the greatest key strictly smaller than 'key', or -1 if there is no such key
+	 */
+	public int lowerIndex(long key)
+	{
+		return countSmaller(key)-1;
+	}
+
+	/**
+	 * Returns the rank of the smallest key greater than or equal to 'key', or -1 if there is no such key
+	 */
+	public int ceilingIndex(long key)
+	{
+		int rank = countSmaller(key);
+		if (rank >= size()) return -1;
+		return rank;
+	}
+
+	/**
+	 * Returns the rank of the smallest key strictly greater than 'key', or -1 if there is no such key
+	 */
+	public int higherIndex(long key)
+	{
+		int rank = countSmallerOrEqual(key);
+		if (rank >= size()) return -1;
+		return rank;
+	}
+
+	/////
+	//RANGE SET
+	/////
+
+	/**
+	 * Returns the k'th-smallest key
+	 * @throws IndexOutOfBoundsException
+	 */
+	public long get(int index)
+	{
+		if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+		return keys()[layout.slotForRank(index)];
+	}
+
+	/**
+	 * If 'key' is the k'th smallest key in the set, this method returns 'k', else -1
+	 */
+	public int indexOf(long key)
+	{
+		int found = find(key);
+		if (found < 0) return -1;
+		return layout.rankOfSlot(found);
+	}
+
+	/**
+	 * Retrieves and removes the k'th smallest key
+	 * @throws IndexOutOfBoundsException
+	 */
+	public long poll(int index)
+	{
+		if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+		int slot = layout.slotForRank(index);
+		long key = keys()[slot];
+		layout.removeSlot(layout.sectionForSlot(slot), slot);
+		assert layout.checkInvariants();
+		return key;
+	}
+
+	public int sizeOfRange(long lowerbound, long upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound > upperbound) throw new IllegalArgumentException();
+
+		int upperRank = toInclusive ? countSmallerOrEqual(upperbound) : countSmaller(upperbound);
+		int lowerRank = fromInclusive ? countSmaller(lowerbound) : countSmallerOrEqual(lowerbound);
+		return Math.max(0, upperRank-lowerRank);
+	}
+
+	//a few keys are removed one by one, otherwise the whole array is rebuilt in linear time
+	public void removeRange(long lowerbound, long upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound > upperbound) throw new IllegalArgumentException();
+
+		int fromRank = fromInclusive ? countSmaller(lowerbound) : countSmallerOrEqual(lowerbound);
+		int toRank = toInclusive ? countSmallerOrEqual(upperbound) : countSmaller(upperbound);
+		if (toRank <= fromRank) return;
+
+		int removed = toRank-fromRank;
+		if ((long)removed*BinaryMath.log(size()) < size()) {
+			for (int i=0; i<removed; i++) {
+				poll(fromRank);
+			}
+		} else {
+			layout.removeRanks(fromRank, toRank);
+		}
+		assert layout.checkInvariants();
+	}
+
+	/////
+	//IMPLEMENTATION
+	/////
+
+	private long[] keys()
+	{
+		return (long[])layout.storage();
+	}
+
+	private long keyAtIndex(int index)
+	{
+		if (index < 0) throw new NoSuchElementException();
+		return get(index);
+	}
+
+	//returns the array index of the key, or -(insertion index)-1 if it is not in the set
+	private int find(long key)
+	{
+		return searchSection(sectionForKey(key), key);
+	}
+
+	//the number of keys strictly smaller than 'key'
+	private int countSmaller(long key)
+	{
+		int found = find(key);
+		if (found < 0) found = -found-1;
+		return layout.rankOfSlot(found);
+	}
+
+	private int countSmallerOrEqual(long key)
+	{
+		int found = find(key);
+		if (found < 0) return layout.rankOfSlot(-found-1);
+		return layout.rankOfSlot(found)+1;
+	}
+
+	//returns the last section whose first key is smaller or equal to the key, or section 0 if there is no such section
+	private int sectionForKey(long key)
+	{
+		long[] keys = keys();
+		int low = 0;
+		int high = layout.numberOfSections()-1;
+		while (low < high) {
+			int middle = (low+high+1) >>> 1;
+			if (keys[layout.arrayIndexForSection(middle)] <= key) {
+				low = middle;
+			} else {
+				high = middle-1;
+			}
+		}
+		return low;
+	}
+
+	//binary search among the used slots of the section
+	//returns the array index of the key, or -(insertion index)-1 if it is not in the section
+	private int searchSection(int section, long key)
+	{
+		long[] keys = keys();
+		int low = layout.arrayIndexForSection(section);
+		int high = layout.firstFreeIndexOfSection(section)-1;
+		while (low <= high) {
+			int middle = (low+high) >>> 1;
+			if (keys[middle] < key) {
+				low = middle+1;
+			} else if (keys[middle] > key) {
+				high = middle-1;
+			} else {
+				return middle;
+			}
+		}
+		return -low-1;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final PackedMemoryArray layout = new PackedMemoryArray(long.class);
+}
@@ -0,0 +1,530 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+
+/**
+ * A sorted set of arbitrary keys stored in a packed memory array: the keys are kept in order in one array with some free slots interspersed.
+ * Searches are binary searches over the first keys of the sections followed by a binary search inside a section,
+ * insertions and removals move O(log^2 N) keys amortized, and ordered scans touch contiguous memory.
+ * The density maintenance is that of COBTree, extended with removals and rank queries (see PackedMemoryArray).
+ *
+ * Like the trees of this package, null is not a valid key. The bounds of sizeOfRange and removeRange, and the arguments of floor, lower, ceiling and higher
+ * may be null, in which case they are interpreted as unbounded.
+ *
+ * @author Lukas Gianinazzi
+ *
+ * @param <T>
+ */
+public class CacheObliviousSortedSet<T> extends AbstractSet<T> implements RangeSet<T> {
+
+	/////
+	//CONSTRUCTION
+	/////
+
+	//if comparator is null, the natural ordering is used
+	public CacheObliviousSortedSet(Comparator<? super T> comparator)
+	{
+		if (comparator == null) {
+			internalComparator = naturalOrdering();
+		} else {
+			internalComparator = comparator;
+		}
+	}
+
+	public CacheObliviousSortedSet()
+	{
+		internalComparator = naturalOrdering();
+	}
+
+	private static <T> Comparator<T> naturalOrdering()
+	{
+		return new Comparator<T>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public int compare(T arg0, T arg1) {
+				return ((Comparable<T>)arg0).compareTo(arg1);
+			}
+		};
+	}
+
+	/////
+	//SET
+	/////
+
+	@Override
+	public int size()
+	{
+		return layout.size();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return layout.isEmpty();
+	}
+
+	@Override
+	public void clear()
+	{
+		layout.clear();
+	}
+
+	@Override
+	//returns false if arg0 == null
+	public boolean contains(Object arg0)
+	{
+		if (arg0 == null || isEmpty()) return false;
+		@SuppressWarnings("unchecked")
+		T value = (T)arg0;
+		return find(value) >= 0;
+	}
+
+	@Override
+	//throws if val == null
+	public boolean add(T val)
+	{
+		if (val == null) throw new IllegalArgumentException();
+
+		int section = sectionForKey(val);
+		int found = searchSection(section, val);
+		if (found >= 0) return false;
+
+		int index = -found-1;
+		layout.openSlot(section, index);
+		keys()[index] = val;
+		layout.didInsert(section);
+
+		assert layout.checkInvariants();
+		assert contains(val);
+		return true;
+	}
+
+	@Override
+	//returns false if val == null
+	public boolean remove(Object val)
+	{
+		if (val == null || isEmpty()) return false;
+		@SuppressWarnings("unchecked")
+		T value = (T)val;
+
+		int found = find(value);
+		if (found < 0) return false;
+		layout.removeSlot(layout.sectionForSlot(found), found);
+
+		assert layout.checkInvariants();
+		assert !contains(val);
+		return true;
+	}
+
+	@Override
+	//the keys are visited in ascending order, reading the array from left to right
+	public Iterator<T> iterator()
+	{
+		return new PackedMemoryArrayIterator(false);
+	}
+
+	/////
+	//RANGE SET
+	/////
+
+	/**
+	 * Returns the k'th-smallest element from the set
+	 */
+	@Override
+	public T get(int index)
+	{
+		if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+		return keyAt(layout.slotForRank(index));
+	}
+
+	/**
+	 * If 'value' is the k'th smallest element in the set, this method returns 'k'
+	 * @return the rank of 'value', or -1 if it is not in the set
+	 */
+	@Override
+	public int indexOf(T value)
+	{
+		if (value == null || isEmpty()) return -1;
+		int found = find(value);
+		if (found < 0) return -1;
+		return layout.rankOfSlot(found);
+	}
+
+	@Override
+	public void remove(int index)
+	{
+		poll(index);
+	}
+
+	/**
+	 * Retrieves and removes the k'th smallest element from the set
+	 * @throws IndexOutOfBoundsException
+	 */
+	@Override
+	public T poll(int index)
+	{
+		if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+		int slot = layout.slotForRank(index);
+		T value = keyAt(slot);
+		layout.removeSlot(layout.sectionForSlot(slot), slot);
+		assert layout.checkInvariants();
+		return value;
+	}
+
+	@Override
+	public int sizeOfRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && compare(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		int fromRank = lowerRankOfRange(lowerbound, fromInclusive);
+		int toRank = upperRankOfRange(upperbound, toInclusive);
+		return Math.max(0, toRank-fromRank);
+	}
+
+	@Override
+	public void removeRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && compare(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		int fromRank = lowerRankOfRange(lowerbound, fromInclusive);
+		int toRank = upperRankOfRange(upperbound, toInclusive);
+		if (toRank <= fromRank) return;
+
+		//a few keys are removed one by one, otherwise the whole array is rebuilt in linear time
+		int removed = toRank-fromRank;
+		if ((long)removed*BinaryMath.log(size()) < size()) {
+			for (int i=0; i<removed; i++) {
+				int slot = layout.slotForRank(fromRank);
+				layout.removeSlot(layout.sectionForSlot(slot), slot);
+			}
+		} else {
+			layout.removeRanks(fromRank, toRank);
+		}
+		assert layout.checkInvariants();
+	}
+
+	/////
+	//NAVIGABLE SET
+	/////
+
+	@Override
+	public Comparator<? super T> comparator()
+	{
+		return internalComparator;
+	}
+
+	@Override
+	public T first()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		return keyAt(layout.firstUsedSlot());
+	}
+
+	@Override
+	public T last()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		return keyAt(layout.lastUsedSlot());
+	}
+
+	@Override
+	public T floor(T e)
+	{
+		return keyAtOrNull(floorSlot(e, true));
+	}
+
+	@Override
+	public T lower(T e)
+	{
+		return keyAtOrNull(floorSlot(e, false));
+	}
+
+	@Override
+	public T ceiling(T e)
+	{
+		return keyAtOrNull(ceilingSlot(e, true));
+	}
+
+	@Override
+	public T higher(T e)
+	{
+		return keyAtOrNull(ceilingSlot(e, false));
+	}
+
+	@Override
+	public T pollFirst()
+	{
+		if (isEmpty()) return null;
+		return poll(0);
+	}
+
+	@Override
+	public T pollLast()
+	{
+		if (isEmpty()) return null;
+		return poll(size()-1);
+	}
+
+	//Non-destructive subset methods : returned sets are backed by this set so changes in one set are reflected in the other set
+
+	@Override
+	public NavigableSet<T> headSet(T toElement)
+	{
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public NavigableSet<T> headSet(T toElement, boolean inclusive)
+	{
+		return new SortedSubset<T>(this, null, toElement, false, inclusive);
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement)
+	{
+		return tailSet(fromElement, true);
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement, boolean inclusive)
+	{
+		return new SortedSubset<T>(this, fromElement, null, inclusive, false);
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, T toElement)
+	{
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive)
+	{
+		return new SortedSubset<T>(this, fromElement, toElement, fromInclusive, toInclusive);
+	}
+
+	@Override
+	public Iterator<T> descendingIterator()
+	{
+		return new PackedMemoryArrayIterator(true);
+	}
+
+	@Override
+	public Iterator<T> rangeIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending)
+	{
+		return new PackedMemoryArrayIterator(lowerbound, upperbound, fromInclusive, toInclusive, descending);
+	}
+
+	@Override
+	public NavigableSet<T> descendingSet()
+	{
+		return new DescendingSet<T>(this);
+	}
+
+	/////
+	//IMPLEMENTATION :: SEARCH
+	/////
+
+	//returns the array index of the value, or -(insertion index)-1 if it is not in the set
+	private int find(T value)
+	{
+		return searchSection(sectionForKey(value), value);
+	}
+
+	//returns the last section whose first key is smaller or equal to the value, or section 0 if there is no such section
+	//the keys belonging in between the first keys of two sections are stored in the left one of the two
+	private int sectionForKey(T value)
+	{
+		Object[] keys = keys();
+		int low = 0;
+		int high = layout.numberOfSections()-1;
+		while (low < high) {
+			int middle = (low+high+1) >>> 1;
+			if (compare(keyAt(keys, layout.arrayIndexForSection(middle)), value) <= 0) {
+				low = middle;
+			} else {
+				high = middle-1;
+			}
+		}
+		return low;
+	}
+
+	//binary search among the used slots of the section
+	//returns the array index of the value, or -(insertion index)-1 if it is not in the section
+	private int searchSection(int section, T value)
+	{
+		Object[] keys = keys();
+		int low = layout.arrayIndexForSection(section);
+		int high = layout.firstFreeIndexOfSection(section)-1;
+		while (low <= high) {
+			int middle = (low+high) >>> 1;
+			int comparison = compare(keyAt(keys, middle), value);
+			if (comparison < 0) {
+				low = middle+1;
+			} else if (comparison > 0) {
+				high = middle-1;
+			} else {
+				return middle;
+			}
+		}
+		return -low-1;
+	}
+
+	//returns the slot of the largest key smaller than (or equal to, if inclusive) the value, or -1 if there is none
+	//a null value is interpreted as +infinity
+	private int floorSlot(T value, boolean inclusive)
+	{
+		if (isEmpty()) return -1;
+		if (value == null) return layout.lastUsedSlot();
+
+		int found = find(value);
+		if (found >= 0) {
+			if (inclusive) return found;
+			return layout.previousUsedSlot(found);
+		}
+		return layout.previousUsedSlot(-found-1);
+	}
+
+	//returns the slot of the smallest key larger than (or equal to, if inclusive) the value, or -1 if there is none
+	//a null value is interpreted as -infinity
+	private int ceilingSlot(T value, boolean inclusive)
+	{
+		if (isEmpty()) return -1;
+		if (value == null) return layout.firstUsedSlot();
+
+		int section = sectionForKey(value);
+		int found = searchSection(section, value);
+		if (found >= 0) {
+			if (inclusive) return found;
+			return layout.nextUsedSlot(found);
+		}
+		int insertionIndex = -found-1;
+		if (insertionIndex < layout.firstFreeIndexOfSection(section)) return insertionIndex;
+		return layout.nextUsedSlot(insertionIndex-1);//the key is larger than all keys of its section
+	}
+
+	//the rank of the first key inside the range
+	private int lowerRankOfRange(T lowerbound, boolean fromInclusive)
+	{
+		int slot = ceilingSlot(lowerbound, fromInclusive);
+		if (slot < 0) return size();
+		return layout.rankOfSlot(slot);
+	}
+
+	//one more than the rank of the last key inside the range
+	private int upperRankOfRange(T upperbound, boolean toInclusive)
+	{
+		int slot = floorSlot(upperbound, toInclusive);
+		if (slot < 0) return 0;
+		return layout.rankOfSlot(slot)+1;
+	}
+
+	/////
+	//IMPLEMENTATION :: KEYS
+	/////
+
+	private Object[] keys()
+	{
+		return (Object[])layout.storage();
+	}
+
+	private T keyAt(int index)
+	{
+		return keyAt(keys(), index);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T keyAt(Object[] keys, int index)
+	{
+		return (T)keys[index];
+	}
+
+	private T keyAtOrNull(int index)
+	{
+		if (index < 0) return null;
+		return keyAt(index);
+	}
+
+	private int compare(T v1, T v2)
+	{
+		return internalComparator.compare(v1, v2);
+	}
+
+	////
+	//ITERATOR
+	////
+
+	//reads the used slots in array order
+	//removing through the iterator is supported: since a removal may move the keys, the iterator then finds its position again by searching for the last key returned
+	private class PackedMemoryArrayIterator implements Iterator<T> {
+
+		PackedMemoryArrayIterator(boolean descending)
+		{
+			this(null, null, true, true, descending);
+		}
+
+		//null bounds are unbounded
+		PackedMemoryArrayIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending)
+		{
+			this.descending = descending;
+			if (descending) {
+				endBound = lowerbound;
+				endInclusive = fromInclusive;
+				next = floorSlot(upperbound, toInclusive);
+			} else {
+				endBound = upperbound;
+				endInclusive = toInclusive;
+				next = ceilingSlot(lowerbound, fromInclusive);
+			}
+			next = noSlotIfAfterEnd(next);
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next >= 0;
+		}
+
+		@Override
+		public T next()
+		{
+			if (next < 0) throw new NoSuchElementException();
+			lastReturned = keyAt(next);
+			next = noSlotIfAfterEnd(descending ? layout.previousUsedSlot(next) : layout.nextUsedSlot(next));
+			return lastReturned;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null) throw new IllegalStateException();
+			CacheObliviousSortedSet.this.remove(lastReturned);
+			next = noSlotIfAfterEnd(descending ? floorSlot(lastReturned, false) : ceilingSlot(lastReturned, false));
+			lastReturned = null;
+		}
+
+		private int noSlotIfAfterEnd(int slot)
+		{
+			if (slot < 0 || endBound == null) return slot;
+			int comparison = compare(keyAt(slot), endBound);
+			if (descending) comparison = -comparison;
+			if (comparison > 0 || (comparison == 0 && !endInclusive)) return -1;
+			return slot;
+		}
+
+		private final boolean descending;
+		private final T endBound;
+		private final boolean endInclusive;
+		private int next;
+		private T lastReturned;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final PackedMemoryArray layout = new PackedMemoryArray(Object.class);
+	private final Comparator<? super T> internalComparator;
+}
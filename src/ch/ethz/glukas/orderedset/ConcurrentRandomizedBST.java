@@ -0,0 +1,569 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe RandomizedBST with optimistic reads.
+ *
+ * Writers modify the tree while holding the write lock of a StampedLock.
+ * Readers search the tree without locking and validate afterwards that no writer interfered. Only if one did, the search is repeated with the read lock.
+ * The searches never modify the tree (unlike the navigation methods of RandomizedBST, which split and join it),
+ * so uncontended reads are lock-free and do not write to shared memory.
+ *
+ * The rank queries get, indexOf and sizeOfRange are searches as well. Each method is atomic, compound actions are not.
+ * The iterators are weakly consistent: they navigate from the last returned value with higher (or lower), so they reflect some of the concurrent modifications
+ * and never throw a ConcurrentModificationException.
+ *
+ * Like the trees of this package, null is not a valid value. The bounds of sizeOfRange and removeRange, and the arguments of floor, lower, ceiling and higher
+ * may be null, in which case they are interpreted as unbounded.
+ *
+ * @author Lukas Gianinazzi
+ *
+ * @param <T>
+ */
+public class ConcurrentRandomizedBST<T> extends AbstractSet<T> implements RangeSet<T> {
+
+	/////
+	//CONSTRUCTION
+	/////
+
+	public ConcurrentRandomizedBST()
+	{
+		this(new RandomizedBST<T>());
+	}
+
+	public ConcurrentRandomizedBST(Comparator<? super T> comparator)
+	{
+		this(new RandomizedBST<T>(comparator));
+	}
+
+	//the tree must not be accessed directly afterwards
+	private ConcurrentRandomizedBST(RandomizedBST<T> tree)
+	{
+		this.tree = tree;
+		internalComparator = tree.comparator();
+	}
+
+	/////
+	//SET
+	/////
+
+	@Override
+	public int size()
+	{
+		return new Search<Integer>() {
+			Integer search(long stamp)
+			{
+				return tree.size(tree.getRoot());
+			}
+		}.run();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	@Override
+	public void clear()
+	{
+		long stamp = lock.writeLock();
+		try {
+			tree.clear();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	//returns false if arg0 == null
+	public boolean contains(Object arg0)
+	{
+		if (arg0 == null) return false;
+		@SuppressWarnings("unchecked")
+		final T value = (T)arg0;
+		return new Search<Boolean>() {
+			Boolean search(long stamp)
+			{
+				return findNode(value, stamp) != null;
+			}
+		}.run();
+	}
+
+	@Override
+	//throws if val == null
+	public boolean add(T val)
+	{
+		if (val == null) throw new IllegalArgumentException();
+		long stamp = lock.writeLock();
+		try {
+			return tree.add(val);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	//returns false if val == null
+	public boolean remove(Object val)
+	{
+		if (val == null) return false;
+		long stamp = lock.writeLock();
+		try {
+			return tree.remove(val);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	//the values are added atomically, large batches are merged with a parallel union (see RandomizedBST)
+	//the values are copied before the write lock is taken: iterating a view of this set takes the read lock, and the lock is not reentrant
+	public boolean addAll(Collection<? extends T> c)
+	{
+		List<T> values = new ArrayList<T>(c);
+		long stamp = lock.writeLock();
+		try {
+			return tree.addAll(values);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new WeaklyConsistentIterator(false);
+	}
+
+	/////
+	//RANGE SET
+	/////
+
+	/**
+	 * Returns the k'th-smallest element from the set
+	 * @throws IndexOutOfBoundsException
+	 */
+	@Override
+	public T get(final int index)
+	{
+		TreeNode<T> found = new Search<TreeNode<T>>() {
+			TreeNode<T> search(long stamp)
+			{
+				return nodeByRank(index, stamp);
+			}
+		}.run();
+		if (found == null) throw new IndexOutOfBoundsException();
+		return found.getValue();
+	}
+
+	/**
+	 * If 'value' is the k'th smallest element in the set, this method returns 'k', else -1
+	 */
+	@Override
+	public int indexOf(final T value)
+	{
+		if (value == null) return -1;
+		return new Search<Integer>() {
+			Integer search(long stamp)
+			{
+				return rank(value, stamp);
+			}
+		}.run();
+	}
+
+	@Override
+	public void remove(int index)
+	{
+		poll(index);
+	}
+
+	@Override
+	public T poll(int index)
+	{
+		long stamp = lock.writeLock();
+		try {
+			return tree.poll(index);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public int sizeOfRange(final T lowerbound, final T upperbound, final boolean fromInclusive, final boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && internalComparator.compare(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		return new Search<Integer>() {
+			Integer search(long stamp)
+			{
+				int upperRank = countSmaller(upperbound, toInclusive, false, stamp);
+				int lowerRank = countSmaller(lowerbound, !fromInclusive, true, stamp);
+				return Math.max(0, upperRank-lowerRank);
+			}
+		}.run();
+	}
+
+	@Override
+	public void removeRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		long stamp = lock.writeLock();
+		try {
+			tree.removeRange(lowerbound, upperbound, fromInclusive, toInclusive);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/////
+	//NAVIGABLE SET
+	/////
+
+	@Override
+	public Comparator<? super T> comparator()
+	{
+		return internalComparator;
+	}
+
+	@Override
+	public T first()
+	{
+		T found = ceiling(null);
+		if (found == null) throw new NoSuchElementException();
+		return found;
+	}
+
+	@Override
+	public T last()
+	{
+		T found = floor(null);
+		if (found == null) throw new NoSuchElementException();
+		return found;
+	}
+
+	@Override
+	public T floor(T e)
+	{
+		return navigate(e, false, true);
+	}
+
+	@Override
+	public T lower(T e)
+	{
+		return navigate(e, false, false);
+	}
+
+	@Override
+	public T ceiling(T e)
+	{
+		return navigate(e, true, true);
+	}
+
+	@Override
+	public T higher(T e)
+	{
+		return navigate(e, true, false);
+	}
+
+	@Override
+	public T pollFirst()
+	{
+		long stamp = lock.writeLock();
+		try {
+			return tree.pollFirst();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public T pollLast()
+	{
+		long stamp = lock.writeLock();
+		try {
+			return tree.pollLast();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//Non-destructive subset methods : returned sets are backed by this set so changes in one set are reflected in the other set
+
+	@Override
+	public NavigableSet<T> headSet(T toElement)
+	{
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public NavigableSet<T> headSet(T toElement, boolean inclusive)
+	{
+		return new SortedSubset<T>(this, null, toElement, false, inclusive);
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement)
+	{
+		return tailSet(fromElement, true);
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement, boolean inclusive)
+	{
+		return new SortedSubset<T>(this, fromElement, null, inclusive, false);
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, T toElement)
+	{
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive)
+	{
+		return new SortedSubset<T>(this, fromElement, toElement, fromInclusive, toInclusive);
+	}
+
+	@Override
+	public Iterator<T> descendingIterator()
+	{
+		return new WeaklyConsistentIterator(true);
+	}
+
+	@Override
+	public NavigableSet<T> descendingSet()
+	{
+		return new DescendingSet<T>(this);
+	}
+
+	@Override
+	public Iterator<T> rangeIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending)
+	{
+		return new WeaklyConsistentIterator(lowerbound, upperbound, fromInclusive, toInclusive, descending);
+	}
+
+	/////
+	//IMPLEMENTATION :: OPTIMISTIC READS
+	/////
+
+	//A search runs optimistically first. If a writer modified the tree in the meantime, the result is discarded and the search runs again with the read lock.
+	//The optimistic run may see the tree in an inconsistent state, so it must tolerate exceptions and stop by itself (see interfered).
+	private abstract class Search<R> {
+
+		//stamp is the stamp of the optimistic read, or 0 if the read lock is held
+		abstract R search(long stamp);
+
+		R run()
+		{
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0) {
+				try {
+					R result = search(stamp);
+					if (lock.validate(stamp)) return result;
+				} catch (RuntimeException e) {
+					//an exception of a consistent tree is thrown by the comparator, which the retry would throw again
+					if (lock.validate(stamp)) throw e;
+				}
+			}
+
+			stamp = lock.readLock();
+			try {
+				return search(0);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+	}
+
+	//returns true if the optimistic read with the stamp is invalid. Searches check this periodically,
+	//so they stop even if a concurrent rotation left a cycle of nodes behind (as seen by the reader)
+	private boolean interfered(long stamp, int steps)
+	{
+		return stamp != 0 && (steps & interferenceCheckPeriod) == 0 && !lock.validate(stamp);
+	}
+
+	private static final int interferenceCheckPeriod = 63;//one less than a power of two
+
+	/////
+	//IMPLEMENTATION :: SEARCH
+	/////
+
+	private TreeNode<T> findNode(T value, long stamp)
+	{
+		TreeNode<T> current = tree.getRoot();
+		int steps = 0;
+		while (current != null && !interfered(stamp, ++steps)) {
+			int comparison = internalComparator.compare(value, current.getValue());
+			if (comparison == 0) return current;
+			current = current.getChild(comparison);
+		}
+		return null;
+	}
+
+	//returns the greatest value smaller than e (or the smallest value greater than e if 'greater' is set), or e itself if it is contained and 'inclusive' is set
+	//if e is null, the search is unbounded
+	private T navigate(final T e, final boolean greater, final boolean inclusive)
+	{
+		TreeNode<T> found = new Search<TreeNode<T>>() {
+			TreeNode<T> search(long stamp)
+			{
+				TreeNode<T> candidate = null;
+				TreeNode<T> current = tree.getRoot();
+				int steps = 0;
+				while (current != null && !interfered(stamp, ++steps)) {
+					int comparison = e == null ? (greater ? -1 : +1) : internalComparator.compare(e, current.getValue());
+					if (comparison == 0 && inclusive) return current;
+					if (greater ? comparison < 0 : comparison > 0) {
+						candidate = current;
+						current = greater ? current.getLeftChild() : current.getRightChild();
+					} else {
+						current = greater ? current.getRightChild() : current.getLeftChild();
+					}
+				}
+				return candidate;
+			}
+		}.run();
+		if (found == null) return null;
+		return found.getValue();
+	}
+
+	//returns null if the index is out of bounds
+	private TreeNode<T> nodeByRank(int index, long stamp)
+	{
+		TreeNode<T> current = tree.getRoot();
+		int steps = 0;
+		while (current != null && !interfered(stamp, ++steps)) {
+			int leftSize = tree.size(current.getLeftChild());
+			if (index == leftSize) return current;
+			if (index < leftSize) {
+				current = current.getLeftChild();
+			} else {
+				index -= leftSize+1;
+				current = current.getRightChild();
+			}
+		}
+		return null;
+	}
+
+	//returns the rank of the value, or -1 if it is not contained
+	private int rank(T value, long stamp)
+	{
+		TreeNode<T> current = tree.getRoot();
+		int smaller = 0;
+		int steps = 0;
+		while (current != null && !interfered(stamp, ++steps)) {
+			int comparison = internalComparator.compare(value, current.getValue());
+			if (comparison == 0) return smaller+tree.size(current.getLeftChild());
+			if (comparison > 0) {
+				smaller += tree.size(current.getLeftChild())+1;
+			}
+			current = current.getChild(comparison);
+		}
+		return -1;
+	}
+
+	//the number of values smaller than 'bound', or smaller or equal if 'inclusive' is set
+	//a null bound is interpreted as -infinity if 'nullIsLower' is set, as +infinity otherwise
+	private int countSmaller(T bound, boolean inclusive, boolean nullIsLower, long stamp)
+	{
+		if (bound == null) return nullIsLower ? 0 : tree.size(tree.getRoot());
+
+		TreeNode<T> current = tree.getRoot();
+		int smaller = 0;
+		int steps = 0;
+		while (current != null && !interfered(stamp, ++steps)) {
+			int comparison = internalComparator.compare(bound, current.getValue());
+			if (comparison > 0 || (comparison == 0 && inclusive)) {
+				smaller += tree.size(current.getLeftChild())+1;
+				current = current.getRightChild();
+			} else {
+				current = current.getLeftChild();
+			}
+		}
+		return smaller;
+	}
+
+	////
+	//ITERATOR
+	////
+
+	private class WeaklyConsistentIterator implements Iterator<T> {
+
+		WeaklyConsistentIterator(boolean descending)
+		{
+			this(null, null, true, true, descending);
+		}
+
+		//null bounds are unbounded
+		WeaklyConsistentIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending)
+		{
+			this.descending = descending;
+			if (descending) {
+				endBound = lowerbound;
+				endInclusive = fromInclusive;
+				next = toInclusive ? floor(upperbound) : lower(upperbound);
+			} else {
+				endBound = upperbound;
+				endInclusive = toInclusive;
+				next = fromInclusive ? ceiling(lowerbound) : higher(lowerbound);
+			}
+			next = nullIfAfterEnd(next);
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		@Override
+		public T next()
+		{
+			if (next == null) throw new NoSuchElementException();
+			lastReturned = next;
+			next = nullIfAfterEnd(descending ? lower(lastReturned) : higher(lastReturned));
+			return lastReturned;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null) throw new IllegalStateException();
+			ConcurrentRandomizedBST.this.remove(lastReturned);
+			lastReturned = null;
+		}
+
+		//the values are read one by one from the changing set, so each is checked against the bound
+		private T nullIfAfterEnd(T value)
+		{
+			if (value == null || endBound == null) return value;
+			int comparison = internalComparator.compare(value, endBound);
+			if (descending) comparison = -comparison;
+			if (comparison > 0 || (comparison == 0 && !endInclusive)) return null;
+			return value;
+		}
+
+		private final boolean descending;
+		private final T endBound;
+		private final boolean endInclusive;
+		private T next;
+		private T lastReturned;
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final RandomizedBST<T> tree;
+	private final Comparator<? super T> internalComparator;
+	private final StampedLock lock = new StampedLock();
+}
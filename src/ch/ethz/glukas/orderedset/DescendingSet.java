@@ -118,7 +118,7 @@ public class DescendingSet<T> extends AbstractCollection<T> implements Navigable
 
 	@Override
 	public Iterator<T> iterator() {
-		return new NavigableSetIterator<T>(this, first(), last());
+		return implementingSet.descendingIterator();
 	}
 
 
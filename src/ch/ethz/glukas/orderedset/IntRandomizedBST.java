@@ -0,0 +1,667 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+
+/**
+ *
+ * A RandomizedBST specialized for int keys.
+ *
+ * The algorithms are the same as in RandomizedBST (Martinez and Roura), but the nodes are not objects:
+ * node i is represented by keys[i], left[i], right[i] and size[i] in parallel int arrays.
+ * Removed nodes are recycled through a free list (chained through the left array), so after warmup add and remove do not allocate.
+ * Keys are never boxed.
+ *
+ * Provides the operations of RangeSet for int keys. Since remove(int) removes a key here, removal by rank is done with poll(int index).
+ * The navigation methods floor, lower, ceiling and higher throw a NoSuchElementException if there is no such key,
+ * the corresponding ...Index methods return -1 instead.
+ *
+ * Expected add, contains and remove performance is O(logn) for all input distributions
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+public class IntRandomizedBST {
+
+	////
+	//CONSTRUCTION
+	////
+
+	public IntRandomizedBST()
+	{
+		this(initialCapacity);
+	}
+
+	public IntRandomizedBST(int capacity)
+	{
+		if (capacity < 1) throw new IllegalArgumentException();
+		//slot 0 is the null node: its size is always 0, which removes most null checks
+		keys = new int[capacity+1];
+		left = new int[capacity+1];
+		right = new int[capacity+1];
+		size = new int[capacity+1];
+		clear();
+	}
+
+	/////
+	//SET
+	/////
+
+	public int size()
+	{
+		return size[root];
+	}
+
+	public boolean isEmpty()
+	{
+		return root == nil;
+	}
+
+	public void clear()
+	{
+		root = nil;
+		freeList = nil;
+		nextUnusedSlot = 1;
+		assert checkInvariants();
+	}
+
+	public boolean contains(int key)
+	{
+		return findNode(key) != nil;
+	}
+
+	public boolean add(int key)
+	{
+		root = internalAdd(key, root);
+		assert checkInvariants();
+		assert contains(key);
+		return lastOperationDidModify;
+	}
+
+	public boolean remove(int key)
+	{
+		root = internalRemove(key, root);
+		assert checkInvariants();
+		assert !contains(key);
+		return lastOperationDidModify;
+	}
+
+	/**
+	 * Returns the keys in ascending order
+	 */
+	public int[] toArray()
+	{
+		int[] result = new int[size()];
+		copyInOrder(root, result, 0);
+		return result;
+	}
+
+	////
+	//ORDERING
+	////
+
+	public int first()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		int node = root;
+		while (left[node] != nil) {
+			node = left[node];
+		}
+		return keys[node];
+	}
+
+	public int last()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		int node = root;
+		while (right[node] != nil) {
+			node = right[node];
+		}
+		return keys[node];
+	}
+
+	public int pollFirst()
+	{
+		return poll(0);
+	}
+
+	public int pollLast()
+	{
+		return poll(size()-1);
+	}
+
+	////
+	//NAVIGATION
+	//single descents: since the nodes are not shared, there is no need to split and join as in RandomizedBST
+	////
+
+	public int floor(int key)
+	{
+		return keyAtIndex(floorIndex(key));
+	}
+
+	public int lower(int key)
+	{
+		return keyAtIndex(lowerIndex(key));
+	}
+
+	public int ceiling(int key)
+	{
+		return keyAtIndex(ceilingIndex(key));
+	}
+
+	public int higher(int key)
+	{
+		return keyAtIndex(higherIndex(key));
+	}
+
+	/**
+	 * Returns the rank of the greatest key smaller than or equal to 'key', or -1 if there is no such key
+	 */
+	public int floorIndex(int key)
+	{
+		return countSmallerOrEqual(key)-1;
+	}
+
+	/**
+	 * Returns the rank of the greatest key strictly smaller than 'key', or -1 if there is no such key
+	 */
+	public int lowerIndex(int key)
+	{
+		return countSmaller(key)-1;
+	}
+
+	/**
+	 * Returns the rank of the smallest key greater than or equal to 'key', or -1 if there is no such key
+	 */
+	public int ceilingIndex(int key)
+	{
+		int rank = countSmaller(key);
+		if (rank >= size()) return -1;
+		return rank;
+	}
+
+	/**
+	 * Returns the rank of the smallest key strictly greater than 'key', or -1 if there is no such key
+	 */
+	public int higherIndex(int key)
+	{
+		int rank = countSmallerOrEqual(key);
+		if (rank >= size()) return -1;
+		return rank;
+	}
+
+	/////
+	//RANGE SET
+	/////
+
+	/**
+	 * Returns the k'th-smallest key
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int get(int index)
+	{
+		if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+		return keys[nodeByRank(index)];
+	}
+
+	/**
+	 * If 'key' is the k'th smallest key in the set, this method returns 'k', else -1
+	 */
+	public int indexOf(int key)
+	{
+		int node = root;
+		int rank = 0;
+		while (node != nil) {
+			if (key < keys[node]) {
+				node = left[node];
+			} else if (key > keys[node]) {
+				rank += size[left[node]]+1;
+				node = right[node];
+			} else {
+				return rank+size[left[node]];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Retrieves and removes the k'th smallest key
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int poll(int index)
+	{
+		int key = get(index);
+		remove(key);
+		return key;
+	}
+
+	public int sizeOfRange(int lowerbound, int upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound > upperbound) throw new IllegalArgumentException();
+
+		int upperRank = toInclusive ? countSmallerOrEqual(upperbound) : countSmaller(upperbound);
+		int lowerRank = fromInclusive ? countSmaller(lowerbound) : countSmallerOrEqual(lowerbound);
+		return Math.max(0, upperRank-lowerRank);
+	}
+
+	//Algorithm: split out the range, then join the remaining parts
+	//O(log n) expected for the restructuring, plus O(k) to recycle the k removed node slots
+	public void removeRange(int lowerbound, int upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound > upperbound) throw new IllegalArgumentException();
+		if (lowerbound == upperbound && !(fromInclusive && toInclusive)) return;//the range is empty
+
+		int equal = split(lowerbound, root);
+		int smaller = splitLess;
+		int rest = splitGreater;
+		if (equal != nil && !fromInclusive) {
+			smaller = join(smaller, isolate(equal));
+		} else if (equal != nil) {
+			free(equal);
+		}
+
+		equal = split(upperbound, rest);
+		int range = splitLess;
+		int greater = splitGreater;
+		if (equal != nil && !toInclusive) {
+			greater = join(isolate(equal), greater);
+		} else if (equal != nil) {
+			free(equal);
+		}
+
+		freeSubtree(range);
+		root = join(smaller, greater);
+		assert checkInvariants();
+	}
+
+	///
+	//DESTRUCTIVE SUBSET METHODS : keys are removed from this set and added to a new set
+	//the nodes need to be copied into the arrays of the new set, so these take O(k) for k moved keys
+	///
+
+	public IntRandomizedBST cutHeadSet(int toElement, boolean inclusive)
+	{
+		//partition the tree around the key
+		int equal = split(toElement, root);
+		int smaller = splitLess;
+		root = splitGreater;
+		if (equal != nil) {
+			isolate(equal);
+			if (inclusive) {
+				smaller = join(smaller, equal);
+			} else {
+				root = join(equal, root);
+			}
+		}
+
+		IntRandomizedBST headSet = moveToNewSet(smaller);
+		assert checkInvariants();
+		return headSet;
+	}
+
+	public IntRandomizedBST cutTailSet(int fromElement, boolean inclusive)
+	{
+		//partition the tree around the key
+		int equal = split(fromElement, root);
+		root = splitLess;
+		int greater = splitGreater;
+		if (equal != nil) {
+			isolate(equal);
+			if (inclusive) {
+				greater = join(equal, greater);
+			} else {
+				root = join(root, equal);
+			}
+		}
+
+		IntRandomizedBST tailSet = moveToNewSet(greater);
+		assert checkInvariants();
+		return tailSet;
+	}
+
+	////
+	//IMPLEMENTATION :: MODIFY
+	////
+
+	private int internalAdd(int key, int r)
+	{
+		int n = size[r];
+		if (random.nextInt(n+1) == n) {//base case: insert here, restructure r
+			return insertAtRoot(key, r);
+		}
+
+		//the recursive call may grow the arrays: the child must be stored after the call returns
+		if (key < keys[r]) {
+			int child = internalAdd(key, left[r]);
+			left[r] = child;
+		} else if (key > keys[r]) {
+			int child = internalAdd(key, right[r]);
+			right[r] = child;
+		} else {//base case: already present
+			lastOperationDidModify = false;
+		}
+		updateSize(r);
+		return r;
+	}
+
+	//restructure the subtree rooted at 'r' so that key is the root of this subtree, return the new root
+	private int insertAtRoot(int key, int r)
+	{
+		int equal = split(key, r);
+		if (equal == nil) {
+			lastOperationDidModify = true;
+			equal = allocate(key);
+		} else {
+			lastOperationDidModify = false;
+		}
+		left[equal] = splitLess;
+		right[equal] = splitGreater;
+		updateSize(equal);
+		return equal;
+	}
+
+	private int internalRemove(int key, int r)
+	{
+		if (r == nil) {//base case 1 : key is not present
+			lastOperationDidModify = false;
+			return nil;
+		}
+
+		if (key < keys[r]) {
+			left[r] = internalRemove(key, left[r]);
+		} else if (key > keys[r]) {
+			right[r] = internalRemove(key, right[r]);
+		} else {//base case 2 : key is present : remove using join
+			lastOperationDidModify = true;
+			int joined = join(left[r], right[r]);
+			free(r);
+			return joined;
+		}
+		updateSize(r);
+		return r;
+	}
+
+	////
+	//IMPLEMENTATION :: SPLIT & JOIN
+	////
+
+	//partitions the subtree rooted at r around the key
+	//sets splitLess to the subtree with the smaller keys, splitGreater to the subtree with the greater keys
+	//returns the node with the key (whose children are stale) or nil
+	private int split(int key, int r)
+	{
+		if (r == nil) {//base case 1
+			splitLess = nil;
+			splitGreater = nil;
+			return nil;
+		}
+
+		int equal;
+		if (key < keys[r]) {
+			equal = split(key, left[r]);
+			left[r] = splitGreater;
+			updateSize(r);
+			splitGreater = r;
+		} else if (key > keys[r]) {
+			equal = split(key, right[r]);
+			right[r] = splitLess;
+			updateSize(r);
+			splitLess = r;
+		} else {//base case 2
+			equal = r;
+			splitLess = left[r];
+			splitGreater = right[r];
+		}
+		return equal;
+	}
+
+	//randomized join operation
+	//precondition: all keys in L are smaller than all keys in R
+	private int join(int L, int R)
+	{
+		int sizeL = size[L];
+		int total = sizeL+size[R];
+		if (total == 0) return nil;
+
+		if (random.nextInt(total) < sizeL) {
+			right[L] = join(right[L], R);
+			updateSize(L);
+			return L;
+		} else {
+			left[R] = join(L, left[R]);
+			updateSize(R);
+			return R;
+		}
+	}
+
+	////
+	//IMPLEMENTATION :: FIND
+	////
+
+	private int findNode(int key)
+	{
+		int node = root;
+		while (node != nil && keys[node] != key) {
+			node = key < keys[node] ? left[node] : right[node];
+		}
+		return node;
+	}
+
+	//index is 0 based: smallest key has index '0'
+	private int nodeByRank(int index)
+	{
+		int node = root;
+		while (true) {
+			int leftSize = size[left[node]];
+			if (index < leftSize) {
+				node = left[node];
+			} else if (index > leftSize) {
+				index -= leftSize+1;
+				node = right[node];
+			} else {
+				return node;
+			}
+		}
+	}
+
+	//number of keys strictly smaller than 'key'
+	private int countSmaller(int key)
+	{
+		int node = root;
+		int count = 0;
+		while (node != nil) {
+			if (keys[node] < key) {
+				count += size[left[node]]+1;
+				node = right[node];
+			} else {
+				node = left[node];
+			}
+		}
+		return count;
+	}
+
+	//number of keys smaller than or equal to 'key'
+	private int countSmallerOrEqual(int key)
+	{
+		int node = root;
+		int count = 0;
+		while (node != nil) {
+			if (keys[node] <= key) {
+				count += size[left[node]]+1;
+				node = right[node];
+			} else {
+				node = left[node];
+			}
+		}
+		return count;
+	}
+
+	private int keyAtIndex(int index)
+	{
+		if (index < 0) throw new NoSuchElementException();
+		return keys[nodeByRank(index)];
+	}
+
+	////
+	//IMPLEMENTATION :: NODE SLOTS
+	////
+
+	private int allocate(int key)
+	{
+		int node;
+		if (freeList != nil) {
+			node = freeList;
+			freeList = left[node];
+		} else {
+			if (nextUnusedSlot == keys.length) {
+				grow();
+			}
+			node = nextUnusedSlot;
+			nextUnusedSlot++;
+		}
+		keys[node] = key;
+		left[node] = nil;
+		right[node] = nil;
+		size[node] = 1;
+		return node;
+	}
+
+	private void free(int node)
+	{
+		assert node != nil;
+		size[node] = 0;
+		right[node] = nil;
+		left[node] = freeList;
+		freeList = node;
+	}
+
+	private void freeSubtree(int node)
+	{
+		if (node == nil) return;
+		freeSubtree(left[node]);
+		freeSubtree(right[node]);
+		free(node);
+	}
+
+	//turns the node into a tree of size 1 and returns it
+	private int isolate(int node)
+	{
+		left[node] = nil;
+		right[node] = nil;
+		size[node] = 1;
+		return node;
+	}
+
+	private void grow()
+	{
+		int newLength = 2*keys.length;
+		keys = Arrays.copyOf(keys, newLength);
+		left = Arrays.copyOf(left, newLength);
+		right = Arrays.copyOf(right, newLength);
+		size = Arrays.copyOf(size, newLength);
+	}
+
+	private void updateSize(int node)
+	{
+		size[node] = size[left[node]]+size[right[node]]+1;
+	}
+
+	//copies the subtree into a new set (preserving its shape), then releases its slots in this set
+	private IntRandomizedBST moveToNewSet(int subtree)
+	{
+		IntRandomizedBST result = new IntRandomizedBST(Math.max(1, size[subtree]));
+		result.root = result.copySubtree(this, subtree);
+		freeSubtree(subtree);
+		assert result.checkInvariants();
+		return result;
+	}
+
+	private int copySubtree(IntRandomizedBST source, int node)
+	{
+		if (node == nil) return nil;
+		int copy = allocate(source.keys[node]);
+		int leftCopy = copySubtree(source, source.left[node]);
+		int rightCopy = copySubtree(source, source.right[node]);
+		left[copy] = leftCopy;
+		right[copy] = rightCopy;
+		updateSize(copy);
+		return copy;
+	}
+
+	private int copyInOrder(int node, int[] target, int index)
+	{
+		if (node == nil) return index;
+		index = copyInOrder(left[node], target, index);
+		target[index] = keys[node];
+		return copyInOrder(right[node], target, index+1);
+	}
+
+	///
+	//INVARIANTS
+	///
+
+	protected boolean checkInvariants()
+	{
+		boolean result = size[nil] == 0 && left[nil] == nil && right[nil] == nil;
+		assert result;
+		result = result && isInOrder(root, Long.MIN_VALUE, Long.MAX_VALUE);
+		assert result;
+		result = result && subtreeSizesConsistent(root);
+		assert result;
+		result = result && size()+freeListLength() == nextUnusedSlot-1;
+		assert result;
+		return result;
+	}
+
+	//all keys in the subtree must be in the open interval (lowerbound, upperbound)
+	private boolean isInOrder(int node, long lowerbound, long upperbound)
+	{
+		if (node == nil) return true;
+		boolean result = keys[node] > lowerbound && keys[node] < upperbound;
+		assert result;
+		return result && isInOrder(left[node], lowerbound, keys[node]) && isInOrder(right[node], keys[node], upperbound);
+	}
+
+	private boolean subtreeSizesConsistent(int node)
+	{
+		if (node == nil) return true;
+		boolean result = size[node] == size[left[node]]+size[right[node]]+1;
+		assert result;
+		return result && subtreeSizesConsistent(left[node]) && subtreeSizesConsistent(right[node]);
+	}
+
+	private int freeListLength()
+	{
+		int length = 0;
+		for (int node = freeList; node != nil; node = left[node]) {
+			length++;
+		}
+		return length;
+	}
+
+	///
+	//INSTANCE VARIABLES
+	///
+
+	private static final int nil = 0;
+	private static final int initialCapacity = 16;
+
+	private int[] keys;
+	private int[] left;
+	private int[] right;
+	private int[] size;
+
+	private int root;
+	private int freeList;//free slots are chained through the left array
+	private int nextUnusedSlot;//slots at this index and above have never been used
+
+	//results of the last split (avoids Out<> objects)
+	private int splitLess;
+	private int splitGreater;
+	private boolean lastOperationDidModify;
+
+	private Random random = new Random(91);
+}
@@ -0,0 +1,78 @@
+package ch.ethz.glukas.orderedset;
+
+/**
+ * A RankedTreeNode that also knows its parent, so that the in-order neighbors of a node can be found without searching from the root.
+ * The parent is set whenever the node is attached as a child. A node that has been detached keeps its old parent until it is attached again, 
+ * so the parent is only meaningful for nodes that are reachable from the root.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+class LinkedRankedTreeNode<T> extends RankedTreeNode<T> {
+
+	public LinkedRankedTreeNode(T value)
+	{
+		super(value);
+	}
+	
+	public LinkedRankedTreeNode<T> getParent()
+	{
+		return parent;
+	}
+	
+	@Override
+	public void setLeftChild(TreeNode<T> node)
+	{
+		super.setLeftChild(node);
+		if (node != null) {
+			((LinkedRankedTreeNode<T>)node).parent = this;
+		}
+	}
+	
+	@Override
+	public void setRightChild(TreeNode<T> node)
+	{
+		super.setRightChild(node);
+		if (node != null) {
+			((LinkedRankedTreeNode<T>)node).parent = this;
+		}
+	}
+	
+	//returns the next node in order, or the first ancestor without a parent (the meta root of a tree) if this is the last node
+	//O(1) amortized over an in-order traversal
+	public LinkedRankedTreeNode<T> successor()
+	{
+		if (getRightChild() != null) {
+			TreeNode<T> node = getRightChild();
+			while (node.getLeftChild() != null) {
+				node = node.getLeftChild();
+			}
+			return (LinkedRankedTreeNode<T>)node;
+		}
+		LinkedRankedTreeNode<T> node = this;
+		while (node.parent != null && node.parent.getRightChild() == node) {
+			node = node.parent;
+		}
+		return node.parent;
+	}
+	
+	//returns the previous node in order, or null if this is the first node
+	//O(1) amortized over an in-order traversal
+	public LinkedRankedTreeNode<T> predecessor()
+	{
+		if (getLeftChild() != null) {
+			TreeNode<T> node = getLeftChild();
+			while (node.getRightChild() != null) {
+				node = node.getRightChild();
+			}
+			return (LinkedRankedTreeNode<T>)node;
+		}
+		LinkedRankedTreeNode<T> node = this;
+		while (node.parent != null && node.parent.getLeftChild() == node) {
+			node = node.parent;
+		}
+		return node.parent;
+	}
+	
+	private LinkedRankedTreeNode<T> parent;
+}
@@ -0,0 +1,463 @@
+package ch.ethz.glukas.orderedset;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+final class PackedMemoryArray {
+	//The layout and density maintenance of a packed memory array, independent of the key type
+	//this is the machinery of COBTree (sections, density thresholds, ensureDensity -> redistribute) generalized:
+	//-the keys are stored in an array of any component type ("storage"), which is only accessed through System.arraycopy here. The owner reads and writes the keys.
+	//-empty slots are not marked by a special key: since the keys of a section are left-aligned, usedSlotsPerSection determines which slots are in use
+	//-removals are supported: sections that get too sparse are redistributed using the lower density thresholds, the capacity shrinks when the whole array is too sparse
+	//-the number of keys per section is additionally kept in a Fenwick tree, so the rank of a slot (and the slot of a rank) can be found in O(log N)
+	//
+	//Implementation details (as in COBTree):
+	//the size of the array ("capacity") is a power of two.
+	//the section size is the next highest power of two of log2(capacity). therefore also the number of sections is a power of two.
+	//in each section, the keys are stored left-aligned.
+	//there is always at least one free slot in each section, and every section holds at least one key (except if the structure is empty)
+	//the windows considered for a redistribution form an implicit binary tree over the sections: level 'depth' are single sections, level 0 is the whole array
+
+
+	/////
+	//CONSTRUCTION
+	/////
+
+	//keyType is the component type of the storage, e.g. long.class or Object.class
+	PackedMemoryArray(Class<?> keyType)
+	{
+		this.keyType = keyType;
+		init(1);
+	}
+
+	//the array holding the keys. It is replaced when the capacity changes, so it should not be cached across modifications.
+	Object storage()
+	{
+		return storage;
+	}
+
+	private void init(int capacity)
+	{
+		//capacity should be a power of 2
+		assert BinaryMath.isPowerOfTwo(capacity);
+		storage = Array.newInstance(keyType, capacity);
+		this.capacity = capacity;
+		sectionSize = PackedMemoryDensity.sectionSizeForCapacity(capacity);
+		depth = BinaryMath.log(numberOfSections());
+		usedSlotsPerSection = new int[numberOfSections()];
+		rankTree = new int[numberOfSections()+1];
+	}
+
+	int size()
+	{
+		return count;
+	}
+
+	boolean isEmpty()
+	{
+		return count == 0;
+	}
+
+	void clear()
+	{
+		count = 0;
+		init(1);
+		assert checkInvariants();
+	}
+
+	/////
+	//IMPLEMENTATION :: SLOTS
+	//the owner locates keys with sectionForSlot, arrayIndexForSection and usedSlots and modify the structure with insertSlot and removeSlot
+	/////
+
+	//opens a free slot at 'index' by shifting the keys of the section at index and above one slot to the right
+	//precondition: index is within section and at most one past the last used slot of the section
+	//the caller stores the key at 'index' and then calls didInsert(section)
+	void openSlot(int section, int index)
+	{
+		int end = firstFreeIndexOfSection(section);
+		assert index >= arrayIndexForSection(section) && index <= end;
+		assert end < arrayIndexForSection(section)+sectionSize;//there is at least one free slot in the section
+		System.arraycopy(storage, index, storage, index+1, end-index);
+	}
+
+	//restores the density invariants after a key was placed in a slot opened by openSlot. The keys may move.
+	void didInsert(int section)
+	{
+		usedSlotsPerSection[section]++;
+		addToRankTree(section, 1);
+		count++;
+		ensureUpperDensity(section);
+	}
+
+	//removes the key at 'index' by shifting the keys of the section above it one slot to the left
+	//restores the density invariants. The keys may move.
+	void removeSlot(int section, int index)
+	{
+		int end = firstFreeIndexOfSection(section);
+		assert index >= arrayIndexForSection(section) && index < end;
+		System.arraycopy(storage, index+1, storage, index, end-index-1);
+		releaseSlots(storage, end-1, end);
+		usedSlotsPerSection[section]--;
+		addToRankTree(section, -1);
+		count--;
+		ensureLowerDensity(section);
+	}
+
+	//removes the keys with ranks in [fromRank, toRank) and rebuilds the array, in O(N)
+	void removeRanks(int fromRank, int toRank)
+	{
+		assert 0 <= fromRank && fromRank <= toRank && toRank <= count;
+		int numberOfKeys = crunch(0, numberOfSections());
+		System.arraycopy(storage, toRank, storage, fromRank, numberOfKeys-toRank);
+		numberOfKeys -= toRank-fromRank;
+		rebuild(storage, numberOfKeys, PackedMemoryDensity.capacityForCount(numberOfKeys));
+	}
+
+	int usedSlots(int section)
+	{
+		return usedSlotsPerSection[section];
+	}
+
+	int arrayIndexForSection(int section)
+	{
+		return section*sectionSize;
+	}
+
+	int firstFreeIndexOfSection(int section)
+	{
+		return arrayIndexForSection(section)+usedSlotsPerSection[section];
+	}
+
+	int sectionForSlot(int index)
+	{
+		return index/sectionSize;
+	}
+
+	int numberOfSections()
+	{
+		return capacity/sectionSize;
+	}
+
+	int capacity()
+	{
+		return capacity;
+	}
+
+	//returns the array index of the next used slot after 'index', or -1 if there is none
+	int nextUsedSlot(int index)
+	{
+		int section = sectionForSlot(index);
+		if (index+1 < firstFreeIndexOfSection(section)) return index+1;
+		section++;
+		if (section >= numberOfSections() || usedSlotsPerSection[section] == 0) return -1;
+		return arrayIndexForSection(section);
+	}
+
+	//returns the array index of the previous used slot before 'index', or -1 if there is none
+	int previousUsedSlot(int index)
+	{
+		int section = sectionForSlot(index);
+		if (index > arrayIndexForSection(section)) return index-1;
+		if (section == 0) return -1;
+		return firstFreeIndexOfSection(section-1)-1;
+	}
+
+	int firstUsedSlot()
+	{
+		if (isEmpty()) return -1;
+		return 0;
+	}
+
+	int lastUsedSlot()
+	{
+		if (isEmpty()) return -1;
+		return firstFreeIndexOfSection(numberOfSections()-1)-1;
+	}
+
+	////
+	//IMPLEMENTATION :: RANKS
+	////
+
+	//returns the number of keys stored in slots before 'index'
+	int rankOfSlot(int index)
+	{
+		int section = sectionForSlot(index);
+		return keysBeforeSection(section)+(index-arrayIndexForSection(section));
+	}
+
+	//returns the array index of the key with the given rank
+	//precondition: 0 <= rank < size()
+	int slotForRank(int rank)
+	{
+		assert rank >= 0 && rank < count;
+		//descend the Fenwick tree to the last section that has at most 'rank' keys before it
+		int section = 0;
+		int remaining = rank;
+		for (int step = Integer.highestOneBit(rankTree.length-1); step > 0; step >>= 1) {
+			int next = section+step;
+			if (next < rankTree.length && rankTree[next] <= remaining) {
+				section = next;
+				remaining -= rankTree[next];
+			}
+		}
+		//'section' now counts the sections that are entirely before the rank, which is the (0 based) index of the section containing it
+		assert remaining < usedSlotsPerSection[section];
+		return arrayIndexForSection(section)+remaining;
+	}
+
+	private int keysBeforeSection(int section)
+	{
+		int sum = 0;
+		for (int i = section; i > 0; i -= i & -i) {
+			sum += rankTree[i];
+		}
+		return sum;
+	}
+
+	//the Fenwick tree is 1 based: entry i covers the sections (i - lowestOneBit(i)), ... , i-1
+	private void addToRankTree(int section, int delta)
+	{
+		for (int i = section+1; i < rankTree.length; i += i & -i) {
+			rankTree[i] += delta;
+		}
+	}
+
+	private void setUsedSlots(int section, int used)
+	{
+		addToRankTree(section, used-usedSlotsPerSection[section]);
+		usedSlotsPerSection[section] = used;
+	}
+
+	/////
+	//IMPLEMENTATION :: DENSITY
+	/////
+
+	//this is the meat of the structure
+	private void ensureUpperDensity(int section)
+	{
+		if (usedSlotsPerSection[section] == sectionSize) {//section is all full - a redistribution is required
+
+			int level = depth;
+			//A) find the first level that is within capacity
+			while (level >= 0 && !isWithinUpperbound(level, section)) {
+				section = section/2;
+				level--;
+			}
+
+			//B) redistribute the keys among the sections, or double the capacity if the whole array is too dense
+			if (level < 0) {
+				resize(2*capacity);
+			} else {
+				redistribute(level, section);
+			}
+		}
+		assert isWithinCapacity();
+	}
+
+	private void ensureLowerDensity(int section)
+	{
+		if (count == 0) {
+			init(1);
+			return;
+		}
+		if (!PackedMemoryDensity.isSectionTooSparse(usedSlotsPerSection[section], sectionSize)) return;
+
+		int level = depth;
+		//A) find the first level that is dense enough
+		while (level >= 0 && !isWithinLowerbound(level, section)) {
+			section = section/2;
+			level--;
+		}
+
+		//B) redistribute the keys among the sections, or shrink the array if it is too sparse as a whole
+		if (level < 0) {
+			resize(PackedMemoryDensity.capacityForCount(count));
+		} else {
+			redistribute(level, section);
+		}
+		assert isWithinCapacity();
+	}
+
+	//'window' is the index of the window among the windows of the level
+	private boolean isWithinUpperbound(int level, int window)
+	{
+		int numberOfSections = numberOfSectionsForLevel(level);
+		double count = numberOfUsedSlotsForWindow(window*numberOfSections, numberOfSections);
+		if (count > numberOfSections*(sectionSize-1)) return false;//there needs to be at least one empty slot in each section
+
+		double density = count/capacityOfWindowAtLevel(level);
+		return density < PackedMemoryDensity.upperboundForLevel(level, depth);
+	}
+
+	private boolean isWithinLowerbound(int level, int window)
+	{
+		int numberOfSections = numberOfSectionsForLevel(level);
+		double count = numberOfUsedSlotsForWindow(window*numberOfSections, numberOfSections);
+		if (count < numberOfSections) return false;//there needs to be at least one key in each section
+
+		double density = count/capacityOfWindowAtLevel(level);
+		return density >= PackedMemoryDensity.lowerboundForLevel(level, depth);
+	}
+
+	private int numberOfUsedSlotsForWindow(int firstSection, int numberOfSections)
+	{
+		return keysBeforeSection(firstSection+numberOfSections)-keysBeforeSection(firstSection);
+	}
+
+	private int capacityOfWindowAtLevel(int level)
+	{
+		return capacity/BinaryMath.powerOfTwo(level);
+	}
+
+	private int numberOfSectionsForLevel(int level)
+	{
+		return capacityOfWindowAtLevel(level)/sectionSize;
+	}
+
+	//////
+	//Sequential restructuring algorithms
+	/////
+
+	//spreads the keys of a window evenly over its sections
+	private void redistribute(int level, int window)
+	{
+		int numberOfSections = numberOfSectionsForLevel(level);
+		int firstSection = window*numberOfSections;
+		int numberOfKeys = crunch(firstSection, numberOfSections);//shift all keys to the left of the window
+		distributeBlock(storage, arrayIndexForSection(firstSection), numberOfKeys, firstSection, numberOfSections);
+		assert usedSlotsConsistent();
+	}
+
+	//moves all the keys into a new array of the given capacity
+	private void resize(int newCapacity)
+	{
+		int numberOfKeys = crunch(0, numberOfSections());
+		assert numberOfKeys == count;
+		rebuild(storage, numberOfKeys, newCapacity);
+	}
+
+	//distributes the block of keys [0, numberOfKeys) of 'source' over a new array
+	private void rebuild(Object source, int numberOfKeys, int newCapacity)
+	{
+		init(newCapacity);
+		count = numberOfKeys;
+		if (numberOfKeys > 0) {
+			distributeBlock(source, 0, numberOfKeys, 0, numberOfSections());
+		}
+		assert usedSlotsConsistent();
+	}
+
+	//moves all the keys of the window to the left to form one coherent block
+	//returns the number of keys in the block. The slots after the block are stale, they are released by distributeBlock.
+	private int crunch(int firstSection, int numberOfSections)
+	{
+		int destinationIndex = firstFreeIndexOfSection(firstSection);
+		for (int section = firstSection+1; section < firstSection+numberOfSections; section++) {
+			int sectionIndex = arrayIndexForSection(section);
+			int used = usedSlotsPerSection[section];
+			if (sectionIndex != destinationIndex) {
+				System.arraycopy(storage, sectionIndex, storage, destinationIndex, used);
+			}
+			destinationIndex += used;
+		}
+		return destinationIndex-arrayIndexForSection(firstSection);
+	}
+
+	//distributes the block of keys [fromIndex, fromIndex+numberOfKeys) of 'source' evenly among the sections starting at 'firstSection'
+	//the distribution proceeds from right to left, so source may be the storage itself (the block never moves left)
+	private void distributeBlock(Object source, int fromIndex, int numberOfKeys, int firstSection, int numberOfSections)
+	{
+		assert numberOfKeys >= numberOfSections; //there must be enough keys
+		assert numberOfSections*(sectionSize-1) >= numberOfKeys; //there should not be too many keys
+
+		int keysPerSection = numberOfKeys/numberOfSections;
+		int leftover = numberOfKeys-(numberOfSections*keysPerSection);//the remaining keys are distributed evenly among the first few sections
+
+		int blockEnd = fromIndex+numberOfKeys;
+		for (int i=numberOfSections-1; i>=0; i--) {
+			int keys = i < leftover ? keysPerSection+1 : keysPerSection;
+			int section = firstSection+i;
+			int sectionIndex = arrayIndexForSection(section);
+			blockEnd -= keys;
+			assert source != storage || blockEnd <= sectionIndex;
+
+			System.arraycopy(source, blockEnd, storage, sectionIndex, keys);
+			releaseSlots(storage, sectionIndex+keys, sectionIndex+sectionSize);
+			setUsedSlots(section, keys);
+		}
+	}
+
+	//drops the references held by the slots [fromIndex, toIndex), so the garbage collector can reclaim removed keys
+	//slots are never read after being released, so primitive keys can stay as they are
+	private void releaseSlots(Object storage, int fromIndex, int toIndex)
+	{
+		if (storage instanceof Object[]) {
+			Arrays.fill((Object[])storage, fromIndex, toIndex, null);
+		}
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private final Class<?> keyType;
+	private Object storage;
+	private int[] usedSlotsPerSection;
+	private int[] rankTree;//Fenwick tree over usedSlotsPerSection
+	private int capacity;
+	private int sectionSize;
+	private int count = 0;
+	private int depth;
+
+	/////
+	//INVARIANTS & ASSERTIONS
+	////
+
+	boolean checkInvariants()
+	{
+		boolean result = BinaryMath.isPowerOfTwo(capacity);
+		assert result;
+		result = result && capacity == sectionSize*numberOfSections();
+		assert result;
+		result = result && depth == BinaryMath.log(numberOfSections());
+		assert result;
+		result = result && usedSlotsConsistent();
+		assert result;
+		result = result && isWithinCapacity();
+		assert result;
+		return result;
+	}
+
+	boolean usedSlotsConsistent()
+	{
+		int total = 0;
+		boolean result = true;
+		for (int i=0; i<numberOfSections(); i++) {
+			total += usedSlotsPerSection[i];
+			result = result && keysBeforeSection(i+1) == total;
+			assert result;
+		}
+		result = result && total == count;
+		assert result;
+		return result;
+	}
+
+	boolean isWithinCapacity()
+	{
+		boolean result = true;
+		for (int i=0; i<numberOfSections(); i++) {
+			result = result && usedSlotsPerSection[i] < sectionSize; //last slot of a section should always be empty
+			assert result;
+			result = result && (usedSlotsPerSection[i] > 0 || count == 0); //a section should never be empty, except if the structure itself is empty
+			assert result;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PackedMemoryArray" + Arrays.toString(usedSlotsPerSection);
+	}
+}
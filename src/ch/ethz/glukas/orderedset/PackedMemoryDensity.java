@@ -0,0 +1,63 @@
+package ch.ethz.glukas.orderedset;
+
+//The density thresholds and the layout of a packed memory array, shared by PackedMemoryArray, COBTree and CharMap
+//the windows of the array form a complete binary tree: the root (level 0) is the whole array, the leaves (level 'depth') are the sections
+//the thresholds are interpolated linearly between the root and the leaves, so the smaller windows may be denser and sparser
+public class PackedMemoryDensity {
+
+	////
+	//THRESHOLDS
+	////
+
+	//a window at 'level' needs to be redistributed (or the array grown) when its density reaches this bound
+	public static double upperboundForLevel(int level, int depth)
+	{
+		return rootDensityUpperbound + (level)*(leafDensityUpperbound-rootDensityUpperbound)/(depth+1);
+	}
+
+	//a window at 'level' needs to be redistributed (or the array shrunk) when its density falls below this bound
+	public static double lowerboundForLevel(int level, int depth)
+	{
+		return rootDensityLowerbound + (level)*(leafDensityLowerbound-rootDensityLowerbound)/(depth+1);
+	}
+
+	//true if a section with 'count' keys is empty or below the lower density bound of the leaves
+	public static boolean isSectionTooSparse(int count, int sectionSize)
+	{
+		return count == 0 || count < leafDensityLowerbound*sectionSize;
+	}
+
+	////
+	//LAYOUT
+	////
+
+	//the smallest capacity that holds 'count' keys at no more than the average of the root density bounds
+	public static int capacityForCount(int count)
+	{
+		if (count == 0) return 1;
+		int capacity = 2;
+		while (count > (rootDensityLowerbound+rootDensityUpperbound)/2*capacity || count > (capacity/sectionSizeForCapacity(capacity))*(sectionSizeForCapacity(capacity)-1)) {
+			capacity *= 2;
+		}
+		return capacity;
+	}
+
+	//section sizes are always powers of twos
+	public static int sectionSizeForCapacity(int capacity)
+	{
+		assert BinaryMath.isPowerOfTwo(capacity);
+
+		if (capacity <= 1) return 1;
+		if (capacity == 2) return 2;
+		return  BinaryMath.nextHighestPowerOfTwo(BinaryMath.log(capacity));
+	}
+
+	////
+	//CONSTANTS
+	////
+
+	private final static double rootDensityUpperbound = 0.8;
+	private final static double rootDensityLowerbound = 0.35;
+	private final static double leafDensityLowerbound = 0.1;
+	private final static double leafDensityUpperbound = 1.0;
+}
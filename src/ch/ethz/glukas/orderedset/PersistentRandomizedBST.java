@@ -0,0 +1,641 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A persistent Randomized Binary Search Tree: snapshot() returns an independent copy in O(1).
+ *
+ * The algorithms are those of RandomizedBST, but they never modify a node that is already part of the tree.
+ * Instead, every node on the path of a modification is copied (path copying), so all versions share their unmodified subtrees
+ * and a snapshot costs memory proportional to the modifications made since: O(log n) expected nodes per insertion or removal.
+ *
+ * A version is immutable, so any number of threads can search, iterate and rank-query it without locking.
+ * A set itself must be modified by one thread at a time. Readers of a set that is being modified see the latest complete version
+ * (the root is volatile), iterators traverse the version of the set at their creation.
+ *
+ * Like the trees of this package, null is not a valid value. The bounds of sizeOfRange and removeRange, and the arguments of floor, lower, ceiling and higher
+ * may be null, in which case they are interpreted as unbounded.
+ *
+ * @author Lukas Gianinazzi
+ *
+ * @param <T>
+ */
+public class PersistentRandomizedBST<T> extends AbstractSet<T> implements RangeSet<T> {
+
+	/////
+	//CONSTRUCTION
+	/////
+
+	//if comparator is null, the natural ordering is used
+	public PersistentRandomizedBST(Comparator<? super T> comparator)
+	{
+		this(comparator == null ? PersistentRandomizedBST.<T>naturalOrdering() : comparator, null, new Random(91));
+	}
+
+	public PersistentRandomizedBST()
+	{
+		this(null);
+	}
+
+	private static <T> Comparator<T> naturalOrdering()
+	{
+		return new Comparator<T>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public int compare(T arg0, T arg1) {
+				return ((Comparable<T>)arg0).compareTo(arg1);
+			}
+		};
+	}
+
+	private PersistentRandomizedBST(Comparator<? super T> comparator, RankedTreeNode<T> root, Random random)
+	{
+		internalComparator = comparator;
+		this.root = root;
+		this.random = random;
+	}
+
+	/**
+	 * Returns a set with the values of this set in O(1). Both sets can be modified independently afterwards.
+	 */
+	public PersistentRandomizedBST<T> snapshot()
+	{
+		return new PersistentRandomizedBST<T>(internalComparator, root, new Random(random.nextLong()));
+	}
+
+	/////
+	//SET
+	/////
+
+	@Override
+	public int size()
+	{
+		return size(root);
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return root == null;
+	}
+
+	@Override
+	public void clear()
+	{
+		root = null;
+	}
+
+	@Override
+	//returns false if arg0 == null
+	public boolean contains(Object arg0)
+	{
+		if (arg0 == null) return false;
+		@SuppressWarnings("unchecked")
+		T value = (T)arg0;
+		return find(root, value) != null;
+	}
+
+	@Override
+	//throws if val == null
+	public boolean add(T val)
+	{
+		if (val == null) throw new IllegalArgumentException();
+		RankedTreeNode<T> version = root;
+		if (find(version, val) != null) return false;
+
+		root = insert(version, val);
+		assert checkInvariants();
+		return true;
+	}
+
+	@Override
+	//returns false if val == null
+	public boolean remove(Object val)
+	{
+		if (val == null) return false;
+		@SuppressWarnings("unchecked")
+		T value = (T)val;
+		RankedTreeNode<T> version = root;
+		if (find(version, value) == null) return false;
+
+		root = remove(version, value);
+		assert checkInvariants();
+		return true;
+	}
+
+	@Override
+	//iterates over the version of the set at the creation of the iterator
+	public Iterator<T> iterator()
+	{
+		return new VersionIterator(root, false);
+	}
+
+	/////
+	//RANGE SET
+	/////
+
+	/**
+	 * Returns the k'th-smallest element from the set
+	 * @throws IndexOutOfBoundsException
+	 */
+	@Override
+	public T get(int index)
+	{
+		RankedTreeNode<T> current = root;
+		if (index < 0 || index >= size(current)) throw new IndexOutOfBoundsException();
+		while (true) {
+			int leftSize = size(current.getLeftChild());
+			if (index == leftSize) return current.getValue();
+			if (index < leftSize) {
+				current = left(current);
+			} else {
+				index -= leftSize+1;
+				current = right(current);
+			}
+		}
+	}
+
+	/**
+	 * If 'value' is the k'th smallest element in the set, this method returns 'k', else -1
+	 */
+	@Override
+	public int indexOf(T value)
+	{
+		if (value == null) return -1;
+		RankedTreeNode<T> current = root;
+		int smaller = 0;
+		while (current != null) {
+			int comparison = internalComparator.compare(value, current.getValue());
+			if (comparison == 0) return smaller+size(current.getLeftChild());
+			if (comparison > 0) {
+				smaller += size(current.getLeftChild())+1;
+			}
+			current = child(current, comparison);
+		}
+		return -1;
+	}
+
+	@Override
+	public void remove(int index)
+	{
+		poll(index);
+	}
+
+	@Override
+	public T poll(int index)
+	{
+		T value = get(index);
+		remove(value);
+		return value;
+	}
+
+	@Override
+	public int sizeOfRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && internalComparator.compare(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		RankedTreeNode<T> version = root;
+		int upperRank = upperbound == null ? size(version) : countSmaller(version, upperbound, toInclusive);
+		int lowerRank = lowerbound == null ? 0 : countSmaller(version, lowerbound, !fromInclusive);
+		return Math.max(0, upperRank-lowerRank);
+	}
+
+	@Override
+	//Algorithm: split off the values below and above the range, then join them
+	public void removeRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && internalComparator.compare(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+
+		Out<RankedTreeNode<T>> less = new Out<RankedTreeNode<T>>();
+		Out<RankedTreeNode<T>> greater = new Out<RankedTreeNode<T>>();
+		RankedTreeNode<T> below = null;
+		RankedTreeNode<T> rest = root;
+		if (lowerbound != null) {
+			split(rest, lowerbound, !fromInclusive, less, greater);
+			below = less.get();
+			rest = greater.get();
+		}
+		RankedTreeNode<T> above = null;
+		if (upperbound != null) {
+			split(rest, upperbound, toInclusive, less, greater);
+			above = greater.get();
+		}
+		root = join(below, above);
+		assert checkInvariants();
+	}
+
+	/////
+	//NAVIGABLE SET
+	/////
+
+	@Override
+	public Comparator<? super T> comparator()
+	{
+		return internalComparator;
+	}
+
+	@Override
+	public T first()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		return ceiling(null);
+	}
+
+	@Override
+	public T last()
+	{
+		if (isEmpty()) throw new NoSuchElementException();
+		return floor(null);
+	}
+
+	@Override
+	public T floor(T e)
+	{
+		return navigate(e, false, true);
+	}
+
+	@Override
+	public T lower(T e)
+	{
+		return navigate(e, false, false);
+	}
+
+	@Override
+	public T ceiling(T e)
+	{
+		return navigate(e, true, true);
+	}
+
+	@Override
+	public T higher(T e)
+	{
+		return navigate(e, true, false);
+	}
+
+	@Override
+	public T pollFirst()
+	{
+		if (isEmpty()) return null;
+		return poll(0);
+	}
+
+	@Override
+	public T pollLast()
+	{
+		if (isEmpty()) return null;
+		return poll(size()-1);
+	}
+
+	//Non-destructive subset methods : returned sets are backed by this set so changes in one set are reflected in the other set
+
+	@Override
+	public NavigableSet<T> headSet(T toElement)
+	{
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public NavigableSet<T> headSet(T toElement, boolean inclusive)
+	{
+		return new SortedSubset<T>(this, null, toElement, false, inclusive);
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement)
+	{
+		return tailSet(fromElement, true);
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement, boolean inclusive)
+	{
+		return new SortedSubset<T>(this, fromElement, null, inclusive, false);
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, T toElement)
+	{
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive)
+	{
+		return new SortedSubset<T>(this, fromElement, toElement, fromInclusive, toInclusive);
+	}
+
+	@Override
+	public Iterator<T> descendingIterator()
+	{
+		return new VersionIterator(root, true);
+	}
+
+	@Override
+	public NavigableSet<T> descendingSet()
+	{
+		return new DescendingSet<T>(this);
+	}
+
+	@Override
+	public Iterator<T> rangeIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending)
+	{
+		return new VersionIterator(root, lowerbound, upperbound, fromInclusive, toInclusive, descending);
+	}
+
+	/////
+	//IMPLEMENTATION :: SEARCH
+	//the searches read the root once, so they see one version even if the set is modified concurrently
+	/////
+
+	private RankedTreeNode<T> find(RankedTreeNode<T> current, T value)
+	{
+		while (current != null) {
+			int comparison = internalComparator.compare(value, current.getValue());
+			if (comparison == 0) return current;
+			current = child(current, comparison);
+		}
+		return null;
+	}
+
+	//returns the greatest value smaller than e (or the smallest value greater than e if 'greater' is set), or e itself if it is contained and 'inclusive' is set
+	//if e is null, the search is unbounded
+	private T navigate(T e, boolean greater, boolean inclusive)
+	{
+		RankedTreeNode<T> candidate = null;
+		RankedTreeNode<T> current = root;
+		while (current != null) {
+			int comparison = e == null ? (greater ? -1 : +1) : internalComparator.compare(e, current.getValue());
+			if (comparison == 0 && inclusive) return current.getValue();
+			if (greater ? comparison < 0 : comparison > 0) {
+				candidate = current;
+				current = greater ? left(current) : right(current);
+			} else {
+				current = greater ? right(current) : left(current);
+			}
+		}
+		if (candidate == null) return null;
+		return candidate.getValue();
+	}
+
+	//the number of values smaller than 'bound', or smaller or equal if 'inclusive' is set
+	private int countSmaller(RankedTreeNode<T> current, T bound, boolean inclusive)
+	{
+		int smaller = 0;
+		while (current != null) {
+			int comparison = internalComparator.compare(bound, current.getValue());
+			if (comparison > 0 || (comparison == 0 && inclusive)) {
+				smaller += size(current.getLeftChild())+1;
+				current = right(current);
+			} else {
+				current = left(current);
+			}
+		}
+		return smaller;
+	}
+
+	/////
+	//IMPLEMENTATION :: PATH COPYING
+	//these methods return the root of a new version and leave the nodes of their arguments unchanged
+	/////
+
+	//returns a copy of the node with the given children
+	private RankedTreeNode<T> copy(RankedTreeNode<T> node, RankedTreeNode<T> leftChild, RankedTreeNode<T> rightChild)
+	{
+		RankedTreeNode<T> result = new RankedTreeNode<T>(node.getValue());
+		result.setLeftChild(leftChild);
+		result.setRightChild(rightChild);
+		return result;
+	}
+
+	//precondition: the value is not in the tree
+	//the value becomes the root of a subtree of size s with probability 1/(s+1), as in RandomizedBST
+	private RankedTreeNode<T> insert(RankedTreeNode<T> r, T value)
+	{
+		if (r == null || random.nextInt(size(r)+1) == 0) {
+			Out<RankedTreeNode<T>> less = new Out<RankedTreeNode<T>>();
+			Out<RankedTreeNode<T>> greater = new Out<RankedTreeNode<T>>();
+			split(r, value, false, less, greater);
+			RankedTreeNode<T> result = new RankedTreeNode<T>(value);
+			result.setLeftChild(less.get());
+			result.setRightChild(greater.get());
+			return result;
+		}
+
+		if (internalComparator.compare(value, r.getValue()) < 0) {
+			return copy(r, insert(left(r), value), right(r));
+		} else {
+			return copy(r, left(r), insert(right(r), value));
+		}
+	}
+
+	//precondition: the value is in the tree
+	private RankedTreeNode<T> remove(RankedTreeNode<T> r, T value)
+	{
+		int comparison = internalComparator.compare(value, r.getValue());
+		if (comparison < 0) return copy(r, remove(left(r), value), right(r));
+		if (comparison > 0) return copy(r, left(r), remove(right(r), value));
+		return join(left(r), right(r));
+	}
+
+	//'less' is set to the values smaller than the bound (smaller or equal if 'inclusive' is set), 'greater' to the others
+	//only the nodes on the search path of the bound are copied
+	private void split(RankedTreeNode<T> r, T bound, boolean inclusive, Out<RankedTreeNode<T>> less, Out<RankedTreeNode<T>> greater)
+	{
+		if (r == null) {
+			less.set(null);
+			greater.set(null);
+			return;
+		}
+
+		int comparison = internalComparator.compare(r.getValue(), bound);
+		if (comparison < 0 || (comparison == 0 && inclusive)) {
+			split(right(r), bound, inclusive, less, greater);
+			less.set(copy(r, left(r), less.get()));
+		} else {
+			split(left(r), bound, inclusive, less, greater);
+			greater.set(copy(r, greater.get(), right(r)));
+		}
+	}
+
+	//randomized join operation: all values of L are smaller than all values of R
+	private RankedTreeNode<T> join(RankedTreeNode<T> L, RankedTreeNode<T> R)
+	{
+		int sizeL = size(L);
+		int total = sizeL+size(R);
+		if (total == 0) return null;
+
+		if (random.nextInt(total) < sizeL) {
+			return copy(L, left(L), join(right(L), R));
+		} else {
+			return copy(R, join(L, left(R)), right(R));
+		}
+	}
+
+	/////
+	//IMPLEMENTATION :: HELPER METHODS
+	/////
+
+	private int size(TreeNode<T> node)
+	{
+		if (node == null) return 0;
+		return ((RankedTreeNode<T>)node).size();
+	}
+
+	private RankedTreeNode<T> left(RankedTreeNode<T> node)
+	{
+		return (RankedTreeNode<T>)node.getLeftChild();
+	}
+
+	private RankedTreeNode<T> right(RankedTreeNode<T> node)
+	{
+		return (RankedTreeNode<T>)node.getRightChild();
+	}
+
+	private RankedTreeNode<T> child(RankedTreeNode<T> node, int parity)
+	{
+		return (RankedTreeNode<T>)node.getChild(parity);
+	}
+
+	//the root of the current version, for tests
+	RankedTreeNode<T> getRoot()
+	{
+		return root;
+	}
+
+	////
+	//ITERATOR
+	////
+
+	//in-order traversal of one version with an explicit stack of the nodes whose values are still to be returned
+	private class VersionIterator implements Iterator<T> {
+
+		VersionIterator(RankedTreeNode<T> version, boolean descending)
+		{
+			this.descending = descending;
+			pushPath(version);
+		}
+
+		//iterates over the values of the version between the bounds, null bounds are unbounded
+		//the paths to the first and to the last value are found by one descent each, so no comparisons are needed afterwards
+		VersionIterator(RankedTreeNode<T> version, T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending)
+		{
+			this.descending = descending;
+			T start = descending ? upperbound : lowerbound;
+			T end = descending ? lowerbound : upperbound;
+			boolean startInclusive = descending ? toInclusive : fromInclusive;
+			boolean endInclusive = descending ? fromInclusive : toInclusive;
+
+			RankedTreeNode<T> node = version;
+			while (node != null) {
+				if (start != null && isBefore(node.getValue(), start, startInclusive)) {
+					node = descending ? left(node) : right(node);
+				} else {
+					stack.add(node);
+					node = descending ? right(node) : left(node);
+				}
+			}
+			node = version;
+			while (node != null) {
+				if (end != null && isBefore(end, node.getValue(), endInclusive)) {
+					node = descending ? right(node) : left(node);
+				} else {
+					last = node;
+					node = descending ? left(node) : right(node);
+				}
+			}
+			if (last == null || (end != null && !stack.isEmpty() && isBefore(end, stack.get(stack.size()-1).getValue(), endInclusive))) {
+				stack.clear();//empty range
+			}
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public T next()
+		{
+			if (stack.isEmpty()) throw new NoSuchElementException();
+			RankedTreeNode<T> node = stack.remove(stack.size()-1);
+			if (node == last) {
+				stack.clear();
+			} else {
+				pushPath(descending ? left(node) : right(node));
+			}
+			lastReturned = node.getValue();
+			return lastReturned;
+		}
+
+		@Override
+		//removes the value from the set, the iteration continues over the version at the creation of the iterator
+		public void remove()
+		{
+			if (lastReturned == null) throw new IllegalStateException();
+			PersistentRandomizedBST.this.remove(lastReturned);
+			lastReturned = null;
+		}
+
+		private void pushPath(RankedTreeNode<T> node)
+		{
+			while (node != null) {
+				stack.add(node);
+				node = descending ? right(node) : left(node);
+			}
+		}
+
+		//true if the value comes before the bound in the order of the iteration (or is equal to an exclusive bound)
+		private boolean isBefore(T value, T bound, boolean inclusive)
+		{
+			int comparison = internalComparator.compare(value, bound);
+			if (descending) comparison = -comparison;
+			return comparison < 0 || (comparison == 0 && !inclusive);
+		}
+
+		private final boolean descending;
+		private final ArrayList<RankedTreeNode<T>> stack = new ArrayList<RankedTreeNode<T>>();
+		private RankedTreeNode<T> last;//the iteration ends after this node, null if the iteration is unbounded
+		private T lastReturned;
+	}
+
+	////
+	//INVARIANTS & ASSERTIONS
+	////
+
+	boolean checkInvariants()
+	{
+		boolean result = isInOrder(root, null, null) && sizesAreConsistent(root);
+		assert result;
+		return result;
+	}
+
+	//the values of the subtree must lie strictly between the bounds, null bounds are unbounded
+	private boolean isInOrder(RankedTreeNode<T> node, T lowerbound, T upperbound)
+	{
+		if (node == null) return true;
+		if (lowerbound != null && internalComparator.compare(node.getValue(), lowerbound) <= 0) return false;
+		if (upperbound != null && internalComparator.compare(node.getValue(), upperbound) >= 0) return false;
+		return isInOrder(left(node), lowerbound, node.getValue()) && isInOrder(right(node), node.getValue(), upperbound);
+	}
+
+	private boolean sizesAreConsistent(RankedTreeNode<T> node)
+	{
+		if (node == null) return true;
+		boolean result = node.size() == size(node.getLeftChild())+size(node.getRightChild())+1;
+		return result && sizesAreConsistent(left(node)) && sizesAreConsistent(right(node));
+	}
+
+	////
+	//INSTANCE VARIABLES
+	////
+
+	private volatile RankedTreeNode<T> root;
+	private final Random random;
+	private final Comparator<? super T> internalComparator;
+}
@@ -1,5 +1,7 @@
 package ch.ethz.glukas.orderedset;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.NavigableSet;
@@ -24,21 +26,72 @@ import java.util.SortedSet;
  */
 public class RandomizedBST<T> extends RankedTree<T>{
 
+	////
+	//CONSTRUCTION
+	//the bulk loading constructor and factories build the tree in linear time
+	//the shape of the tree is drawn from the same distribution as if the values had been added one by one, so the expected bounds are unaffected
+	//the input must be in strictly ascending order, else an IllegalArgumentException is thrown
+	////
+	
+	public RandomizedBST()
+	{
+		super();
+	}
+	
+	//if comparator is null, the natural ordering is used
+	public RandomizedBST(Comparator<? super T> comparator)
+	{
+		super(comparator);
+	}
+	
+	/**
+	 * Creates a tree with the values and the ordering of the sorted set, in O(n)
+	 */
+	public RandomizedBST(SortedSet<T> sorted)
+	{
+		super(sorted.comparator());
+		loadSorted(sorted.iterator(), sorted.size());
+	}
+	
+	/**
+	 * Creates a tree with the values of the array, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> RandomizedBST<T> fromSorted(T[] sorted, Comparator<? super T> comparator)
+	{
+		RandomizedBST<T> tree = new RandomizedBST<T>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
+	/**
+	 * Creates a tree with the values returned by the iterator, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> RandomizedBST<T> fromSorted(Iterator<? extends T> sorted, Comparator<? super T> comparator)
+	{
+		RandomizedBST<T> tree = new RandomizedBST<T>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
 	///
 	//COLLECTION
 	///
 	
 	protected boolean internalAdd(T value)
 	{
-		setRoot(internalAdd(value, getRoot(), lastOperationDidModify));
-		return lastOperationDidModify.get();
+		setRoot(internalAdd(value, getRoot()));
+		return lastOperationDidModify;
 	}
 	
 	
 	protected boolean internalRemove(T value)
 	{
-		setRoot(internalRemove(value, getRoot(), lastOperationDidModify));
-		return lastOperationDidModify.get();
+		setRoot(internalRemove(value, getRoot()));
+		return lastOperationDidModify;
 	}
 
 	////
@@ -49,7 +102,7 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	//NAVIGATE:
 	//the algorithms are based on split and join operations
 	//this maintains randomness and gives them O(log n) expected performance
-	//Discussion: other methods such as threading or parent pointers might increase the performance, but increase complexity and overhead for other methods
+	//if the value is present, lower and higher step from its node to the neighbor through the parent links instead
 	
 	@Override
 	public T floor(T e) {
@@ -60,13 +113,9 @@ public class RandomizedBST<T> extends RankedTree<T>{
 
 	@Override
 	public T lower(T e) {
-		if (contains(e)) {
-			int index = indexOf(e);
-			if (!isEmpty() && index > 0) {
-				return get(index-1);
-			} else {
-				return null;
-			}
+		TreeNode<T> node = e == null ? null : findNodeWithValueStartingFrom(getRoot(), e);
+		if (node != null) {
+			return valueOrNull(previousNode(node));
 		} else {
 			return internalLower(e);
 		}
@@ -81,13 +130,9 @@ public class RandomizedBST<T> extends RankedTree<T>{
 
 	@Override
 	public T higher(T e) {
-		if (contains(e)) {
-			int index = indexOf(e);
-			if (index < size()-1) {
-				return get(index+1);
-			} else {
-				return null;
-			}
+		TreeNode<T> node = e == null ? null : findNodeWithValueStartingFrom(getRoot(), e);
+		if (node != null) {
+			return valueOrNull(nextNode(node));
 		} else {
 			return internalHigher(e);
 		}
@@ -95,16 +140,18 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	
 	private T internalLower(T e)
 	{
-		Out<T> smallerValue = new Out<T>();
-		getNeighborhood(e, smallerValue, null);
-		return smallerValue.get();
+		TreeNode<T> equal = split(e, getRoot());
+		T result = valueOrNull(splitLess == null ? null : findLast(splitLess));
+		restoreAfterSplit(equal);
+		return result;
 	}
 	
 	private T internalHigher(T e)
 	{
-		Out<T> greaterValue = new Out<T>();
-		getNeighborhood(e, null, greaterValue);
-		return greaterValue.get();
+		TreeNode<T> equal = split(e, getRoot());
+		T result = valueOrNull(splitGreater == null ? null : findFirst(splitGreater));
+		restoreAfterSplit(equal);
+		return result;
 	}
 	
 	
@@ -116,16 +163,15 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	public RandomizedBST<T> cutHeadSet(T toElement, boolean inclusive)
 	{
 		//partition the tree around the value
-		Out<TreeNode<T>> smaller = new Out<TreeNode<T>>();
-		Out<TreeNode<T>> greater = new Out<TreeNode<T>>();
-		TreeNode<T> equal = split(toElement, getRoot(), smaller, greater);
+		TreeNode<T> equal = split(toElement, getRoot());
 		
 		//create the new set
 		RandomizedBST<T> headSet = new RandomizedBST<T>();
 		
 		//assign the partitions of the split
-		headSet.setRoot(smaller.get());
-		setRoot(greater.get());
+		headSet.setRoot(splitLess);
+		setRoot(splitGreater);
+		detachments++;
 		if (equal != null) {
 			if (inclusive) {
 				headSet.add(equal.getValue());
@@ -142,16 +188,15 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	public RandomizedBST<T> cutTailSet(T fromElement, boolean inclusive)
 	{
 		//partition the tree around the value
-		Out<TreeNode<T>> smaller = new Out<TreeNode<T>>();
-		Out<TreeNode<T>> greater = new Out<TreeNode<T>>();
-		TreeNode<T> equal = split(fromElement, getRoot(), smaller, greater);
+		TreeNode<T> equal = split(fromElement, getRoot());
 		
 		//create the new set
 		RandomizedBST<T> tailSet = new RandomizedBST<T>();
 		
 		//assign the partitions of the split
-		tailSet.setRoot(greater.get());
-		setRoot(smaller.get());
+		tailSet.setRoot(splitGreater);
+		setRoot(splitLess);
+		detachments++;
 		if (equal != null) {
 			if (inclusive) {
 				tailSet.add(equal.getValue());
@@ -164,11 +209,43 @@ public class RandomizedBST<T> extends RankedTree<T>{
 		return tailSet;
 	}
 	
+	@Override
+	//Algorithm: split off the values below and above the range, then join them
+	//O(log n) expected, the nodes of the range are left to the garbage collector
+	public void removeRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && compareValues(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		if (lowerbound != null && upperbound != null && compareValues(lowerbound, upperbound) == 0 && !(fromInclusive && toInclusive)) return;//the range is empty
+		
+		TreeNode<T> below = null;
+		TreeNode<T> rest = getRoot();
+		if (lowerbound != null) {
+			TreeNode<T> equal = split(lowerbound, rest);
+			below = splitLess;
+			rest = splitGreater;
+			if (equal != null && !fromInclusive) {
+				below = treeJoin.join(below, equal, null, random);
+			}
+		}
+		TreeNode<T> above = null;
+		if (upperbound != null) {
+			TreeNode<T> equal = split(upperbound, rest);
+			above = splitGreater;
+			if (equal != null && !toInclusive) {
+				above = treeJoin.join(null, equal, above, random);
+			}
+		}
+		setRoot(join(below, above));
+		detachments++;
+		assert checkInvariants();
+	}
+	
 	////
 	//IMPLEMENTATION
 	////
 	
-	private TreeNode<T> internalAdd(T value, TreeNode<T> r, Out<Boolean> modified)
+	//sets lastOperationDidModify
+	private TreeNode<T> internalAdd(T value, TreeNode<T> r)
 	{
 		int size = size(r);
 
@@ -176,17 +253,17 @@ public class RandomizedBST<T> extends RankedTree<T>{
 		
 		
 		if (size == rand) {//base case: insert here, restructure r
-			return insertAtRoot(value, r, modified);
+			return insertAtRoot(value, r);
 		}
 		
 		int comparison = compareValues(value, r.getValue());
 		
 		if (comparison < 0) {
-			r.setLeftChild(internalAdd(value, r.getLeftChild(),  modified));	
+			r.setLeftChild(internalAdd(value, r.getLeftChild()));	
 		} else if (comparison > 0) {
-			r.setRightChild(internalAdd(value, r.getRightChild(),  modified));
+			r.setRightChild(internalAdd(value, r.getRightChild()));
 		} else {//base case: already present
-			modified.set(false);
+			lastOperationDidModify = false;
 		}
 		
 		return r;
@@ -225,8 +302,7 @@ public class RandomizedBST<T> extends RankedTree<T>{
 			
 		}
 		assert parent != current;
-		Out<Boolean> modified = new Out<Boolean>();
-		TreeNode<T> newNode = insertAtRoot(value, current, modified);
+		TreeNode<T> newNode = insertAtRoot(value, current);
 		
 		parent.replaceChild(current, newNode);
 		assert contains(value);
@@ -234,10 +310,11 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	}*/
 	
 	
-	private TreeNode<T> internalRemove(T value, TreeNode<T> r, Out<Boolean> modified)
+	//sets lastOperationDidModify
+	private TreeNode<T> internalRemove(T value, TreeNode<T> r)
 	{
 		if (r == null) {//base case 1 : value is not present
-			modified.set(false);
+			lastOperationDidModify = false;
 			return null; 
 		}
 		
@@ -245,12 +322,12 @@ public class RandomizedBST<T> extends RankedTree<T>{
 		int comparison = compareValues(value, r.getValue());
 		
 		if (comparison < 0) {
-			r.setLeftChild(internalRemove(value, r.getLeftChild(), modified));
+			r.setLeftChild(internalRemove(value, r.getLeftChild()));
 		} else if (comparison > 0) {
-			r.setRightChild(internalRemove(value, r.getRightChild(), modified));
+			r.setRightChild(internalRemove(value, r.getRightChild()));
 		} else {//base case 2 : value is present : remove using join
 			assert (value.equals(r.getValue()));
-			modified.set(true);
+			lastOperationDidModify = true;
 			r = join(r.getLeftChild(), r.getRightChild());
 		}
 		
@@ -262,53 +339,56 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	//Algorithm: split around the value and join the subtrees back
 	public T getNeighborhood(T value, Out<T> smaller, Out<T> greater) {
 		//partition tree around the value e
-		TreeNode<T> equal = split(value, getRoot(), lesserTree, greaterTree);
+		TreeNode<T> equal = split(value, getRoot());
 
 		//extract result values if needed
-		if (greaterTree.get() != null && greater != null) {
-			greater.set(findFirst(greaterTree.get()).getValue());
+		if (splitGreater != null && greater != null) {
+			greater.set(findFirst(splitGreater).getValue());
 		}
-		if (lesserTree.get() != null && smaller != null) {
-			smaller.set(findLast(lesserTree.get()).getValue());
+		if (splitLess != null && smaller != null) {
+			smaller.set(findLast(splitLess).getValue());
 		}
 		
-		//restore the tree
-		TreeNode<T> newRoot = join(lesserTree.get(), greaterTree.get());
-		setRoot(newRoot);
-		if (equal != null) {
-			add(value);
+		restoreAfterSplit(equal);
+		return valueOrNull(equal);
+	}
+	
+	//joins the results of the last split back into the tree, with the node 'equal' in the middle if it is not null
+	private void restoreAfterSplit(TreeNode<T> equal)
+	{
+		if (equal == null) {
+			setRoot(join(splitLess, splitGreater));
+		} else {
+			setRoot(treeJoin.join(splitLess, equal, splitGreater, random));
 		}
-		
 		assert checkInvariants();
-		return valueOrNull(equal);
 	}
 	
 
 
 	
 	//insert the value here: restructure the subtree rooted at 'r' so that value is the the root of this subtree, return the new root
-	//if the value was already present, modified will be set to false, else if will be set to true
-	private TreeNode<T> insertAtRoot(T value, TreeNode<T> r, Out<Boolean> modified)
+	//if the value was already present, lastOperationDidModify will be set to false, else it will be set to true
+	private TreeNode<T> insertAtRoot(T value, TreeNode<T> r)
 	{
-		TreeNode<T> equal = split(value, r, lesserTree, greaterTree);
+		TreeNode<T> equal = split(value, r);
 		
-		assert lesserTree.get() == null || compareValues(value, findLast(lesserTree.get()).getValue()) > 0;
-		assert greaterTree.get() == null || compareValues(value, findFirst(greaterTree.get()).getValue()) < 0;
+		assert splitLess == null || compareValues(value, findLast(splitLess).getValue()) > 0;
+		assert splitGreater == null || compareValues(value, findFirst(splitGreater).getValue()) < 0;
 		
 		
 		if (equal == null) {
-			modified.set(true);
+			lastOperationDidModify = true;
 			equal = newNode(value);
 		} else {
 			assert equal.getValue().equals(value);
-			modified.set(false);
+			lastOperationDidModify = false;
 		}
 		
-		equal.setLeftChild(lesserTree.get());
-		equal.setRightChild(greaterTree.get());
+		equal.setLeftChild(splitLess);
+		equal.setRightChild(splitGreater);
 		
 		assert subtreeSizeConsistent(equal);
-		assert modified.get() != null;
 		return equal;
 	}
 
@@ -316,26 +396,60 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	//randomized join operation
 	private TreeNode<T> join(TreeNode<T> L, TreeNode<T> R)
 	{
-		assert descendantsAreSmaller(L, valueOrNull(R));
-		assert descendantsAreGreater(R, valueOrNull(L));
-		
-		int sizeL = size(L);
-		int sizeR = size(R);
-		int total = sizeL+sizeR;
-		
-		if (total == 0) return null;
-		
-		int r = random.nextInt(total);
+		return treeJoin.join(L, R, random);
+	}
+	
+	@Override
+	protected TreeJoin<T> treeJoin()
+	{
+		return treeJoin;
+	}
+	
+	private final TreeJoin<T> treeJoin = new RandomJoin();
+	
+	private class RandomJoin extends TreeJoin<T> {
 		
-		if (r < sizeL) {
-			L.setRightChild(join(L.getRightChild(), R));
-			return L;
+		@Override
+		//the root of the join is chosen with probability proportional to the size of its tree, which keeps the result a random tree
+		TreeNode<T> join(TreeNode<T> L, TreeNode<T> R, Random random)
+		{
+			assert descendantsAreSmaller(L, valueOrNull(R));
+			assert descendantsAreGreater(R, valueOrNull(L));
+			
+			int sizeL = size(L);
+			int sizeR = size(R);
+			int total = sizeL+sizeR;
+			
+			if (total == 0) return null;
+			
+			int r = random.nextInt(total);
+			
+			if (r < sizeL) {
+				L.setRightChild(join(L.getRightChild(), R, random));
+				return L;
+				
+			} else {
+				R.setLeftChild(join(L, R.getLeftChild(), random));
+				return R;
+			}
 			
-		} else {
-			R.setLeftChild(join(L, R.getLeftChild()));
-			return R;
 		}
 		
+		@Override
+		//the root of the union is chosen with probability proportional to the size of its tree, as in the union algorithm of Martinez and Roura
+		//this keeps the union a random tree
+		boolean unionKeepsRootOf(TreeNode<T> a, TreeNode<T> b, Random random)
+		{
+			int sizeA = size(a);
+			return random.nextInt(sizeA+size(b)) < sizeA;
+		}
+	}
+	
+	@Override
+	//the rank of the root is uniformly distributed, which is the distribution of a tree built by adding the values one by one
+	protected int leftSizeForBulkLoad(int size)
+	{
+		return random.nextInt(size);
 	}
 	
 	
@@ -343,8 +457,6 @@ public class RandomizedBST<T> extends RankedTree<T>{
 	//INSTANCE VARIABLES
 	///
 	private Random random = new Random(91);
-	private Out<Boolean> lastOperationDidModify = new Out<Boolean>();
-	Out<TreeNode<T>> lesserTree = new Out<TreeNode<T>>();
-	Out<TreeNode<T>> greaterTree = new Out<TreeNode<T>>();
+	private boolean lastOperationDidModify;
 	
 }
@@ -1,5 +1,6 @@
 package ch.ethz.glukas.orderedset;
 
+import java.util.Iterator;
 import java.util.NavigableSet;
 
 public interface RangeSet<T> extends NavigableSet<T> {
@@ -16,5 +17,9 @@ public interface RangeSet<T> extends NavigableSet<T> {
 	
 	public void removeRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive);
 	
+	//iterates over the values between the bounds in ascending (or descending) order, null bounds are unbounded
+	//used by the subsets of the set, so that a scan does not search for every value anew
+	public Iterator<T> rangeIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending);
+	
 
 }
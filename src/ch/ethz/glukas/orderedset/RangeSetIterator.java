@@ -26,6 +26,16 @@ class RangeSetIterator<T> implements ListIterator<T> {
 		
 	}
 	
+	//iterates over the whole set, starting at the index
+	public RangeSetIterator(RangeSet<T> set, int index)
+	{
+		assert index >= 0 && index <= set.size();
+		internalSet = set;
+		lowestIndex = 0;
+		highestIndex = set.size()-1;
+		currentIndex = index;
+	}
+	
 	private void setIndexBounds()
 	{
 		lowestIndex = internalSet.indexOf(lowerbound);
@@ -68,10 +78,9 @@ class RangeSetIterator<T> implements ListIterator<T> {
 	}
 	
 	@Override
+	//the indexes are relative to the first value of the range
 	public int nextIndex() {
-		int result = currentIndex;
-		advance();
-		return result;
+		return currentIndex-lowestIndex;
 	}
 
 	@Override
@@ -82,8 +91,7 @@ class RangeSetIterator<T> implements ListIterator<T> {
 
 	@Override
 	public int previousIndex() {
-		retreat();
-		return currentIndex;
+		return currentIndex-lowestIndex-1;
 	}
 
 	
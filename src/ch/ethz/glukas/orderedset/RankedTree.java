@@ -1,21 +1,44 @@
 package ch.ethz.glukas.orderedset;
 
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 
 public abstract class RankedTree<T> extends BinarySearchTree<T> implements RangeSet<T> {
 	//Augments the binary search tree with dynamic order statistics
 	//the implementer is responsible of maintaining the tree and especially the size counts
 	//all nodes are assumed to conform to RankedTreeNode
 	
+	protected RankedTree()
+	{
+		super();
+	}
+	
+	//if comparator is null, the natural ordering is used
+	protected RankedTree(Comparator<? super T> comparator)
+	{
+		super(comparator);
+	}
 	
 	@Override
 	protected TreeNode<T> newNode(T val)
 	{
+		if (linksParents()) {
+			return new LinkedRankedTreeNode<T>(val);
+		}
 		return new RankedTreeNode<T>(val);
 	}
 	
+	//if true, the nodes know their parents (see LinkedRankedTreeNode), so that the neighbors of a node are found in O(1) amortized time
+	//the links are set by setLeftChild and setRightChild, so they are maintained by the rotations, splits and joins without further work
+	//note that this is called by the constructor of the superclass, it must not depend on the state of the instance
+	protected boolean linksParents()
+	{
+		return true;
+	}
+	
 	@Override
 	public int size()
 	{
@@ -92,39 +115,45 @@ public abstract class RankedTree<T> extends BinarySearchTree<T> implements Range
 	
 	
 	@Override
+	//Algorithm: descend to the first node inside the range, where the paths to the two bounds diverge
+	//then count the values above the lowerbound in its left subtree and the values below the upperbound in its right subtree, one descent each
+	//null bounds are unbounded
 	public int sizeOfRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive) {
-		if (compareValues(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		if (lowerbound != null && upperbound != null && compareValues(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
 		assert subtreeSizesConsistent();
-		assert listIteratorConsistent();
 		
-		T lower;
-		T upper;
-		if (fromInclusive) {
-			lower = ceiling(lowerbound);
-		} else {
-			lower = higher(lowerbound);
-		}
-		if (toInclusive) {
-			upper = floor(upperbound);
-		} else {
-			upper = lower(upperbound);
+		TreeNode<T> current = getRoot();
+		while (current != null) {
+			if (isBelow(current.getValue(), lowerbound, fromInclusive)) {
+				current = current.getRightChild();
+			} else if (isAbove(current.getValue(), upperbound, toInclusive)) {
+				current = current.getLeftChild();
+			} else {
+				break;
+			}
 		}
-		if (compareValues(lower, upper) > 0) return 0;
+		if (current == null) return 0;
 		
-		int lowerIndex = indexOf(lower);
-		int upperIndex = indexOf(upper);
-		
-		return upperIndex-lowerIndex+1;
+		return 1+countNotBelow(current.getLeftChild(), lowerbound, fromInclusive)+countNotAbove(current.getRightChild(), upperbound, toInclusive);
 	}
 
-
 	@Override
+	//the subclasses that can split and join override this with an O(log n) algorithm
 	public void removeRange(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive) {
+		if (lowerbound != null && upperbound != null && compareValues(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
 		assert subtreeSizesConsistent();
-		//could be done faster, but this is easy
 		
-		NavigableSet<T> subset = subSet(lowerbound, fromInclusive, upperbound, toInclusive);
-		while(subset.pollFirst() != null) {
+		//null bounds are unbounded
+		T current;
+		if (lowerbound == null) {
+			current = isEmpty() ? null : first();
+		} else {
+			current = fromInclusive ? ceiling(lowerbound) : higher(lowerbound);
+		}
+		while (current != null && !isAbove(current, upperbound, toInclusive)) {
+			T next = higher(current);
+			remove(current);
+			current = next;
 		}
 	}
 
@@ -137,14 +166,37 @@ public abstract class RankedTree<T> extends BinarySearchTree<T> implements Range
 	public ListIterator<T> listIterator(int index)
 	{
 		assert subtreeSizesConsistent();
-		if (index >= size()) return  new RangeSetIterator<T>();
-		return new RangeSetIterator<T>(this, get(index), last());
+		if (index < 0 || index > size()) throw new IndexOutOfBoundsException();
+		if (linksParents()) {
+			return new LinkedListIterator(index);
+		}
+		return new RangeSetIterator<T>(this, index);
 	}
 	
 	/////
 	//NAVIGABLE SET
+	//the navigation descends from the root. the trees that restructure on access (SplayTree, RandomizedBST) override it
 	/////
 	
+	@Override
+	public T floor(T e) {
+		return valueOrNull(floorNode(e, true));
+	}
+	
+	@Override
+	public T lower(T e) {
+		return valueOrNull(floorNode(e, false));
+	}
+	
+	@Override
+	public T ceiling(T e) {
+		return valueOrNull(ceilingNode(e, true));
+	}
+	
+	@Override
+	public T higher(T e) {
+		return valueOrNull(ceilingNode(e, false));
+	}
 	
 	public T pollFirst()
 	{
@@ -222,6 +274,11 @@ public abstract class RankedTree<T> extends BinarySearchTree<T> implements Range
 		return new DescendingSet<T>(this);
 	}
 	
+	@Override
+	public Iterator<T> rangeIterator(T lowerbound, T upperbound, boolean fromInclusive, boolean toInclusive, boolean descending) {
+		return new BinarySearchTreeIterator<T>(getRoot(), comparator(), lowerbound, upperbound, fromInclusive, toInclusive, descending);
+	}
+	
 	
 	////
 	//IMPLEMENTATION
@@ -281,6 +338,106 @@ public abstract class RankedTree<T> extends BinarySearchTree<T> implements Range
 	}
 	
 
+	//the node with the largest value smaller than (or equal to, if inclusive) the value, or null
+	protected TreeNode<T> floorNode(T value, boolean inclusive)
+	{
+		TreeNode<T> candidate = null;
+		TreeNode<T> current = getRoot();
+		while (current != null) {
+			int comparison = compareValues(value, current);
+			if (comparison == 0 && inclusive) return current;
+			if (comparison > 0) {
+				candidate = current;
+				current = current.getRightChild();
+			} else {
+				current = current.getLeftChild();
+			}
+		}
+		return candidate;
+	}
+	
+	//the node with the smallest value greater than (or equal to, if inclusive) the value, or null
+	protected TreeNode<T> ceilingNode(T value, boolean inclusive)
+	{
+		TreeNode<T> candidate = null;
+		TreeNode<T> current = getRoot();
+		while (current != null) {
+			int comparison = compareValues(value, current);
+			if (comparison == 0 && inclusive) return current;
+			if (comparison < 0) {
+				candidate = current;
+				current = current.getLeftChild();
+			} else {
+				current = current.getRightChild();
+			}
+		}
+		return candidate;
+	}
+	
+	//the number of values in the subtree that are not below the bound
+	protected int countNotBelow(TreeNode<T> current, T lowerbound, boolean inclusive)
+	{
+		if (lowerbound == null) return size(current);
+		int result = 0;
+		while (current != null) {
+			if (isBelow(current.getValue(), lowerbound, inclusive)) {
+				current = current.getRightChild();
+			} else {
+				result += size(current.getRightChild())+1;
+				current = current.getLeftChild();
+			}
+		}
+		return result;
+	}
+	
+	//the number of values in the subtree that are not above the bound
+	protected int countNotAbove(TreeNode<T> current, T upperbound, boolean inclusive)
+	{
+		if (upperbound == null) return size(current);
+		int result = 0;
+		while (current != null) {
+			if (isAbove(current.getValue(), upperbound, inclusive)) {
+				current = current.getLeftChild();
+			} else {
+				result += size(current.getLeftChild())+1;
+				current = current.getRightChild();
+			}
+		}
+		return result;
+	}
+	
+	//true if the value is outside of the range because of its lowerbound, a null bound is unbounded
+	protected boolean isBelow(T value, T lowerbound, boolean inclusive)
+	{
+		if (lowerbound == null) return false;
+		int comparison = compareValues(value, lowerbound);
+		return comparison < 0 || (comparison == 0 && !inclusive);
+	}
+	
+	//true if the value is outside of the range because of its upperbound, a null bound is unbounded
+	protected boolean isAbove(T value, T upperbound, boolean inclusive)
+	{
+		if (upperbound == null) return false;
+		int comparison = compareValues(value, upperbound);
+		return comparison > 0 || (comparison == 0 && !inclusive);
+	}
+	
+	//returns the node following the node in order, or null if it is the last node
+	//precondition: linksParents()
+	protected TreeNode<T> nextNode(TreeNode<T> node)
+	{
+		TreeNode<T> next = ((LinkedRankedTreeNode<T>)node).successor();
+		if (next == metaRoot) return null;
+		return next;
+	}
+	
+	//returns the node preceding the node in order, or null if it is the first node
+	//precondition: linksParents()
+	protected TreeNode<T> previousNode(TreeNode<T> node)
+	{
+		return ((LinkedRankedTreeNode<T>)node).predecessor();
+	}
+	
 	//all nodes of this tree are ranked
 	protected int size(TreeNode<T> node)
 	{
@@ -288,6 +445,225 @@ public abstract class RankedTree<T> extends BinarySearchTree<T> implements Range
 		return ((RankedTreeNode<T>)node).size();
 	}
 
+	////
+	//LIST ITERATOR
+	////
+	
+	//steps through the linked nodes, so that next() and previous() take O(1) amortized time
+	private class LinkedListIterator implements ListIterator<T> {
+		
+		LinkedListIterator(int index)
+		{
+			nextIndex = index;
+			next = index < size() ? getByRank(getRoot(), index) : null;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		@Override
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		}
+		
+		@Override
+		public T next() {
+			if (next == null) throw new NoSuchElementException();
+			T result = next.getValue();
+			next = nextNode(next);
+			nextIndex++;
+			return result;
+		}
+		
+		@Override
+		public T previous() {
+			if (nextIndex == 0) throw new NoSuchElementException();
+			next = next == null ? findLast(getRoot()) : previousNode(next);
+			nextIndex--;
+			return next.getValue();
+		}
+		
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+		
+		@Override
+		public int previousIndex() {
+			return nextIndex-1;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void set(T e) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void add(T e) {
+			throw new UnsupportedOperationException();
+		}
+		
+		private TreeNode<T> next;//null if the iterator is at the end
+		private int nextIndex;
+	}
+	
+	/////
+	//FINGERS
+	//a finger remembers a node of the tree, so that searches near it do not have to start at the root
+	//moving the finger climbs from its node to the lowest ancestor whose subtree contains the position of the key, then descends from there
+	//this takes O(log d) expected time in the RandomizedBST, where d is the difference of the ranks of the old and the new position
+	//the SplayTree splays the nodes the finger moves to, which gives the same bound amortized (the dynamic finger theorem)
+	//a finger survives insertions. after an operation that may have detached its node (see detachments), it searches from the root once
+	//in the trees whose nodes do not link their parents (ScapegoatTree), the finger searches from the root every time
+	/////
+	
+	/**
+	 * Returns a finger at the smallest value greater than or equal to the key, or past the end if there is none
+	 */
+	public Finger locate(T key)
+	{
+		Finger finger = new Finger();
+		finger.moveTo(key);
+		return finger;
+	}
+	
+	public class Finger {
+		
+		private Finger()
+		{
+		}
+		
+		/**
+		 * Moves the finger to the smallest value greater than or equal to the key, or past the end if there is none
+		 * @return true if the key is present
+		 */
+		public boolean moveTo(T key)
+		{
+			if (key == null) throw new IllegalArgumentException();
+			if (isStale()) {
+				node = null;
+			}
+			node = node == null || !linksParents() ? ceilingNode(getRoot(), null, key) : fingerSearch(node, key);
+			value = valueOrNull(node);
+			fingerDidMove(node);
+			detachmentsSeen = detachments;
+			return node != null && compareValues(key, node.getValue()) == 0;
+		}
+		
+		/**
+		 * Returns the value at the finger, or null if the finger is past the end
+		 */
+		public T value()
+		{
+			revalidate();
+			return value;
+		}
+		
+		/**
+		 * Moves the finger to the next value and returns it, or returns null if the finger moved past the end
+		 */
+		public T next()
+		{
+			revalidate();
+			if (node != null) {
+				node = linksParents() ? nextNode(node) : ceilingNode(value, false);
+				value = valueOrNull(node);
+			}
+			return valueOrNull(node);
+		}
+		
+		/**
+		 * Moves the finger to the previous value and returns it. If the finger is at the first value, it stays there and null is returned
+		 */
+		public T previous()
+		{
+			revalidate();
+			TreeNode<T> previous;
+			if (node == null) {
+				previous = isEmpty() ? null : findLast(getRoot());
+			} else {
+				previous = linksParents() ? previousNode(node) : floorNode(value, false);
+			}
+			if (previous == null) return null;
+			node = previous;
+			value = node.getValue();
+			return value;
+		}
+		
+		private boolean isStale()
+		{
+			return detachmentsSeen != detachments;
+		}
+		
+		//after a removal, the finger moves to the smallest value greater than or equal to its old value
+		//the old value is remembered: a removal may have copied another value into the node (ScapegoatTree)
+		private void revalidate()
+		{
+			if (isStale() && node != null) {
+				moveTo(value);
+			}
+			detachmentsSeen = detachments;
+		}
+		
+		private TreeNode<T> node;//null if the finger is past the end
+		private T value;//the value of the node when the finger moved there
+		private int detachmentsSeen = detachments;
+	}
+	
+	//called when a finger moved to the node (null if it moved past the end), so that self-adjusting trees can restructure
+	protected void fingerDidMove(TreeNode<T> node)
+	{
+	}
+	
+	//returns the node with the smallest value greater than or equal to the key, starting from a node of the tree
+	//precondition: linksParents()
+	private TreeNode<T> fingerSearch(TreeNode<T> start, T key)
+	{
+		LinkedRankedTreeNode<T> current = (LinkedRankedTreeNode<T>)start;
+		int direction = compareValues(key, current.getValue());
+		if (direction == 0) return current;
+		
+		//climb until the parent bounds the subtree of 'current' on the side of the key, but the key lies within the bound
+		LinkedRankedTreeNode<T> parent = current.getParent();
+		while (parent != metaRoot) {
+			if (direction > 0 && parent.getLeftChild() == current) {
+				int comparison = compareValues(key, parent.getValue());
+				if (comparison < 0) return ceilingNode(current, parent, key);
+				if (comparison == 0) return parent;
+			} else if (direction < 0 && parent.getRightChild() == current) {
+				int comparison = compareValues(key, parent.getValue());
+				if (comparison > 0) return ceilingNode(current, null, key);
+				if (comparison == 0) return parent;
+			}
+			current = parent;
+			parent = current.getParent();
+		}
+		return ceilingNode(current, null, key);
+	}
+	
+	//descends from the node to the smallest value greater than or equal to the key, 'candidate' is the result if there is no such value below the node
+	private TreeNode<T> ceilingNode(TreeNode<T> current, TreeNode<T> candidate, T key)
+	{
+		while (current != null) {
+			int comparison = compareValues(key, current.getValue());
+			if (comparison == 0) return current;
+			if (comparison < 0) {
+				candidate = current;
+				current = current.getLeftChild();
+			} else {
+				current = current.getRightChild();
+			}
+		}
+		return candidate;
+	}
+	
 	///
 	//INVARIANTS
 	///
@@ -297,10 +673,25 @@ public abstract class RankedTree<T> extends BinarySearchTree<T> implements Range
 	{
 		boolean result = super.checkInvariants();
 		result = result && subtreeSizesConsistent();
+		result = result && (!linksParents() || parentsConsistent(metaRoot));
 		assert result;
 		return result;
 	}
 	
+	//every child reachable from the node links back to its parent
+	protected boolean parentsConsistent(TreeNode<T> node)
+	{
+		boolean result = isParentOf(node, node.getLeftChild()) && isParentOf(node, node.getRightChild());
+		assert result;
+		return result;
+	}
+	
+	private boolean isParentOf(TreeNode<T> parent, TreeNode<T> child)
+	{
+		if (child == null) return true;
+		return ((LinkedRankedTreeNode<T>)child).getParent() == parent && parentsConsistent(child);
+	}
+	
 	
 	protected boolean listIteratorConsistent()
 	{
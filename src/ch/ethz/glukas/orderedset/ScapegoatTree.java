@@ -1,25 +1,137 @@
 package ch.ethz.glukas.orderedset;
 
-import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.SortedSet;
+import java.util.concurrent.RecursiveTask;
 
-public class ScapegoatTree<T> extends BinarySearchTree<T>{
+/**
+ * The scapegoat tree of Igal Galperin and Ronald L. Rivest: "Scapegoat trees", SODA 1993
+ * 
+ * The tree stores no balance information. When an insertion ends too deep, the subtree of the first ancestor on the way up from the new node that is not weight balanced is rebuilt.
+ * The height is O(log n) worst case, the updates take O(log n) amortized time.
+ * The rebuilds work in place and without recursion (see Rebuilder). Large subtrees are split at their median
+ * and the halves are rebuilt in parallel (see RebuildTask).
+ * 
+ * The nodes of height at least sizedHeight store the size of their subtree (see SizedTreeNode), the lower nodes have only a value and two children.
+ * The size of a subtree of such a node is counted, it has less than 2^sizedHeight nodes. So get, indexOf and sizeOfRange take O(2^sizedHeight log n) time.
+ * The sizes also let the insertions find the scapegoat without counting the subtrees along the path.
+ * With a sizedHeight of 0 (the default), all nodes are sized. With a sizedHeight of 1, the leaves are slim, with 2, about three quarters of the nodes.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+public class ScapegoatTree<T> extends RankedTree<T>{
 
 	protected int size;
 	private boolean didChange;
-	private boolean needsRebalance;
-	private int subtreeSize;
+	private final int sizedHeight;
+	private int lastHeight;//written by buildFromSorted
 	
 	private int maxSize = 1;
+	private final Rebuilder rebuilder = new Rebuilder();//the sequential rebuilds reuse it, so that they do not allocate
+	private int parallelRebuildThreshold = defaultParallelRebuildThreshold;
 	
 	private static final double alpha = 0.6;//closer to 0.5 gives smaller height, more restructuring
 	private static final double logalphainverse = Math.log(1/alpha);
 	
+	//the rebuilds of subtrees of at least this many nodes are split into halves that are rebuilt in parallel
+	private static final int defaultParallelRebuildThreshold = 1 << 16;
+	
+	////
+	//CONSTRUCTION
+	//the bulk loading constructor and factories build the tree in linear time
+	//into a perfectly balanced tree
+	//the input must be in strictly ascending order, else an IllegalArgumentException is thrown
+	////
+	
+	public ScapegoatTree()
+	{
+		this(null, 0);
+	}
+	
+	//if comparator is null, the natural ordering is used
+	public ScapegoatTree(Comparator<? super T> comparator)
+	{
+		this(comparator, 0);
+	}
+	
+	/**
+	 * Creates a tree where only the nodes of height at least sizedHeight store the size of their subtree (the leaves have height 0)
+	 * @param comparator if null, the natural ordering is used
+	 * @param sizedHeight at least 0, small values (up to about 4) keep the access by rank fast
+	 */
+	public ScapegoatTree(Comparator<? super T> comparator, int sizedHeight)
+	{
+		super(comparator);
+		if (sizedHeight < 0) throw new IllegalArgumentException();
+		this.sizedHeight = sizedHeight;
+	}
+	
+	/**
+	 * Creates a tree with the values and the ordering of the sorted set, in O(n)
+	 */
+	public ScapegoatTree(SortedSet<T> sorted)
+	{
+		this(sorted.comparator(), 0);
+		loadSorted(sorted.iterator(), sorted.size());
+	}
+	
+	/**
+	 * Creates a tree with the values of the array, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> ScapegoatTree<T> fromSorted(T[] sorted, Comparator<? super T> comparator)
+	{
+		ScapegoatTree<T> tree = new ScapegoatTree<T>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
+	/**
+	 * Creates a tree with the values returned by the iterator, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> ScapegoatTree<T> fromSorted(Iterator<? extends T> sorted, Comparator<? super T> comparator)
+	{
+		ScapegoatTree<T> tree = new ScapegoatTree<T>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
+	//the rebuilds of subtrees of at least this many nodes run in parallel, Integer.MAX_VALUE keeps them all sequential
+	public void setParallelRebuildThreshold(int nodes)
+	{
+		parallelRebuildThreshold = nodes;
+	}
+	
+	@Override
+	//the nodes do not know their parents, so that they stay small
+	protected boolean linksParents()
+	{
+		return false;
+	}
+	
+	@Override
+	//the slim nodes and the sentinels (metaRoot, the heads of the Rebuilders)
+	protected TreeNode<T> newNode(T val)
+	{
+		return new TreeNode<T>(val);
+	}
+	
+	//returns a sized node if the height is at least sizedHeight, else a node without a size
+	private TreeNode<T> newNode(T value, int height, int size)
+	{
+		if (height >= sizedHeight) return new SizedTreeNode<T>(value, size);
+		return newNode(value);
+	}
+	
 	@Override
 	protected boolean internalAdd(T value)
 	{
 		return internalAddIteratively(value);
-		//setRoot(internalAddRecursively(getRoot(), value, 0));
-		//return didChange;
 	}
 	
 	@Override
@@ -33,6 +145,8 @@ public class ScapegoatTree<T> extends BinarySearchTree<T>{
 	}
 	
 	//standard remove from bst algorithm (replace with successor)
+	//the successor's value replaces the removed value, so that the nodes stay in place and the sized nodes stay above the slim nodes
+	//only the node of the removed value changes its value
 	private TreeNode<T> internalRemoveRecursively(TreeNode<T> root, T value) {
 		if (root == null) {
 			didChange = false;
@@ -44,21 +158,22 @@ public class ScapegoatTree<T> extends BinarySearchTree<T>{
 			root.setLeftChild(internalRemoveRecursively(root.getLeftChild(), value));
 		} else if (comparison > 0) {
 			root.setRightChild(internalRemoveRecursively(root.getRightChild(), value));
-		} else {
+		} else if (root.getLeftChild() == null) {//no left child, can remove by returning right child
 			didChange = true;
 			size--;
-			
-			if (root.getRightChild() == null) {//no right child, can remove by returning left child
-				root = root.getLeftChild();
-			} else {//has right child: replace with successor
-				Buffer<TreeNode<T>> successor = findSuccessor(root);
-				TreeNode<T> succ = successor.get(1);
-				//remove the successor from its old parent & replace root with successor
-				successor.get(0).replaceChild(succ, succ.getRightChild());
-				succ.setLeftChild(root.getLeftChild());
-				succ.setRightChild(root.getRightChild());
-				root = succ;
-			}
+			return root.getRightChild();
+		} else if (root.getRightChild() == null) {//no right child, can remove by returning left child
+			didChange = true;
+			size--;
+			return root.getLeftChild();
+		} else {//two children: replace with successor, which has no left child and is removed by returning its right child
+			T successor = findFirst(root.getRightChild()).getValue();
+			root.setValue(successor);
+			root.setRightChild(internalRemoveRecursively(root.getRightChild(), successor));
+		}
+		
+		if (didChange) {
+			addToSize(root, -1);
 		}
 		return root;
 	}
@@ -69,132 +184,115 @@ public class ScapegoatTree<T> extends BinarySearchTree<T>{
 		super.clear();
 	}
 	
-	private TreeNode<T> internalAddRecursively(TreeNode<T> currentNode, T value, int depth) {
-		if (currentNode == null) {
-			didChange = true;
-			size++;
-			if (depth > maximumHeight()) {
-				needsRebalance = true;
-				subtreeSize = 1;
-				//System.out.println("rebalance triggered at depth " + depth);
-			}
-			return newNode(value);
-		}
-		
-		int comparison = compareValues(value, currentNode);
-		int leftSize;
-		int rightSize;
-		if (comparison < 0) {
-			currentNode.setLeftChild(internalAddRecursively(currentNode.getLeftChild(), value, depth+1));
-			if (needsRebalance) {
-				leftSize = subtreeSize;
-				assert leftSize == exhaustiveCount(currentNode.getLeftChild());
-				rightSize = exhaustiveCount(currentNode.getRightChild());
-				currentNode = tryRebalance(leftSize, rightSize, currentNode);
-			}
-		} else if (comparison > 0) {
-			currentNode.setRightChild(internalAddRecursively(currentNode.getRightChild(), value, depth+1));
-			if (needsRebalance) {
-				leftSize = exhaustiveCount(currentNode.getLeftChild());
-				rightSize = subtreeSize;
-				assert rightSize == exhaustiveCount(currentNode.getRightChild());
-				currentNode = tryRebalance(leftSize, rightSize, currentNode);
-			}
-		} else {
-			didChange = false;
-		}
-		
-		return currentNode;
+	@Override
+	protected void didRebuild(int size) {
+		this.size = size;
+		maxSize = size;
 	}
 	
 	private boolean internalAddIteratively(T value) {
 		
-		ArrayList<TreeNode<T>> trace = find(value);
+		int traceLength = find(value);
 	
-		TreeNode<T> currentNode = trace.get(trace.size()-1);
+		TreeNode<T> currentNode = trace[traceLength-1];
 		int comparison = compareValues(value, currentNode);
 		
 		if (comparison == 0) {
 			return false;
 		} else {
-			TreeNode<T> newNode = newNode(value);
+			TreeNode<T> newNode = newNode(value, 0, 1);
 			currentNode.setChild(comparison, newNode);
 			size++;
-			if (trace.size()-2 > maximumHeight()) {
-				trace.add(newNode);
-				rebalanceAlongTrace(trace);
+			maxSize = Math.max(maxSize, size);
+			for (int i=1; i<traceLength; i++) {
+				addToSize(trace[i], 1);
+			}
+			growSizedNodes(traceLength);
+			if (traceLength-2 > maximumHeight()) {
+				appendToTrace(traceLength++, newNode);
+				rebalanceAlongTrace(traceLength);
 			}
 			return true;
 		}
 	}
 	
-	private void rebalanceAlongTrace(ArrayList<TreeNode<T>> trace) {
-		if (trace.size() <= 2) return;
+	//the path to the new node is in the first traceLength nodes of the trace
+	//the ancestors of the new node at distance more than sizedHeight already had a height of at least sizedHeight, so they are sized
+	//only the ancestor at distance sizedHeight may have reached the height: it is replaced by a sized node
+	private void growSizedNodes(int traceLength) {
+		int index = traceLength-sizedHeight;
+		if (sizedHeight == 0 || index < 1) return;
+		
+		TreeNode<T> node = trace[index];
+		if (node instanceof SizedTreeNode) return;
+		
+		TreeNode<T> sized = new SizedTreeNode<T>(node.getValue(), 1+size(node.getLeftChild())+size(node.getRightChild()));
+		sized.setLeftChild(node.getLeftChild());
+		sized.setRightChild(node.getRightChild());
+		trace[index-1].replaceChild(node, sized);
+		trace[index] = sized;
+		detachments++;
+	}
+	
+	//the path to the new node is in the first traceLength nodes of the trace
+	private void rebalanceAlongTrace(int traceLength) {
+		if (traceLength <= 2) return;
 		
 		TreeNode<T> currentNode;
 		int leftSize;
 		int rightSize;
 		int subtreeSize = 1;
-		int cur = trace.size()-2;
+		int cur = traceLength-2;
 		do {
-			currentNode = trace.get(cur);
-			if (currentNode.childDirection(trace.get(cur+1)) < 0) {
+			currentNode = trace[cur];
+			if (currentNode.childDirection(trace[cur+1]) < 0) {
 				leftSize = subtreeSize;
-				rightSize = exhaustiveCount(currentNode.getRightChild());
+				rightSize = size(currentNode.getRightChild());
 			} else {
-				leftSize = exhaustiveCount(currentNode.getLeftChild());
+				leftSize = size(currentNode.getLeftChild());
 				rightSize = subtreeSize;
 			}
 			subtreeSize = leftSize+rightSize+1;
 			cur--;
 		} while (cur > 0 && isAlphaWeightBalanced(leftSize, rightSize));
 		
-		trace.get(cur).replaceChild(trace.get(cur+1), rebalance(subtreeSize, currentNode));
+		trace[cur].replaceChild(trace[cur+1], rebalance(subtreeSize, currentNode));
 	}
 
-	private TreeNode<T> tryRebalance(int leftSize, int rightSize, TreeNode<T> currentNode) {
-		assert didChange;
-		subtreeSize = leftSize+rightSize+1;	
-		if (!isAlphaWeightBalanced(leftSize, rightSize)) {
-			currentNode = rebalance(subtreeSize, currentNode);
-			needsRebalance = false;
-		}
-		return currentNode;
-	}
-	
+	//rebuilds the subtree of 'size' nodes into a perfectly balanced tree and returns its root
 	private TreeNode<T> rebalance(int size, TreeNode<T> currentNode) {
-		//System.out.println("scapegoat is " + currentNode);
-		TreeNode<T> dummy = newNode(null);
-		TreeNode<T> inOrderTraversal = flatten(currentNode, dummy);
-		build(size, inOrderTraversal);
-		return dummy.getLeftChild();
+		TreeNode<T> result;
+		if (size >= parallelRebuildThreshold) {
+			result = ImmutableOrderedSet.mainPool.invoke(new RebuildTask(currentNode, size));
+		} else {
+			result = rebuilder.rebuild(currentNode, size);
+		}
+		detachments++;
+		return result;
 	}
 	
-	private TreeNode<T> build(final int n, TreeNode<T> current) {
-		assert n>= 0;
-		if (n == 0) {
-			current.setLeftChild(null);
-			return current;
+	@Override
+	//builds the nodes after their children, so that their heights are known
+	protected TreeNode<T> buildFromSorted(Iterator<? extends T> sorted, int size)
+	{
+		if (size == 0) {
+			lastHeight = -1;
+			return null;
 		}
 		
-		int half = (n-1)/2;
-		TreeNode<T> r = build(n-1-half, current);
-		TreeNode<T> s =  build(half, r.getRightChild());
-		r.setRightChild(s.getLeftChild());
-		s.setLeftChild(r);
-		return s;
-	}
-
-	//returns a tree which is the result of recursively flattening the currentNode and appending 'toAppend'
-	private TreeNode<T> flatten(TreeNode<T> currentNode, TreeNode<T> toAppend) {
-		if (currentNode == null) {
-			return toAppend;
-		}
+		int leftSize = leftSizeForBulkLoad(size);
+		TreeNode<T> left = buildFromSorted(sorted, leftSize);
+		int leftHeight = lastHeight;
+		T value = nextSortedValue(sorted);
+		TreeNode<T> right = buildFromSorted(sorted, size-leftSize-1);
+		lastHeight = Math.max(leftHeight, lastHeight)+1;
 		
-		currentNode.setRightChild(flatten(currentNode.getRightChild(), toAppend));
-		return flatten(currentNode.getLeftChild(), currentNode);
+		TreeNode<T> root = newNode(value, lastHeight, size);
+		root.setLeftChild(left);
+		root.setRightChild(right);
+		return root;
 	}
-
+	
 	private int maximumHeight() {
 		return (int)(Math.log(size)/logalphainverse);
 	}
@@ -208,5 +306,257 @@ public class ScapegoatTree<T> extends BinarySearchTree<T>{
 	public int size() {
 		return size;
 	}
+	
+	@Override
+	//the sizes of the subtrees of the slim nodes are counted
+	protected int size(TreeNode<T> node) {
+		if (node == null) return 0;
+		if (node instanceof SizedTreeNode) return ((SizedTreeNode<T>)node).size();
+		return exhaustiveCount(node);
+	}
+	
+	private void addToSize(TreeNode<T> node, int delta) {
+		if (node instanceof SizedTreeNode) {
+			((SizedTreeNode<T>)node).addToSize(delta);
+		}
+	}
+	
+	////
+	//REBUILDING
+	////
+	
+	//Rebuilds a subtree in place, with O(1) additional space and without recursion (Day, Stout and Warren):
+	//the rotations of treeToVine turn the subtree into a vine, a list linked by the right children, in a single pass
+	//compress rotates every other node of the vine to the left of its successor, each pass halves the vine and the first pass leaves the extra nodes at the bottom level
+	//the result is complete and its bottom level is filled from the left, so the size of a node follows from its level and its index within the level:
+	//the nodes are resized and given the kind of their height when compress rotates them off the vine, the nodes that stay on the vine form the right spine and are resized last
+	//the instances hold the scratch state of a rebuild, so that disjoint subtrees can be rebuilt concurrently
+	private class Rebuilder {
+		
+		//returns the root of the rebuilt subtree, leaves its height in lastHeight
+		TreeNode<T> rebuild(TreeNode<T> root, int size)
+		{
+			head.setRightChild(root);
+			treeToVine();
+			vineToTree(size);
+			TreeNode<T> result = head.getRightChild();
+			head.setRightChild(null);
+			return result;
+		}
+		
+		private void treeToVine()
+		{
+			TreeNode<T> tail = head;
+			TreeNode<T> rest = tail.getRightChild();
+			while (rest != null) {
+				TreeNode<T> left = rest.getLeftChild();
+				if (left == null) {
+					tail = rest;
+					rest = rest.getRightChild();
+				} else {//rotate right
+					rest.setLeftChild(left.getRightChild());
+					left.setRightChild(rest);
+					rest = left;
+					tail.setRightChild(left);
+				}
+			}
+		}
+		
+		//the nodes above the bottom level form a perfect tree, the bottom level is at level 0
+		private void vineToTree(int size)
+		{
+			lastHeight = 31-Integer.numberOfLeadingZeros(size);//-1 for an empty subtree
+			int perfect = Integer.highestOneBit(size+1)-1;
+			leaves = size-perfect;
+			compress(leaves, 0);
+			int level = 0;
+			size = perfect;
+			while (size > 1) {
+				size /= 2;
+				level++;
+				compress(size, level);
+			}
+			resizeSpine(Integer.numberOfTrailingZeros(perfect+1));
+		}
+		
+		//rotates the first 'count' odd nodes of the vine to the left of their successors, the rotated nodes are the first 'count' nodes of the level
+		private void compress(int count, int level)
+		{
+			TreeNode<T> scanner = head;
+			for (int i=0; i<count; i++) {
+				TreeNode<T> child = scanner.getRightChild();
+				scanner.setRightChild(child.getRightChild());
+				scanner = scanner.getRightChild();
+				child.setRightChild(scanner.getLeftChild());
+				scanner.setLeftChild(resize(child, level, i));
+			}
+		}
+		
+		//the vine that is left is the right spine of the tree, its nodes are the last ones of the levels from the root down to level 1
+		private void resizeSpine(int levels)
+		{
+			TreeNode<T> parent = head;
+			for (int level = levels; level > 0; level--) {
+				TreeNode<T> node = resize(parent.getRightChild(), level, (1 << (levels-level))-1);
+				parent.setRightChild(node);
+				parent = node;
+			}
+		}
+		
+		//sets the size of the node with the index in the level, and replaces it by a node of the other kind if its height crossed sizedHeight
+		//the node of the i-th index of a level covers the bottom level slots [i*2^level, (i+1)*2^level), of which the first 'leaves' are filled
+		//returns the node that takes its place
+		private TreeNode<T> resize(TreeNode<T> node, int level, int index)
+		{
+			int slots = 1 << level;
+			int size = slots-1+Math.max(0, Math.min(slots, leaves-index*slots));
+			int height = 31-Integer.numberOfLeadingZeros(size);
+			
+			TreeNode<T> result = withKindOfHeight(node, height, size);
+			if (result != node) {
+				result.setLeftChild(node.getLeftChild());
+				result.setRightChild(node.getRightChild());
+			}
+			return result;
+		}
+		
+		int lastHeight;
+		private int leaves;//the number of nodes on the bottom level
+		private final TreeNode<T> head = newNode(null);//the vine hangs off its right child
+	}
+	
+	//Rebuilds a large subtree: the subtree is split at its median (by the sizes of the nodes), the halves are rebuilt in parallel and joined by the median
+	//the halves are rebuilt by a Rebuilder once they are below the threshold
+	private class RebuildTask extends RecursiveTask<TreeNode<T>> {
+		
+		RebuildTask(TreeNode<T> root, int size)
+		{
+			this.root = root;
+			this.size = size;
+		}
+		
+		@Override
+		protected TreeNode<T> compute()
+		{
+			if (size == 0 || size < parallelRebuildThreshold) {
+				Rebuilder rebuilder = new Rebuilder();
+				TreeNode<T> result = rebuilder.rebuild(root, size);
+				height = rebuilder.lastHeight;
+				return result;
+			}
+			
+			int leftSize = (size-1)/2;
+			TreeNode<T> median = splitAtRank(leftSize);
+			RebuildTask left = new RebuildTask(lessThanMedian, leftSize);
+			RebuildTask right = new RebuildTask(greaterThanMedian, size-leftSize-1);
+			invokeAll(left, right);
+			
+			height = Math.max(left.height, right.height)+1;
+			median = withKindOfHeight(median, height, size);
+			median.setLeftChild(left.getRawResult());
+			median.setRightChild(right.getRawResult());
+			return median;
+		}
+		
+		//detaches the node of the rank from the subtree and returns it, the smaller nodes are left in lessThanMedian and the greater in greaterThanMedian
+		//descends from the root once: the nodes of the path go to the side of the median they are on, together with their subtree on that side
+		//all other nodes of the part below such a node are on the same side, so its new size is the size of the part
+		private TreeNode<T> splitAtRank(int rank)
+		{
+			TreeNode<T> lessTail = null;
+			TreeNode<T> greaterTail = null;
+			TreeNode<T> current = root;
+			int currentSize = size;
+			while (true) {
+				int leftSize = size(current.getLeftChild());
+				if (leftSize < rank) {//the node and its left subtree are smaller than the median
+					setSize(current, rank);
+					if (lessTail == null) {
+						lessThanMedian = current;
+					} else {
+						lessTail.setRightChild(current);
+					}
+					lessTail = current;
+					rank -= leftSize+1;
+					currentSize -= leftSize+1;
+					current = current.getRightChild();
+				} else if (leftSize > rank) {//the node and its right subtree are greater than the median
+					setSize(current, currentSize-rank-1);
+					if (greaterTail == null) {
+						greaterThanMedian = current;
+					} else {
+						greaterTail.setLeftChild(current);
+					}
+					greaterTail = current;
+					currentSize = leftSize;
+					current = current.getLeftChild();
+				} else {
+					if (lessTail == null) {
+						lessThanMedian = current.getLeftChild();
+					} else {
+						lessTail.setRightChild(current.getLeftChild());
+					}
+					if (greaterTail == null) {
+						greaterThanMedian = current.getRightChild();
+					} else {
+						greaterTail.setLeftChild(current.getRightChild());
+					}
+					return current;
+				}
+			}
+		}
+		
+		private final TreeNode<T> root;
+		private final int size;
+		private int height;//the height of the result
+		private TreeNode<T> lessThanMedian;//written by splitAtRank
+		private TreeNode<T> greaterThanMedian;
+	}
+	
+	//returns the node, or a node with its value and of the kind of the height (sized or slim). Sized nodes get the size.
+	private TreeNode<T> withKindOfHeight(TreeNode<T> node, int height, int size)
+	{
+		if (height >= sizedHeight) {
+			if (node instanceof SizedTreeNode) {
+				((SizedTreeNode<T>)node).setSize(size);
+				return node;
+			}
+			return new SizedTreeNode<T>(node.getValue(), size);
+		} else if (node instanceof SizedTreeNode) {
+			return newNode(node.getValue());
+		}
+		return node;
+	}
+	
+	private void setSize(TreeNode<T> node, int size)
+	{
+		if (node instanceof SizedTreeNode) {
+			((SizedTreeNode<T>)node).setSize(size);
+		}
+	}
+	
+	///
+	//INVARIANTS
+	///
+	
+	@Override
+	protected boolean checkInvariants()
+	{
+		boolean result = super.checkInvariants();
+		result = result && checkedHeight(getRoot()) != Integer.MAX_VALUE;
+		assert result;
+		return result;
+	}
+	
+	//returns the height of the subtree, or Integer.MAX_VALUE if it contains a slim node of height at least sizedHeight
+	private int checkedHeight(TreeNode<T> node)
+	{
+		if (node == null) return -1;
+		int height = Math.max(checkedHeight(node.getLeftChild()), checkedHeight(node.getRightChild()));
+		if (height == Integer.MAX_VALUE) return height;
+		height++;
+		if (height >= sizedHeight && !(node instanceof SizedTreeNode)) return Integer.MAX_VALUE;
+		return height;
+	}
 
 }
@@ -0,0 +1,34 @@
+package ch.ethz.glukas.orderedset;
+
+/**
+ * A TreeNode that stores the size of its subtree. Unlike RankedTreeNode, the size is not adjusted when the children are set:
+ * it is maintained by the tree, so that the children can be nodes without a size (see ScapegoatTree).
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+class SizedTreeNode<T> extends TreeNode<T> {
+
+	public SizedTreeNode(T value, int size)
+	{
+		super(value);
+		this.size = size;
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public void setSize(int newSize)
+	{
+		size = newSize;
+	}
+	
+	public void addToSize(int delta)
+	{
+		size += delta;
+	}
+	
+	private int size;
+}
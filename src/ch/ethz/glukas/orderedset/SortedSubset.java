@@ -123,8 +123,7 @@ class SortedSubset<T> extends AbstractCollection<T> implements NavigableSet<T> {
 
 	@Override
 	public Iterator<T> iterator() {
-		if (isEmpty()) return new NavigableSetIterator<T>();
-		return new NavigableSetIterator<T>(this, first(), last());
+		return superset.rangeIterator(lower, upper, fromInclusive, toInclusive, false);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -277,7 +276,7 @@ class SortedSubset<T> extends AbstractCollection<T> implements NavigableSet<T> {
 	
 	@Override
 	public Iterator<T> descendingIterator() {
-		return descendingSet().iterator();
+		return superset.rangeIterator(lower, upper, fromInclusive, toInclusive, true);
 	}
 
 	@Override
@@ -1,7 +1,7 @@
 package ch.ethz.glukas.orderedset;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NavigableSet;
 import java.util.Random;
@@ -22,6 +22,115 @@ import java.util.SortedSet;
 
 public class SplayTree<E> extends RankedTree <E> {
 	
+	////
+	//CONSTRUCTION
+	//the bulk loading constructor and factories build the tree in linear time
+	//into a perfectly balanced tree
+	//the input must be in strictly ascending order, else an IllegalArgumentException is thrown
+	////
+	
+	public SplayTree()
+	{
+		this(Splaying.BOTTOM_UP);
+	}
+	
+	//if comparator is null, the natural ordering is used
+	public SplayTree(Comparator<? super E> comparator)
+	{
+		this(comparator, Splaying.BOTTOM_UP);
+	}
+	
+	public SplayTree(Splaying splaying)
+	{
+		super();
+		this.splaying = splaying;
+	}
+	
+	//if comparator is null, the natural ordering is used
+	public SplayTree(Comparator<? super E> comparator, Splaying splaying)
+	{
+		super(comparator);
+		this.splaying = splaying;
+	}
+	
+	/**
+	 * Sets how contains, get and indexOf restructure the tree. The updates and the navigation methods always splay.
+	 * Lookups that do not splay leave the tree unchanged, so they are cheaper on read-mostly workloads, at the price of the adaptivity of the tree.
+	 * The default is SPLAY.
+	 */
+	public void setLookup(Lookup lookup)
+	{
+		setLookup(lookup, 0);
+	}
+	
+	/**
+	 * @param parameter the period of PERIODIC or the depth threshold of DEEP. If it is 0, the default is used. The other modes ignore it.
+	 */
+	public void setLookup(Lookup lookup, int parameter)
+	{
+		if (parameter < 0) throw new IllegalArgumentException();
+		this.lookup = lookup;
+		this.lookupParameter = parameter;
+		lookupsSinceSplay = 0;
+	}
+	
+	public enum Lookup {
+		//every lookup splays the value to the root
+		SPLAY,
+		//every lookup semi-splays: it halves the depth of the nodes on the search path with about half the rotations of a splay, and stops below the root
+		SEMI_SPLAY,
+		//every k-th lookup splays (by default every 16th), the others only search
+		PERIODIC,
+		//a lookup splays only if the value is deeper than a threshold (by default 2*log2(size)), the others only search
+		DEEP,
+		//lookups only search. They do not write to the tree, so any number of threads can look up values while no thread modifies the tree.
+		READ_ONLY
+	}
+	
+	/**
+	 * The algorithm that moves an accessed value to the root.
+	 * Both give the same amortized bounds and leave the same value at the root, but not the same tree.
+	 */
+	public enum Splaying {
+		//records the search path, then rotates the node up along it (the original algorithm)
+		BOTTOM_UP,
+		//restructures the tree while searching, in one pass and in constant extra space
+		TOP_DOWN
+	}
+	
+	/**
+	 * Creates a tree with the values and the ordering of the sorted set, in O(n)
+	 */
+	public SplayTree(SortedSet<E> sorted)
+	{
+		this(sorted.comparator());
+		loadSorted(sorted.iterator(), sorted.size());
+	}
+	
+	/**
+	 * Creates a tree with the values of the array, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <E> SplayTree<E> fromSorted(E[] sorted, Comparator<? super E> comparator)
+	{
+		SplayTree<E> tree = new SplayTree<E>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
+	/**
+	 * Creates a tree with the values returned by the iterator, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <E> SplayTree<E> fromSorted(Iterator<? extends E> sorted, Comparator<? super E> comparator)
+	{
+		SplayTree<E> tree = new SplayTree<E>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
 	/////
 	//IMPLEMENTATION
 	////
@@ -29,9 +138,7 @@ public class SplayTree<E> extends RankedTree <E> {
 	@Override
 	protected boolean internalContains(E val)
 	{
-		//splaying moves an element to the root of the tree
-		splay(val);
-		return compareValues(val, getRoot()) == 0;
+		return lookup(val);
 	}
 	
 	
@@ -103,6 +210,57 @@ public class SplayTree<E> extends RankedTree <E> {
 	}
 	
 	
+	////
+	//RANGES
+	////
+	
+	@Override
+	//Algorithm: split off the tail at the lowerbound, split the range off that tail at the upperbound and join the rest back in
+	//O(log n) amortized, the nodes of the range are left to the garbage collector
+	public void removeRange(E lowerbound, E upperbound, boolean fromInclusive, boolean toInclusive)
+	{
+		if (lowerbound != null && upperbound != null && compareValues(lowerbound, upperbound) > 0) throw new IllegalArgumentException();
+		
+		detachments++;
+		
+		//the tree keeps the values below the range
+		TreeNode<E> tail;
+		if (lowerbound == null) {
+			tail = getRoot();
+			setRoot(null);
+		} else {
+			tail = splitOffTail(lowerbound);
+			if (!fromInclusive && compareValues(tail, lowerbound) == 0) {//the lowerbound is at the root of the tail and stays in the tree
+				TreeNode<E> equal = tail;
+				tail = equal.getRightChild();
+				equal.setRightChild(null);
+				joinUp(equal);
+			}
+		}
+		if (tail == null || upperbound == null) return;
+		
+		//split the values above the range off the tail
+		TreeNode<E> head = getRoot();
+		setRoot(tail);
+		tail = splitOffTail(upperbound);
+		if (toInclusive && compareValues(tail, upperbound) == 0) {
+			tail = tail.getRightChild();
+		}
+		setRoot(head);
+		joinIn(tail);
+		
+		assert checkInvariants();
+	}
+	
+	@Override
+	//the node is restructured like a lookup, so that the fingers take O(log d) amortized time by the dynamic finger theorem
+	protected void fingerDidMove(TreeNode<E> node)
+	{
+		if (node != null) {
+			lookup(node.getValue());
+		}
+	}
+	
 	////
 	//IMPLEMENTATION :: NAVIGATION
 	////
@@ -111,7 +269,7 @@ public class SplayTree<E> extends RankedTree <E> {
 	//not inclusive
 	public E succedingValue(E value)
 	{
-		assert getRoot() != null;
+		if (getRoot() == null) return null;
 		E result;
 		
 		splay(value);
@@ -135,7 +293,7 @@ public class SplayTree<E> extends RankedTree <E> {
 	//not inclusive
 	protected E precedingValue(E value)
 	{
-		assert getRoot() != null;
+		if (getRoot() == null) return null;
 		E result;
 		
 		splay(value);
@@ -242,7 +400,7 @@ public class SplayTree<E> extends RankedTree <E> {
 	public E get(int index)
 	{
 		E result = super.get(index);
-		splay(result);
+		lookup(result);
 		return result;
 	}
 	
@@ -250,41 +408,186 @@ public class SplayTree<E> extends RankedTree <E> {
 	public int indexOf(E value)
 	{
 		if (!isEmpty()) {
-			splay(value);
+			lookup(value);
 		}
 		int result = super.indexOf(value);
 		return result;
 	}
 	
+	/////
+	//IMPLEMENTATION: LOOKUP
+	/////
+	
+	//returns true if the value is in the tree and restructures the tree according to the lookup mode
+	private boolean lookup(E val)
+	{
+		if (getRoot() == null) return false;
+		
+		switch (lookup) {
+		case SEMI_SPLAY:
+			int traceLength = find(val);
+			boolean found = compareValues(val, trace[traceLength-1]) == 0;
+			semiSplay(traceLength);
+			return found;
+		case PERIODIC:
+			lookupsSinceSplay++;
+			if (lookupsSinceSplay < (lookupParameter > 0 ? lookupParameter : defaultSplayPeriod)) {
+				return findNodeWithValueStartingFrom(getRoot(), val) != null;
+			}
+			lookupsSinceSplay = 0;
+			break;
+		case DEEP:
+			//search and count the depth of the search path
+			TreeNode<E> current = getRoot();
+			int depth = 0;
+			int comparison;
+			while (current != null && (comparison = compareValues(val, current)) != 0) {
+				current = current.getChild(comparison);
+				depth++;
+			}
+			int threshold = lookupParameter > 0 ? lookupParameter : 2*BinaryMath.log(size()+1);
+			if (depth <= threshold) return current != null;
+			break;
+		case READ_ONLY:
+			return findNodeWithValueStartingFrom(getRoot(), val) != null;
+		default:
+			break;
+		}
+		
+		//splaying moves an element to the root of the tree
+		splay(val);
+		return compareValues(val, getRoot()) == 0;
+	}
+	
+	//semi-splaying as described by Sleator and Tarjan, using the first traceLength nodes of the trace
+	//in the zig-zig case, the parent is rotated over the grandparent and the semi-splay continues from the parent, else a zig-zag moves the node up
+	//either way, the semi-splay continues from the node that took the place of the grandparent
+	private void semiSplay(int traceLength)
+	{
+		//trace[0] is the metaRoot, so a node at index 3 or higher has a parent and a grandparent in the tree
+		for (int current = traceLength-1; current >= 3; current-=2) {
+			TreeNode<E> node = trace[current];
+			TreeNode<E> parent = trace[current-1];
+			TreeNode<E> grandparent = trace[current-2];
+			TreeNode<E> above = trace[current-3];
+			
+			if (grandparent.childDirection(parent) == parent.childDirection(node)) {
+				treeRotateUp(parent, grandparent, above);
+				trace[current-2] = parent;
+			} else {
+				splayStep(node, parent, grandparent);
+				above.replaceChild(grandparent, node);
+				trace[current-2] = node;
+			}
+		}
+		assert checkInvariants();
+	}
+	
 	/////
 	//IMPLEMENTATION: SPLAYING
 	/////
 	
 	
 	//if the value is contained in the tree, it will be the root of the tree after this operation
-	//else, the root will either be the higher or lower value to 'val'
+	//else, the root will either be the higher or lower value to 'val'. splaying an empty tree does nothing
 	private void splay(E val)
 	{
-		assert (getRoot() != null);
+		if (getRoot() == null) return;
+		
+		if (splaying == Splaying.TOP_DOWN) {
+			splayTopDown(val);
+		} else {
+			splay(find(val));
+		}
+	}
+	
+	
+	//top down splaying as described by Sleator and Tarjan, with the size maintenance of Sleator's top-down-size-splay:
+	//the nodes smaller than the search path are collected in a left tree, the greater ones in a right tree, and at the end they become the subtrees of the last node on the path
+	//the left tree hangs off the right child of the splayHeader, its bottom right node is 'left'. Symmetrically for the right tree.
+	private void splayTopDown(E val)
+	{
+		TreeNode<E> current = getRoot();
+		TreeNode<E> left = splayHeader;
+		TreeNode<E> right = splayHeader;
+		splayHeader.setLeftChild(null);
+		splayHeader.setRightChild(null);
+		int leftSize = 0;
+		int rightSize = 0;
 		
-		ArrayList<TreeNode<E>> trace = find(val);
-		splay(trace);
+		while (true) {
+			int comparison = Integer.signum(compareValues(val, current));
+			if (comparison == 0) break;
+			
+			TreeNode<E> child = current.getChild(comparison);
+			if (child == null) break;
+			if (Integer.signum(compareValues(val, child)) == comparison) {//zig-zig: rotate the child up
+				current.setChild(comparison, child.getChild(-comparison));
+				child.setChild(-comparison, current);
+				current = child;
+				child = current.getChild(comparison);
+				if (child == null) break;
+			}
+			//link: current and its subtree on the other side move to the left or right tree
+			if (comparison < 0) {
+				right.setLeftChild(current);
+				right = current;
+				rightSize += 1+size(current.getRightChild());
+			} else {
+				left.setRightChild(current);
+				left = current;
+				leftSize += 1+size(current.getLeftChild());
+			}
+			current = child;
+		}
+		
+		//assemble
+		leftSize += size(current.getLeftChild());
+		rightSize += size(current.getRightChild());
+		left.setRightChild(current.getLeftChild());
+		right.setLeftChild(current.getRightChild());
+		
+		//the links above left the sizes on the spines of the left and right trees stale: the spine nodes are corrected from the top, as the size of the whole tree is known
+		if (left != splayHeader) {
+			for (TreeNode<E> node = splayHeader.getRightChild(); node != left; node = node.getRightChild()) {
+				((RankedTreeNode<E>)node).setSize(leftSize);
+				leftSize -= 1+size(node.getLeftChild());
+			}
+			assert leftSize == size(left);
+		}
+		if (right != splayHeader) {
+			for (TreeNode<E> node = splayHeader.getLeftChild(); node != right; node = node.getLeftChild()) {
+				((RankedTreeNode<E>)node).setSize(rightSize);
+				rightSize -= 1+size(node.getRightChild());
+			}
+			assert rightSize == size(right);
+		}
+		
+		//if the left tree is empty, the right child of the splayHeader is the left subtree of 'current'. Symmetrically for the right tree.
+		current.setLeftChild(splayHeader.getRightChild());
+		current.setRightChild(splayHeader.getLeftChild());
+		setRoot(current);
+		splayHeader.setLeftChild(null);
+		splayHeader.setRightChild(null);
+		
+		assert treeIsSplayedAroundValue(getRoot(), current.getValue());
+		assert checkInvariants();
 	}
 	
 	
-	//splay using the trace provided. the root of the subtree to be modified must be at index 1, its parent at index 0. The node to be splayed is at the last index.
-	private void splay(ArrayList<TreeNode<E>> trace)
+	//splay using the first traceLength nodes of the trace. the root of the subtree to be modified must be at index 1, its parent at index 0. The node to be splayed is at the last index.
+	private void splay(int traceLength)
 	{
 		assert isInOrder();
 		
-		int current = trace.size()-1;
-		TreeNode<E> found = trace.get(current);
+		int current = traceLength-1;
+		TreeNode<E> found = trace[current];
 		
 		//perform zig-zig and zig-zags
 		for (; current >= 3; current-=2) {
-			TreeNode<E>	parent = trace.get(current-1);
-			TreeNode<E> grandparent = trace.get(current-2);
-			TreeNode<E> grandgrandparent = trace.get(current-3);
+			TreeNode<E>	parent = trace[current-1];
+			TreeNode<E> grandparent = trace[current-2];
+			TreeNode<E> grandgrandparent = trace[current-3];
 			
 			splayStep(found, parent, grandparent);
 			grandgrandparent.replaceChild(grandparent, found);
@@ -292,7 +595,7 @@ public class SplayTree<E> extends RankedTree <E> {
 		
 		//in the odd case, a final zig is necessary to promote the node with value 'val' to the root
 		if (current == 2) {
-			zig(found, trace.get(1), trace.get(0));
+			zig(found, trace[1], trace[0]);
 		}
 		
 		assert treeIsSplayedAroundValue(getRoot(), found.getValue());
@@ -404,4 +707,10 @@ public class SplayTree<E> extends RankedTree <E> {
 	final Out<TreeNode<E>> lower = new Out<TreeNode<E>>();
 	final Out<TreeNode<E>> higher = new Out<TreeNode<E>>();
 	final Random rand = new Random();
+	private final Splaying splaying;
+	private Lookup lookup = Lookup.SPLAY;
+	private int lookupParameter;
+	private int lookupsSinceSplay;
+	private static final int defaultSplayPeriod = 16;
+	private final TreeNode<E> splayHeader = newNode(null);//the roots of the left and right trees of the top down splay hang off this node
 }
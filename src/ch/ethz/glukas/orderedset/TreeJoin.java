@@ -0,0 +1,30 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.Random;
+
+/**
+ * The join of a tree whose balance allows trees to be joined (see BinarySearchTree.treeJoin).
+ * With a join, the set operations combine trees by splits and joins instead of merging their values.
+ *
+ * @author Lukas Gianinazzi
+ *
+ */
+abstract class TreeJoin<T> {
+
+	//returns a tree of the values of 'left' and 'right', where all values of 'left' are smaller than all values of 'right'. Both trees are consumed.
+	//random is local to the calling task
+	abstract TreeNode<T> join(TreeNode<T> left, TreeNode<T> right, Random random);
+
+	//joins 'left', the single node 'middle' and 'right', where left < middle < right
+	TreeNode<T> join(TreeNode<T> left, TreeNode<T> middle, TreeNode<T> right, Random random)
+	{
+		middle.setLeftChild(null);
+		middle.setRightChild(null);
+		return join(join(left, middle, random), right, random);
+	}
+
+	//returns true if the root of 'a' should become the root of the union of the non-empty trees 'a' and 'b', false if the root of 'b' should
+	//the subtrees of the chosen root are replaced by the unions of its subtrees with the halves of the other tree, without a join
+	//random is local to the calling task
+	abstract boolean unionKeepsRootOf(TreeNode<T> a, TreeNode<T> b, Random random);
+}
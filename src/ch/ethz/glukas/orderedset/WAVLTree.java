@@ -0,0 +1,320 @@
+package ch.ethz.glukas.orderedset;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.SortedSet;
+
+/**
+ * Implements the weak AVL tree (rank-balanced tree) introduced by Bernhard Haeupler, Siddhartha Sen and Robert E. Tarjan:
+ * "Rank-Balanced Trees", ACM Transactions on Algorithms 11(4), 2015
+ * 
+ * Every node has a rank, the rank of a missing child is -1. The rank difference of a node and its child is 1 or 2, and the leaves have rank 0.
+ * This bounds the height by 2 log n, so add, remove, contains, the navigation and the access by rank take O(log n) worst case time.
+ * An update does O(1) amortized rank changes and at most two rotations, and the trees that are built by insertions only are AVL trees.
+ * 
+ * Unlike RandomizedBST, SplayTree and ScapegoatTree, the structure is deterministic and has no amortized or expected bounds on single operations,
+ * so it is meant for workloads that care about the latency of every operation.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+public class WAVLTree<T> extends RankedTree<T> {
+
+	////
+	//CONSTRUCTION
+	//the bulk loading constructor and factories build a balanced tree in linear time
+	////
+	
+	public WAVLTree()
+	{
+		super();
+	}
+	
+	//if comparator is null, the natural ordering is used
+	public WAVLTree(Comparator<? super T> comparator)
+	{
+		super(comparator);
+	}
+	
+	/**
+	 * Creates a tree with the values and the ordering of the sorted set, in O(n)
+	 */
+	public WAVLTree(SortedSet<T> sorted)
+	{
+		super(sorted.comparator());
+		loadSorted(sorted.iterator(), sorted.size());
+	}
+	
+	/**
+	 * Creates a tree with the values of the array, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> WAVLTree<T> fromSorted(T[] sorted, Comparator<? super T> comparator)
+	{
+		WAVLTree<T> tree = new WAVLTree<T>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
+	/**
+	 * Creates a tree with the values returned by the iterator, in O(n)
+	 * @param sorted values in strictly ascending order with respect to the comparator
+	 * @param comparator if null, the natural ordering is used
+	 */
+	public static <T> WAVLTree<T> fromSorted(Iterator<? extends T> sorted, Comparator<? super T> comparator)
+	{
+		WAVLTree<T> tree = new WAVLTree<T>(comparator);
+		tree.loadSorted(sorted);
+		return tree;
+	}
+	
+	@Override
+	protected TreeNode<T> newNode(T val)
+	{
+		return new WAVLTreeNode<T>(val);
+	}
+	
+	///
+	//COLLECTION
+	///
+	
+	protected boolean internalAdd(T value)
+	{
+		setRoot(internalAdd(value, getRoot()));
+		assert ranksConsistent(getRoot());
+		return lastOperationDidModify;
+	}
+	
+	protected boolean internalRemove(T value)
+	{
+		setRoot(internalRemove(value, getRoot()));
+		assert ranksConsistent(getRoot());
+		return lastOperationDidModify;
+	}
+	
+	////
+	//IMPLEMENTATION
+	//the updates are recursive: the sizes are adjusted by setChild on the way back up, and each node repairs the rank rule between itself and its children
+	//the repairs stop changing ranks after O(1) amortized steps, the remaining steps of the recursion only compare ranks
+	////
+	
+	//sets lastOperationDidModify
+	private TreeNode<T> internalAdd(T value, TreeNode<T> r)
+	{
+		if (r == null) {
+			lastOperationDidModify = true;
+			return newNode(value);
+		}
+		
+		int comparison = compareValues(value, r);
+		if (comparison == 0) {
+			lastOperationDidModify = false;
+			return r;
+		}
+		
+		int direction = Integer.signum(comparison);
+		r.setChild(direction, internalAdd(value, r.getChild(direction)));
+		return rebalanceAfterInsertion(r, direction);
+	}
+	
+	//the subtree in 'direction' grew, so the child may be a 0-child of r
+	//returns the root of the subtree
+	private TreeNode<T> rebalanceAfterInsertion(TreeNode<T> r, int direction)
+	{
+		TreeNode<T> child = r.getChild(direction);
+		if (rankDifference(r, child) != 0) return r;
+		
+		TreeNode<T> sibling = r.getChild(-direction);
+		if (rankDifference(r, sibling) == 1) {//0,1 node: promote, the parent checks its rank difference
+			promote(r);
+			return r;
+		}
+		
+		//0,2 node: the rank of r stays, so the rotations end the rebalancing
+		TreeNode<T> inner = child.getChild(-direction);
+		if (rankDifference(child, inner) == 2) {//single rotation
+			treeRotate(child, r, direction);
+			demote(r);
+			return child;
+		} else {//double rotation
+			treeRotate(inner, child, -direction);
+			r.setChild(direction, inner);
+			treeRotate(inner, r, direction);
+			promote(inner);
+			demote(child);
+			demote(r);
+			return inner;
+		}
+	}
+	
+	//sets lastOperationDidModify
+	private TreeNode<T> internalRemove(T value, TreeNode<T> r)
+	{
+		if (r == null) {
+			lastOperationDidModify = false;
+			return null;
+		}
+		
+		int comparison = compareValues(value, r);
+		if (comparison != 0) {
+			int direction = Integer.signum(comparison);
+			r.setChild(direction, internalRemove(value, r.getChild(direction)));
+			return rebalanceAfterRemoval(r, direction);
+		}
+		
+		lastOperationDidModify = true;
+		if (r.getLeftChild() == null) return r.getRightChild();
+		if (r.getRightChild() == null) return r.getLeftChild();
+		
+		//the successor takes the place and the rank of r
+		TreeNode<T> right = removeFirst(r.getRightChild());
+		TreeNode<T> successor = removedFirst;
+		removedFirst = null;
+		setRank(successor, rank(r));
+		successor.setLeftChild(r.getLeftChild());
+		successor.setRightChild(right);
+		return rebalanceAfterRemoval(successor, 1);
+	}
+	
+	//removes the smallest node of the subtree and stores it in removedFirst, returns the root of the subtree
+	private TreeNode<T> removeFirst(TreeNode<T> r)
+	{
+		if (r.getLeftChild() == null) {
+			removedFirst = r;
+			return r.getRightChild();
+		}
+		r.setLeftChild(removeFirst(r.getLeftChild()));
+		return rebalanceAfterRemoval(r, -1);
+	}
+	
+	//the subtree in 'direction' shrank, so the child may be a 3-child of r, or r may be a 2,2 leaf
+	//returns the root of the subtree
+	private TreeNode<T> rebalanceAfterRemoval(TreeNode<T> r, int direction)
+	{
+		if (!r.hasChildren()) {
+			if (rank(r) == 1) {//2,2 leaf: demote, the parent checks its rank difference
+				demote(r);
+			}
+			return r;
+		}
+		
+		TreeNode<T> child = r.getChild(direction);
+		if (rankDifference(r, child) <= 2) return r;
+		
+		//the child is a 3-child
+		TreeNode<T> sibling = r.getChild(-direction);
+		if (rankDifference(r, sibling) == 2) {//3,2 node: demote, the parent checks its rank difference
+			demote(r);
+			return r;
+		}
+		
+		TreeNode<T> outer = sibling.getChild(-direction);
+		TreeNode<T> inner = sibling.getChild(direction);
+		if (rankDifference(sibling, outer) == 2 && rankDifference(sibling, inner) == 2) {//the sibling is a 2,2 node: demote both
+			demote(r);
+			demote(sibling);
+			return r;
+		}
+		
+		//rotations: the subtree keeps its rank, so the rebalancing ends
+		if (rankDifference(sibling, outer) == 1) {//single rotation
+			treeRotate(sibling, r, -direction);
+			promote(sibling);
+			demote(r);
+			if (!r.hasChildren()) {//r would be a 2,2 leaf
+				demote(r);
+			}
+			return sibling;
+		} else {//double rotation
+			treeRotate(inner, sibling, direction);
+			r.setChild(-direction, inner);
+			treeRotate(inner, r, -direction);
+			setRank(inner, rank(inner)+2);
+			setRank(r, rank(r)-2);
+			demote(sibling);
+			return inner;
+		}
+	}
+	
+	@Override
+	//the ranks of a balanced tree built by bulk loading are the heights of the nodes
+	protected void didRebuild(int size)
+	{
+		assignHeightsAsRanks(getRoot());
+		assert ranksConsistent(getRoot());
+	}
+	
+	private int assignHeightsAsRanks(TreeNode<T> r)
+	{
+		if (r == null) return -1;
+		int height = Math.max(assignHeightsAsRanks(r.getLeftChild()), assignHeightsAsRanks(r.getRightChild()))+1;
+		setRank(r, height);
+		return height;
+	}
+	
+	////
+	//RANKS
+	////
+	
+	private int rank(TreeNode<T> node)
+	{
+		if (node == null) return -1;
+		return ((WAVLTreeNode<T>)node).getRank();
+	}
+	
+	private void setRank(TreeNode<T> node, int rank)
+	{
+		((WAVLTreeNode<T>)node).setRank(rank);
+	}
+	
+	private int rankDifference(TreeNode<T> parent, TreeNode<T> child)
+	{
+		return rank(parent)-rank(child);
+	}
+	
+	private void promote(TreeNode<T> node)
+	{
+		setRank(node, rank(node)+1);
+	}
+	
+	private void demote(TreeNode<T> node)
+	{
+		setRank(node, rank(node)-1);
+	}
+	
+	//the number of nodes on the longest path from the root to a leaf
+	int height()
+	{
+		return height(getRoot());
+	}
+	
+	private int height(TreeNode<T> r)
+	{
+		if (r == null) return 0;
+		return Math.max(height(r.getLeftChild()), height(r.getRightChild()))+1;
+	}
+	
+	///
+	//INVARIANTS
+	//the rank rule is checked after the updates, not by checkInvariants: the rotations check the invariants while the ranks are being repaired
+	///
+	
+	protected boolean ranksConsistent(TreeNode<T> r)
+	{
+		if (r == null) return true;
+		int left = rankDifference(r, r.getLeftChild());
+		int right = rankDifference(r, r.getRightChild());
+		boolean result = left >= 1 && left <= 2 && right >= 1 && right <= 2;
+		result = result && (r.hasChildren() || rank(r) == 0);
+		assert result;
+		return result && ranksConsistent(r.getLeftChild()) && ranksConsistent(r.getRightChild());
+	}
+	
+	///
+	//INSTANCE VARIABLES
+	///
+	
+	private boolean lastOperationDidModify;
+	private TreeNode<T> removedFirst;//written by removeFirst
+}
@@ -0,0 +1,28 @@
+package ch.ethz.glukas.orderedset;
+
+/**
+ * A LinkedRankedTreeNode with the rank of the weak AVL tree (see WAVLTree).
+ * The rank of a missing child is -1.
+ * 
+ * @author Lukas Gianinazzi
+ *
+ */
+class WAVLTreeNode<T> extends LinkedRankedTreeNode<T> {
+
+	public WAVLTreeNode(T value)
+	{
+		super(value);
+	}
+	
+	public int getRank()
+	{
+		return rank;
+	}
+	
+	public void setRank(int rank)
+	{
+		this.rank = rank;
+	}
+	
+	private int rank;//a new node is a leaf of rank 0
+}
@@ -2,6 +2,10 @@ package ch.ethz.glukas.orderedmap;
 
 import static org.junit.Assert.*;
 
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
 import org.junit.Test;
 
 public class CharMapTest {
@@ -23,4 +27,84 @@ public class CharMapTest {
 		map = new CharMap<Integer>();
 	}
 	
+	//with a low threshold, most redistributions run in parallel
+	@Test
+	public void testParallelRedistribution()
+	{
+		CharMap<Integer> map = new CharMap<Integer>();
+		map.setParallelRedistributionThreshold(64);
+		TreeMap<Character, Integer> control = new TreeMap<Character, Integer>();
+		Random rand = new Random(1);
+		for (int i=0; i<30000; i++) {
+			char next = (char)(rand.nextInt(Character.MAX_VALUE)+1);
+			assertEquals(control.put(next, i), map.put(next, i));
+		}
+		assertEquals(control.size(), map.size());
+		for (Map.Entry<Character, Integer> entry : control.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+	}
+	
+	//batches of different sizes with duplicate keys and keys that are already present
+	@Test
+	public void testPutAll()
+	{
+		CharMap<Integer> map = new CharMap<Integer>();
+		TreeMap<Character, Integer> control = new TreeMap<Character, Integer>();
+		map.putAll(new char[0], new Integer[0]);
+		assertEquals(0, map.size());
+		Random rand = new Random(2);
+		int value = 0;
+		for (int i=0; i<300; i++) {
+			int length = rand.nextInt(i % 30 == 0 ? 3000 : 60);
+			char[] keys = new char[length];
+			Integer[] values = new Integer[length];
+			for (int j=0; j<length; j++) {
+				keys[j] = (char)(rand.nextInt(20000)+1);
+				values[j] = value++;
+				control.put(keys[j], values[j]);
+			}
+			map.putAll(keys, values);
+			char next = (char)(rand.nextInt(20000)+1);
+			assertEquals(control.put(next, value), map.put(next, value));
+			value++;
+			assertEquals(control.size(), map.size());
+		}
+		for (Map.Entry<Character, Integer> entry : control.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+		
+		//batches of keys that are all present already replace the values
+		CharMap<Integer> small = new CharMap<Integer>();
+		small.put((char)5, 5);
+		small.putAll(new char[] {5}, new Integer[] {7});
+		assertEquals(1, small.size());
+		assertEquals(Integer.valueOf(7), small.get((char)5));
+		small = new CharMap<Integer>();
+		small.putAll(new char[] {3, 5}, new Integer[] {3, 5});
+		small.putAll(new char[] {3, 5}, new Integer[] {4, 6});
+		assertEquals(2, small.size());
+		assertEquals(Integer.valueOf(4), small.get((char)3));
+		assertEquals(Integer.valueOf(6), small.get((char)5));
+		char[] present = new char[control.size()];
+		Integer[] newValues = new Integer[present.length];
+		int index = 0;
+		for (Character key : control.keySet()) {
+			present[index] = key;
+			newValues[index++] = value++;
+		}
+		map.putAll(present, newValues);
+		assertEquals(control.size(), map.size());
+		for (int i=0; i<present.length; i++) {
+			assertEquals(newValues[i], map.get(present[i]));
+		}
+		
+		try {
+			map.putAll(new char[] {1, 0}, new Integer[] {1, 2});
+			fail();
+		} catch (IllegalArgumentException e) {
+			//expected
+		}
+	}
+	
 }
@@ -2,10 +2,18 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.IntConsumer;
 
 import org.junit.Test;
 
@@ -56,6 +64,469 @@ public class COBTreeTest {
 	}
 	
 	
+	@Test
+	public void testRemove()
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		COBTree pma = new COBTree();
+		Random rand = new Random(5);
+		assertFalse(pma.remove(1));
+		for (int i=0; i<20000; i++) {
+			int next = rand.nextInt(5000)+1;
+			if (rand.nextInt(3) == 0) {
+				assertEquals(control.remove(next), pma.remove(next));
+			} else {
+				pma.insert(next);
+				control.add(next);
+			}
+			assertEquals(control.size(), pma.size());
+		}
+		assertEqualSets(pma, control);
+		
+		//removing all but a few keys shrinks the array
+		int capacity = pma.capacity();
+		while (control.size() > 10) {
+			int next = control.pollFirst();
+			assertTrue(pma.remove(next));
+			assertFalse(pma.contains(next));
+		}
+		assertEqualSets(pma, control);
+		assertTrue(pma.capacity() < capacity/16);
+		assertTrue(pma.checkInvariants());
+		
+		for (Integer i : new TreeSet<Integer>(control)) {
+			assertTrue(pma.remove(i));
+		}
+		assertEquals(0, pma.size());
+		assertFalse(pma.contains(control.first()));
+	}
+	
+	@Test
+	public void testValues()
+	{
+		TreeMap<Integer, Long> control = new TreeMap<Integer, Long>();
+		COBTree pma = new COBTree();
+		Random rand = new Random(7);
+		pma.insert(3);
+		control.put(3, 0L);
+		for (int i=0; i<20000; i++) {
+			int next = rand.nextInt(3000)+1;
+			long value = rand.nextLong();
+			if (rand.nextInt(4) == 0) {
+				assertEquals(control.remove(next) != null, pma.remove(next));
+			} else {
+				Long previous = control.put(next, value);
+				assertEquals(previous == null ? 0 : (long)previous, pma.put(next, value));
+			}
+		}
+		assertEquals(control.size(), pma.size());
+		for (Map.Entry<Integer, Long> entry : control.entrySet()) {
+			assertEquals((long)entry.getValue(), pma.get(entry.getKey()));
+		}
+		assertEquals(0, pma.get(3001));
+	}
+	
+	@Test
+	public void testNavigation()
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		COBTree pma = new COBTree();
+		Random rand = new Random(9);
+		assertEquals(0, pma.ceiling(1));
+		assertEquals(0, pma.lower(1));
+		assertEquals(0, pma.first());
+		assertEquals(0, pma.last());
+		for (int i=0; i<5000; i++) {
+			int next = rand.nextInt(20000)-10000;
+			if (next == 0) continue;
+			if (rand.nextInt(4) == 0) {
+				control.remove(next);
+				pma.remove(next);
+			} else {
+				control.add(next);
+				pma.insert(next);
+			}
+		}
+		for (int key=-10010; key<=10010; key+=3) {
+			assertEquals(orZero(control.ceiling(key)), pma.ceiling(key));
+			assertEquals(orZero(control.higher(key)), pma.higher(key));
+			assertEquals(orZero(control.floor(key)), pma.floor(key));
+			assertEquals(orZero(control.lower(key)), pma.lower(key));
+		}
+		assertEquals((int)control.first(), pma.first());
+		assertEquals((int)control.last(), pma.last());
+	}
+	
+	@Test
+	public void testScan()
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		COBTree pma = new COBTree();
+		randomFill(pma, control, 11);
+	
+		final List<Integer> scanned = new ArrayList<Integer>();
+		IntConsumer consumer = new IntConsumer() {
+			public void accept(int key)
+			{
+				scanned.add(key);
+			}
+		};
+		Random rand = new Random(12);
+		for (int i=0; i<500; i++) {
+			int from = rand.nextInt(22000)-11000;
+			int to = from+rand.nextInt(i < 250 ? 200 : 22000);
+			scanned.clear();
+			NavigableSet<Integer> expected = control.subSet(from, true, to, true);
+			assertEquals(expected.size(), pma.scan(from, to, consumer));
+			assertEquals(new ArrayList<Integer>(expected), scanned);
+			assertEquals(expected.size(), pma.sizeOfRange(from, to));
+		}
+		scanned.clear();
+		assertEquals(control.size(), pma.scan(Integer.MIN_VALUE, Integer.MAX_VALUE, consumer));
+		assertEquals(new ArrayList<Integer>(control), scanned);
+		assertEquals(control.size(), pma.sizeOfRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		assertEquals(0, pma.scan(10, 9, consumer));
+		assertEquals(0, pma.sizeOfRange(10, 9));
+		assertEquals(0, new COBTree().scan(Integer.MIN_VALUE, Integer.MAX_VALUE, consumer));
+	}
+	
+	@Test
+	public void testCursor()
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		COBTree pma = new COBTree();
+		randomFill(pma, control, 13);
+		for (int key : control) {
+			pma.put(key, 3L*key);
+		}
+	
+		//a single cursor is reused for all ranges
+		COBTree.Cursor cursor = pma.cursor();
+		assertFalse(cursor.hasNext());
+		Random rand = new Random(14);
+		for (int i=0; i<500; i++) {
+			int from = rand.nextInt(22000)-11000;
+			int to = from+rand.nextInt(i < 250 ? 200 : 22000);
+			cursor.reset(from, to);
+			for (int expected : control.subSet(from, true, to, true)) {
+				assertTrue(cursor.hasNext());
+				assertEquals(expected, cursor.nextKey());
+				assertEquals(3L*expected, cursor.value());
+			}
+			assertFalse(cursor.hasNext());
+		}
+	
+		cursor = pma.cursor(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		for (int expected : control) {
+			assertEquals(expected, cursor.nextKey());
+		}
+		assertFalse(cursor.hasNext());
+		try {
+			cursor.nextKey();
+			fail();
+		} catch (NoSuchElementException e) {
+			//expected
+		}
+	}
+	
+	@Test
+	public void testKeyStream()
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		COBTree pma = new COBTree();
+		randomFill(pma, control, 18);
+	
+		Random rand = new Random(19);
+		for (int i=0; i<200; i++) {
+			int from = rand.nextInt(22000)-11000;
+			int to = from+rand.nextInt(i < 100 ? 200 : 22000);
+			NavigableSet<Integer> expected = control.subSet(from, true, to, true);
+			assertEquals(expected.size(), pma.keys(from, to).count());
+			int[] keys = pma.keys(from, to).toArray();
+			assertEquals(expected.size(), keys.length);
+			int index = 0;
+			for (int key : expected) {
+				assertEquals(key, keys[index++]);
+			}
+		}
+		long sum = 0;
+		for (int key : control) {
+			sum += key;
+		}
+		assertEquals(sum, pma.keys(Integer.MIN_VALUE, Integer.MAX_VALUE).asLongStream().sum());
+		assertEquals(control.size(), pma.keys(Integer.MIN_VALUE, Integer.MAX_VALUE).parallel().count());
+		assertEquals(0, pma.keys(10, 9).count());
+		assertEquals(0, new COBTree().keys(Integer.MIN_VALUE, Integer.MAX_VALUE).count());
+	}
+	
+	//with a low threshold, most redistributions (including the rebuilds that grow and shrink the array) run in parallel
+	@Test
+	public void testParallelRedistribution()
+	{
+		TreeMap<Integer, Long> control = new TreeMap<Integer, Long>();
+		COBTree pma = new COBTree();
+		pma.setParallelRedistributionThreshold(64);
+		Random rand = new Random(15);
+		for (int i=0; i<100000; i++) {
+			int next = rand.nextInt(40000)+1;
+			if (i > 60000 && rand.nextInt(3) != 0) {
+				assertEquals(control.remove(next) != null, pma.remove(next));
+			} else {
+				long value = rand.nextLong();
+				Long previous = control.put(next, value);
+				assertEquals(previous == null ? 0 : (long)previous, pma.put(next, value));
+			}
+		}
+		assertTrue(pma.checkInvariants());
+		assertEquals(control.size(), pma.size());
+		COBTree.Cursor cursor = pma.cursor(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		for (Map.Entry<Integer, Long> entry : control.entrySet()) {
+			assertEquals((int)entry.getKey(), cursor.nextKey());
+			assertEquals((long)entry.getValue(), cursor.value());
+		}
+		assertFalse(cursor.hasNext());
+	}
+	
+	//with a low threshold, the structure is rebuilt incrementally many times while it grows and shrinks
+	//the lookups are checked while the rebuilds are in progress
+	@Test
+	public void testIncrementalRebuild()
+	{
+		TreeMap<Integer, Long> control = new TreeMap<Integer, Long>();
+		COBTree pma = new COBTree();
+		pma.setIncrementalRebuildThreshold(256);
+		Random rand = new Random(16);
+		int rebuildingOperations = 0;
+		for (int i=0; i<120000; i++) {
+			int next = rand.nextInt(30000)+1;
+			int operation = rand.nextInt(8);
+			boolean growing = i < 60000;
+			if (operation < (growing ? 2 : 5)) {
+				assertEquals(control.remove(next) != null, pma.remove(next));
+			} else if (operation < (growing ? 4 : 6)) {
+				if (!control.containsKey(next)) {
+					control.put(next, 0L);
+				}
+				pma.insert(next);
+			} else if (operation < 7) {
+				long value = rand.nextLong();
+				Long previous = control.put(next, value);
+				assertEquals(previous == null ? 0 : (long)previous, pma.put(next, value));
+			} else if (i % 64 == 7) {
+				boolean wasRebuilding = pma.isRebuilding();
+				assertEquals(orZero(control.ceilingKey(next)), pma.ceiling(next));
+				assertEquals(wasRebuilding, pma.isRebuilding());
+			}
+			assertEquals(control.containsKey(next), pma.contains(next));
+			assertEquals(control.containsKey(next) ? (long)control.get(next) : 0, pma.get(next));
+			assertEquals(control.size(), pma.size());
+			if (pma.isRebuilding()) rebuildingOperations++;
+		}
+		assertTrue(rebuildingOperations > 100);
+		
+		COBTree.Cursor cursor = pma.cursor(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		for (Map.Entry<Integer, Long> entry : control.entrySet()) {
+			assertEquals((int)entry.getKey(), cursor.nextKey());
+			assertEquals((long)entry.getValue(), cursor.value());
+		}
+		assertFalse(cursor.hasNext());
+		assertTrue(pma.checkInvariants());
+		
+		//sequential keys, the worst case of the packed memory array
+		pma = new COBTree();
+		pma.setIncrementalRebuildThreshold(1024);
+		for (int i=1; i<=50000; i++) {
+			pma.insert(i);
+			assertTrue(pma.contains(i));
+			assertTrue(pma.contains((i+1)/2));
+			assertEquals(i, pma.size());
+		}
+		assertEquals(50000, pma.sizeOfRange(1, 50000));
+	}
+	
+	//the navigation, scans and cursors combine the arrays with the pending modifications, and do not advance the rebuild
+	@Test
+	public void testReadsDuringIncrementalRebuild()
+	{
+		TreeMap<Integer, Long> control = new TreeMap<Integer, Long>();
+		COBTree pma = new COBTree();
+		pma.setIncrementalRebuildThreshold(256);
+		Random rand = new Random(20);
+		int checkedWhileRebuilding = 0;
+		for (int i=0; i<120000; i++) {
+			int next = rand.nextInt(30000)+1;
+			int operation = rand.nextInt(8);
+			boolean growing = (i/20000) % 2 == 0;
+			if (operation < (growing ? 2 : 5)) {
+				control.remove(next);
+				pma.remove(next);
+			} else if (operation < 7) {
+				long value = rand.nextLong();
+				control.put(next, value);
+				pma.put(next, value);
+			}
+			if (!pma.isRebuilding()) continue;
+			checkedWhileRebuilding++;
+			
+			int key = rand.nextInt(30002);
+			assertEquals(orZero(control.ceilingKey(key)), pma.ceiling(key));
+			assertEquals(orZero(control.higherKey(key)), pma.higher(key));
+			assertEquals(orZero(control.floorKey(key)), pma.floor(key));
+			assertEquals(orZero(control.lowerKey(key)), pma.lower(key));
+			assertEquals(control.isEmpty() ? 0 : (int)control.firstKey(), pma.first());
+			assertEquals(control.isEmpty() ? 0 : (int)control.lastKey(), pma.last());
+			int to = key+rand.nextInt(300);
+			assertEquals(control.subMap(key, true, to, true).size(), pma.sizeOfRange(key, to));
+			COBTree.Cursor cursor = pma.cursor(key, to);
+			for (Map.Entry<Integer, Long> entry : control.subMap(key, true, to, true).entrySet()) {
+				assertEquals((int)entry.getKey(), cursor.nextKey());
+				assertEquals((long)entry.getValue(), cursor.value());
+			}
+			assertFalse(cursor.hasNext());
+			final List<Integer> scanned = new ArrayList<Integer>();
+			pma.scan(key, to, new IntConsumer() {
+				public void accept(int scannedKey)
+				{
+					scanned.add(scannedKey);
+				}
+			});
+			assertEquals(new ArrayList<Integer>(control.subMap(key, true, to, true).keySet()), scanned);
+			assertTrue(pma.isRebuilding());
+			
+			//a batch is inserted key by key while the rebuild is in progress
+			if (i % 16 == 0) {
+				int[] batch = new int[] {key+3, key+1, key+3, key+2};
+				pma.insertAll(batch);
+				for (int batchKey : batch) {
+					if (!control.containsKey(batchKey)) {
+						control.put(batchKey, 0L);
+					}
+				}
+				assertEquals(control.size(), pma.size());
+				assertEquals(control.subMap(key, true, to, true).size(), pma.sizeOfRange(key, to));
+			}
+		}
+		assertTrue(checkedWhileRebuilding > 100);
+	}
+	
+	//tiny thresholds start rebuilds of arrays that hold fewer keys than the new array has sections
+	@Test
+	public void testIncrementalRebuildWithSmallThresholds()
+	{
+		for (int threshold=1; threshold<=16; threshold++) {
+			TreeSet<Integer> control = new TreeSet<Integer>();
+			COBTree pma = new COBTree();
+			pma.setIncrementalRebuildThreshold(threshold);
+			Random rand = new Random(threshold);
+			int range = threshold % 2 == 0 ? 300 : 5000;
+			for (int i=0; i<20000; i++) {
+				int next = rand.nextInt(range)+1;
+				boolean growing = (i/3000) % 2 == 0;
+				if (rand.nextInt(4) < (growing ? 1 : 3)) {
+					assertEquals(control.remove(next), pma.remove(next));
+				} else {
+					control.add(next);
+					pma.insert(next);
+				}
+				assertEquals(control.contains(next), pma.contains(next));
+				assertEquals(control.size(), pma.size());
+				if (i % 50 == 0) {
+					assertEquals(orZero(control.ceiling(next)), pma.ceiling(next));
+					assertEquals(control.subSet(next, true, next+100, true).size(), pma.sizeOfRange(next, next+100));
+				}
+			}
+
+			COBTree.Cursor cursor = pma.cursor(Integer.MIN_VALUE, Integer.MAX_VALUE);
+			for (Integer key : control) {
+				assertEquals((int)key, cursor.nextKey());
+			}
+			assertFalse(cursor.hasNext());
+			assertTrue(pma.checkInvariants());
+		}
+	}
+	
+	//batches of different sizes, sorted and unsorted, with duplicates and keys that are already present
+	@Test
+	public void testInsertAll()
+	{
+		TreeMap<Integer, Long> control = new TreeMap<Integer, Long>();
+		COBTree pma = new COBTree();
+		pma.insertAll(new int[0]);
+		assertEquals(0, pma.size());
+		Random rand = new Random(17);
+		for (int i=0; i<400; i++) {
+			int[] batch = new int[rand.nextInt(i % 50 == 0 ? 5000 : 100)];
+			for (int j=0; j<batch.length; j++) {
+				do {
+					batch[j] = rand.nextInt(60000)-30000;
+				} while (batch[j] == 0);
+			}
+			if (rand.nextBoolean()) {
+				Arrays.sort(batch);
+			}
+			int[] copy = batch.clone();
+			pma.insertAll(batch);
+			assertArrayEquals(copy, batch);
+			for (int key : batch) {
+				if (!control.containsKey(key)) {
+					control.put(key, 0L);
+				}
+			}
+			//some values and removals between the batches
+			for (int j=0; j<20; j++) {
+				int key = rand.nextInt(60000)-30000;
+				if (key == 0) continue;
+				if (rand.nextBoolean()) {
+					long value = rand.nextLong();
+					control.put(key, value);
+					pma.put(key, value);
+				} else {
+					assertEquals(control.remove(key) != null, pma.remove(key));
+				}
+			}
+			assertEquals(control.size(), pma.size());
+		}
+		assertTrue(pma.checkInvariants());
+		COBTree.Cursor cursor = pma.cursor(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		for (Map.Entry<Integer, Long> entry : control.entrySet()) {
+			assertEquals((int)entry.getKey(), cursor.nextKey());
+			assertEquals((long)entry.getValue(), cursor.value());
+		}
+		assertFalse(cursor.hasNext());
+		
+		//a sorted run of new keys after the largest key
+		int[] run = new int[10000];
+		for (int j=0; j<run.length; j++) {
+			run[j] = 30000+j;
+		}
+		pma.insertAll(run);
+		assertEquals(control.size()+run.length, pma.size());
+		assertEquals(run.length, pma.sizeOfRange(30000, Integer.MAX_VALUE));
+		assertTrue(pma.checkInvariants());
+	}
+	
+	//random keys in [-10000, 10000) except 0, some of them removed again
+	private static void randomFill(COBTree pma, TreeSet<Integer> control, long seed)
+	{
+		Random rand = new Random(seed);
+		for (int i=0; i<20000; i++) {
+			int next = rand.nextInt(20000)-10000;
+			if (next == 0) continue;
+			if (rand.nextInt(4) == 0) {
+				control.remove(next);
+				pma.remove(next);
+			} else {
+				control.add(next);
+				pma.insert(next);
+			}
+		}
+	}
+	
+	private static int orZero(Integer key)
+	{
+		return key == null ? 0 : key;
+	}
+	
 	static void assertEqualSets(COBTree pma, Set<Integer> control)
 	{
 		assertEquals(pma.size(), control.size());
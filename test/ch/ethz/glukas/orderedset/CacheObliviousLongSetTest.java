@@ -0,0 +1,241 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class CacheObliviousLongSetTest {
+
+	@Test
+	public void testSet()
+	{
+		CacheObliviousLongSet set = new CacheObliviousLongSet();
+		TreeSet<Long> control = new TreeSet<Long>();
+		int testSize = 300;
+
+		//sequence test
+		for (long i=0; i<testSize; i++) {
+			assertTrue(set.add(i) == control.add(i));
+			assertTrue(set.add(i) == control.add(i));
+		}
+		assertEqualSets(set, control);
+
+		//randomized test, including the extreme keys: no key is reserved as an empty marker
+		Random random = new Random(5);
+		for (int i=0; i<testSize; i++) {
+			long next = random.nextLong();
+			assertTrue(set.add(next) == control.add(next));
+		}
+		assertTrue(set.add(Long.MIN_VALUE) == control.add(Long.MIN_VALUE));
+		assertTrue(set.add(Long.MAX_VALUE) == control.add(Long.MAX_VALUE));
+		assertEqualSets(set, control);
+
+		//removal test
+		for (long i=0; i<testSize; i++) {
+			assertTrue(set.remove(i) == control.remove(i));
+			assertTrue(set.remove(i) == control.remove(i));
+		}
+		assertEqualSets(set, control);
+
+		set.clear();
+		assertEquals(0, set.size());
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+	}
+
+	@Test
+	public void testRandomizedUsage()
+	{
+		CacheObliviousLongSet set = new CacheObliviousLongSet();
+		TreeSet<Long> control = new TreeSet<Long>();
+		int testSize = 20000;
+		int testRange = testSize/5;
+		Random random = new Random(2);
+
+		for (int i=0; i<testSize; i++) {
+			int nextOperation = random.nextInt(10);
+			long next = random.nextInt(testRange)-testRange/2;
+			if (nextOperation < 5) {
+				assertEquals(control.add(next), set.add(next));
+			} else if (nextOperation < 8) {
+				assertEquals(control.remove(next), set.remove(next));
+			} else {
+				assertEquals(control.contains(next), set.contains(next));
+			}
+		}
+		assertEqualSets(set, control);
+
+		//drain the set completely, so that it shrinks down to its initial capacity
+		while (!control.isEmpty()) {
+			assertEquals((long)control.pollFirst(), set.pollFirst());
+			if (!control.isEmpty()) assertEquals((long)control.pollLast(), set.pollLast());
+		}
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(1));
+		assertEquals(1, set.first());
+	}
+
+	@Test
+	public void testNavigation()
+	{
+		CacheObliviousLongSet set = new CacheObliviousLongSet();
+		TreeSet<Long> control = new TreeSet<Long>();
+		Random random = new Random(0);
+		for (int i=0; i<100; i++) {
+			long next = random.nextInt(1000);
+			set.add(next);
+			control.add(next);
+		}
+
+		for (long i=-5; i<1005; i++) {
+			assertEquals(control.floor(i), navigate(set, i, 0));
+			assertEquals(control.lower(i), navigate(set, i, 1));
+			assertEquals(control.ceiling(i), navigate(set, i, 2));
+			assertEquals(control.higher(i), navigate(set, i, 3));
+		}
+		assertEquals((long)control.first(), set.first());
+		assertEquals((long)control.last(), set.last());
+	}
+
+	@Test
+	public void testAccessByRank()
+	{
+		CacheObliviousLongSet set = new CacheObliviousLongSet();
+		TreeSet<Long> control = new TreeSet<Long>();
+		Random random = new Random(1);
+		for (int i=0; i<2000; i++) {
+			long next = random.nextLong();
+			set.add(next);
+			control.add(next);
+		}
+
+		int index = 0;
+		for (Long value : control) {
+			assertEquals((long)value, set.get(index));
+			assertEquals(index, set.indexOf(value));
+			index++;
+		}
+		assertEquals(-1, set.indexOf(control.first()-1));
+
+		while (set.size() >= 2) {
+			assertEquals((long)control.pollFirst(), set.pollFirst());
+			assertEquals((long)control.pollLast(), set.pollLast());
+		}
+	}
+
+	@Test
+	public void testRangeSizes()
+	{
+		CacheObliviousLongSet set = new CacheObliviousLongSet();
+		set.add(1);
+		set.add(4);
+		set.add(6);
+		set.add(100);
+
+		assertEquals(3, set.sizeOfRange(1, 6, true, true));
+		assertEquals(2, set.sizeOfRange(1, 6, true, false));
+		assertEquals(2, set.sizeOfRange(1, 6, false, true));
+		assertEquals(1, set.sizeOfRange(1, 6, false, false));
+		assertEquals(0, set.sizeOfRange(-3, 0, true, true));
+		assertEquals(4, set.sizeOfRange(0, 100, false, true));
+		assertEquals(3, set.sizeOfRange(0, 100, false, false));
+		assertEquals(0, set.sizeOfRange(4, 4, false, true));
+	}
+
+	@Test
+	public void testRemoveRange()
+	{
+		int testSize = 200;
+		for (long lower=-2; lower<testSize+2; lower+=7) {
+			for (long upper=lower; upper<testSize+2; upper+=17) {
+				for (int flags=0; flags<4; flags++) {
+					boolean fromInclusive = (flags & 1) != 0;
+					boolean toInclusive = (flags & 2) != 0;
+
+					CacheObliviousLongSet set = new CacheObliviousLongSet();
+					TreeSet<Long> control = new TreeSet<Long>();
+					for (long i=0; i<testSize; i++) {
+						set.add(i);
+						control.add(i);
+					}
+					set.removeRange(lower, upper, fromInclusive, toInclusive);
+					control.subSet(lower, fromInclusive, upper, toInclusive).clear();
+					assertEqualSets(set, control);
+
+					set.add(lower);
+					control.add(lower);
+					assertEqualSets(set, control);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveRangeBoundsOutOfOrder()
+	{
+		new CacheObliviousLongSet().removeRange(2, 1, true, true);
+	}
+
+	@Test
+	public void testIterator()
+	{
+		CacheObliviousLongSet set = new CacheObliviousLongSet();
+		TreeSet<Long> control = new TreeSet<Long>();
+		Random random = new Random(4);
+		for (int i=0; i<1000; i++) {
+			long next = random.nextInt(5000);
+			set.add(next);
+			control.add(next);
+		}
+
+		PrimitiveIterator.OfLong iterator = set.iterator();
+		for (Long value : control) {
+			assertTrue(iterator.hasNext());
+			assertEquals((long)value, iterator.nextLong());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testEmptyFloor()
+	{
+		new CacheObliviousLongSet().floor(1);
+	}
+
+
+	////
+	//HELPERS
+	////
+
+	//returns null if the set throws, so the results can be compared with the navigable set
+	private static Long navigate(CacheObliviousLongSet set, long key, int operation)
+	{
+		try {
+			switch (operation) {
+			case 0: return set.floor(key);
+			case 1: return set.lower(key);
+			case 2: return set.ceiling(key);
+			default: return set.higher(key);
+			}
+		} catch (NoSuchElementException e) {
+			return null;
+		}
+	}
+
+	static void assertEqualSets(CacheObliviousLongSet set, TreeSet<Long> control)
+	{
+		assertEquals(control.size(), set.size());
+		long[] ordered = set.toArray();
+		int index = 0;
+		for (Long value : control) {
+			assertEquals((long)value, ordered[index]);
+			assertTrue(set.contains(value));
+			index++;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class CacheObliviousSortedSetTest {
+
+	@Test
+	public void testSet()
+	{
+		SetTests.testSet(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testSetRandomized()
+	{
+		SetTests.randomTestSet(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testAddAndContains()
+	{
+		SetTests.testAddAndContains(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testNavigable()
+	{
+		OrderedSetTests.testNavigation(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testSortedSet()
+	{
+		OrderedSetTests.testSortedSet(new CacheObliviousSortedSet<Integer>());
+	}
+
+	//a null comparator means the natural ordering, as for the trees
+	@Test
+	public void testNullComparator()
+	{
+		OrderedSetTests.testNavigation(new CacheObliviousSortedSet<Integer>(null));
+		OrderedSetTests.testSortedSet(new CacheObliviousSortedSet<Integer>(new TreeSet<Integer>().comparator()));
+	}
+
+	@Test
+	public void testPolling()
+	{
+		OrderedSetTests.testPolling(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testIterator()
+	{
+		OrderedSetTests.testIterator(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testSubsets()
+	{
+		OrderedSetTests.testSubsets(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testRangeIterators()
+	{
+		OrderedSetTests.testRangeIterators(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testTailsets()
+	{
+		OrderedSetTests.testTailSets(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testSubsetModification()
+	{
+		OrderedSetTests.testSubsetModification(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testAccessByRank()
+	{
+		RangeSetTest.testRangeSet(new CacheObliviousSortedSet<Integer>());
+		RangeSetTest.testPolling(new CacheObliviousSortedSet<Integer>());
+		RangeSetTest.testRangeSizes(new CacheObliviousSortedSet<Integer>());
+	}
+
+	@Test
+	public void testGrowAndShrink()
+	{
+		//the array shrinks again when keys are removed, the remaining keys must survive every redistribution
+		CacheObliviousSortedSet<Integer> set = new CacheObliviousSortedSet<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		Random random = new Random(3);
+		int testSize = 5000;
+		for (int round=0; round<3; round++) {
+			for (int i=0; i<testSize; i++) {
+				int next = random.nextInt(2*testSize);
+				assertEquals(control.add(next), set.add(next));
+			}
+			assertSameOrder(set, control);
+			while (control.size() > round) {
+				int operation = random.nextInt(4);
+				if (operation == 0) {
+					assertEquals(control.pollFirst(), set.pollFirst());
+				} else if (operation == 1) {
+					assertEquals(control.pollLast(), set.pollLast());
+				} else if (operation == 2) {
+					Integer next = random.nextInt(2*testSize);
+					assertEquals(control.remove(next), set.remove(next));
+				} else {
+					int index = random.nextInt(control.size());
+					Integer expected = set.get(index);
+					assertEquals(index, control.headSet(expected).size());
+					assertEquals(expected, set.poll(index));
+					control.remove(expected);
+				}
+				if (control.size() % 97 == 0) assertSameOrder(set, control);
+			}
+			assertSameOrder(set, control);
+		}
+	}
+
+	@Test
+	public void testRemoveRange()
+	{
+		int testSize = 200;
+		for (int lower=-2; lower<testSize+2; lower+=13) {
+			for (int upper=lower; upper<testSize+2; upper+=29) {
+				for (int flags=0; flags<4; flags++) {
+					boolean fromInclusive = (flags & 1) != 0;
+					boolean toInclusive = (flags & 2) != 0;
+
+					CacheObliviousSortedSet<Integer> set = new CacheObliviousSortedSet<Integer>();
+					TreeSet<Integer> control = new TreeSet<Integer>();
+					SetTests.sequenceAdd(set, control, testSize);
+					set.removeRange(lower, upper, fromInclusive, toInclusive);
+					control.subSet(lower, fromInclusive, upper, toInclusive).clear();
+					assertSameOrder(set, control);
+
+					set.add(lower);
+					control.add(lower);
+					assertSameOrder(set, control);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveRangeBoundsOutOfOrder()
+	{
+		new CacheObliviousSortedSet<Integer>().removeRange(2, 1, true, true);
+	}
+
+	@Test
+	public void testIteratorRemove()
+	{
+		CacheObliviousSortedSet<Integer> set = new CacheObliviousSortedSet<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.sequenceAdd(set, control, 1000);
+
+		Iterator<Integer> iterator = set.iterator();
+		while (iterator.hasNext()) {
+			int next = iterator.next();
+			if (next % 3 != 0) iterator.remove();
+		}
+		iterator = control.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next() % 3 != 0) iterator.remove();
+		}
+		assertSameOrder(set, control);
+
+		Iterator<Integer> descending = set.descendingIterator();
+		Iterator<Integer> controlDescending = control.descendingIterator();
+		while (controlDescending.hasNext()) {
+			assertEquals(controlDescending.next(), descending.next());
+		}
+		assertFalse(descending.hasNext());
+	}
+
+
+	////
+	//HELPERS
+	////
+
+	private static void assertSameOrder(CacheObliviousSortedSet<Integer> set, TreeSet<Integer> control)
+	{
+		OrderedSetTests.assertEqualSortedSets(set, control);
+		assertArrayEquals(control.toArray(), set.toArray());
+	}
+}
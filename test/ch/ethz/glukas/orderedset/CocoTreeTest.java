@@ -2,6 +2,9 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.TreeSet;
@@ -22,6 +25,64 @@ public class CocoTreeTest {
 		testUpdates();
 	}
 
+	@Test
+	public void testQueries()
+	{
+		Random random = new Random(11);
+		for (int testSize=1; testSize<=(1<<12); testSize=testSize<<1) {
+			int testRange = testSize*3;
+			int[] input = new int[testSize];
+			for (int i=0; i<testSize; i++) {
+				input[i] = random.nextInt(testRange);
+			}
+			Arrays.sort(input);
+			ImmutableOrderedSetTest.testQueries(new CocoTree(Arrays.copyOf(input, testSize)).rebuild(), input, random);
+		}
+	}
+	
+	//a saved tree answers the same queries after it is mapped back
+	@Test
+	public void testSaveAndOpen() throws IOException
+	{
+		Path path = Files.createTempFile("cocoTree", ".tree");
+		try {
+			Random random = new Random(7);
+			for (int testSize=1; testSize<=(1<<16); testSize=testSize<<1) {
+				int testRange = testSize*5;
+				int[] input = new int[testSize];
+				for (int i=0; i<testSize; i++) {
+					input[i] = random.nextInt(testRange);
+				}
+				Arrays.sort(input);
+				CocoTree original = new CocoTree(input).rebuild();
+				original.save(path);
+				MappedCocoTree mapped = MappedCocoTree.open(path);
+				assertEquals(testSize, mapped.size());
+				for (int i=-10; i<testRange+10; i++) {
+					assertEquals(original.contains(i), mapped.contains(i));
+					assertEquals(original.indexOf(i), mapped.indexOf(i));
+				}
+				ImmutableOrderedSetTest.testQueries(mapped, input, random);
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testOpenRejectsTruncatedFiles() throws IOException
+	{
+		Path path = Files.createTempFile("cocoTree", ".tree");
+		try {
+			new CocoTree(inOrderArray(1024, 1)).rebuild().save(path);
+			byte[] content = Files.readAllBytes(path);
+			Files.write(path, Arrays.copyOf(content, content.length-4));
+			MappedCocoTree.open(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
 	public static void testUpdates()
 	{
 		Random random = new Random(423);
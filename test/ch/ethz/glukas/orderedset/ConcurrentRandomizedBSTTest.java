@@ -0,0 +1,237 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConcurrentRandomizedBSTTest {
+
+	@Test
+	public void testSet()
+	{
+		SetTests.testSet(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testAddAndContains()
+	{
+		SetTests.testAddAndContains(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testNavigable()
+	{
+		OrderedSetTests.testNavigation(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testSortedSet()
+	{
+		OrderedSetTests.testSortedSet(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testIterator()
+	{
+		OrderedSetTests.testIterator(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testSubsets()
+	{
+		OrderedSetTests.testSubsets(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testRangeIterators()
+	{
+		OrderedSetTests.testRangeIterators(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testSubsetModification()
+	{
+		OrderedSetTests.testSubsetModification(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testAccessByRank()
+	{
+		RangeSetTest.testRangeSet(new ConcurrentRandomizedBST<Integer>());
+		RangeSetTest.testPolling(new ConcurrentRandomizedBST<Integer>());
+		RangeSetTest.testRangeSizes(new ConcurrentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testRemoveRange()
+	{
+		RangeSetTest.testRemoveRange(new ConcurrentRandomizedBST<Integer>());
+
+		//single threaded mix of the mutators, the ranges often have equal bounds
+		ConcurrentRandomizedBST<Integer> set = new ConcurrentRandomizedBST<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		Random random = new Random(3);
+		for (int i=0; i<5000; i++) {
+			Integer value = random.nextInt(200);
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				assertEquals(control.add(value), set.add(value));
+			} else if (operation < 7) {
+				assertEquals(control.remove(value), set.remove(value));
+			} else if (operation < 8 && !control.isEmpty()) {
+				int index = random.nextInt(control.size());
+				Integer polled = new ArrayList<Integer>(control).get(index);
+				control.remove(polled);
+				assertEquals(polled, set.poll(index));
+			} else {
+				int upper = random.nextBoolean() ? value : value+random.nextInt(10);
+				boolean fromInclusive = random.nextBoolean();
+				boolean toInclusive = random.nextBoolean();
+				set.removeRange(value, upper, fromInclusive, toInclusive);
+				control.subSet(value, fromInclusive, upper, toInclusive).clear();
+			}
+			assertEquals(control.size(), set.size());
+			if (i % 100 == 0) {
+				assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+				for (Integer element : control) {
+					assertEquals(control.headSet(element).size(), set.indexOf(element));
+				}
+			}
+		}
+		assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+	}
+
+	@Test
+	public void testIteratorRemove()
+	{
+		ConcurrentRandomizedBST<Integer> set = new ConcurrentRandomizedBST<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.randomAdd(set, control, 500, 2000);
+
+		Iterator<Integer> iterator = set.descendingIterator();
+		Iterator<Integer> controlIterator = control.descendingIterator();
+		while (controlIterator.hasNext()) {
+			Integer next = controlIterator.next();
+			assertEquals(next, iterator.next());
+			if (next % 3 == 0) {
+				iterator.remove();
+				controlIterator.remove();
+			}
+		}
+		assertFalse(iterator.hasNext());
+		SetTests.assertEqualSets(set, control);
+	}
+
+	//iterating a view takes the read lock, so adding a view of the set to itself must not iterate it under the write lock
+	@Test(timeout = 10000)
+	public void testAddAllOfOwnView()
+	{
+		ConcurrentRandomizedBST<Integer> set = new ConcurrentRandomizedBST<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.sequenceAdd(set, control, 100);
+		assertFalse(set.addAll(set.headSet(50)));
+		assertFalse(set.addAll(set.descendingSet()));
+		assertFalse(set.addAll(set));
+		SetTests.assertEqualSets(set, control);
+	}
+
+	//writers add and remove the values of their own residue class, while readers check values that are never removed
+	@Test
+	public void testConcurrentUsage() throws InterruptedException
+	{
+		final ConcurrentRandomizedBST<Integer> set = new ConcurrentRandomizedBST<Integer>();
+		final int writers = 3;
+		final int range = 3000;
+		final int stableStep = 10*writers;//the multiples of stableStep are never removed
+		for (int i=0; i<range; i+=stableStep) {
+			set.add(i);
+		}
+
+		final List<TreeSet<Integer>> controls = new ArrayList<TreeSet<Integer>>();
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int w=0; w<writers; w++) {
+			final int residue = w;
+			final TreeSet<Integer> control = new TreeSet<Integer>();
+			controls.add(control);
+			threads.add(new Thread() {
+				public void run()
+				{
+					Random random = new Random(residue);
+					for (int i=0; i<20000; i++) {
+						Integer value = random.nextInt(range/writers)*writers+residue;
+						if (value % stableStep == 0) continue;
+						if (random.nextBoolean()) {
+							assertEquals(control.add(value), set.add(value));
+						} else {
+							assertEquals(control.remove(value), set.remove(value));
+						}
+					}
+				}
+			});
+		}
+
+		for (int r=0; r<2; r++) {
+			final int seed = r;
+			threads.add(new Thread() {
+				public void run()
+				{
+					Random random = new Random(seed+100);
+					while (writing.get()) {
+						int stable = random.nextInt(range/stableStep)*stableStep;
+						assertTrue(set.contains(stable));
+						assertEquals((Integer)stable, set.floor(stable));
+						assertEquals((Integer)stable, set.ceiling(stable));
+						int index = set.indexOf(stable);
+						assertTrue(index >= stable/stableStep);
+						Integer higher = set.higher(stable);
+						assertTrue(higher == null || higher > stable);
+						assertTrue(set.sizeOfRange(0, stable, true, true) > stable/stableStep);
+					}
+				}
+			});
+		}
+
+		for (Thread thread : threads) {
+			thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+				public void uncaughtException(Thread t, Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+			});
+			thread.start();
+		}
+		for (int w=0; w<writers; w++) {
+			threads.get(w).join();
+		}
+		writing.set(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) throw new AssertionError(failure.get());
+
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		for (int i=0; i<range; i+=stableStep) {
+			expected.add(i);
+		}
+		for (TreeSet<Integer> control : controls) {
+			expected.addAll(control);
+		}
+		SetTests.assertEqualSets(set, expected);
+		int index = 0;
+		for (Integer value : expected) {
+			assertEquals(value, set.get(index));
+			index++;
+		}
+	}
+}
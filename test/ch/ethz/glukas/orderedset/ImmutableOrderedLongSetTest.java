@@ -0,0 +1,93 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class ImmutableOrderedLongSetTest {
+
+	@Test
+	public void testSetForVariousSizes()
+	{
+		Random random = new Random(1);
+		for (int testSize=0; testSize<3000; testSize=testSize*2+1) {
+			TreeSet<Long> control = new TreeSet<Long>();
+			long[] input = randomSortedKeys(testSize, random, control);
+			ImmutableOrderedLongSet uut = new ImmutableOrderedLongSet(input);
+			assertEquals(testSize, uut.size());
+			for (int i=0; i<testSize; i++) {
+				assertTrue(uut.contains(input[i]));
+				assertEquals(control.contains(input[i]+1), uut.contains(input[i]+1));
+			}
+		}
+	}
+
+	@Test
+	public void testQueries()
+	{
+		Random random = new Random(2);
+		for (int testSize=0; testSize<700; testSize=testSize*3+1) {
+			long[] input = randomSortedKeys(testSize, random, new TreeSet<Long>());
+			testQueries(new ImmutableOrderedLongSet(input), input, random);
+		}
+		long[] extremes = new long[]{Long.MIN_VALUE, Long.MIN_VALUE, 0, Long.MAX_VALUE};
+		testQueries(new ImmutableOrderedLongSet(extremes), extremes, random);
+	}
+
+	//compares the queries with linear scans of the sorted keys
+	private static void testQueries(ImmutableOrderedLongSet uut, long[] sortedKeys, Random random)
+	{
+		for (int i=0; i<sortedKeys.length; i++) {
+			assertEquals(sortedKeys[i], uut.get(i));
+		}
+		long[] probes = new long[300];
+		for (int i=0; i<probes.length; i++) {
+			if (i < 2) {
+				probes[i] = i == 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+			} else if (sortedKeys.length > 0 && random.nextBoolean()) {
+				probes[i] = sortedKeys[random.nextInt(sortedKeys.length)]+random.nextInt(3)-1;
+			} else {
+				probes[i] = random.nextLong();
+			}
+		}
+		for (long key : probes) {
+			int smaller = 0;
+			int smallerOrEqual = 0;
+			for (long k : sortedKeys) {
+				if (k < key) smaller++;
+				if (k <= key) smallerOrEqual++;
+			}
+			boolean contains = smallerOrEqual > smaller;
+			assertEquals(contains, uut.contains(key));
+			assertEquals(contains ? smaller : -1, uut.indexOf(key));
+			assertEquals(smaller, uut.rank(key));
+			assertEquals(smaller, uut.ceilingIndex(key));
+			assertEquals(smallerOrEqual-1, uut.floorIndex(key));
+		}
+		for (int i=0; i<probes.length-1; i++) {
+			long lower = Math.min(probes[i], probes[i+1]);
+			long upper = Math.max(probes[i], probes[i+1]);
+			int expected = 0;
+			for (long k : sortedKeys) {
+				if (k >= lower && k < upper) expected++;
+			}
+			assertEquals(expected, uut.sizeOfRange(lower, upper, true, false));
+		}
+	}
+
+	//keys spread over the whole long range, with some duplicates
+	private static long[] randomSortedKeys(int testSize, Random random, TreeSet<Long> control)
+	{
+		long[] input = new long[testSize];
+		for (int i=0; i<testSize; i++) {
+			input[i] = (i > 0 && random.nextInt(10) == 0) ? input[i-1] : random.nextLong();
+			control.add(input[i]);
+		}
+		Arrays.sort(input);
+		return input;
+	}
+}
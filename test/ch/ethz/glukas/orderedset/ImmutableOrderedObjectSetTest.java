@@ -0,0 +1,87 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class ImmutableOrderedObjectSetTest {
+
+	@Test
+	public void testQueries()
+	{
+		Random random = new Random(3);
+		for (int testSize=0; testSize<3000; testSize=testSize*2+1) {
+			String[] input = new String[testSize];
+			TreeSet<String> control = new TreeSet<String>();
+			for (int i=0; i<testSize; i++) {
+				input[i] = Integer.toString(random.nextInt(testSize*3+1), 36);
+				control.add(input[i]);
+			}
+			Arrays.sort(input);
+			ImmutableOrderedObjectSet<String> uut = new ImmutableOrderedObjectSet<String>(input);
+			assertEquals(testSize, uut.size());
+
+			for (int i=0; i<200; i++) {
+				String key = Integer.toString(random.nextInt(testSize*3+2), 36);
+				assertEquals(control.contains(key), uut.contains(key));
+				assertEquals(firstRank(input, key), uut.rank(key));
+				assertEquals(uut.rank(key), uut.ceilingIndex(key));
+				if (control.contains(key)) {
+					assertEquals(key, uut.get(uut.indexOf(key)));
+					assertEquals(uut.rank(key), uut.indexOf(key));
+				} else {
+					assertEquals(-1, uut.indexOf(key));
+				}
+				int floor = uut.floorIndex(key);
+				assertEquals(control.floor(key), floor < 0 ? null : uut.get(floor));
+				assertTrue(floor == testSize-1 || input[floor+1].compareTo(key) > 0);
+				String upper = Integer.toString(random.nextInt(testSize*3+2), 36);
+				if (upper.compareTo(key) >= 0) {
+					assertEquals(countInRange(input, key, upper), uut.sizeOfRange(key, upper, true, true));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testComparator()
+	{
+		Integer[] input = new Integer[1000];
+		for (int i=0; i<input.length; i++) {
+			input[i] = input.length-i;
+		}
+		ImmutableOrderedObjectSet<Integer> uut = new ImmutableOrderedObjectSet<Integer>(input, Collections.<Integer>reverseOrder());
+		for (int i=0; i<input.length; i++) {
+			assertEquals(i, uut.indexOf(input.length-i));
+			assertEquals((Integer)(input.length-i), uut.get(i));
+		}
+		assertEquals(-1, uut.indexOf(0));
+		assertEquals(input.length, uut.rank(0));
+		assertEquals(-1, uut.floorIndex(input.length+1));
+		assertEquals(10, uut.sizeOfRange(20, 11, true, true));
+	}
+
+	//the number of keys smaller than the key
+	private static int firstRank(String[] sortedKeys, String key)
+	{
+		int result = 0;
+		for (String k : sortedKeys) {
+			if (k.compareTo(key) < 0) result++;
+		}
+		return result;
+	}
+
+	private static int countInRange(String[] sortedKeys, String lower, String upper)
+	{
+		int result = 0;
+		for (String k : sortedKeys) {
+			if (k.compareTo(lower) >= 0 && k.compareTo(upper) <= 0) result++;
+		}
+		return result;
+	}
+}
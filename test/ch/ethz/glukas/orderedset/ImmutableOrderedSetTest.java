@@ -2,6 +2,9 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.TreeSet;
@@ -17,6 +20,104 @@ public class ImmutableOrderedSetTest {
 		testImmutableSet();
 	}
 	
+	@Test
+	public void testQueries()
+	{
+		Random random = new Random(9);
+		for (int testSize=1; testSize<=(1<<12); testSize=testSize<<1) {
+			int testRange = testSize*3;
+			int[] input = new int[testSize];
+			for (int i=0; i<testSize; i++) {
+				input[i] = random.nextInt(testRange);
+			}
+			Arrays.sort(input);
+			testQueries(new ImmutableOrderedSet(Arrays.copyOf(input, testSize)), input, random);
+		}
+		//extreme keys
+		testQueries(new ImmutableOrderedSet(new int[]{Integer.MAX_VALUE}), new int[]{Integer.MAX_VALUE}, random);
+		testQueries(new ImmutableOrderedSet(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE}), new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE}, random);
+	}
+	
+	//compares the queries with linear scans of the sorted keys
+	public static void testQueries(StaticSearchTree uut, int[] sortedKeys, Random random)
+	{
+		assertEquals(sortedKeys.length, uut.size());
+		for (int i=0; i<sortedKeys.length; i++) {
+			assertEquals(sortedKeys[i], uut.get(i));
+		}
+		int[] probes = new int[400];
+		for (int i=0; i<probes.length; i++) {
+			probes[i] = i < 4 ? new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, sortedKeys[0]-1, sortedKeys[sortedKeys.length-1]+1}[i] : sortedKeys[0]+random.nextInt(sortedKeys.length*3+2)-1;
+		}
+		for (int key : probes) {
+			int smaller = 0;
+			int smallerOrEqual = 0;
+			for (int k : sortedKeys) {
+				if (k < key) smaller++;
+				if (k <= key) smallerOrEqual++;
+			}
+			boolean contains = smallerOrEqual > smaller;
+			assertEquals(contains, uut.contains(key));
+			assertEquals(contains ? smaller : -1, uut.indexOf(key));
+			assertEquals(smaller, uut.rank(key));
+			assertEquals(smaller, uut.ceilingIndex(key));
+			assertEquals(smallerOrEqual-1, uut.floorIndex(key));
+		}
+		for (int i=0; i<probes.length-1; i++) {
+			int lower = Math.min(probes[i], probes[i+1]);
+			int upper = Math.max(probes[i], probes[i+1]);
+			for (int inclusion=0; inclusion<4; inclusion++) {
+				boolean fromInclusive = (inclusion & 1) != 0;
+				boolean toInclusive = (inclusion & 2) != 0;
+				int expected = 0;
+				for (int k : sortedKeys) {
+					if ((fromInclusive ? k >= lower : k > lower) && (toInclusive ? k <= upper : k < upper)) expected++;
+				}
+				assertEquals(expected, uut.sizeOfRange(lower, upper, fromInclusive, toInclusive));
+			}
+		}
+	}
+	
+	//a saved set answers the same queries after it is mapped back
+	@Test
+	public void testSaveAndOpen() throws IOException
+	{
+		Path path = Files.createTempFile("immutableOrderedSet", ".tree");
+		try {
+			Random random = new Random(5);
+			for (int testSize=1; testSize<=(1<<16); testSize=testSize<<1) {
+				int testRange = testSize*5;
+				int[] input = new int[testSize];
+				for (int i=0; i<testSize; i++) {
+					input[i] = random.nextInt(testRange);
+				}
+				Arrays.sort(input);
+				ImmutableOrderedSet original = new ImmutableOrderedSet(input);
+				original.save(path);
+				MappedImmutableOrderedSet mapped = MappedImmutableOrderedSet.open(path);
+				assertEquals(testSize, mapped.size());
+				for (int i=-10; i<testRange+10; i++) {
+					assertEquals(original.contains(i), mapped.contains(i));
+				}
+				testQueries(mapped, input, random);
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testOpenRejectsOtherFiles() throws IOException
+	{
+		Path path = Files.createTempFile("cocoTree", ".tree");
+		try {
+			new CocoTree(CocoTreeTest.inOrderArray(64, 1)).rebuild().save(path);
+			MappedImmutableOrderedSet.open(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
 	public static void testImmutableSet()
 	{
 		Random random = new Random(1);
@@ -0,0 +1,229 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class IntRandomizedBSTTest {
+
+	@Test
+	public void testSet()
+	{
+		IntRandomizedBST set = new IntRandomizedBST(1);
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		int testSize = 300;
+
+		//sequence test
+		for (int i=0; i<testSize; i++) {
+			assertTrue(set.add(i) == control.add(i));
+			assertTrue(set.add(i) == control.add(i));
+		}
+		assertEqualSets(set, control);
+
+		//randomized test, including negative and zero keys
+		Random random = new Random(5);
+		for (int i=0; i<testSize; i++) {
+			int next = random.nextInt();
+			assertTrue(set.add(next) == control.add(next));
+		}
+		assertEqualSets(set, control);
+
+		//removal test
+		for (int i=0; i<testSize; i++) {
+			assertTrue(set.remove(i) == control.remove(i));
+			assertTrue(set.remove(i) == control.remove(i));
+		}
+		assertEqualSets(set, control);
+
+		set.clear();
+		assertEquals(0, set.size());
+		assertTrue(set.isEmpty());
+	}
+
+	@Test
+	public void testRandomizedUsage()
+	{
+		IntRandomizedBST set = new IntRandomizedBST();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		int testSize = 5000;
+		int testRange = testSize/5;
+		Random random = new Random(2);
+
+		for (int i=0; i<testSize; i++) {
+			int nextOperation = random.nextInt(10);
+			int next = random.nextInt(testRange)-testRange/2;
+			if (nextOperation < 5) {
+				assertEquals(control.add(next), set.add(next));
+			} else if (nextOperation < 8) {
+				assertEquals(control.remove(next), set.remove(next));
+			} else {
+				assertEquals(control.contains(next), set.contains(next));
+			}
+		}
+		assertEqualSets(set, control);
+	}
+
+	@Test
+	public void testNavigation()
+	{
+		IntRandomizedBST set = new IntRandomizedBST();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		Random random = new Random(0);
+		for (int i=0; i<100; i++) {
+			int next = random.nextInt(1000);
+			set.add(next);
+			control.add(next);
+		}
+
+		for (int i=-5; i<1005; i++) {
+			assertEquals(control.floor(i), navigate(set, i, 0));
+			assertEquals(control.lower(i), navigate(set, i, 1));
+			assertEquals(control.ceiling(i), navigate(set, i, 2));
+			assertEquals(control.higher(i), navigate(set, i, 3));
+		}
+		assertEquals((int)control.first(), set.first());
+		assertEquals((int)control.last(), set.last());
+	}
+
+	@Test
+	public void testAccessByRank()
+	{
+		IntRandomizedBST set = new IntRandomizedBST();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		Random random = new Random(1);
+		for (int i=0; i<200; i++) {
+			int next = random.nextInt();
+			set.add(next);
+			control.add(next);
+		}
+
+		int index = 0;
+		for (Integer value : control) {
+			assertEquals((int)value, set.get(index));
+			assertEquals(index, set.indexOf(value));
+			index++;
+		}
+		assertEquals(-1, set.indexOf(control.first()-1));
+
+		while (set.size() >= 2) {
+			assertEquals((int)control.pollFirst(), set.pollFirst());
+			assertEquals((int)control.pollLast(), set.pollLast());
+		}
+	}
+
+	@Test
+	public void testRangeSizes()
+	{
+		IntRandomizedBST set = new IntRandomizedBST();
+		set.add(1);
+		set.add(4);
+		set.add(6);
+		set.add(100);
+
+		assertEquals(3, set.sizeOfRange(1, 6, true, true));
+		assertEquals(2, set.sizeOfRange(1, 6, true, false));
+		assertEquals(2, set.sizeOfRange(1, 6, false, true));
+		assertEquals(1, set.sizeOfRange(1, 6, false, false));
+		assertEquals(0, set.sizeOfRange(-3, 0, true, true));
+		assertEquals(4, set.sizeOfRange(0, 100, false, true));
+		assertEquals(3, set.sizeOfRange(0, 100, false, false));
+		assertEquals(0, set.sizeOfRange(4, 4, false, true));
+	}
+
+	@Test
+	public void testRemoveRange()
+	{
+		int testSize = 60;
+		for (int lower=-2; lower<testSize+2; lower+=3) {
+			for (int upper=lower; upper<testSize+2; upper+=4) {
+				for (int flags=0; flags<4; flags++) {
+					boolean fromInclusive = (flags & 1) != 0;
+					boolean toInclusive = (flags & 2) != 0;
+
+					IntRandomizedBST set = new IntRandomizedBST();
+					TreeSet<Integer> control = new TreeSet<Integer>();
+					for (int i=0; i<testSize; i++) {
+						set.add(i);
+						control.add(i);
+					}
+					set.removeRange(lower, upper, fromInclusive, toInclusive);
+					control.subSet(lower, fromInclusive, upper, toInclusive).clear();
+					assertEqualSets(set, control);
+
+					//the freed slots are reused
+					set.add(lower);
+					control.add(lower);
+					assertEqualSets(set, control);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCuts()
+	{
+		for (int cut=-1; cut<=41; cut++) {
+			for (int inclusive=0; inclusive<2; inclusive++) {
+				IntRandomizedBST set = new IntRandomizedBST();
+				TreeSet<Integer> control = new TreeSet<Integer>();
+				for (int i=0; i<40; i++) {
+					set.add(2*i);
+					control.add(2*i);
+				}
+				IntRandomizedBST head = set.cutHeadSet(cut, inclusive == 1);
+				TreeSet<Integer> controlHead = new TreeSet<Integer>(control.headSet(cut, inclusive == 1));
+				control.removeAll(controlHead);
+				assertEqualSets(head, controlHead);
+				assertEqualSets(set, control);
+
+				IntRandomizedBST tail = set.cutTailSet(cut+20, inclusive == 1);
+				TreeSet<Integer> controlTail = new TreeSet<Integer>(control.tailSet(cut+20, inclusive == 1));
+				control.removeAll(controlTail);
+				assertEqualSets(tail, controlTail);
+				assertEqualSets(set, control);
+			}
+		}
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testEmptyFloor()
+	{
+		new IntRandomizedBST().floor(1);
+	}
+
+
+	////
+	//HELPERS
+	////
+
+	//returns null if the set throws, so the results can be compared with the navigable set
+	private static Integer navigate(IntRandomizedBST set, int key, int operation)
+	{
+		try {
+			switch (operation) {
+			case 0: return set.floor(key);
+			case 1: return set.lower(key);
+			case 2: return set.ceiling(key);
+			default: return set.higher(key);
+			}
+		} catch (NoSuchElementException e) {
+			return null;
+		}
+	}
+
+	static void assertEqualSets(IntRandomizedBST set, TreeSet<Integer> control)
+	{
+		assertEquals(control.size(), set.size());
+		int[] ordered = set.toArray();
+		int index = 0;
+		for (Integer value : control) {
+			assertEquals((int)value, ordered[index]);
+			assertTrue(set.contains(value));
+			index++;
+		}
+	}
+}
@@ -1,4 +1,6 @@
 package ch.ethz.glukas.orderedset;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -7,6 +9,8 @@ import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static org.junit.Assert.*;
 
@@ -168,6 +172,87 @@ public class OrderedSetTests {
 		System.out.println("OrderedSetTests: testSortedSet done.");
 	}
 
+	//bulk loads sets with the bulk loading constructor and the fromSorted methods of a tree, from ascending, descending and empty input
+	public static void testBulkLoad(Function<SortedSet<Integer>, Set<Integer>> constructor,
+			BiFunction<Integer[], Comparator<Integer>, Set<Integer>> fromArray,
+			BiFunction<Iterator<Integer>, Comparator<Integer>, Set<Integer>> fromIterator)
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.randomAdd(control, 1000, 5000);
+		testBulkLoaded(constructor.apply(control), new TreeSet<Integer>(control));
+		testBulkLoaded(fromArray.apply(control.toArray(new Integer[0]), null), new TreeSet<Integer>(control));
+		
+		TreeSet<Integer> descending = new TreeSet<Integer>(Collections.<Integer>reverseOrder());
+		descending.addAll(control);
+		testBulkLoaded(fromIterator.apply(descending.iterator(), Collections.<Integer>reverseOrder()), descending);
+		testBulkLoaded(fromArray.apply(new Integer[0], null), new TreeSet<Integer>());
+	}
+	
+	//'loaded' was bulk loaded with the values of 'control', its iterator returns the values in order
+	//tests the contents and the order, then that the set can still be modified
+	public static void testBulkLoaded(Set<Integer> loaded, SortedSet<Integer> control)
+	{
+		SetTests.assertEqualSets(loaded, control);
+		Iterator<Integer> controlIterator = control.iterator();
+		for (Integer value : loaded) {
+			assertEquals(controlIterator.next(), value);
+		}
+		assertFalse(controlIterator.hasNext());
+		
+		Random random = new Random(17);
+		for (int i=0; i<500; i++) {
+			int nextNumber = random.nextInt(2000);
+			if (random.nextBoolean()) {
+				control.add(nextNumber);
+				loaded.add(nextNumber);
+			} else {
+				control.remove(nextNumber);
+				loaded.remove(nextNumber);
+			}
+		}
+		SetTests.assertEqualSets(loaded, control);
+		if (loaded instanceof SortedSet) {
+			assertEqualFirstAndLast((SortedSet<Integer>)loaded, control);
+		}
+		System.out.println("OrderedSetTests: testBulkLoaded done.");
+	}
+	
+	
+	//compares the order in which subsets and descending views iterate with a control
+	public static void testRangeIterators(NavigableSet<Integer> set)
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		int testSize = 300;
+		int testRange = 3*testSize;
+		SetTests.randomAdd(set, control, testSize, testRange);
+		assertEqualIteration(set.descendingIterator(), control.descendingIterator());
+		assertEqualIteration(set.descendingSet().iterator(), control.descendingSet().iterator());
+		
+		Random random = new Random(testSize);
+		for (int i=0; i<500; i++) {
+			int lower = random.nextInt(testRange+10)-5;
+			int upper = lower+random.nextInt(testRange/4);
+			boolean fromInclusive = random.nextBoolean();
+			boolean toInclusive = random.nextBoolean();
+			NavigableSet<Integer> subset = set.subSet(lower, fromInclusive, upper, toInclusive);
+			NavigableSet<Integer> controlSubset = control.subSet(lower, fromInclusive, upper, toInclusive);
+			assertEqualIteration(subset.iterator(), controlSubset.iterator());
+			assertEqualIteration(subset.descendingIterator(), controlSubset.descendingIterator());
+			assertEqualIteration(subset.descendingSet().iterator(), controlSubset.descendingSet().iterator());
+			assertEqualIteration(subset.descendingSet().descendingIterator(), controlSubset.descendingSet().descendingIterator());
+			assertEqualIteration(set.headSet(upper, toInclusive).descendingIterator(), control.headSet(upper, toInclusive).descendingIterator());
+			assertEqualIteration(set.tailSet(lower, fromInclusive).iterator(), control.tailSet(lower, fromInclusive).iterator());
+		}
+	}
+	
+	public static void assertEqualIteration(Iterator<Integer> iterator, Iterator<Integer> controlIterator)
+	{
+		while (controlIterator.hasNext()) {
+			assertTrue(iterator.hasNext());
+			assertEquals(controlIterator.next(), iterator.next());
+		}
+		assertFalse(iterator.hasNext());
+	}
 	
 	//SUBSETS HELPERS
 	
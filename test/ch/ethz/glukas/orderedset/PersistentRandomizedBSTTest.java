@@ -0,0 +1,213 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class PersistentRandomizedBSTTest {
+
+	@Test
+	public void testSet()
+	{
+		SetTests.testSet(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testAddAndContains()
+	{
+		SetTests.testAddAndContains(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testNavigable()
+	{
+		OrderedSetTests.testNavigation(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testSortedSet()
+	{
+		OrderedSetTests.testSortedSet(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testIterator()
+	{
+		OrderedSetTests.testIterator(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testSubsets()
+	{
+		OrderedSetTests.testSubsets(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testRangeIterators()
+	{
+		OrderedSetTests.testRangeIterators(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testTailsets()
+	{
+		OrderedSetTests.testTailSets(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testSubsetModification()
+	{
+		OrderedSetTests.testSubsetModification(new PersistentRandomizedBST<Integer>());
+	}
+
+	@Test
+	public void testAccessByRank()
+	{
+		RangeSetTest.testRangeSet(new PersistentRandomizedBST<Integer>());
+		RangeSetTest.testPolling(new PersistentRandomizedBST<Integer>());
+		RangeSetTest.testRangeSizes(new PersistentRandomizedBST<Integer>());
+	}
+
+	//a snapshot and its origin are modified independently, each must keep its own values
+	@Test
+	public void testSnapshots()
+	{
+		PersistentRandomizedBST<Integer> set = new PersistentRandomizedBST<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.randomAdd(set, control, 2000, 10000);
+
+		PersistentRandomizedBST<Integer> snapshot = set.snapshot();
+		TreeSet<Integer> snapshotControl = new TreeSet<Integer>(control);
+		Random random = new Random(3);
+		for (int i=0; i<3000; i++) {
+			Integer next = random.nextInt(10000);
+			if (random.nextBoolean()) {
+				assertEquals(control.add(next), set.add(next));
+			} else {
+				assertEquals(snapshotControl.remove(next), snapshot.remove(next));
+			}
+		}
+		set.removeRange(100, 2000, true, false);
+		control.subSet(100, true, 2000, false).clear();
+
+		OrderedSetTests.assertEqualSortedSets(set, control);
+		OrderedSetTests.assertEqualSortedSets(snapshot, snapshotControl);
+		assertTrue(set.checkInvariants());
+		assertTrue(snapshot.checkInvariants());
+	}
+
+	//an iterator traverses the version of the set at its creation
+	@Test
+	public void testIteratorIsolation()
+	{
+		PersistentRandomizedBST<Integer> set = new PersistentRandomizedBST<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.randomAdd(set, control, 1000, 5000);
+
+		TreeSet<Integer> modified = new TreeSet<Integer>(control);
+		Iterator<Integer> iterator = set.iterator();
+		for (Integer expected : control) {
+			set.add(expected+1);
+			modified.add(expected+1);
+			assertEquals(expected, iterator.next());
+			iterator.remove();
+			modified.remove(expected);
+		}
+		assertFalse(iterator.hasNext());
+		OrderedSetTests.assertEqualSortedSets(set, modified);
+	}
+
+	//after a snapshot, a modification copies only the nodes on its path
+	@Test
+	public void testStructuralSharing()
+	{
+		PersistentRandomizedBST<Integer> set = new PersistentRandomizedBST<Integer>();
+		int testSize = 1 << 14;
+		for (int i=0; i<testSize; i++) {
+			set.add(i);
+		}
+		PersistentRandomizedBST<Integer> snapshot = set.snapshot();
+		IdentityHashMap<TreeNode<Integer>, Boolean> shared = new IdentityHashMap<TreeNode<Integer>, Boolean>();
+		collectNodes(snapshot.getRoot(), shared);
+
+		int modifications = 100;
+		for (int i=0; i<modifications; i++) {
+			set.add(testSize+i);
+			set.remove(i);
+		}
+		int copied = countNodesNotIn(set.getRoot(), shared);
+		assertTrue(copied < 2*modifications*4*BinaryMath.log(testSize));
+		assertEquals(testSize, snapshot.size());
+		assertEquals(testSize, set.size());
+	}
+
+	//readers rank-query and iterate a snapshot without locking while the set is modified
+	@Test
+	public void testConcurrentSnapshotReaders() throws InterruptedException
+	{
+		final PersistentRandomizedBST<Integer> set = new PersistentRandomizedBST<Integer>();
+		for (int i=0; i<5000; i++) {
+			set.add(2*i);
+		}
+		final PersistentRandomizedBST<Integer> snapshot = set.snapshot();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		Thread reader = new Thread() {
+			public void run()
+			{
+				try {
+					for (int round=0; round<20; round++) {
+						int index = 0;
+						for (Integer value : snapshot) {
+							assertEquals(2*index, (int)value);
+							assertEquals(index, snapshot.indexOf(value));
+							assertEquals(value, snapshot.get(index));
+							index++;
+						}
+						assertEquals(5000, index);
+					}
+				} catch (Throwable e) {
+					failure.set(e);
+				}
+			}
+		};
+		reader.start();
+		Random random = new Random(1);
+		for (int i=0; i<20000; i++) {
+			Integer next = random.nextInt(10000);
+			if (random.nextBoolean()) {
+				set.add(next);
+			} else {
+				set.remove(next);
+			}
+		}
+		reader.join();
+		if (failure.get() != null) throw new AssertionError(failure.get());
+	}
+
+
+	////
+	//HELPERS
+	////
+
+	private static void collectNodes(TreeNode<Integer> node, IdentityHashMap<TreeNode<Integer>, Boolean> nodes)
+	{
+		if (node == null) return;
+		nodes.put(node, true);
+		collectNodes(node.getLeftChild(), nodes);
+		collectNodes(node.getRightChild(), nodes);
+	}
+
+	//shared subtrees are not visited
+	private static int countNodesNotIn(TreeNode<Integer> node, IdentityHashMap<TreeNode<Integer>, Boolean> nodes)
+	{
+		if (node == null || nodes.containsKey(node)) return 0;
+		return 1+countNodesNotIn(node.getLeftChild(), nodes)+countNodesNotIn(node.getRightChild(), nodes);
+	}
+}
@@ -3,7 +3,6 @@ package ch.ethz.glukas.orderedset;
 import static org.junit.Assert.*;
 
 import java.util.NavigableSet;
-import java.util.TreeSet;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -39,6 +38,18 @@ public class RandomizedBSTTest {
 	 {
 		 OrderedSetTests.testSubsets(new RandomizedBST<Integer>());
 	 }
+
+	 @Test
+	 public void testRangeIterators()
+	 {
+		 OrderedSetTests.testRangeIterators(new RandomizedBST<Integer>());
+	 }
+
+	 @Test
+	 public void testListIterator()
+	 {
+		 RangeSetTest.testListIterator(new RandomizedBST<Integer>());
+	 }
 	 
 	 @Test
 	 public void testTailsets()
@@ -82,6 +93,38 @@ public class RandomizedBSTTest {
 		 OrderedSetTests.testIterator(new SplayTree<Integer>());
 	 }
 	 
+	 @Test
+	 public void testBulkLoad()
+	 {
+		 OrderedSetTests.testBulkLoad(RandomizedBST<Integer>::new, RandomizedBST::fromSorted, RandomizedBST::fromSorted);
+	 }
+	 
+	 @Test
+	 public void testSortedAddAll()
+	 {
+		 SetTests.testSortedAddAll(new RandomizedBST<Integer>());
+	 }
+	 
+	 @Test
+	 public void testLargeAddAll()
+	 {
+		 RandomizedBST<Integer> set = new RandomizedBST<Integer>();
+		 SetTests.testLargeAddAll(set);
+		 //the subtree sizes of the merged tree are correct
+		 int index = 0;
+		 for (Integer value : set) {
+			 assertEquals(value, set.get(index));
+			 assertEquals(index, set.indexOf(value));
+			 index++;
+		 }
+	 }
+	 
+	 @Test(expected = IllegalArgumentException.class)
+	 public void testBulkLoadUnsorted()
+	 {
+		 RandomizedBST.fromSorted(new Integer[] {1, 2, 2}, null);
+	 }
+	 
 	 @Test
 	 public void testAccessByRank()
 	 {
@@ -89,5 +132,31 @@ public class RandomizedBSTTest {
 		 RangeSetTest.testPolling(new RandomizedBST<Integer>());
 		 RangeSetTest.testRangeSizes(new RandomizedBST<Integer>());
 	 }
+	 
+	 @Test
+	 public void testRemoveRange()
+	 {
+		 RangeSetTest.testRemoveRange(new RandomizedBST<Integer>());
+	 }
+	 
+	 @Test
+	 public void testFinger()
+	 {
+		 RangeSetTest.testFinger(new RandomizedBST<Integer>());
+	 }
+	 
+	 @Test
+	 public void testSetAlgebra()
+	 {
+		 RandomizedBST<Integer> set = new RandomizedBST<Integer>();
+		 SetTests.testSetAlgebra(set);
+		 //the subtree sizes of the combined tree are correct
+		 int index = 0;
+		 for (Integer value : set) {
+			 assertEquals(value, set.get(index));
+			 assertEquals(index, set.indexOf(value));
+			 index++;
+		 }
+	 }
 	
 }
@@ -2,7 +2,10 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.ListIterator;
 import java.util.Random;
+import java.util.TreeSet;
 
 import org.junit.*;
 
@@ -48,6 +51,152 @@ public class RangeSetTest {
 		System.out.println("RangeSetTests: testRangeSizes done.");
 	}
 	
+	//removes ranges with all combinations of inclusive bounds, including bounds that are not present and unbounded ranges
+	//the sizes of the ranges are checked before they are removed
+	public static void testRemoveRange(RangeSet<Integer> set)
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		Random random = new Random(5);
+		for (int i=0; i<300; i++) {
+			set.clear();
+			control.clear();
+			SetTests.randomAdd(set, control, 300, 1000);
+			int lower = random.nextInt(1100)-50;
+			int upper = lower+random.nextInt(i < 150 ? 100 : 1100);
+			boolean fromInclusive = random.nextBoolean();
+			boolean toInclusive = random.nextBoolean();
+			
+			assertEquals(control.subSet(lower, fromInclusive, upper, toInclusive).size(), set.sizeOfRange(lower, upper, fromInclusive, toInclusive));
+			assertEquals(control.headSet(upper, toInclusive).size(), set.headSet(upper, toInclusive).size());
+			assertEquals(control.tailSet(lower, fromInclusive).size(), set.tailSet(lower, fromInclusive).size());
+			set.removeRange(lower, upper, fromInclusive, toInclusive);
+			control.subSet(lower, fromInclusive, upper, toInclusive).clear();
+			assertEquals(control.size(), set.size());
+			assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+			
+			//the ranks are still consistent
+			set.add(lower);
+			control.add(lower);
+			assertEquals(control.size(), set.size());
+			assertEquals(control.headSet(lower).size(), set.indexOf(lower));
+			assertEquals(control.last(), set.get(set.size()-1));
+		}
+		
+		//equal bounds: the range is empty unless both bounds are inclusive
+		set.clear();
+		control.clear();
+		SetTests.sequenceAdd(set, control, 20);
+		for (int k=0; k<20; k+=5) {
+			set.removeRange(k, k, true, false);
+			set.removeRange(k+1, k+1, false, true);
+			set.removeRange(k+2, k+2, false, false);
+			control.subSet(k, true, k, false).clear();
+			control.subSet(k+1, false, k+1, true).clear();
+			control.subSet(k+2, false, k+2, false).clear();
+			assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+			set.removeRange(k+3, k+3, true, true);
+			control.subSet(k+3, true, k+3, true).clear();
+			assertEquals(control.size(), set.size());
+			assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+		}
+		
+		SetTests.sequenceAdd(set, control, 100);
+		set.headSet(50).clear();
+		control.headSet(50).clear();
+		assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+		set.tailSet(80, false).clear();
+		control.tailSet(80, false).clear();
+		assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+		
+		//the bounds are out of order
+		try {
+			set.removeRange(70, 60, true, true);
+			fail();
+		} catch (IllegalArgumentException e) {
+			//expected
+		}
+		assertEquals(new ArrayList<Integer>(control), new ArrayList<Integer>(set));
+		System.out.println("RangeSetTests: testRemoveRange done.");
+	}
+	
+	//moves fingers to keys near their previous position and far away, steps them back and forth
+	//values are added and removed in between, so that some fingers become stale
+	public static void testFinger(RankedTree<Integer> set)
+	{
+		set.clear();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.randomAdd(set, control, 2000, 5000);
+		Random random = new Random(6);
+		RankedTree<Integer>.Finger finger = set.locate(2500);
+		assertEquals(control.ceiling(2500), finger.value());
+		int key = 2500;
+		for (int i=0; i<20000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				key = random.nextInt(10) == 0 ? random.nextInt(5200)-100 : key+random.nextInt(41)-20;
+				assertEquals(control.contains(key), finger.moveTo(key));
+				assertEquals(control.ceiling(key), finger.value());
+			} else if (operation < 7) {
+				Integer expected = finger.value() == null ? null : control.higher(finger.value());
+				assertEquals(expected, finger.next());
+				assertEquals(expected, finger.value());
+			} else if (operation < 9) {
+				Integer current = finger.value();
+				Integer expected = current == null ? (control.isEmpty() ? null : control.last()) : control.lower(current);
+				assertEquals(expected, finger.previous());
+				assertEquals(expected == null ? current : expected, finger.value());
+			} else {
+				Integer value = random.nextInt(5000);
+				if (random.nextBoolean()) {
+					assertEquals(control.add(value), set.add(value));
+				} else {
+					Integer current = finger.value();
+					assertEquals(control.remove(value), set.remove(value));
+					if (current != null) {
+						assertEquals(control.ceiling(current), finger.value());
+					}
+				}
+			}
+		}
+		
+		//a range removal makes the finger search from the root
+		finger.moveTo(1000);
+		set.removeRange(900, 1100, true, true);
+		control.subSet(900, true, 1100, true).clear();
+		assertEquals(control.ceiling(1000), finger.value());
+		assertEquals(control.contains(1200), finger.moveTo(1200));
+		set.clear();
+		assertNull(finger.value());
+		assertFalse(finger.moveTo(1));
+		assertNull(finger.previous());
+		System.out.println("RangeSetTests: testFinger done.");
+	}
+	
+	//walks back and forth with list iterators that start at various indexes
+	public static void testListIterator(RankedTree<Integer> set)
+	{
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		SetTests.randomAdd(set, control, 500, 2000);
+		ArrayList<Integer> list = new ArrayList<Integer>(control);
+		Random random = new Random(4);
+		for (int start=0; start<=list.size(); start+=list.size()/10) {
+			ListIterator<Integer> iterator = set.listIterator(start);
+			ListIterator<Integer> controlIterator = list.listIterator(start);
+			for (int i=0; i<2000; i++) {
+				assertEquals(controlIterator.nextIndex(), iterator.nextIndex());
+				assertEquals(controlIterator.hasNext(), iterator.hasNext());
+				assertEquals(controlIterator.hasPrevious(), iterator.hasPrevious());
+				boolean forward = random.nextInt(3) > 0;
+				if (forward && controlIterator.hasNext()) {
+					assertEquals(controlIterator.next(), iterator.next());
+				} else if (!forward && controlIterator.hasPrevious()) {
+					assertEquals(controlIterator.previous(), iterator.previous());
+				}
+			}
+		}
+		System.out.println("RangeSetTests: testListIterator done.");
+	}
+	
 	 public static void testPolling(RangeSet<Integer> set)
 	 {
 		 set.clear();
@@ -2,6 +2,9 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+import java.util.TreeSet;
+
 import org.junit.Test;
 
 public class ScapegoatTreeTest {
@@ -17,4 +20,160 @@ public class ScapegoatTreeTest {
 		SetTests.testSet(new ScapegoatTree<Integer>());
 	}
 
+	@Test
+	public void testBulkLoad()
+	{
+		OrderedSetTests.testBulkLoad(ScapegoatTree<Integer>::new, ScapegoatTree::fromSorted, ScapegoatTree::fromSorted);
+	}
+	
+	@Test
+	public void testSortedAddAll()
+	{
+		SetTests.testSortedAddAll(new ScapegoatTree<Integer>());
+	}
+
+	@Test
+	public void testSetAlgebra()
+	{
+		SetTests.testSetAlgebra(new ScapegoatTree<Integer>());
+	}
+	
+	@Test
+	public void testNavigable()
+	{
+		OrderedSetTests.testNavigation(new ScapegoatTree<Integer>());
+		OrderedSetTests.testPolling(new ScapegoatTree<Integer>());
+		OrderedSetTests.testSortedSet(new ScapegoatTree<Integer>());
+	}
+	
+	@Test
+	public void testSubsets()
+	{
+		OrderedSetTests.testSubsets(new ScapegoatTree<Integer>());
+		OrderedSetTests.testTailSets(new ScapegoatTree<Integer>());
+		OrderedSetTests.testSubsetModification(new ScapegoatTree<Integer>());
+		OrderedSetTests.testRangeIterators(new ScapegoatTree<Integer>());
+	}
+	
+	@Test
+	public void testAccessByRank()
+	{
+		for (int sizedHeight=0; sizedHeight<=3; sizedHeight++) {
+			RangeSetTest.testRangeSet(new ScapegoatTree<Integer>(null, sizedHeight));
+			RangeSetTest.testPolling(new ScapegoatTree<Integer>(null, sizedHeight));
+			RangeSetTest.testRangeSizes(new ScapegoatTree<Integer>(null, sizedHeight));
+			RangeSetTest.testRemoveRange(new ScapegoatTree<Integer>(null, sizedHeight));
+			RangeSetTest.testListIterator(new ScapegoatTree<Integer>(null, sizedHeight));
+			RangeSetTest.testFinger(new ScapegoatTree<Integer>(null, sizedHeight));
+		}
+	}
+	
+	@Test
+	public void testSlimNodes()
+	{
+		//the ranks stay correct while the rebuilds and the insertions move nodes across the height cutoff
+		for (int sizedHeight=0; sizedHeight<=3; sizedHeight++) {
+			ScapegoatTree<Integer> set = new ScapegoatTree<Integer>(null, sizedHeight);
+			TreeSet<Integer> control = new TreeSet<Integer>();
+			Random random = new Random(sizedHeight);
+			for (int i=0; i<20000; i++) {
+				Integer value = random.nextInt(3000);
+				if (random.nextInt(3) > 0) {
+					assertEquals(control.add(value), set.add(value));
+				} else {
+					assertEquals(control.remove(value), set.remove(value));
+				}
+				if (i % 500 == 0) {
+					assertTrue(set.checkInvariants());
+					Integer middle = random.nextInt(3000);
+					assertEquals(control.headSet(middle).size(), set.sizeOfRange(null, middle, true, false));
+				}
+			}
+			SetTests.assertEqualSets(set, control);
+			int index = 0;
+			for (Integer value : control) {
+				assertEquals(value, set.get(index));
+				assertEquals(index, set.indexOf(value));
+				index++;
+			}
+			
+			//sequential insertions trigger many rebuilds
+			set.clear();
+			for (int i=0; i<5000; i++) {
+				set.add(i);
+			}
+			assertTrue(set.checkInvariants());
+			for (int i=0; i<5000; i+=7) {
+				assertEquals(i, set.indexOf(i));
+			}
+		}
+	}
+	
+	@Test
+	public void testParallelRebuild()
+	{
+		//small thresholds split the rebuilds many times
+		for (int sizedHeight=0; sizedHeight<=2; sizedHeight+=2) {
+			for (int threshold=1; threshold<=64; threshold*=8) {
+				ScapegoatTree<Integer> set = new ScapegoatTree<Integer>(null, sizedHeight);
+				set.setParallelRebuildThreshold(threshold);
+				TreeSet<Integer> control = new TreeSet<Integer>();
+				for (int i=0; i<3000; i++) {
+					set.add(i);
+					control.add(i);
+				}
+				Random random = new Random(threshold);
+				for (int i=0; i<6000; i++) {
+					Integer value = random.nextInt(6000);
+					if (random.nextBoolean()) {
+						assertEquals(control.add(value), set.add(value));
+					} else {
+						assertEquals(control.remove(value), set.remove(value));
+					}
+				}
+				//the removals shrink the tree until it is rebuilt as a whole
+				for (int i=0; i<6000; i+=2) {
+					Integer value = i;
+					assertEquals(control.remove(value), set.remove(value));
+				}
+				assertTrue(set.checkInvariants());
+				SetTests.assertEqualSets(set, control);
+				int index = 0;
+				for (Integer value : control) {
+					assertEquals(value, set.get(index));
+					assertEquals(index, set.indexOf(value));
+					index++;
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testFingerAfterRemovingLower()
+	{
+		//removing the key just below the finger must not move the finger past keys that are still present
+		for (int sizedHeight=0; sizedHeight<=3; sizedHeight+=3) {
+			for (int seed=0; seed<200; seed++) {
+				ScapegoatTree<Integer> set = new ScapegoatTree<Integer>(null, sizedHeight);
+				TreeSet<Integer> control = new TreeSet<Integer>();
+				Random random = new Random(seed);
+				SetTests.randomAdd(set, control, 5+random.nextInt(60), 100);
+				for (int i=0; i<20; i++) {
+					Integer key = random.nextInt(100);
+					RankedTree<Integer>.Finger finger = set.locate(key);
+					Integer lower = control.lower(key);
+					if (lower == null) continue;
+					assertEquals(control.remove(lower), set.remove(lower));
+					assertEquals(control.ceiling(key), finger.value());
+					assertEquals(control.lower(key), finger.previous());
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeSizedHeight()
+	{
+		new ScapegoatTree<Integer>(null, -1);
+	}
 }
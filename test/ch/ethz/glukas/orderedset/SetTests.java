@@ -2,6 +2,8 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Random;
@@ -117,6 +119,119 @@ public class SetTests {
 	//HELPERS
 	////
 	
+	//addAll takes a fast path for sorted input: the result must be the same as adding the values one by one
+	//the set is assumed to be empty and to use the natural ordering
+	public static void testSortedAddAll(Set<Integer> set)
+	{
+		Set<Integer> control = new HashSet<Integer>();
+		
+		//into the empty set
+		ArrayList<Integer> values = new ArrayList<Integer>();
+		for (int i=0; i<1000; i+=2) {
+			values.add(i);
+		}
+		assertEquals(control.addAll(values), set.addAll(values));
+		assertEqualSets(set, control);
+		
+		//merged with the values of the set, including duplicates
+		values.clear();
+		for (int i=0; i<2000; i+=3) {
+			values.add(i);
+			values.add(i);
+		}
+		assertEquals(control.addAll(values), set.addAll(values));
+		assertEqualSets(set, control);
+		assertFalse(set.addAll(values));
+		
+		//unsorted input is added one by one
+		Collections.shuffle(values, new Random(4));
+		values.add(-1);
+		assertEquals(control.addAll(values), set.addAll(values));
+		assertEqualSets(set, control);
+		System.out.println("SetTests: testSortedAddAll done.");
+	}
+	
+	//addAll with batches large enough to be merged in parallel, unsorted and sorted, overlapping with the set and with duplicates
+	public static void testLargeAddAll(Set<Integer> set)
+	{
+		testLargeAddAll(set, 50000);
+	}
+	
+	//the same with values below 'range', for sets that check their invariants on every update
+	public static void testLargeAddAll(Set<Integer> set, int range)
+	{
+		Set<Integer> control = new HashSet<Integer>();
+		randomAdd(set, control, range/10, range);
+		
+		ArrayList<Integer> values = new ArrayList<Integer>();
+		Random random = new Random(6);
+		for (int i=0; i<range*2/5; i++) {
+			values.add(random.nextInt(range));
+		}
+		assertEquals(control.addAll(values), set.addAll(values));
+		assertEqualSets(set, control);
+		
+		Collections.sort(values);
+		assertFalse(set.addAll(values));
+		assertEqualSets(set, control);
+		
+		values.clear();
+		for (int i=-range/5; i<range*6/5; i+=7) {
+			values.add(i);
+		}
+		assertEquals(control.addAll(values), set.addAll(values));
+		assertEqualSets(set, control);
+		System.out.println("SetTests: testLargeAddAll done.");
+	}
+	
+	//each set operation with small and large (parallel) operands, sorted and unsorted, with duplicates and with empty operands
+	public static void testSetAlgebra(BinarySearchTree<Integer> set)
+	{
+		Set<Integer> control = new HashSet<Integer>();
+		randomAdd(set, control, 3000, 10000);
+		Random random = new Random(8);
+		
+		for (int round=0; round<12; round++) {
+			int operandSize = round % 3 == 0 ? 0 : (round % 3 == 1 ? 500 : 30000);
+			int range = round < 6 ? 10000 : 60000;
+			ArrayList<Integer> other = new ArrayList<Integer>();
+			for (int i=0; i<operandSize; i++) {
+				other.add(random.nextInt(range));
+			}
+			if (round % 2 == 0) Collections.sort(other);
+			
+			boolean modified;
+			boolean expected;
+			switch (round % 4) {
+			case 0:
+				modified = set.unionWith(other);
+				expected = control.addAll(other);
+				break;
+			case 1:
+				modified = set.intersectWith(other);
+				expected = control.retainAll(new HashSet<Integer>(other));
+				break;
+			case 2:
+				modified = set.differenceWith(other);
+				expected = control.removeAll(new HashSet<Integer>(other));
+				break;
+			default:
+				modified = set.symmetricDifference(other);
+				Set<Integer> common = new HashSet<Integer>(other);
+				common.retainAll(control);
+				control.addAll(other);
+				control.removeAll(common);
+				expected = !other.isEmpty();
+			}
+			assertEquals(expected, modified);
+			assertEqualSets(set, control);
+			
+			//keep the set from running empty
+			randomAdd(set, control, 3000, range);
+		}
+		System.out.println("SetTests: testSetAlgebra done.");
+	}
+	
 	public static void sequenceAdd(Set<Integer> set1, int testSize)
 	{
 		sequenceAdd(set1, null, testSize);
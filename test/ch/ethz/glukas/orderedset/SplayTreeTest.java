@@ -2,6 +2,7 @@ package ch.ethz.glukas.orderedset;
 
 import static org.junit.Assert.*;
 
+
 import org.junit.Test;
 
 public class SplayTreeTest {
@@ -44,6 +45,35 @@ public class SplayTreeTest {
 		RangeSetTest.testRangeSizes(new SplayTree<Integer>());
 	}
 	
+	@Test
+	public void testRemoveRange()
+	{
+		RangeSetTest.testRemoveRange(new SplayTree<Integer>());
+		RangeSetTest.testRemoveRange(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+	}
+	
+	@Test
+	public void testFinger()
+	{
+		RangeSetTest.testFinger(new SplayTree<Integer>());
+		RangeSetTest.testFinger(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+		SplayTree<Integer> semiSplay = new SplayTree<Integer>();
+		semiSplay.setLookup(SplayTree.Lookup.SEMI_SPLAY);
+		RangeSetTest.testFinger(semiSplay);
+	}
+	
+	@Test
+	public void testBulkLoad()
+	{
+		OrderedSetTests.testBulkLoad(SplayTree<Integer>::new, SplayTree::fromSorted, SplayTree::fromSorted);
+	}
+	
+	@Test
+	public void testSortedAddAll()
+	{
+		SetTests.testSortedAddAll(new SplayTree<Integer>());
+	}
+	
 	@Test
 	public void testIterator()
 	{
@@ -56,6 +86,18 @@ public class SplayTreeTest {
 	{
 		OrderedSetTests.testSubsets(new SplayTree<Integer>());
 	}
+
+	@Test
+	public void testRangeIterators()
+	{
+		OrderedSetTests.testRangeIterators(new SplayTree<Integer>());
+	}
+
+	@Test
+	public void testListIterator()
+	{
+		RangeSetTest.testListIterator(new SplayTree<Integer>());
+	}
 	 
 	@Test
 	public void testTailsets()
@@ -68,6 +110,126 @@ public class SplayTreeTest {
 	{
 		OrderedSetTests.testSubsetModification(new SplayTree<Integer>());
 	}
+
+	@Test
+	public void testSetAlgebra()
+	{
+		SetTests.testSetAlgebra(new SplayTree<Integer>());
+	}
+
+	@Test
+	public void testTopDownSet()
+	{
+		SetTests.testSet(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+		SetTests.randomizedTestSet(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN), 2000);
+	}
+	
+	@Test
+	public void testTopDownNavigation()
+	{
+		OrderedSetTests.testNavigation(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+		OrderedSetTests.testSortedSet(new SplayTree<Integer>(null, SplayTree.Splaying.TOP_DOWN));
+	}
+	
+	@Test
+	public void testTopDownEmptyNavigation()
+	{
+		SplayTree<Integer> tree = new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN);
+		assertEmptyNavigation(tree);
+		tree.add(3);
+		tree.remove((Integer)3);
+		assertEmptyNavigation(tree);
+	}
+	
+	private static void assertEmptyNavigation(SplayTree<Integer> tree)
+	{
+		assertNull(tree.floor(5));
+		assertNull(tree.lower(5));
+		assertNull(tree.higher(5));
+		assertNull(tree.ceiling(5));
+		assertFalse(tree.contains(5));
+	}
+	
+	@Test
+	public void testTopDownAccessByRank()
+	{
+		RangeSetTest.testRangeSet(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+		RangeSetTest.testPolling(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+		RangeSetTest.testRangeSizes(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+		RangeSetTest.testListIterator(new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN));
+	}
 	
+	//both algorithms move the accessed value, or the last value on its search path, to the root
+	@Test
+	public void testTopDownSplaysToRoot()
+	{
+		SplayTree<Integer> topDown = new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN);
+		SplayTree<Integer> bottomUp = new SplayTree<Integer>(SplayTree.Splaying.BOTTOM_UP);
+		for (int i=0; i<1000; i++) {
+			topDown.add(2*i);
+			bottomUp.add(2*i);
+		}
+		for (int i=0; i<2000; i+=7) {
+			assertEquals(bottomUp.contains(i), topDown.contains(i));
+			if (i%2 == 0) {
+				assertEquals(i, (int)topDown.getRoot().getValue());
+			}
+			assertEquals(i/2, topDown.indexOf(i-i%2));
+			assertTrue(topDown.checkInvariants());
+		}
+		assertEquals(bottomUp.size(), topDown.size());
+	}
 	
+	@Test
+	public void testLookupModes()
+	{
+		for (SplayTree.Lookup lookup : SplayTree.Lookup.values()) {
+			SplayTree<Integer> tree = new SplayTree<Integer>();
+			tree.setLookup(lookup);
+			SetTests.randomizedTestSet(tree, 2000);
+			tree = new SplayTree<Integer>(SplayTree.Splaying.TOP_DOWN);
+			tree.setLookup(lookup, 3);
+			OrderedSetTests.testNavigation(tree);
+			tree = new SplayTree<Integer>();
+			tree.setLookup(lookup);
+			RangeSetTest.testRangeSizes(tree);
+		}
+	}
+	
+	//read only lookups do not modify the tree, semi-splaying brings a deep value closer to the root
+	@Test
+	public void testLookupRestructuring()
+	{
+		SplayTree<Integer> tree = new SplayTree<Integer>();
+		for (int i=0; i<1024; i++) {
+			tree.add(i);//the tree degenerates to a path to the left
+		}
+		tree.setLookup(SplayTree.Lookup.READ_ONLY);
+		assertTrue(tree.contains(0));
+		assertFalse(tree.contains(-1));
+		assertEquals(1023, (int)tree.getRoot().getValue());
+		assertEquals(1024, depth(tree.getRoot(), 0));
+		
+		tree.setLookup(SplayTree.Lookup.SEMI_SPLAY);
+		assertTrue(tree.contains(0));
+		assertTrue(depth(tree.getRoot(), 0) <= 513);
+		assertTrue(tree.checkInvariants());
+		
+		tree.setLookup(SplayTree.Lookup.DEEP, 20);
+		assertTrue(tree.contains(0));
+		assertEquals(0, (int)tree.getRoot().getValue());
+		assertTrue(tree.contains(tree.getRoot().getRightChild().getValue()));
+		assertEquals(0, (int)tree.getRoot().getValue());
+	}
+	
+	//the number of nodes on the path to the value
+	private static int depth(TreeNode<Integer> node, int value)
+	{
+		int depth = 1;
+		while (node.getValue() != value) {
+			node = node.getChild(value-node.getValue());
+			depth++;
+		}
+		return depth;
+	}
 }
@@ -0,0 +1,42 @@
+package ch.ethz.glukas.orderedset;
+
+import org.junit.Test;
+
+public class TreapTest {
+
+	@Test
+	public void testSetAddAndContains()
+	{
+		SetTests.testAddAndContains(new Treap<Integer>());
+	}
+
+	@Test
+	public void testBulkLoad()
+	{
+		OrderedSetTests.testBulkLoad(Treap<Integer>::new, Treap::fromSorted, Treap::fromSorted);
+	}
+
+	@Test
+	public void testSortedAddAll()
+	{
+		SetTests.testSortedAddAll(new Treap<Integer>());
+	}
+
+	@Test
+	public void testLargeAddAll()
+	{
+		SetTests.testLargeAddAll(new Treap<Integer>());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkLoadUnsorted()
+	{
+		Treap.fromSorted(new Integer[] {1, 3, 2}, null);
+	}
+
+	@Test
+	public void testSetAlgebra()
+	{
+		SetTests.testSetAlgebra(new Treap<Integer>());
+	}
+}
@@ -0,0 +1,161 @@
+package ch.ethz.glukas.orderedset;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class WAVLTreeTest {
+
+	@Test
+	public void testPolling()
+	{
+		OrderedSetTests.testPolling(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testNavigable()
+	{
+		OrderedSetTests.testNavigation(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testSubsets()
+	{
+		OrderedSetTests.testSubsets(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testRangeIterators()
+	{
+		OrderedSetTests.testRangeIterators(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testListIterator()
+	{
+		RangeSetTest.testListIterator(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testTailsets()
+	{
+		OrderedSetTests.testTailSets(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testSubsetModification()
+	{
+		OrderedSetTests.testSubsetModification(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testSet()
+	{
+		SetTests.testSet(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testAddAndContains()
+	{
+		SetTests.testAddAndContains(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testSortedSet()
+	{
+		OrderedSetTests.testSortedSet(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testSetRandomized()
+	{
+		SetTests.randomTestSet(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testBulkLoad()
+	{
+		OrderedSetTests.testBulkLoad(WAVLTree<Integer>::new, WAVLTree::fromSorted, WAVLTree::fromSorted);
+	}
+	
+	@Test
+	public void testLargeAddAll()
+	{
+		WAVLTree<Integer> set = new WAVLTree<Integer>();
+		SetTests.testLargeAddAll(set, 5000);
+		//the rebuilt tree has valid ranks
+		assertTrue(set.ranksConsistent(set.getRoot()));
+		int size = set.size();
+		for (Integer value : set.toArray(new Integer[0])) {
+			set.remove(value);
+			set.add(value);
+		}
+		assertEquals(size, set.size());
+		assertTrue(set.ranksConsistent(set.getRoot()));
+	}
+	
+	@Test
+	public void testAccessByRank()
+	{
+		RangeSetTest.testRangeSet(new WAVLTree<Integer>());
+		RangeSetTest.testPolling(new WAVLTree<Integer>());
+		RangeSetTest.testRangeSizes(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testRemoveRange()
+	{
+		RangeSetTest.testRemoveRange(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testFinger()
+	{
+		RangeSetTest.testFinger(new WAVLTree<Integer>());
+	}
+	
+	@Test
+	public void testRanks()
+	{
+		WAVLTree<Integer> set = new WAVLTree<Integer>();
+		TreeSet<Integer> control = new TreeSet<Integer>();
+		Random random = new Random(1);
+		for (int i=0; i<4000; i++) {
+			Integer value = random.nextInt(2000);
+			if (random.nextBoolean()) {
+				assertEquals(control.add(value), set.add(value));
+			} else {
+				assertEquals(control.remove(value), set.remove(value));
+			}
+			if (i % 500 == 0) {
+				assertTrue(set.ranksConsistent(set.getRoot()));
+			}
+		}
+		assertTrue(set.ranksConsistent(set.getRoot()));
+		SetTests.assertEqualSets(set, control);
+		for (int i=0; i<control.size(); i++) {
+			assertEquals(i, set.indexOf(set.get(i)));
+		}
+	}
+	
+	@Test
+	public void testHeight()
+	{
+		//the height of a weak AVL tree is at most 2 log n, and at most 1.44 log n for insertions only
+		WAVLTree<Integer> set = new WAVLTree<Integer>();
+		int size = 1 << 12;
+		for (int i=0; i<size; i++) {
+			set.add(i);
+		}
+		assertTrue(set.height() <= 1.45*BinaryMath.log(size)+2);
+		
+		for (Integer value=0; value<size; value+=2) {
+			set.remove(value);
+		}
+		assertTrue(set.height() <= 2*BinaryMath.log(size)+2);
+		assertTrue(set.ranksConsistent(set.getRoot()));
+	}
+}